@@ -0,0 +1,194 @@
+package com.example.Rum.aggregation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch).
+ *
+ * Non-negative values are counted in logarithmic bins of ratio gamma = (1 + a) / (1 - a),
+ * so any quantile is returned within relative accuracy a of the true sample value,
+ * independent of the distribution. Merging adds bin counts and is exact. Values below
+ * MIN_INDEXABLE (including zero) share a single zero bin. Counts are weighted, so a value
+ * kept by sampling at rate r can be added with weight 1/r. Not thread-safe; callers synchronize.
+ */
+public class DDSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+    private static final int INITIAL_BINS = 32;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    // counts[i] holds the bin with index (offset + i)
+    private double[] counts = new double[0];
+    private int offset;
+    private double zeroCount;
+    private double count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DDSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a value standing for weight values
+     */
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || !(weight > 0)) {
+            return;
+        }
+        double clamped = Math.max(0, value);
+        if (clamped < MIN_INDEXABLE) {
+            zeroCount += weight;
+        } else {
+            increment((int) Math.ceil(Math.log(clamped) / logGamma), weight);
+        }
+        count += weight;
+        sum += clamped * weight;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Fold another sketch with the same relative accuracy into this one
+     */
+    public void merge(DDSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge DDSketches of different relative accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                increment(other.offset + i, other.counts[i]);
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Value at quantile q (0..1), or 0 for an empty sketch
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0.0;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        double rank = Math.floor(q * (count - 1));
+        double seen = zeroCount;
+        if (rank < seen) {
+            return 0.0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Bin (gamma^(k-1), gamma^k] is represented by the value with equal relative error to both ends
+                double value = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Sum of weights, rounded: the number of values added when none was weighted
+     */
+    public long getCount() {
+        return Math.round(count);
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /**
+     * Serialized form: relative accuracy, offset, zero count, count, sum, min, max, then the bins
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 5 * 8 + 4 + counts.length * Double.BYTES)
+                .putDouble(relativeAccuracy).putInt(offset)
+                .putDouble(zeroCount).putDouble(count).putDouble(sum).putDouble(min).putDouble(max)
+                .putInt(counts.length);
+        for (double bin : counts) {
+            buffer.putDouble(bin);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Read a sketch written by toBytes
+     */
+    public static DDSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        DDSketch sketch = new DDSketch(buffer.getDouble());
+        sketch.offset = buffer.getInt();
+        sketch.zeroCount = buffer.getDouble();
+        sketch.count = buffer.getDouble();
+        sketch.sum = buffer.getDouble();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.counts = new double[buffer.getInt()];
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = buffer.getDouble();
+        }
+        return sketch;
+    }
+
+    private void increment(int index, double by) {
+        if (counts.length == 0) {
+            counts = new double[INITIAL_BINS];
+            offset = index - INITIAL_BINS / 2;
+        }
+        if (index < offset) {
+            int grow = offset - index;
+            double[] resized = new double[counts.length + Math.max(grow, counts.length / 2)];
+            int shift = resized.length - counts.length;
+            System.arraycopy(counts, 0, resized, shift, counts.length);
+            counts = resized;
+            offset -= shift;
+        } else if (index >= offset + counts.length) {
+            int needed = index - offset + 1;
+            counts = Arrays.copyOf(counts, Math.max(needed, counts.length + counts.length / 2));
+        }
+        counts[index - offset] += by;
+    }
+}
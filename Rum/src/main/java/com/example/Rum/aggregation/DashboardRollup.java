@@ -0,0 +1,95 @@
+package com.example.Rum.aggregation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard counters for one minute, hour or day of event time. Counts are sums of sample
+ * weights, so an event kept by sampling at rate r counts 1/r times; callers round them.
+ */
+@Getter
+public class DashboardRollup {
+
+    private double pageViews;
+    private double errors;
+    private double pageSpeedCount;
+    private double loadTimeSum;
+    // Not synchronized: every ingest thread updates the current minute, and a virtual thread
+    // blocked on a contended monitor pins its carrier thread (JDK 21)
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public void addPageView(double weight) {
+        lock.lock();
+        try {
+            pageViews += weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addError(double weight) {
+        lock.lock();
+        try {
+            errors += weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addPageSpeed(double loadTime, double weight) {
+        lock.lock();
+        try {
+            pageSpeedCount += weight;
+            loadTimeSum += loadTime * weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fold this minute into a running range summary
+     */
+    public void mergeInto(DashboardRollup target) {
+        lock.lock();
+        try {
+            target.pageViews += pageViews;
+            target.errors += errors;
+            target.pageSpeedCount += pageSpeedCount;
+            target.loadTimeSum += loadTimeSum;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the counters, for saving the bucket (see TieredBuckets.save)
+     */
+    public void write(DataOutput out) throws IOException {
+        lock.lock();
+        try {
+            out.writeDouble(pageViews);
+            out.writeDouble(errors);
+            out.writeDouble(pageSpeedCount);
+            out.writeDouble(loadTimeSum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read counters written by write
+     */
+    public static DashboardRollup read(DataInput in) throws IOException {
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.pageViews = in.readDouble();
+        rollup.errors = in.readDouble();
+        rollup.pageSpeedCount = in.readDouble();
+        rollup.loadTimeSum = in.readDouble();
+        return rollup;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.TrackedEvent;
+import com.example.Rum.model.UserAgentDimensions;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Event attributes that aggregates can be filtered and grouped by
+ */
+public enum Dimension {
+    PAGE_URL("pageUrl"),
+    BROWSER("browser"),
+    OS("os"),
+    DEVICE_TYPE("deviceType");
+
+    private final String name;
+
+    Dimension(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Value of this dimension on an event, or null if the event has none
+     */
+    public String valueOf(TrackedEvent event) {
+        if (this == PAGE_URL) {
+            return event.getPageUrl();
+        }
+        if (!(event instanceof UserAgentDimensions)) {
+            return null;
+        }
+        UserAgentDimensions agent = (UserAgentDimensions) event;
+        switch (this) {
+            case BROWSER:
+                return agent.getBrowser();
+            case OS:
+                return agent.getOs();
+            case DEVICE_TYPE:
+                return agent.getDeviceType();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static Dimension of(String name) {
+        for (Dimension dimension : values()) {
+            if (dimension.name.equals(name)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension '" + name + "', expected one of "
+                + Arrays.stream(values()).map(Dimension::getName).toList());
+    }
+
+    /**
+     * The single dimension filter of a name to value map
+     * @return null when the map is empty
+     * @throws IllegalArgumentException for an unknown name or more than one filter
+     */
+    public static Map.Entry<Dimension, String> single(Map<String, String> filters) {
+        if (filters.size() > 1) {
+            throw new IllegalArgumentException("Aggregates can be filtered on one dimension at a time, got " + filters.keySet());
+        }
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            return Map.entry(of(filter.getKey()), filter.getValue());
+        }
+        return null;
+    }
+}
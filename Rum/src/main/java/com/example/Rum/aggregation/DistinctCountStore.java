@@ -0,0 +1,167 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.TrackedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HyperLogLog sketches of distinct sessions and users per application and minute, hour
+ * and day, overall and per page, updated for every ingested event of every type, including
+ * the ones sampling leaves out: a sketch cannot be up-weighted like a count.
+ *
+ * A range is answered by merging the sketches of the coarsest buckets that cover it
+ * (see TieredBuckets); merging is
+ * lossless, so the estimate for any range has the same error bound as a single sketch
+ * (see SketchProperties.precision).
+ *
+ * Sketches live in memory. Closed hour and day buckets are saved to disk and loaded on
+ * startup (see TierSnapshots); the minute buckets are rebuilt from the stored raw events,
+ * without the sessions of events sampling left out.
+ */
+@Component
+public class DistinctCountStore {
+
+    private final int precision;
+    private final TierProperties tierProperties;
+    private final Map<String, TieredBuckets<Bucket>> apps = new ConcurrentHashMap<>();
+    private final TieredBuckets.Codec<Bucket> codec = new TieredBuckets.Codec<>() {
+        @Override
+        public void write(Bucket bucket, DataOutput out) throws IOException {
+            bucket.all.write(out);
+            Map<String, SessionUserSketch> byPage = Map.copyOf(bucket.byPage);
+            out.writeInt(byPage.size());
+            for (Map.Entry<String, SessionUserSketch> page : byPage.entrySet()) {
+                TieredBuckets.Codec.writeString(out, page.getKey());
+                page.getValue().write(out);
+            }
+        }
+
+        @Override
+        public Bucket read(DataInput in) throws IOException {
+            Bucket bucket = new Bucket(SessionUserSketch.read(in));
+            for (int i = in.readInt(); i > 0; i--) {
+                bucket.byPage.put(TieredBuckets.Codec.readString(in), SessionUserSketch.read(in));
+            }
+            return bucket;
+        }
+    };
+
+    public DistinctCountStore(SketchProperties properties, TierProperties tierProperties) {
+        this.precision = properties.getPrecision();
+        this.tierProperties = tierProperties;
+        // Fail fast on a bad precision rather than on the first event
+        new HyperLogLog(precision);
+    }
+
+    public void record(List<? extends TrackedEvent> events) {
+        for (TrackedEvent event : events) {
+            record(event.getAppKey(), TimeBuckets.epochMillis(event.getEventTimestamp()), event.getSessionId(),
+                    event.getUserId(), event.getPageUrl());
+        }
+    }
+
+    /**
+     * Record the session and user of an event that is not stored, such as one left out by
+     * sampling, so distinct counts cover every event received
+     */
+    public void record(String appKey, long epochMs, String sessionId, String userId, String pageUrl) {
+        for (Bucket bucket : buckets(appKey).bucketsFor(epochMs)) {
+            bucket.all.add(sessionId, userId);
+            if (pageUrl != null) {
+                bucket.byPage.computeIfAbsent(pageUrl, key -> new SessionUserSketch(precision)).add(sessionId, userId);
+            }
+        }
+    }
+
+    /**
+     * Merged sketch of an application for the minutes overlapping [startMs, endMs]
+     * @param pageUrl restrict to one page, or null for all pages
+     */
+    public SessionUserSketch query(String appKey, long startMs, long endMs, String pageUrl) {
+        SessionUserSketch merged = new SessionUserSketch(precision);
+        TieredBuckets<Bucket> buckets = apps.get(appKey);
+        if (buckets == null) {
+            return merged;
+        }
+        for (Bucket bucket : buckets.cover(startMs, endMs)) {
+            SessionUserSketch sketch = pageUrl == null ? bucket.all : bucket.byPage.get(pageUrl);
+            if (sketch != null) {
+                sketch.mergeInto(merged);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Distinct sessions and users of an application per bucket of one tier overlapping [startMs, endMs]
+     */
+    public Map<Long, SessionUserSketch> series(String appKey, long startMs, long endMs, TieredBuckets.Tier resolution) {
+        TieredBuckets<Bucket> buckets = apps.get(appKey);
+        Map<Long, SessionUserSketch> series = new TreeMap<>();
+        if (buckets != null) {
+            buckets.series(resolution, startMs, endMs).forEach((start, bucket) -> {
+                SessionUserSketch copy = new SessionUserSketch(precision);
+                bucket.all.mergeInto(copy);
+                series.put(start, copy);
+            });
+        }
+        return series;
+    }
+
+    /**
+     * Save the closed hour and day buckets of every application, one sub-directory each
+     * @return the number of files written
+     */
+    public int save(Path directory, long nowMs) {
+        int written = 0;
+        for (Map.Entry<String, TieredBuckets<Bucket>> app : apps.entrySet()) {
+            written += app.getValue().save(directory.resolve(app.getKey()), nowMs);
+        }
+        return written;
+    }
+
+    /**
+     * Load the buckets saved by save, replacing the ones held for the same application and start
+     * @return the number of buckets read
+     */
+    public int load(Path directory, long nowMs) {
+        int loaded = 0;
+        for (String appKey : TierSnapshots.appKeys(directory)) {
+            loaded += buckets(appKey).load(directory.resolve(appKey), nowMs);
+        }
+        return loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${rum.aggregation.expire-interval-ms:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        for (TieredBuckets<Bucket> buckets : apps.values()) {
+            buckets.expire(now);
+        }
+    }
+
+    private TieredBuckets<Bucket> buckets(String appKey) {
+        return apps.computeIfAbsent(appKey, key -> new TieredBuckets<>(tierProperties, Bucket::new, codec));
+    }
+
+    private class Bucket {
+        private final SessionUserSketch all;
+        private final Map<String, SessionUserSketch> byPage = new ConcurrentHashMap<>();
+
+        private Bucket() {
+            this(new SessionUserSketch(precision));
+        }
+
+        private Bucket(SessionUserSketch all) {
+            this.all = all;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.ErrorEvent;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Groups error occurrences into issues: the fingerprint is a SHA-256 over the error type,
+ * the normalized message and source, and the top stack frames.
+ *
+ * Normalization removes what varies between occurrences of the same bug: numbers, ids,
+ * quoted values and URLs in the message; query strings, content hashes in bundle names
+ * and line/column positions in sources and frames (they move with every deploy).
+ */
+public final class ErrorFingerprinter {
+
+    static final int TOP_FRAMES = 3;
+
+    private static final Pattern URL = Pattern.compile("\\b[a-zA-Z][a-zA-Z0-9+.-]*://\\S+");
+    private static final Pattern UUID = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"|`[^`]*`");
+    private static final Pattern HEX = Pattern.compile("\\b0x[0-9a-fA-F]+\\b|\\b(?=[0-9a-fA-F]*\\d)[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern QUERY = Pattern.compile("[?#].*$");
+    private static final Pattern POSITION = Pattern.compile("(:\\d+){1,2}$");
+    private static final Pattern CONTENT_HASH = Pattern.compile("[.-](?=[0-9a-fA-F]*\\d)[0-9a-fA-F]{6,}(?=\\.)");
+
+    // Chrome/Edge/Node: "at fn (file:1:2)" or "at file:1:2"; Firefox/Safari: "fn@file:1:2". A
+    // Gecko frame must end in a position, or a V8 header line such as "TypeError: no user@host"
+    // would be taken for one
+    private static final Pattern V8_FRAME = Pattern.compile("^\\s*at\\s+(?:(.*?)\\s+\\()?(.+?)\\)?\\s*$");
+    private static final Pattern GECKO_FRAME = Pattern.compile("^\\s*(.*?)@(.+?:\\d+(?::\\d+)?)\\s*$");
+
+    private static final int MAX_MESSAGE = 500;
+
+    private ErrorFingerprinter() {
+    }
+
+    public static String fingerprint(ErrorEvent event) {
+        StringBuilder key = new StringBuilder()
+                .append(event.getErrorType()).append('\n')
+                .append(normalizeMessage(event.getMessage())).append('\n')
+                .append(normalizeSource(event.getSource()));
+        for (String frame : topFrames(event.getStack())) {
+            key.append('\n').append(frame);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String normalizeMessage(String message) {
+        if (message == null) {
+            return "";
+        }
+        String normalized = URL.matcher(message).replaceAll("<url>");
+        normalized = UUID.matcher(normalized).replaceAll("<id>");
+        normalized = QUOTED.matcher(normalized).replaceAll("<s>");
+        normalized = HEX.matcher(normalized).replaceAll("<id>");
+        normalized = NUMBER.matcher(normalized).replaceAll("<n>");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return normalized.length() > MAX_MESSAGE ? normalized.substring(0, MAX_MESSAGE) : normalized;
+    }
+
+    static String normalizeSource(String source) {
+        if (source == null) {
+            return "";
+        }
+        String normalized = POSITION.matcher(source.trim()).replaceAll("");
+        normalized = QUERY.matcher(normalized).replaceAll("");
+        return CONTENT_HASH.matcher(normalized).replaceAll("");
+    }
+
+    /**
+     * "function@source" of the first frames that name a source, innermost first
+     */
+    static List<String> topFrames(String stack) {
+        List<String> frames = new ArrayList<>(TOP_FRAMES);
+        if (stack == null) {
+            return frames;
+        }
+        for (String line : stack.split("\n")) {
+            Matcher matcher = V8_FRAME.matcher(line);
+            if (!matcher.matches()) {
+                matcher = GECKO_FRAME.matcher(line);
+                if (!matcher.matches()) {
+                    continue;
+                }
+            }
+            String function = matcher.group(1) == null || matcher.group(1).isBlank() ? "?" : matcher.group(1).trim();
+            String source = normalizeSource(matcher.group(2));
+            if (source.isEmpty()) {
+                continue;
+            }
+            frames.add(function + "@" + source);
+            if (frames.size() == TOP_FRAMES) {
+                break;
+            }
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.dto.response.ErrorIssueResponseDTO;
+import com.example.Rum.model.ErrorEvent;
+import com.example.Rum.model.ErrorIssue;
+import com.example.Rum.repository.ErrorIssueRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Error issues (occurrences of one application grouped by ErrorFingerprinter) with counters maintained at ingest:
+ * first/last seen, occurrence count, and affected sessions and users from a HyperLogLog
+ * stored with each issue. Each batch costs one read and one write per distinct fingerprint,
+ * so a noisy error firing thousands of times a minute is a handful of row updates.
+ *
+ * Issues live in the JPA datasource whatever the raw event engine, and top-N queries
+ * read only this table.
+ */
+@Component
+@Slf4j
+public class ErrorIssueStore {
+
+    static final int SKETCH_PRECISION = 10;
+
+    private static final List<String> SORTS = List.of("occurrences", "lastSeen", "affectedUsers", "affectedSessions");
+
+    private final ErrorIssueRepository errorIssueRepository;
+    private final TransactionTemplate transactionTemplate;
+    // One upserter at a time: no duplicate inserts of a new fingerprint, no lost counter updates
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ErrorIssueStore(ErrorIssueRepository errorIssueRepository, PlatformTransactionManager transactionManager) {
+        this.errorIssueRepository = errorIssueRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Runs after the event transaction commits, so it needs a transaction of its own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fold error occurrences into their issues, creating issues on first sight
+     */
+    public void record(List<ErrorEvent> events) {
+        Map<String, Map<String, List<ErrorEvent>>> byApp = new LinkedHashMap<>();
+        for (ErrorEvent event : events) {
+            if (event.getFingerprint() != null) {
+                byApp.computeIfAbsent(event.getAppKey(), key -> new LinkedHashMap<>())
+                        .computeIfAbsent(event.getFingerprint(), key -> new ArrayList<>()).add(event);
+            }
+        }
+        if (byApp.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> byApp.forEach(this::upsert));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Issues of an application seen since the given time, highest first
+     * @param sort occurrences, lastSeen, affectedUsers or affectedSessions
+     */
+    public List<ErrorIssueResponseDTO> top(String appKey, LocalDateTime since, int limit, String sort) {
+        if (!SORTS.contains(sort)) {
+            throw new IllegalArgumentException("Unknown sort '" + sort + "', expected one of " + SORTS);
+        }
+        return errorIssueRepository.findSeenSince(appKey, since,
+                PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, sort).and(Sort.by(Sort.Direction.DESC, "lastSeen"))));
+    }
+
+    private void upsert(String appKey, Map<String, List<ErrorEvent>> byFingerprint) {
+        Map<String, ErrorIssue> issues = new LinkedHashMap<>();
+        for (ErrorIssue issue : errorIssueRepository.findByAppKeyAndFingerprintIn(appKey, byFingerprint.keySet())) {
+            issues.put(issue.getFingerprint(), issue);
+        }
+        List<ErrorIssue> created = new ArrayList<>();
+        for (Map.Entry<String, List<ErrorEvent>> group : byFingerprint.entrySet()) {
+            ErrorIssue issue = issues.get(group.getKey());
+            HyperLogLog sessions;
+            HyperLogLog users;
+            if (issue == null) {
+                issue = newIssue(group.getValue().get(0));
+                sessions = new HyperLogLog(SKETCH_PRECISION);
+                users = new HyperLogLog(SKETCH_PRECISION);
+                created.add(issue);
+            } else {
+                sessions = HyperLogLog.fromBytes(issue.getSessionSketch());
+                users = HyperLogLog.fromBytes(issue.getUserSketch());
+            }
+            double occurrences = 0;
+            for (ErrorEvent event : group.getValue()) {
+                occurrences += event.weight();
+                if (event.getEventTimestamp().isBefore(issue.getFirstSeen())) {
+                    issue.setFirstSeen(event.getEventTimestamp());
+                }
+                if (event.getEventTimestamp().isAfter(issue.getLastSeen())) {
+                    issue.setLastSeen(event.getEventTimestamp());
+                }
+                sessions.add(event.getSessionId());
+                users.add(event.getUserId());
+            }
+            issue.setOccurrences(issue.getOccurrences() + Math.round(occurrences));
+            issue.setSessionSketch(sessions.toBytes());
+            issue.setUserSketch(users.toBytes());
+            issue.setAffectedSessions(sessions.estimate());
+            issue.setAffectedUsers(users.estimate());
+        }
+        errorIssueRepository.saveAll(created);
+        if (!created.isEmpty()) {
+            log.debug("Created {} error issue(s)", created.size());
+        }
+    }
+
+    private ErrorIssue newIssue(ErrorEvent first) {
+        ErrorIssue issue = new ErrorIssue();
+        issue.setAppKey(first.getAppKey());
+        issue.setFingerprint(first.getFingerprint());
+        issue.setErrorType(first.getErrorType());
+        issue.setMessage(truncate(first.getMessage() == null ? "" : first.getMessage(), 255));
+        issue.setSource(truncate(first.getSource(), 300));
+        List<String> frames = ErrorFingerprinter.topFrames(first.getStack());
+        issue.setCulprit(frames.isEmpty() ? null : truncate(frames.get(0), 500));
+        issue.setFirstSeen(first.getEventTimestamp());
+        issue.setLastSeen(first.getEventTimestamp());
+        issue.setOccurrences(0L);
+        return issue;
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.Rum.aggregation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Quantile sketch settings (rum.percentile.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.percentile")
+public class PercentileProperties {
+
+    /**
+     * DDSketch relative accuracy: a reported p75 of 2500ms is within +/-1% of a real sample at 0.01
+     */
+    private double relativeAccuracy = 0.01;
+}
@@ -0,0 +1,311 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.EngagementEvent;
+import com.example.Rum.model.NetworkErrorEvent;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.model.WebVitalEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quantile sketches maintained at ingest time, so percentiles for any range and page
+ * are computed by merging per-minute/hour/day sketches instead of fetching raw samples.
+ * They outlive the raw events: each tier is kept for its own rum.aggregation retention,
+ * in memory, with the closed hour and day buckets saved to disk and loaded on startup
+ * like RollupStore's (see TierSnapshots).
+ * Each application has its own sketches; one without events reads as empty sketches.
+ */
+@Component
+public class PercentileStore {
+
+    static final String LOAD_TIME = "loadTime";
+    static final String DOM_CONTENT_LOADED = "domContentLoaded";
+    static final String DOM_INTERACTIVE = "domInteractive";
+    static final String FIRST_PAINT = "firstPaint";
+    static final String TIME_ON_PAGE = "timeOnPage";
+    static final String SCROLL_DEPTH = "scrollDepth";
+    static final String INTERACTION_COUNT = "interactionCount";
+    static final String DURATION = "duration";
+
+    private final PercentileProperties properties;
+    private final TierProperties tierProperties;
+    private final Map<String, AppSketches> apps = new ConcurrentHashMap<>();
+    // Answers queries for applications without events; never recorded into
+    private final AppSketches empty;
+
+    public PercentileStore(PercentileProperties properties, TierProperties tierProperties) {
+        this.properties = properties;
+        this.tierProperties = tierProperties;
+        this.empty = new AppSketches(properties.getRelativeAccuracy(), tierProperties);
+    }
+
+    public void recordWebVitals(List<WebVitalEvent> events) {
+        for (WebVitalEvent event : events) {
+            if (event.getValue() != null) {
+                app(event.getAppKey()).webVitals.record(event.getMetricName(), event,
+                        TimeBuckets.epochMillis(event.getEventTimestamp()), event.getValue());
+            }
+        }
+    }
+
+    public void recordPageSpeeds(List<PageSpeedEvent> events) {
+        for (PageSpeedEvent event : events) {
+            long epochMs = TimeBuckets.epochMillis(event.getEventTimestamp());
+            QuantileSketchIndex pageSpeed = app(event.getAppKey()).pageSpeed;
+            pageSpeed.record(LOAD_TIME, event, epochMs, event.getLoadTime());
+            pageSpeed.record(DOM_CONTENT_LOADED, event, epochMs, event.getDomContentLoaded());
+            pageSpeed.record(DOM_INTERACTIVE, event, epochMs, event.getDomInteractive());
+            if (event.getFirstPaint() != null) {
+                pageSpeed.record(FIRST_PAINT, event, epochMs, event.getFirstPaint());
+            }
+        }
+    }
+
+    public void recordEngagements(List<EngagementEvent> events) {
+        for (EngagementEvent event : events) {
+            long epochMs = TimeBuckets.epochMillis(event.getEventTimestamp());
+            QuantileSketchIndex engagement = app(event.getAppKey()).engagement;
+            if (event.getTimeOnPage() != null) {
+                engagement.record(TIME_ON_PAGE, event, epochMs, event.getTimeOnPage());
+            }
+            if (event.getScrollDepth() != null) {
+                engagement.record(SCROLL_DEPTH, event, epochMs, event.getScrollDepth());
+            }
+            if (event.getInteractionCount() != null) {
+                engagement.record(INTERACTION_COUNT, event, epochMs, event.getInteractionCount());
+            }
+        }
+    }
+
+    public void recordNetworkErrors(List<NetworkErrorEvent> events) {
+        for (NetworkErrorEvent event : events) {
+            if (event.getDuration() != null) {
+                app(event.getAppKey()).networkErrors.record(DURATION, event,
+                        TimeBuckets.epochMillis(event.getEventTimestamp()), event.getDuration());
+            }
+        }
+    }
+
+    /**
+     * p50/p75/p95/p99 per web vital metric of an application for the minutes overlapping [startMs, endMs]
+     * @param metric a single metric (LCP, INP, ...) or null for every metric in the range
+     * @param filters at most one dimension name (pageUrl, browser, os, deviceType) and its value
+     * @param groupBy a dimension name to get one row per metric and value of it, or null
+     * @throws IllegalArgumentException for an unknown dimension, or groupBy combined with a filter
+     */
+    public List<Map<String, Object>> getWebVitalPercentiles(String appKey, long startMs, long endMs, String metric,
+                                                            Map<String, String> filters, String groupBy) {
+        QuantileSketchIndex webVitals = sketches(appKey).webVitals;
+        Map.Entry<Dimension, String> filter = Dimension.single(filters);
+        Dimension group = groupBy != null ? Dimension.of(groupBy) : null;
+        if (filter != null && group != null) {
+            throw new IllegalArgumentException("groupBy cannot be combined with filter " + filter.getKey().getName());
+        }
+        Set<String> metrics = metric != null ? Set.of(metric) : webVitals.metrics(startMs, endMs);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String name : metrics) {
+            if (group != null) {
+                for (Map.Entry<String, DDSketch> entry : webVitals.queryBy(name, startMs, endMs, group).entrySet()) {
+                    results.add(percentileRow(name, group, entry.getKey(), entry.getValue()));
+                }
+            } else if (filter != null) {
+                DDSketch sketch = webVitals.query(name, startMs, endMs, filter.getKey(), filter.getValue());
+                results.add(percentileRow(name, filter.getKey(), filter.getValue(), sketch));
+            } else {
+                results.add(percentileRow(name, null, null, webVitals.query(name, startMs, endMs, null, null)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Per-page load statistics with p50/p90/p99 of loadTime, domContentLoaded, domInteractive
+     * and firstPaint, ordered by view count (descending)
+     */
+    public List<Map<String, Object>> getPageSpeedStatsByPage(String appKey, long startMs, long endMs) {
+        QuantileSketchIndex pageSpeed = sketches(appKey).pageSpeed;
+        Map<String, DDSketch> loadTimes = pageSpeed.queryBy(LOAD_TIME, startMs, endMs, Dimension.PAGE_URL);
+        Map<String, DDSketch> domContentLoaded = pageSpeed.queryBy(DOM_CONTENT_LOADED, startMs, endMs, Dimension.PAGE_URL);
+        Map<String, DDSketch> domInteractive = pageSpeed.queryBy(DOM_INTERACTIVE, startMs, endMs, Dimension.PAGE_URL);
+        Map<String, DDSketch> firstPaint = pageSpeed.queryBy(FIRST_PAINT, startMs, endMs, Dimension.PAGE_URL);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map.Entry<String, DDSketch> entry : loadTimes.entrySet()) {
+            String pageUrl = entry.getKey();
+            DDSketch loadTime = entry.getValue();
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("pageUrl", pageUrl);
+            stat.put("viewCount", loadTime.getCount());
+            stat.put("avgLoadTime", loadTime.getAverage());
+            stat.put("minLoadTime", loadTime.getMin());
+            stat.put("maxLoadTime", loadTime.getMax());
+            putPercentiles(stat, LOAD_TIME, loadTime);
+            putPercentiles(stat, DOM_CONTENT_LOADED, domContentLoaded.get(pageUrl));
+            putPercentiles(stat, DOM_INTERACTIVE, domInteractive.get(pageUrl));
+            putPercentiles(stat, FIRST_PAINT, firstPaint.get(pageUrl));
+            results.add(stat);
+        }
+        results.sort(Comparator.comparingLong((Map<String, Object> stat) -> (Long) stat.get("viewCount")).reversed());
+        return results;
+    }
+
+    /**
+     * Count, average, min, max and p50/p75/p95/p99 of timeOnPage, scrollDepth and interactionCount
+     * @param pageUrl a single page or null for all pages
+     */
+    public List<Map<String, Object>> getEngagementSummary(String appKey, long startMs, long endMs, String pageUrl) {
+        return summarize(sketches(appKey).engagement, List.of(TIME_ON_PAGE, SCROLL_DEPTH, INTERACTION_COUNT), startMs, endMs,
+                pageUrl != null ? Map.entry(Dimension.PAGE_URL, pageUrl) : null);
+    }
+
+    /**
+     * Count, average, min, max and p50/p75/p95/p99 of failed request durations
+     * @param filters at most one dimension name (pageUrl, browser, os, deviceType) and its value
+     */
+    public List<Map<String, Object>> getNetworkErrorSummary(String appKey, long startMs, long endMs, Map<String, String> filters) {
+        return summarize(sketches(appKey).networkErrors, List.of(DURATION), startMs, endMs, Dimension.single(filters));
+    }
+
+    /**
+     * Count and p50/p75/p95/p99 of one web vital metric of an application per bucket of one tier
+     * overlapping [startMs, endMs], oldest first; buckets without a value are left out
+     */
+    public List<Map<String, Object>> getWebVitalSeries(String appKey, long startMs, long endMs, String metric,
+                                                       TieredBuckets.Tier resolution) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map.Entry<Long, DDSketch> bucket : sketches(appKey).webVitals.series(metric, startMs, endMs, resolution).entrySet()) {
+            Map<String, Object> row = percentileRow(metric, null, null, bucket.getValue());
+            row.put("bucketStartMs", bucket.getKey());
+            results.add(row);
+        }
+        return results;
+    }
+
+    /**
+     * Save the closed hour and day buckets of every application, one sub-directory each
+     * @return the number of files written
+     */
+    public int save(Path directory, long nowMs) {
+        int written = 0;
+        for (Map.Entry<String, AppSketches> app : apps.entrySet()) {
+            Path appDirectory = directory.resolve(app.getKey());
+            written += app.getValue().webVitals.save(appDirectory.resolve("webVitals"), nowMs);
+            written += app.getValue().pageSpeed.save(appDirectory.resolve("pageSpeed"), nowMs);
+            written += app.getValue().engagement.save(appDirectory.resolve("engagement"), nowMs);
+            written += app.getValue().networkErrors.save(appDirectory.resolve("networkErrors"), nowMs);
+        }
+        return written;
+    }
+
+    /**
+     * Load the buckets saved by save, replacing the ones held for the same application and start
+     * @return the number of buckets read
+     */
+    public int load(Path directory, long nowMs) {
+        int loaded = 0;
+        for (String appKey : TierSnapshots.appKeys(directory)) {
+            Path appDirectory = directory.resolve(appKey);
+            AppSketches app = app(appKey);
+            loaded += app.webVitals.load(appDirectory.resolve("webVitals"), nowMs);
+            loaded += app.pageSpeed.load(appDirectory.resolve("pageSpeed"), nowMs);
+            loaded += app.engagement.load(appDirectory.resolve("engagement"), nowMs);
+            loaded += app.networkErrors.load(appDirectory.resolve("networkErrors"), nowMs);
+        }
+        return loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${rum.aggregation.expire-interval-ms:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        for (AppSketches app : apps.values()) {
+            app.webVitals.expire(now);
+            app.pageSpeed.expire(now);
+            app.engagement.expire(now);
+            app.networkErrors.expire(now);
+        }
+    }
+
+    private AppSketches app(String appKey) {
+        return apps.computeIfAbsent(appKey, key -> new AppSketches(properties.getRelativeAccuracy(), tierProperties));
+    }
+
+    private AppSketches sketches(String appKey) {
+        return apps.getOrDefault(appKey, empty);
+    }
+
+    private List<Map<String, Object>> summarize(QuantileSketchIndex index, List<String> metrics,
+                                                long startMs, long endMs, Map.Entry<Dimension, String> filter) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String name : metrics) {
+            DDSketch sketch = filter == null ? index.query(name, startMs, endMs, null, null)
+                    : index.query(name, startMs, endMs, filter.getKey(), filter.getValue());
+            Map<String, Object> row = new HashMap<>();
+            row.put("metricName", name);
+            if (filter != null) {
+                row.put(filter.getKey().getName(), filter.getValue());
+            }
+            row.put("count", sketch.getCount());
+            if (sketch.getCount() > 0) {
+                row.put("avg", sketch.getAverage());
+                row.put("min", sketch.getMin());
+                row.put("max", sketch.getMax());
+                row.put("p50", sketch.quantile(0.50));
+                row.put("p75", sketch.quantile(0.75));
+                row.put("p95", sketch.quantile(0.95));
+                row.put("p99", sketch.quantile(0.99));
+            }
+            results.add(row);
+        }
+        return results;
+    }
+
+    private static Map<String, Object> percentileRow(String metric, Dimension dimension, String value, DDSketch sketch) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("metricName", metric);
+        if (dimension != null) {
+            row.put(dimension.getName(), value);
+        }
+        row.put("count", sketch.getCount());
+        row.put("p50", sketch.quantile(0.50));
+        row.put("p75", sketch.quantile(0.75));
+        row.put("p95", sketch.quantile(0.95));
+        row.put("p99", sketch.quantile(0.99));
+        return row;
+    }
+
+    private void putPercentiles(Map<String, Object> stat, String field, DDSketch sketch) {
+        if (sketch == null || sketch.getCount() == 0) {
+            return;
+        }
+        stat.put(field + "P50", sketch.quantile(0.50));
+        stat.put(field + "P90", sketch.quantile(0.90));
+        stat.put(field + "P99", sketch.quantile(0.99));
+    }
+
+    /**
+     * Sketch indexes of one application
+     */
+    private static final class AppSketches {
+        private final QuantileSketchIndex webVitals;
+        private final QuantileSketchIndex pageSpeed;
+        private final QuantileSketchIndex engagement;
+        private final QuantileSketchIndex networkErrors;
+
+        private AppSketches(double accuracy, TierProperties tierProperties) {
+            // Page speed and engagement events carry no user agent
+            this.webVitals = new QuantileSketchIndex(accuracy, tierProperties, EnumSet.allOf(Dimension.class));
+            this.pageSpeed = new QuantileSketchIndex(accuracy, tierProperties, EnumSet.of(Dimension.PAGE_URL));
+            this.engagement = new QuantileSketchIndex(accuracy, tierProperties, EnumSet.of(Dimension.PAGE_URL));
+            this.networkErrors = new QuantileSketchIndex(accuracy, tierProperties, EnumSet.allOf(Dimension.class));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.TrackedEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DDSketches per metric, dimension value and minute/hour/day bucket (see TieredBuckets).
+ * Every value is recorded under an all-events key and under its value of each dimension
+ * the index was built with (pageUrl, browser, ...), so a range query filtered on at most
+ * one dimension touches one sketch per bucket. Besides quantiles, each sketch carries
+ * count, sum, min and max.
+ */
+public class QuantileSketchIndex {
+
+    private final double relativeAccuracy;
+    private final Set<Dimension> dimensions;
+    private final TieredBuckets<Map<Key, Cell>> buckets;
+
+    public QuantileSketchIndex(double relativeAccuracy, TierProperties tierProperties, Set<Dimension> dimensions) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.dimensions = Set.copyOf(dimensions);
+        this.buckets = new TieredBuckets<>(tierProperties, ConcurrentHashMap::new, new TieredBuckets.Codec<>() {
+            @Override
+            public void write(Map<Key, Cell> bucket, DataOutput out) throws IOException {
+                Map<Key, Cell> cells = Map.copyOf(bucket);
+                out.writeInt(cells.size());
+                for (Map.Entry<Key, Cell> cell : cells.entrySet()) {
+                    cell.getKey().write(out);
+                    byte[] sketch = cell.getValue().toBytes();
+                    out.writeInt(sketch.length);
+                    out.write(sketch);
+                }
+            }
+
+            @Override
+            public Map<Key, Cell> read(DataInput in) throws IOException {
+                Map<Key, Cell> bucket = new ConcurrentHashMap<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    Key key = Key.read(in);
+                    byte[] sketch = new byte[in.readInt()];
+                    in.readFully(sketch);
+                    bucket.put(key, new Cell(DDSketch.fromBytes(sketch)));
+                }
+                return bucket;
+            }
+        });
+        // Fail fast on a bad accuracy rather than on the first event
+        new DDSketch(relativeAccuracy);
+    }
+
+    /**
+     * Record a value of an event, weighted by the event's sample weight
+     */
+    public void record(String metric, TrackedEvent event, long epochMs, double value) {
+        double weight = event.weight();
+        for (Map<Key, Cell> bucket : buckets.bucketsFor(epochMs)) {
+            add(bucket, new Key(metric, null, null), value, weight);
+            for (Dimension dimension : dimensions) {
+                String dimensionValue = dimension.valueOf(event);
+                if (dimensionValue != null) {
+                    add(bucket, new Key(metric, dimension, dimensionValue), value, weight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merged sketch of one metric for the minutes overlapping [startMs, endMs]
+     * @param dimension restrict to events whose value of this dimension is dimensionValue,
+     *                  or null for all events
+     * @throws IllegalArgumentException if the index is not kept by that dimension
+     */
+    public DDSketch query(String metric, long startMs, long endMs, Dimension dimension, String dimensionValue) {
+        checkDimension(dimension);
+        Key key = new Key(metric, dimension, dimension == null ? null : dimensionValue);
+        DDSketch merged = new DDSketch(relativeAccuracy);
+        for (Map<Key, Cell> bucket : buckets.cover(startMs, endMs)) {
+            Cell cell = bucket.get(key);
+            if (cell != null) {
+                cell.mergeInto(merged);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merged sketches of one metric for every value of a dimension seen in [startMs, endMs], in a single pass
+     * @throws IllegalArgumentException if the index is not kept by that dimension
+     */
+    public Map<String, DDSketch> queryBy(String metric, long startMs, long endMs, Dimension dimension) {
+        checkDimension(dimension);
+        Map<String, DDSketch> merged = new HashMap<>();
+        for (Map<Key, Cell> bucket : buckets.cover(startMs, endMs)) {
+            for (Map.Entry<Key, Cell> entry : bucket.entrySet()) {
+                Key key = entry.getKey();
+                if (!key.metric.equals(metric) || key.dimension != dimension) {
+                    continue;
+                }
+                entry.getValue().mergeInto(merged.computeIfAbsent(key.value, k -> new DDSketch(relativeAccuracy)));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sketches of one metric, for all events, per bucket of one tier overlapping [startMs, endMs];
+     * buckets without a value of it are left out
+     */
+    public Map<Long, DDSketch> series(String metric, long startMs, long endMs, TieredBuckets.Tier resolution) {
+        Key key = new Key(metric, null, null);
+        Map<Long, DDSketch> series = new TreeMap<>();
+        buckets.series(resolution, startMs, endMs).forEach((start, bucket) -> {
+            Cell cell = bucket.get(key);
+            if (cell != null) {
+                DDSketch copy = new DDSketch(relativeAccuracy);
+                cell.mergeInto(copy);
+                series.put(start, copy);
+            }
+        });
+        return series;
+    }
+
+    /**
+     * Metrics with at least one value in the range
+     */
+    public Set<String> metrics(long startMs, long endMs) {
+        Set<String> metrics = new TreeSet<>();
+        for (Map<Key, Cell> bucket : buckets.cover(startMs, endMs)) {
+            for (Key key : bucket.keySet()) {
+                metrics.add(key.metric);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Drop buckets older than their tier's retention
+     */
+    public void expire(long nowMs) {
+        buckets.expire(nowMs);
+    }
+
+    /**
+     * Save the closed hour and day buckets (see TieredBuckets.save)
+     */
+    public int save(Path directory, long nowMs) {
+        return buckets.save(directory, nowMs);
+    }
+
+    /**
+     * Load the buckets saved by save, replacing the ones held for the same start
+     */
+    public int load(Path directory, long nowMs) {
+        return buckets.load(directory, nowMs);
+    }
+
+    private void checkDimension(Dimension dimension) {
+        if (dimension != null && !dimensions.contains(dimension)) {
+            throw new IllegalArgumentException("Not kept by " + dimension.getName());
+        }
+    }
+
+    private void add(Map<Key, Cell> bucket, Key key, double value, double weight) {
+        bucket.computeIfAbsent(key, k -> new Cell(new DDSketch(relativeAccuracy))).add(value, weight);
+    }
+
+    /**
+     * A sketch and the lock guarding it; a ReentrantLock instead of synchronizing on the sketch
+     * because ingest threads that queue up on a monitor pin their carriers when virtual
+     */
+    private static final class Cell {
+        private final DDSketch sketch;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Cell(DDSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        private void add(double value, double weight) {
+            lock.lock();
+            try {
+                sketch.add(value, weight);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void mergeInto(DDSketch target) {
+            lock.lock();
+            try {
+                target.merge(sketch);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private byte[] toBytes() {
+            lock.lock();
+            try {
+                return sketch.toBytes();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String metric;
+        private final Dimension dimension; // null for the all-events key
+        private final String value;
+
+        private Key(String metric, Dimension dimension, String value) {
+            this.metric = metric;
+            this.dimension = dimension;
+            this.value = value;
+        }
+
+        private void write(DataOutput out) throws IOException {
+            TieredBuckets.Codec.writeString(out, metric);
+            TieredBuckets.Codec.writeString(out, dimension == null ? "" : dimension.name());
+            out.writeBoolean(value != null);
+            if (value != null) {
+                TieredBuckets.Codec.writeString(out, value);
+            }
+        }
+
+        private static Key read(DataInput in) throws IOException {
+            String metric = TieredBuckets.Codec.readString(in);
+            String dimension = TieredBuckets.Codec.readString(in);
+            String value = in.readBoolean() ? TieredBuckets.Codec.readString(in) : null;
+            return new Key(metric, dimension.isEmpty() ? null : Dimension.valueOf(dimension), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return metric.equals(other.metric) && dimension == other.dimension && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metric, dimension, value);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.ErrorEvent;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.model.PageViewEvent;
+import com.example.Rum.model.TrackedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dashboard counters per minute, hour and day, maintained as events are ingested.
+ * Distinct sessions and users are kept separately in DistinctCountStore. Page views and
+ * errors are also counted per browser, OS and device type for dashboard breakdowns.
+ *
+ * Range queries merge the coarsest buckets that cover [startMs, endMs] (see TieredBuckets),
+ * so their cost depends on the length of the range, not on the number of stored events.
+ * Events in the first and last minute of the range are included even if they fall
+ * slightly outside it.
+ *
+ * Every application has its own set of tiers, created on its first event, so a query
+ * for one application never merges another's buckets.
+ *
+ * Counts are up-weighted by each event's sample weight, so they estimate what was sent
+ * rather than what was kept when sampling is on (see EventSampler).
+ *
+ * Rollups live in memory. Closed hour and day buckets are saved to disk (see TierSnapshots)
+ * and loaded on startup, so they keep their tier retentions across restarts; the minute
+ * buckets are rebuilt from the stored raw events (see RUMEventServiceImpl.rebuildAggregates).
+ */
+@Component
+public class RollupStore {
+
+    // Page views and errors carry a user agent; page speed events do not
+    private static final Set<Dimension> BREAKDOWN_DIMENSIONS = EnumSet.of(Dimension.BROWSER, Dimension.OS, Dimension.DEVICE_TYPE);
+
+    private final TierProperties properties;
+    private final Map<String, AppRollups> apps = new ConcurrentHashMap<>();
+
+    public RollupStore(TierProperties properties) {
+        this.properties = properties;
+    }
+
+    public void recordPageViews(List<PageViewEvent> events) {
+        for (PageViewEvent event : events) {
+            AppRollups app = app(event);
+            for (DashboardRollup bucket : app.bucketsFor(event.getEventTimestamp())) {
+                bucket.addPageView(event.weight());
+            }
+            for (DashboardRollup bucket : app.breakdownsFor(event)) {
+                bucket.addPageView(event.weight());
+            }
+        }
+    }
+
+    public void recordErrors(List<ErrorEvent> events) {
+        for (ErrorEvent event : events) {
+            AppRollups app = app(event);
+            for (DashboardRollup bucket : app.bucketsFor(event.getEventTimestamp())) {
+                bucket.addError(event.weight());
+            }
+            for (DashboardRollup bucket : app.breakdownsFor(event)) {
+                bucket.addError(event.weight());
+            }
+        }
+    }
+
+    public void recordPageSpeeds(List<PageSpeedEvent> events) {
+        for (PageSpeedEvent event : events) {
+            for (DashboardRollup bucket : app(event).bucketsFor(event.getEventTimestamp())) {
+                bucket.addPageSpeed(event.getLoadTime(), event.weight());
+            }
+        }
+    }
+
+    /**
+     * Event counts and average load time of an application for the minutes overlapping [startMs, endMs]
+     */
+    public Map<String, Object> getDashboardStats(String appKey, long startMs, long endMs) {
+        DashboardRollup total = new DashboardRollup();
+        AppRollups app = apps.get(appKey);
+        if (app != null) {
+            for (DashboardRollup bucket : app.buckets.cover(startMs, endMs)) {
+                bucket.mergeInto(total);
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalPageViews", Math.round(total.getPageViews()));
+        stats.put("totalErrors", Math.round(total.getErrors()));
+        stats.put("avgPageLoadTime", total.getPageSpeedCount() > 0 ? total.getLoadTimeSum() / total.getPageSpeedCount() : 0.0);
+        return stats;
+    }
+
+    /**
+     * Page view and error counts of an application per value of a user-agent dimension for the minutes
+     * overlapping [startMs, endMs], ordered by page views (descending)
+     * @param dimension browser, os or deviceType
+     * @throws IllegalArgumentException for any other dimension
+     */
+    public List<Map<String, Object>> getDashboardBreakdown(String appKey, long startMs, long endMs, String dimension) {
+        Dimension by = Dimension.of(dimension);
+        if (!BREAKDOWN_DIMENSIONS.contains(by)) {
+            throw new IllegalArgumentException("Dashboard stats are broken down by browser, os or deviceType, not " + dimension);
+        }
+        Map<String, DashboardRollup> totals = new HashMap<>();
+        AppRollups app = apps.get(appKey);
+        if (app != null) {
+            for (Map<Dimension, Map<String, DashboardRollup>> bucket : app.breakdowns.cover(startMs, endMs)) {
+                for (Map.Entry<String, DashboardRollup> entry : bucket.get(by).entrySet()) {
+                    entry.getValue().mergeInto(totals.computeIfAbsent(entry.getKey(), key -> new DashboardRollup()));
+                }
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, DashboardRollup> entry : totals.entrySet()) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("dimension", by.getName());
+            row.put("value", entry.getKey());
+            row.put("totalPageViews", Math.round(entry.getValue().getPageViews()));
+            row.put("totalErrors", Math.round(entry.getValue().getErrors()));
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("totalPageViews")).reversed());
+        return rows;
+    }
+
+    /**
+     * Counters of an application per bucket of one tier overlapping [startMs, endMs], oldest first
+     */
+    public List<Map<String, Object>> getDashboardSeries(String appKey, long startMs, long endMs, TieredBuckets.Tier resolution) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        AppRollups app = apps.get(appKey);
+        if (app == null) {
+            return rows;
+        }
+        for (Map.Entry<Long, DashboardRollup> bucket : app.buckets.series(resolution, startMs, endMs).entrySet()) {
+            DashboardRollup total = new DashboardRollup();
+            bucket.getValue().mergeInto(total);
+            Map<String, Object> row = new HashMap<>();
+            row.put("bucketStartMs", bucket.getKey());
+            row.put("totalPageViews", Math.round(total.getPageViews()));
+            row.put("totalErrors", Math.round(total.getErrors()));
+            row.put("avgPageLoadTime", total.getPageSpeedCount() > 0 ? total.getLoadTimeSum() / total.getPageSpeedCount() : 0.0);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Save the closed hour and day buckets of every application, one sub-directory each
+     * @return the number of files written
+     */
+    public int save(Path directory, long nowMs) {
+        int written = 0;
+        for (Map.Entry<String, AppRollups> app : apps.entrySet()) {
+            written += app.getValue().buckets.save(directory.resolve(app.getKey()).resolve("counters"), nowMs);
+            written += app.getValue().breakdowns.save(directory.resolve(app.getKey()).resolve("breakdowns"), nowMs);
+        }
+        return written;
+    }
+
+    /**
+     * Load the buckets saved by save, replacing the ones held for the same application and start
+     * @return the number of buckets read
+     */
+    public int load(Path directory, long nowMs) {
+        int loaded = 0;
+        for (String appKey : TierSnapshots.appKeys(directory)) {
+            AppRollups app = apps.computeIfAbsent(appKey, key -> new AppRollups(properties));
+            loaded += app.buckets.load(directory.resolve(appKey).resolve("counters"), nowMs);
+            loaded += app.breakdowns.load(directory.resolve(appKey).resolve("breakdowns"), nowMs);
+        }
+        return loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${rum.aggregation.expire-interval-ms:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        for (AppRollups app : apps.values()) {
+            app.buckets.expire(now);
+            app.breakdowns.expire(now);
+        }
+    }
+
+    private AppRollups app(TrackedEvent event) {
+        return apps.computeIfAbsent(event.getAppKey(), appKey -> new AppRollups(properties));
+    }
+
+    /**
+     * Counter and breakdown tiers of one application
+     */
+    private static final class AppRollups {
+        private final TieredBuckets<DashboardRollup> buckets;
+        private final TieredBuckets<Map<Dimension, Map<String, DashboardRollup>>> breakdowns;
+
+        private AppRollups(TierProperties properties) {
+            this.buckets = new TieredBuckets<>(properties, DashboardRollup::new, new TieredBuckets.Codec<>() {
+                @Override
+                public void write(DashboardRollup bucket, DataOutput out) throws IOException {
+                    bucket.write(out);
+                }
+
+                @Override
+                public DashboardRollup read(DataInput in) throws IOException {
+                    return DashboardRollup.read(in);
+                }
+            });
+            this.breakdowns = new TieredBuckets<>(properties, AppRollups::newBreakdown, new TieredBuckets.Codec<>() {
+                @Override
+                public void write(Map<Dimension, Map<String, DashboardRollup>> bucket, DataOutput out) throws IOException {
+                    for (Dimension dimension : BREAKDOWN_DIMENSIONS) {
+                        Map<String, DashboardRollup> byValue = Map.copyOf(bucket.get(dimension));
+                        out.writeInt(byValue.size());
+                        for (Map.Entry<String, DashboardRollup> entry : byValue.entrySet()) {
+                            TieredBuckets.Codec.writeString(out, entry.getKey());
+                            entry.getValue().write(out);
+                        }
+                    }
+                }
+
+                @Override
+                public Map<Dimension, Map<String, DashboardRollup>> read(DataInput in) throws IOException {
+                    Map<Dimension, Map<String, DashboardRollup>> bucket = newBreakdown();
+                    for (Dimension dimension : BREAKDOWN_DIMENSIONS) {
+                        for (int i = in.readInt(); i > 0; i--) {
+                            bucket.get(dimension).put(TieredBuckets.Codec.readString(in), DashboardRollup.read(in));
+                        }
+                    }
+                    return bucket;
+                }
+            });
+        }
+
+        private static Map<Dimension, Map<String, DashboardRollup>> newBreakdown() {
+            Map<Dimension, Map<String, DashboardRollup>> byDimension = new EnumMap<>(Dimension.class);
+            for (Dimension dimension : BREAKDOWN_DIMENSIONS) {
+                byDimension.put(dimension, new ConcurrentHashMap<>());
+            }
+            return byDimension;
+        }
+
+        private List<DashboardRollup> bucketsFor(LocalDateTime eventTimestamp) {
+            return buckets.bucketsFor(TimeBuckets.epochMillis(eventTimestamp));
+        }
+
+        /**
+         * The rollups of an event's browser, OS and device type in each of its buckets
+         */
+        private List<DashboardRollup> breakdownsFor(TrackedEvent event) {
+            List<DashboardRollup> rollups = new ArrayList<>();
+            for (Map<Dimension, Map<String, DashboardRollup>> bucket : breakdowns.bucketsFor(TimeBuckets.epochMillis(event.getEventTimestamp()))) {
+                for (Dimension dimension : BREAKDOWN_DIMENSIONS) {
+                    String value = dimension.valueOf(event);
+                    if (value != null) {
+                        rollups.add(bucket.get(dimension).computeIfAbsent(value, key -> new DashboardRollup()));
+                    }
+                }
+            }
+            return rollups;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.Rum.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Distinct sessions and users seen in one bucket (optionally for one page)
+ */
+public class SessionUserSketch {
+
+    private final HyperLogLog sessions;
+    private final HyperLogLog users;
+    // A lock rather than a monitor, so contended adds do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SessionUserSketch(int precision) {
+        this(new HyperLogLog(precision), new HyperLogLog(precision));
+    }
+
+    private SessionUserSketch(HyperLogLog sessions, HyperLogLog users) {
+        this.sessions = sessions;
+        this.users = users;
+    }
+
+    public void add(String sessionId, String userId) {
+        lock.lock();
+        try {
+            sessions.add(sessionId);
+            users.add(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void mergeInto(SessionUserSketch target) {
+        lock.lock();
+        try {
+            target.sessions.merge(sessions);
+            target.users.merge(users);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write both sketches, for saving the bucket (see TieredBuckets.save)
+     */
+    public void write(DataOutput out) throws IOException {
+        byte[] sessionBytes;
+        byte[] userBytes;
+        lock.lock();
+        try {
+            sessionBytes = sessions.toBytes();
+            userBytes = users.toBytes();
+        } finally {
+            lock.unlock();
+        }
+        out.writeInt(sessionBytes.length);
+        out.write(sessionBytes);
+        out.writeInt(userBytes.length);
+        out.write(userBytes);
+    }
+
+    /**
+     * Read sketches written by write
+     */
+    public static SessionUserSketch read(DataInput in) throws IOException {
+        byte[] sessionBytes = new byte[in.readInt()];
+        in.readFully(sessionBytes);
+        byte[] userBytes = new byte[in.readInt()];
+        in.readFully(userBytes);
+        return new SessionUserSketch(HyperLogLog.fromBytes(sessionBytes), HyperLogLog.fromBytes(userBytes));
+    }
+
+    public long estimateSessions() {
+        return sessions.estimate();
+    }
+
+    public long estimateUsers() {
+        return users.estimate();
+    }
+
+    public double standardError() {
+        return sessions.standardError();
+    }
+}
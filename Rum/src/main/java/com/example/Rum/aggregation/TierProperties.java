@@ -0,0 +1,51 @@
+package com.example.Rum.aggregation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+/**
+ * Retention of the aggregate tiers (rum.aggregation.*). Raw events are expired
+ * separately, see rum.retention.
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.aggregation")
+public class TierProperties {
+
+    /**
+     * How long per-minute buckets are kept
+     */
+    private Duration minuteRetention = Duration.ofDays(3);
+
+    /**
+     * How long per-hour buckets are kept
+     */
+    private Duration hourRetention = Duration.ofDays(35);
+
+    /**
+     * How long per-day buckets are kept
+     */
+    private Duration dayRetention = Duration.ofDays(400);
+
+    /**
+     * Interval between sweeps that drop expired buckets
+     */
+    private long expireIntervalMs = 60_000;
+
+    /**
+     * Rebuild the tiers from the stored raw events on startup: all of them when nothing was
+     * saved yet, else the minute tier's retention, as closed hour and day buckets are loaded
+     */
+    private boolean rebuildOnStartup = true;
+
+    /**
+     * Directory the closed hour and day buckets are saved to and loaded from on startup;
+     * empty keeps the tiers in memory only
+     */
+    private String directory = "data/aggregates";
+
+    /**
+     * Interval between saves of the buckets changed since the last one; they are also saved on shutdown
+     */
+    private long saveIntervalMs = 300_000;
+}
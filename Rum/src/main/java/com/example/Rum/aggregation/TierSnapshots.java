@@ -0,0 +1,112 @@
+package com.example.Rum.aggregation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Saves the closed hour and day buckets of the aggregation stores to rum.aggregation.directory
+ * and loads them back on startup, so the tiers keep their own retentions (35 and 400 days by
+ * default) across restarts instead of shrinking to what the raw events still hold.
+ *
+ * Layout: directory/{rollups,uniques,percentiles}/appKey/..., then one file per group of
+ * buckets (see TieredBuckets.save). Only files with a bucket changed since the last save are
+ * written, every rum.aggregation.save-interval-ms and on shutdown. A crash loses the changes
+ * to closed buckets since the last save; the minute tier is not saved at all and is rebuilt
+ * from the raw events (see RUMEventServiceImpl.rebuildAggregates).
+ */
+@Component
+@Slf4j
+public class TierSnapshots {
+
+    private final TierProperties properties;
+    private final RollupStore rollupStore;
+    private final DistinctCountStore distinctCountStore;
+    private final PercentileStore percentileStore;
+
+    public TierSnapshots(TierProperties properties, RollupStore rollupStore, DistinctCountStore distinctCountStore,
+                         PercentileStore percentileStore) {
+        this.properties = properties;
+        this.rollupStore = rollupStore;
+        this.distinctCountStore = distinctCountStore;
+        this.percentileStore = percentileStore;
+    }
+
+    public boolean isEnabled() {
+        return !properties.getDirectory().isEmpty();
+    }
+
+    /**
+     * Whether anything was saved by an earlier run
+     */
+    public boolean hasSaved() {
+        return isEnabled() && !appKeys(directory().resolve("rollups")).isEmpty();
+    }
+
+    /**
+     * Load every saved bucket, replacing the ones the stores hold for the same application and start
+     * @return the number of buckets read
+     */
+    public int load() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        Path directory = directory();
+        return rollupStore.load(directory.resolve("rollups"), now)
+                + distinctCountStore.load(directory.resolve("uniques"), now)
+                + percentileStore.load(directory.resolve("percentiles"), now);
+    }
+
+    @Scheduled(initialDelayString = "${rum.aggregation.save-interval-ms:300000}",
+            fixedDelayString = "${rum.aggregation.save-interval-ms:300000}")
+    public void save() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Path directory = directory();
+        try {
+            int written = rollupStore.save(directory.resolve("rollups"), now)
+                    + distinctCountStore.save(directory.resolve("uniques"), now)
+                    + percentileStore.save(directory.resolve("percentiles"), now);
+            log.debug("Saved {} aggregate bucket file(s) to {}", written, directory);
+        } catch (UncheckedIOException e) {
+            log.error("Cannot save aggregate buckets to {}", directory, e);
+        }
+    }
+
+    /**
+     * RUMEventServiceImpl depends on this bean, so the ingest writers, which depend on the
+     * service, have drained by the time it is destroyed
+     */
+    @PreDestroy
+    public void stop() {
+        save();
+    }
+
+    /**
+     * Applications with a sub-directory in a store's directory
+     */
+    static List<String> appKeys(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> apps = Files.list(directory)) {
+            return apps.filter(Files::isDirectory).map(app -> app.getFileName().toString()).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list applications in " + directory, e);
+        }
+    }
+
+    private Path directory() {
+        return Path.of(properties.getDirectory()).toAbsolutePath();
+    }
+}
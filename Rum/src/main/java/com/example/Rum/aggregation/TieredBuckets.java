@@ -0,0 +1,364 @@
+package com.example.Rum.aggregation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Mergeable aggregates of event time kept at three resolutions: per minute, hour and day.
+ *
+ * Every value is recorded into its minute, hour and day bucket. A range is covered with
+ * the coarsest buckets that fit inside it: whole days in the middle, whole hours next to
+ * them and minutes only at the edges, so a 90-day range merges a few hundred buckets
+ * instead of 129,600 minutes. Each tier has its own retention; where a finer tier has
+ * already expired at an edge, the edge widens to the enclosing coarser bucket.
+ * As before, the first and last minute of a range are included in full.
+ *
+ * With a codec, closed hour and day buckets can be saved to a directory and loaded back, so
+ * they outlive a restart instead of being re-derived from raw events that have a shorter
+ * retention. Buckets are saved in files of one day of hours or 30 days of days,
+ * <TIER>/<first bucket start>.bkt, and a file is rewritten only when a bucket in it changed
+ * since the last save. Minute buckets are not saved.
+ */
+public class TieredBuckets<V> {
+
+    public enum Tier {
+        MINUTE(TimeBuckets.MINUTE_MS),
+        HOUR(60 * TimeBuckets.MINUTE_MS),
+        DAY(24 * 60 * TimeBuckets.MINUTE_MS);
+
+        private final long millis;
+
+        Tier(long millis) {
+            this.millis = millis;
+        }
+
+        long start(long epochMs) {
+            return Math.floorDiv(epochMs, millis) * millis;
+        }
+
+        long end(long epochMs) {
+            return start(epochMs - 1) + millis;
+        }
+
+        /**
+         * Tier of a resolution name: minute, hour or day
+         * @throws IllegalArgumentException for any other name
+         */
+        public static Tier of(String resolution) {
+            for (Tier tier : values()) {
+                if (tier.name().equalsIgnoreCase(resolution)) {
+                    return tier;
+                }
+            }
+            throw new IllegalArgumentException("Resolution must be minute, hour or day, not " + resolution);
+        }
+
+        Tier finer() {
+            return this == MINUTE ? null : values()[ordinal() - 1];
+        }
+
+        /**
+         * Time span of one saved file of this tier's buckets, 0 if they are not saved
+         */
+        long fileMillis() {
+            return this == HOUR ? DAY.millis : this == DAY ? 30 * DAY.millis : 0;
+        }
+    }
+
+    /**
+     * Binary form of one bucket
+     */
+    public interface Codec<V> {
+        void write(V bucket, DataOutput out) throws IOException;
+
+        V read(DataInput in) throws IOException;
+
+        /**
+         * Length-prefixed UTF-8, as page URLs may pass writeUTF's 64 KB limit
+         */
+        static void writeString(DataOutput out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        static String readString(DataInput in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final int MAGIC = 0x52554D54; // "RUMT"
+    private static final byte VERSION = 1;
+    private static final String SUFFIX = ".bkt";
+
+    private final Supplier<V> factory;
+    private final Codec<V> codec;
+    private final Map<Tier, Long> retentionMs = new EnumMap<>(Tier.class);
+    private final Map<Tier, ConcurrentSkipListMap<Long, V>> tiers = new EnumMap<>(Tier.class);
+    // Starts of the files holding a bucket that changed since the last save, per saved tier
+    private final Map<Tier, Set<Long>> changed = new EnumMap<>(Tier.class);
+
+    public TieredBuckets(TierProperties properties, Supplier<V> factory) {
+        this(properties, factory, null);
+    }
+
+    /**
+     * @param codec reads and writes buckets for save and load
+     */
+    public TieredBuckets(TierProperties properties, Supplier<V> factory, Codec<V> codec) {
+        this.factory = factory;
+        this.codec = codec;
+        retentionMs.put(Tier.MINUTE, properties.getMinuteRetention().toMillis());
+        retentionMs.put(Tier.HOUR, properties.getHourRetention().toMillis());
+        retentionMs.put(Tier.DAY, properties.getDayRetention().toMillis());
+        for (Tier tier : Tier.values()) {
+            tiers.put(tier, new ConcurrentSkipListMap<>());
+            if (codec != null && tier.fileMillis() > 0) {
+                changed.put(tier, ConcurrentHashMap.newKeySet());
+            }
+        }
+    }
+
+    /**
+     * The minute, hour and day buckets containing epochMs, created on first use
+     */
+    public List<V> bucketsFor(long epochMs) {
+        List<V> buckets = new ArrayList<>(3);
+        for (Tier tier : Tier.values()) {
+            buckets.add(tiers.get(tier).computeIfAbsent(tier.start(epochMs), key -> factory.get()));
+            Set<Long> files = changed.get(tier);
+            if (files != null) {
+                files.add(fileStart(tier, epochMs));
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Buckets of one tier overlapping [startMs, endMs], by bucket start, for a series at that resolution
+     */
+    public NavigableMap<Long, V> series(Tier tier, long startMs, long endMs) {
+        if (startMs > endMs) {
+            return Collections.emptyNavigableMap();
+        }
+        return Collections.unmodifiableNavigableMap(tiers.get(tier).subMap(tier.start(startMs), true, tier.start(endMs), true));
+    }
+
+    /**
+     * Buckets that together cover the minutes overlapping [startMs, endMs], each event once
+     */
+    public List<V> cover(long startMs, long endMs) {
+        List<V> buckets = new ArrayList<>();
+        long from = Tier.MINUTE.start(startMs);
+        long to = Tier.MINUTE.start(endMs) + Tier.MINUTE.millis;
+        if (from < to) {
+            cover(Tier.DAY, from, to, System.currentTimeMillis(), buckets);
+        }
+        return buckets;
+    }
+
+    /**
+     * Drop buckets older than their tier's retention
+     */
+    public void expire(long nowMs) {
+        for (Tier tier : Tier.values()) {
+            tiers.get(tier).headMap(horizon(tier, nowMs)).clear();
+        }
+    }
+
+    /**
+     * Write the closed hour and day buckets of the files changed since the last save, and
+     * delete the files whose buckets have all expired. A file that still holds an open
+     * bucket is saved again once it closes.
+     * @return the number of files written
+     */
+    public int save(Path directory, long nowMs) {
+        int written = 0;
+        for (Map.Entry<Tier, Set<Long>> entry : changed.entrySet()) {
+            Tier tier = entry.getKey();
+            Path tierDirectory = directory.resolve(tier.name());
+            for (long fileStart : List.copyOf(entry.getValue())) {
+                // Removed before writing, so a bucket changed while the file is written marks it again
+                entry.getValue().remove(fileStart);
+                long fileEnd = fileStart + tier.fileMillis();
+                long closedBefore = Math.min(fileEnd, tier.start(nowMs));
+                if (closedBefore > fileStart) {
+                    write(tierDirectory.resolve(fileStart + SUFFIX), tiers.get(tier).subMap(fileStart, closedBefore));
+                    written++;
+                }
+                if (closedBefore < fileEnd) {
+                    entry.getValue().add(fileStart);
+                }
+            }
+            deleteExpired(tier, tierDirectory, nowMs);
+        }
+        return written;
+    }
+
+    /**
+     * Read the hour and day buckets saved in a directory, replacing the ones held for the same
+     * start; buckets past their tier's retention are skipped
+     * @return the number of buckets read
+     */
+    public int load(Path directory, long nowMs) {
+        int loaded = 0;
+        for (Tier tier : changed.keySet()) {
+            Path tierDirectory = directory.resolve(tier.name());
+            long horizon = horizon(tier, nowMs);
+            for (Path file : files(tierDirectory)) {
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+                    if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                        throw new IOException("Not a bucket file: " + file);
+                    }
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        long start = in.readLong();
+                        V bucket = codec.read(in);
+                        if (start >= horizon) {
+                            tiers.get(tier).put(start, bucket);
+                            loaded++;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read buckets " + file, e);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void write(Path path, Map<Long, V> buckets) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(buckets.size());
+            for (Map.Entry<Long, V> bucket : buckets.entrySet()) {
+                out.writeLong(bucket.getKey());
+                codec.write(bucket.getValue(), out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode buckets " + path, e);
+        }
+        ByteBuffer file = ByteBuffer.wrap(bytes.toByteArray());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (file.hasRemaining()) {
+                    channel.write(file);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write buckets " + path, e);
+        }
+    }
+
+    private void deleteExpired(Tier tier, Path tierDirectory, long nowMs) {
+        long horizon = horizon(tier, nowMs);
+        for (Path file : files(tierDirectory)) {
+            if (fileStart(file) + tier.fileMillis() <= horizon) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to delete buckets " + file, e);
+                }
+            }
+        }
+    }
+
+    private static List<Path> files(Path tierDirectory) {
+        if (!Files.isDirectory(tierDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(tierDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list buckets in " + tierDirectory, e);
+        }
+    }
+
+    private static long fileStart(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static long fileStart(Tier tier, long epochMs) {
+        return Math.floorDiv(epochMs, tier.fileMillis()) * tier.fileMillis();
+    }
+
+    /**
+     * Cover [from, to) with whole buckets of this tier, delegating the ragged edges to the finer tier
+     */
+    private void cover(Tier tier, long from, long to, long nowMs, List<V> buckets) {
+        Tier finer = tier.finer();
+        if (finer == null) {
+            collect(tier, from, to, buckets);
+            return;
+        }
+        long first = tier.end(from);
+        long last = tier.start(to);
+        if (first >= last) {
+            if (from >= horizon(finer, nowMs)) {
+                cover(finer, from, to, nowMs, buckets);
+            } else {
+                collect(tier, tier.start(from), tier.end(to), buckets);
+            }
+            return;
+        }
+        edge(tier, from, first, nowMs, buckets);
+        collect(tier, first, last, buckets);
+        edge(tier, last, to, nowMs, buckets);
+    }
+
+    private void edge(Tier tier, long from, long to, long nowMs, List<V> buckets) {
+        if (from >= to) {
+            return;
+        }
+        if (from >= horizon(tier.finer(), nowMs)) {
+            cover(tier.finer(), from, to, nowMs, buckets);
+        } else {
+            collect(tier, tier.start(from), tier.end(to), buckets);
+        }
+    }
+
+    private void collect(Tier tier, long from, long to, List<V> buckets) {
+        buckets.addAll(tiers.get(tier).subMap(from, true, to, false).values());
+    }
+
+    /**
+     * Start of the oldest bucket a tier still holds
+     */
+    private long horizon(Tier tier, long nowMs) {
+        return tier.start(nowMs - retentionMs.get(tier));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.Rum.aggregation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Bucket arithmetic shared by the aggregation stores
+ */
+public final class TimeBuckets {
+
+    public static final long MINUTE_MS = 60_000L;
+
+    private TimeBuckets() {
+    }
+
+    /**
+     * Start of the minute containing epochMs
+     */
+    public static long minuteStart(long epochMs) {
+        return Math.floorDiv(epochMs, MINUTE_MS) * MINUTE_MS;
+    }
+
+    /**
+     * Event timestamps are stored as LocalDateTime in the system zone (see convertTimestamp)
+     */
+    public static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
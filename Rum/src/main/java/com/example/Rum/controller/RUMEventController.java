@@ -1,108 +1,202 @@
 package com.example.Rum.controller;
 
+import com.example.Rum.diagnostics.RuntimeDiagnostics;
 import com.example.Rum.dto.common.ApiResponseDTO;
+import com.example.Rum.dto.request.EventFilterRequestDTO;
 import com.example.Rum.dto.response.*;
 import com.example.Rum.dto.*;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventFailure;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.IngestProperties;
+import com.example.Rum.ingest.IngestQueue;
+import com.example.Rum.ingest.admission.AdmissionRejection;
+import com.example.Rum.ingest.admission.BoundedInputStream;
+import com.example.Rum.ingest.admission.IngestAdmission;
+import com.example.Rum.ingest.sampling.EventSampler;
+import com.example.Rum.ingest.wal.IngestLog;
+import com.example.Rum.ingest.wire.ContentDecoder;
+import com.example.Rum.ingest.wire.WireFormat;
 import com.example.Rum.mapper.RUMEventMapper;
 import com.example.Rum.service.RUMEventService;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.Rum.tenancy.AppRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/rum")
 @AllArgsConstructor
 @Slf4j
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.RETRY_AFTER)
 public class RUMEventController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final RUMEventService rumEventService;
-    private final ObjectMapper objectMapper;
     private final RUMEventMapper rumEventMapper;
+    private final IngestProperties ingestProperties;
+    private final IngestQueue ingestQueue;
+    private final EventBatchWriter eventBatchWriter;
+    private final EventStreamReader eventStreamReader;
+    private final IngestLog ingestLog;
+    private final ObjectMapper objectMapper;
+    private final RuntimeDiagnostics runtimeDiagnostics;
+    private final AppRegistry appRegistry;
+    private final IngestAdmission ingestAdmission;
+    private final EventSampler eventSampler;
+    private final ContentDecoder contentDecoder;
 
     /**
      * Ingest batch of RUM events
      * POST /api/rum
-     * Body: Array of event objects
+     * Body: Array of event objects, or {"appKey": ..., "context": {...}, "events": [...]}, read as a
+     * stream and bound per event; the optional context holds the sessionId, userId, pageUrl and
+     * userAgent its events leave out. Sent as JSON, or as CBOR with Content-Type application/cbor,
+     * and optionally compressed with Content-Encoding gzip, deflate or zstd (415 for other codings).
+     * The application is named by the X-Rum-App-Key header or the envelope's appKey (400 if
+     * they differ); without either the events go to rum.apps.default-app-key.
+     * Every query endpoint below reads the application named by the same header.
+     * Returns 200 after writing, or 202 once queued when rum.ingest.async=true.
+     * Events that are not written are listed by array position in data.failures; with
+     * rum.ingest.async=true only the ones rejected while reading are known at that point.
+     * Admission control (rum.admission.*) answers 413 for oversized (decompressed) batches and 429 with
+     * Retry-After when the client or the write backlog is over its limit; under load,
+     * low-priority events are shed and listed in data.failures as "Shed: <reason>".
+     * Events left out by sampling (rum.sampling.*) count as processed and are not listed.
+     * With rum.wal.enabled=true the kept events are first appended to the write-ahead log (as
+     * JSON, with their sample weights) and synced, so an acknowledged batch survives a crash
+     * before it is written.
      */
     @PostMapping
-    public ResponseEntity<ApiResponseDTO<EventBatchResponseDTO>> ingestEvents(@RequestBody List<JsonNode> events) {
+    public ResponseEntity<ApiResponseDTO<EventBatchResponseDTO>> ingestEvents(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            HttpServletRequest request,
+            InputStream body) {
+        String clientAddress = ingestAdmission.clientAddress(request);
+        AdmissionRejection refused = ingestAdmission.admitRequest(clientAddress, request.getContentLengthLong());
+        if (refused != null) {
+            return refuse(refused);
+        }
         try {
-            log.info("Received batch of {} RUM events", events.size());
+            EventBatch batch;
+            byte[] logged = null;
+            WireFormat format = WireFormat.forContentType(request.getContentType());
+            try {
+                InputStream limited = ingestAdmission.limit(
+                        contentDecoder.decode(body, request.getHeader(HttpHeaders.CONTENT_ENCODING)));
+                if (ingestLog.isEnabled()) {
+                    logged = limited.readAllBytes();
+                    batch = eventStreamReader.read(new ByteArrayInputStream(logged), ingestAdmission.maxEventBytes(), format);
+                } else {
+                    batch = eventStreamReader.read(limited, ingestAdmission.maxEventBytes(), format);
+                }
+            } catch (BoundedInputStream.BodyTooLargeException e) {
+                return refuse(ingestAdmission.bodyTooLarge());
+            } catch (ContentDecoder.UnsupportedCodingException e) {
+                log.warn("Rejected event batch: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(ApiResponseDTO.error(e.getMessage()));
+            } catch (ContentDecoder.MalformedBodyException e) {
+                log.warn("Malformed event batch: {}", e.getMessage());
+                return ResponseEntity.badRequest().body(ApiResponseDTO.error(e.getMessage()));
+            } catch (JsonProcessingException e) {
+                log.warn("Malformed event batch: {}", e.getOriginalMessage());
+                return ResponseEntity.badRequest()
+                        .body(ApiResponseDTO.error("Malformed event batch: " + e.getOriginalMessage()));
+            }
+            try {
+                batch.setAppKey(appRegistry.resolve(appKey, batch.getAppKey()));
+                appRegistry.admit(batch.getAppKey());
+            } catch (IllegalArgumentException e) {
+                log.warn("Rejected event batch: {}", e.getMessage());
+                return ResponseEntity.badRequest().body(ApiResponseDTO.error(e.getMessage()));
+            }
+            int received = batch.getReceived();
+            log.info("Received batch of {} RUM events for app {}", received, batch.getAppKey());
 
-            if (events == null || events.isEmpty()) {
+            if (received == 0) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponseDTO.error("Empty event batch"));
             }
 
-            int processed = 0;
-            for (JsonNode event : events) {
-                String type = event.get("type").asText();
+            int read = batch.size();
+            eventSampler.sample(batch);
+            refused = ingestAdmission.admit(batch, clientAddress);
+            if (refused != null) {
+                return refuse(refused);
+            }
+
+            if (logged != null) {
+                if (batch.size() < read || !batch.getFailures().isEmpty() || !batch.getSampleWeights().isEmpty()
+                        || format != WireFormat.JSON) {
+                    // Log only what was kept, or replay would bring the shed and oversized events
+                    // back, in the order the weights are logged in; and always as JSON, which is
+                    // what replay reads
+                    logged = objectMapper.writeValueAsBytes(batch.getAllEvents());
+                }
                 try {
-                    switch (type) {
-                        case "webVital":
-                            WebVitalEventDTO vitalDto = objectMapper.treeToValue(event, WebVitalEventDTO.class);
-                            rumEventService.processWebVital(vitalDto);
-                            processed++;
-                            break;
-                        case "error":
-                            ErrorEventDTO errorDto = objectMapper.treeToValue(event, ErrorEventDTO.class);
-                            rumEventService.processError(errorDto);
-                            processed++;
-                            break;
-                        case "pageView":
-                            PageViewEventDTO pageViewDto = objectMapper.treeToValue(event, PageViewEventDTO.class);
-                            rumEventService.processPageView(pageViewDto);
-                            processed++;
-                            break;
-                        case "pageSpeed":
-                            PageSpeedEventDTO pageSpeedDto = objectMapper.treeToValue(event, PageSpeedEventDTO.class);
-                            rumEventService.processPageSpeed(pageSpeedDto);
-                            processed++;
-                            break;
-                        case "engagement":
-                            EngagementEventDTO engagementDto = objectMapper.treeToValue(event, EngagementEventDTO.class);
-                            rumEventService.processEngagement(engagementDto);
-                            processed++;
-                            break;
-                        case "networkError":
-                            NetworkErrorEventDTO networkErrorDto = objectMapper.treeToValue(event, NetworkErrorEventDTO.class);
-                            rumEventService.processNetworkError(networkErrorDto);
-                            processed++;
-                            break;
-                        case "resourcePerformance":
-                            ResourcePerformanceEventDTO rpDto = objectMapper.treeToValue(event, ResourcePerformanceEventDTO.class);
-                            rumEventService.processResourcePerformance(rpDto);
-                            processed++;
-                            break;
-                        case "userAction":
-                            UserActionEventDTO uaDto = objectMapper.treeToValue(event, UserActionEventDTO.class);
-                            rumEventService.processUserAction(uaDto);
-                            processed++;
-                            break;
-                        default:
-                            log.warn("Unknown event type: {}", type);
-                    }
-                } catch (Exception e) {
-                    log.error("Error processing event of type {}: {}", type, e.getMessage());
+                    ingestLog.append(logged, batch);
+                } catch (IOException e) {
+                    log.error("Write-ahead log append failed", e);
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(ApiResponseDTO.error("Event log unavailable, retry later"));
                 }
             }
 
-            EventBatchResponseDTO batchResponse = new EventBatchResponseDTO();
-            batchResponse.setProcessed(processed);
-            batchResponse.setFailed(events.size() - processed);
-            batchResponse.setTotal(events.size());
-            
+            if (ingestProperties.isAsync()) {
+                int processed = batch.size();
+                EventBatchResponseDTO batchResponse = rumEventMapper.toEventBatchResponseDTO(received, batch.getFailures());
+                if (!ingestQueue.offer(batch)) {
+                    // The client retries; release the logged copy so it is not written twice
+                    ingestLog.markApplied(batch);
+                    ingestAdmission.release(batch, clientAddress);
+                    return refuse(ingestAdmission.backlogFull(batch));
+                }
+                ingestAdmission.accepted(batch);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponseDTO.success(
+                        "Accepted " + processed + " events",
+                        batchResponse,
+                        processed,
+                        received - processed
+                ));
+            }
+
+            List<EventFailure> failures;
+            try {
+                failures = eventBatchWriter.write(batch);
+            } finally {
+                // A failed write answers 500 and the client retries, so the logged copy goes either way
+                ingestLog.markApplied(batch);
+            }
+            ingestAdmission.accepted(batch);
+
+            EventBatchResponseDTO batchResponse = rumEventMapper.toEventBatchResponseDTO(received, failures);
+            int processed = batchResponse.getProcessed();
             return ResponseEntity.ok(ApiResponseDTO.success(
                     "Processed " + processed + " events",
                     batchResponse,
                     processed,
-                    events.size() - processed
+                    received - processed
             ));
         } catch (Exception e) {
             log.error("Error ingesting events", e);
@@ -116,9 +210,10 @@ public class RUMEventController {
      */
     @GetMapping("/sessions/{sessionId}/vitals")
     public ResponseEntity<ApiResponseDTO<List<WebVitalEventResponseDTO>>> getSessionVitals(
-            @PathVariable String sessionId) {
-        var vitals = rumEventService.getWebVitalsBySession(sessionId);
-        List<WebVitalEventResponseDTO> responseDTOs = rumEventMapper.toWebVitalEventResponseDTOList(vitals);
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @PathVariable String sessionId,
+            @RequestParam(required = false) Set<String> fields) {
+        var responseDTOs = rumEventService.getWebVitalsBySession(appRegistry.resolve(appKey, null), sessionId, fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved web vitals for session", responseDTOs));
     }
 
@@ -127,69 +222,251 @@ public class RUMEventController {
      */
     @GetMapping("/sessions/{sessionId}/errors")
     public ResponseEntity<ApiResponseDTO<List<ErrorEventResponseDTO>>> getSessionErrors(
-            @PathVariable String sessionId) {
-        var errors = rumEventService.getErrorsBySession(sessionId);
-        List<ErrorEventResponseDTO> responseDTOs = rumEventMapper.toErrorEventResponseDTOList(errors);
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @PathVariable String sessionId,
+            @RequestParam(required = false) Set<String> fields) {
+        var responseDTOs = rumEventService.getErrorsBySession(appRegistry.resolve(appKey, null), sessionId, fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved errors for session", responseDTOs));
     }
 
     /**
      * Get web vitals for a time range
      * Query params: startMs (epoch ms) and endMs (epoch ms)
+     * Optional limit/cursor switch to keyset pagination; pass back nextCursor for the next page
+     * Optional fields (comma-separated, e.g. fields=metricName,value) limits the columns read;
+     * id and eventTimestamp are always included
+     * Optional pageUrl, browser, os and deviceType keep only events with those values
+     * (the same filters apply to the other range and stream endpoints)
      */
     @GetMapping("/vitals/range")
     public ResponseEntity<ApiResponseDTO<List<WebVitalEventResponseDTO>>> getVitalsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
-            @RequestParam Long endMs) {
-        var vitals = rumEventService.getWebVitalsByTimeRange(startMs, endMs);
-        List<WebVitalEventResponseDTO> responseDTOs = rumEventMapper.toWebVitalEventResponseDTOList(vitals);
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        if (limit != null || cursor != null) {
+            var page = rumEventService.getWebVitalsPage(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), cursor, pageSize(limit), fields);
+            return ResponseEntity.ok(ApiResponseDTO.success("Retrieved web vitals page for time range", page.getItems(), page.getNextCursor()));
+        }
+        var responseDTOs = rumEventService.getWebVitalsByTimeRange(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved web vitals for time range", responseDTOs));
     }
 
+    /**
+     * Stream web vitals for a time range as NDJSON (one JSON object per line), in event time order
+     */
+    @GetMapping(value = "/vitals/range/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamVitalsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        String app = appRegistry.resolve(appKey, null);
+        StreamingResponseBody body = out -> rumEventService.streamWebVitals(app, startMs, endMs, filter.toMap(), fields,
+                event -> writeLine(out, event));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * Get errors for a time range
      */
     @GetMapping("/errors/range")
     public ResponseEntity<ApiResponseDTO<List<ErrorEventResponseDTO>>> getErrorsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
-            @RequestParam Long endMs) {
-        var errors = rumEventService.getErrorsByTimeRange(startMs, endMs);
-        List<ErrorEventResponseDTO> responseDTOs = rumEventMapper.toErrorEventResponseDTOList(errors);
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        if (limit != null || cursor != null) {
+            var page = rumEventService.getErrorsPage(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), cursor, pageSize(limit), fields);
+            return ResponseEntity.ok(ApiResponseDTO.success("Retrieved errors page for time range", page.getItems(), page.getNextCursor()));
+        }
+        var responseDTOs = rumEventService.getErrorsByTimeRange(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved errors for time range", responseDTOs));
     }
 
+    /**
+     * Get the top error issues (occurrences grouped by fingerprint), served from the issue counters
+     * Query params: sinceMs (optional, issues last seen at or after), limit (default 20), sort
+     * (occurrences, lastSeen, affectedUsers or affectedSessions; default occurrences)
+     */
+    @GetMapping("/errors/issues")
+    public ResponseEntity<ApiResponseDTO<List<ErrorIssueResponseDTO>>> getTopIssues(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam(required = false) Long sinceMs,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "occurrences") String sort) {
+        var issues = rumEventService.getTopIssues(appRegistry.resolve(appKey, null), sinceMs, pageSize(limit == null ? 20 : limit), sort);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved error issues", issues));
+    }
+
+    /**
+     * Stream errors for a time range as NDJSON (one JSON object per line), in event time order
+     */
+    @GetMapping(value = "/errors/range/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamErrorsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        String app = appRegistry.resolve(appKey, null);
+        StreamingResponseBody body = out -> rumEventService.streamErrors(app, startMs, endMs, filter.toMap(), fields,
+                event -> writeLine(out, event));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * Get page views for a time range
      */
     @GetMapping("/pageviews/range")
     public ResponseEntity<ApiResponseDTO<List<PageViewEventResponseDTO>>> getPageViewsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
-            @RequestParam Long endMs) {
-        var pageViews = rumEventService.getPageViewsByTimeRange(startMs, endMs);
-        List<PageViewEventResponseDTO> responseDTOs = rumEventMapper.toPageViewEventResponseDTOList(pageViews);
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        if (limit != null || cursor != null) {
+            var page = rumEventService.getPageViewsPage(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), cursor, pageSize(limit), fields);
+            return ResponseEntity.ok(ApiResponseDTO.success("Retrieved page views page for time range", page.getItems(), page.getNextCursor()));
+        }
+        var responseDTOs = rumEventService.getPageViewsByTimeRange(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved page views for time range", responseDTOs));
     }
 
+    /**
+     * Stream page views for a time range as NDJSON (one JSON object per line), in event time order
+     */
+    @GetMapping(value = "/pageviews/range/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamPageViewsByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        String app = appRegistry.resolve(appKey, null);
+        StreamingResponseBody body = out -> rumEventService.streamPageViews(app, startMs, endMs, filter.toMap(), fields,
+                event -> writeLine(out, event));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * Get page speed events for a time range
      */
     @GetMapping("/pagespeed/range")
     public ResponseEntity<ApiResponseDTO<List<PageSpeedEventResponseDTO>>> getPageSpeedByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
-            @RequestParam Long endMs) {
-        var pageSpeed = rumEventService.getPageSpeedByTimeRange(startMs, endMs);
-        List<PageSpeedEventResponseDTO> responseDTOs = rumEventMapper.toPageSpeedEventResponseDTOList(pageSpeed);
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        if (limit != null || cursor != null) {
+            var page = rumEventService.getPageSpeedPage(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), cursor, pageSize(limit), fields);
+            return ResponseEntity.ok(ApiResponseDTO.success("Retrieved page speed events page for time range", page.getItems(), page.getNextCursor()));
+        }
+        var responseDTOs = rumEventService.getPageSpeedByTimeRange(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap(), fields);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved page speed events for time range", responseDTOs));
     }
 
+    /**
+     * Stream page speed events for a time range as NDJSON (one JSON object per line), in event time order
+     */
+    @GetMapping(value = "/pagespeed/range/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamPageSpeedByTimeRange(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) Set<String> fields,
+            EventFilterRequestDTO filter) {
+        String app = appRegistry.resolve(appKey, null);
+        StreamingResponseBody body = out -> rumEventService.streamPageSpeed(app, startMs, endMs, filter.toMap(), fields,
+                event -> writeLine(out, event));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Get web vital percentiles (p50/p75/p95/p99) for a time range
+     * Query params: startMs, endMs, metric (optional, e.g. LCP), and optionally one filter
+     * (pageUrl, browser, os or deviceType) or a groupBy naming one of those dimensions
+     */
+    @GetMapping("/vitals/percentiles")
+    public ResponseEntity<ApiResponseDTO<List<WebVitalPercentilesResponseDTO>>> getVitalPercentiles(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String groupBy,
+            EventFilterRequestDTO filter) {
+        var percentiles = rumEventService.getWebVitalPercentiles(appRegistry.resolve(appKey, null), startMs, endMs, metric, filter.toMap(), groupBy);
+        List<WebVitalPercentilesResponseDTO> responseDTOs = rumEventMapper.toWebVitalPercentilesResponseDTOList(percentiles);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved web vital percentiles", responseDTOs));
+    }
+
+    /**
+     * Get p50/p75/p95/p99 of one web vital per minute, hour or day, oldest first
+     * Query params: startMs, endMs, metric (e.g. LCP), resolution (minute, hour or day; default hour)
+     */
+    @GetMapping("/vitals/percentiles/series")
+    public ResponseEntity<ApiResponseDTO<List<WebVitalPercentilesResponseDTO>>> getVitalPercentileSeries(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam String metric,
+            @RequestParam(defaultValue = "hour") String resolution) {
+        var series = rumEventService.getWebVitalSeries(appRegistry.resolve(appKey, null), startMs, endMs, metric, resolution);
+        List<WebVitalPercentilesResponseDTO> responseDTOs = rumEventMapper.toWebVitalPercentilesResponseDTOList(series);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved web vital percentile series", responseDTOs));
+    }
+
+    /**
+     * Get timeOnPage, scrollDepth and interactionCount distributions for a time range
+     * Query params: startMs, endMs, pageUrl (optional)
+     */
+    @GetMapping("/engagement/summary")
+    public ResponseEntity<ApiResponseDTO<List<MetricSummaryResponseDTO>>> getEngagementSummary(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) String pageUrl) {
+        var summary = rumEventService.getEngagementSummary(appRegistry.resolve(appKey, null), startMs, endMs, pageUrl);
+        List<MetricSummaryResponseDTO> responseDTOs = rumEventMapper.toMetricSummaryResponseDTOList(summary);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved engagement summary", responseDTOs));
+    }
+
+    /**
+     * Get the duration distribution of failed requests for a time range
+     * Query params: startMs, endMs, and optionally one filter (pageUrl, browser, os or deviceType)
+     */
+    @GetMapping("/network-errors/summary")
+    public ResponseEntity<ApiResponseDTO<List<MetricSummaryResponseDTO>>> getNetworkErrorSummary(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            EventFilterRequestDTO filter) {
+        var summary = rumEventService.getNetworkErrorSummary(appRegistry.resolve(appKey, null), startMs, endMs, filter.toMap());
+        List<MetricSummaryResponseDTO> responseDTOs = rumEventMapper.toMetricSummaryResponseDTOList(summary);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved network error summary", responseDTOs));
+    }
+
     /**
      * Get page speed statistics grouped by page URL
      */
     @GetMapping("/pagespeed/stats")
     public ResponseEntity<ApiResponseDTO<List<PageSpeedStatsResponseDTO>>> getPageSpeedStats(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
             @RequestParam Long endMs) {
-        var stats = rumEventService.getPageSpeedStatsByPage(startMs, endMs);
+        var stats = rumEventService.getPageSpeedStatsByPage(appRegistry.resolve(appKey, null), startMs, endMs);
         List<PageSpeedStatsResponseDTO> responseDTOs = rumEventMapper.toPageSpeedStatsResponseDTOList(stats);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved page speed statistics", responseDTOs));
     }
@@ -199,13 +476,69 @@ public class RUMEventController {
      */
     @GetMapping("/stats")
     public ResponseEntity<ApiResponseDTO<DashboardStatsResponseDTO>> getDashboardStats(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
             @RequestParam Long startMs,
             @RequestParam Long endMs) {
-        var stats = rumEventService.getDashboardStats(startMs, endMs);
+        var stats = rumEventService.getDashboardStats(appRegistry.resolve(appKey, null), startMs, endMs);
         DashboardStatsResponseDTO responseDTO = rumEventMapper.toDashboardStatsResponseDTO(stats);
         return ResponseEntity.ok(ApiResponseDTO.success("Retrieved dashboard statistics", responseDTO));
     }
 
+    /**
+     * Get dashboard statistics per minute, hour or day, oldest first; buckets without events are left out.
+     * Minutes are kept for days, hours for weeks and days for over a year (rum.aggregation.*-retention)
+     * Query params: startMs, endMs, resolution (minute, hour or day; default hour)
+     */
+    @GetMapping("/stats/series")
+    public ResponseEntity<ApiResponseDTO<List<DashboardSeriesResponseDTO>>> getDashboardSeries(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(defaultValue = "hour") String resolution) {
+        var series = rumEventService.getDashboardSeries(appRegistry.resolve(appKey, null), startMs, endMs, resolution);
+        List<DashboardSeriesResponseDTO> responseDTOs = rumEventMapper.toDashboardSeriesResponseDTOList(series);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved dashboard series", responseDTOs));
+    }
+
+    /**
+     * Get page view and error counts per browser, OS or device type, most page views first
+     * Query params: startMs, endMs, dimension (browser, os or deviceType)
+     */
+    @GetMapping("/stats/breakdown")
+    public ResponseEntity<ApiResponseDTO<List<DashboardBreakdownResponseDTO>>> getDashboardBreakdown(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam String dimension) {
+        var rows = rumEventService.getDashboardBreakdown(appRegistry.resolve(appKey, null), startMs, endMs, dimension);
+        List<DashboardBreakdownResponseDTO> responseDTOs = rumEventMapper.toDashboardBreakdownResponseDTOList(rows);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved dashboard breakdown", responseDTOs));
+    }
+
+    /**
+     * Get estimated unique sessions and users, optionally for a single page
+     * Query params: startMs, endMs, pageUrl (optional)
+     */
+    @GetMapping("/uniques")
+    public ResponseEntity<ApiResponseDTO<UniqueCountsResponseDTO>> getUniqueCounts(
+            @RequestHeader(value = AppRegistry.HEADER, required = false) String appKey,
+            @RequestParam Long startMs,
+            @RequestParam Long endMs,
+            @RequestParam(required = false) String pageUrl) {
+        var counts = rumEventService.getUniqueCounts(appRegistry.resolve(appKey, null), startMs, endMs, pageUrl);
+        UniqueCountsResponseDTO responseDTO = rumEventMapper.toUniqueCountsResponseDTO(counts);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved unique counts", responseDTO));
+    }
+
+    /**
+     * List the applications events have been ingested for
+     * GET /api/rum/apps
+     */
+    @GetMapping("/apps")
+    public ResponseEntity<ApiResponseDTO<List<String>>> getApps() {
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved applications", appRegistry.appKeys()));
+    }
+
     /**
      * Health check endpoint
      * GET /api/rum/health
@@ -218,5 +551,67 @@ public class RUMEventController {
         response.setTimestamp(System.currentTimeMillis());
         return ResponseEntity.ok(ApiResponseDTO.success("Service is healthy", response));
     }
-}
 
+    /**
+     * Thread model, pinned virtual threads and connection pool pressure
+     * GET /api/rum/health/runtime
+     */
+    @GetMapping("/health/runtime")
+    public ResponseEntity<ApiResponseDTO<RuntimeDiagnosticsResponseDTO>> runtime() {
+        RuntimeDiagnosticsResponseDTO response = rumEventMapper.toRuntimeDiagnosticsResponseDTO(runtimeDiagnostics.snapshot());
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved runtime diagnostics", response));
+    }
+
+    /**
+     * Batches and events accepted, refused and shed by admission control since start,
+     * events left out by sampling, and the current write backlog
+     * GET /api/rum/health/admission
+     */
+    @GetMapping("/health/admission")
+    public ResponseEntity<ApiResponseDTO<AdmissionStatsResponseDTO>> admission() {
+        Map<String, Object> counters = ingestAdmission.snapshot();
+        counters.put("sampledOutEvents", eventSampler.sampledOut());
+        AdmissionStatsResponseDTO response = rumEventMapper.toAdmissionStatsResponseDTO(counters);
+        return ResponseEntity.ok(ApiResponseDTO.success("Retrieved admission counters", response));
+    }
+
+    /**
+     * Error response for a refused batch, with Retry-After when retrying can succeed
+     */
+    private <T> ResponseEntity<ApiResponseDTO<T>> refuse(AdmissionRejection rejection) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(rejection.getStatus());
+        if (rejection.getRetryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.getRetryAfterSeconds()));
+        }
+        return response.body(ApiResponseDTO.error(rejection.getMessage()));
+    }
+
+
+    /**
+     * Clamp a requested page size to [1, MAX_PAGE_SIZE]
+     */
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Unknown fields, filter attributes and cursors; the JPA repositories' exception translation
+     * wraps the IllegalArgumentException in an InvalidDataAccessApiUsageException with the same message
+     */
+    @ExceptionHandler({IllegalArgumentException.class, InvalidDataAccessApiUsageException.class})
+    public ResponseEntity<ApiResponseDTO<Void>> handleBadRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(ApiResponseDTO.error(e.getMessage()));
+    }
+}
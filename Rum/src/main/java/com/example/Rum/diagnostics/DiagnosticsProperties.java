@@ -0,0 +1,28 @@
+package com.example.Rum.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+/**
+ * Runtime diagnostics settings (rum.diagnostics.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.diagnostics")
+public class DiagnosticsProperties {
+
+    /**
+     * When false, neither pinned virtual threads nor connection pool waits are recorded
+     */
+    private boolean enabled = true;
+
+    /**
+     * Shortest pinned section reported by JFR; shorter ones are not worth a stack trace
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+
+    /**
+     * Interval between connection pool samples
+     */
+    private long poolSampleIntervalMs = 1000;
+}
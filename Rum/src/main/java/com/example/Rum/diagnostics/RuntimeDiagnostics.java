@@ -0,0 +1,163 @@
+package com.example.Rum.diagnostics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the two places where virtual threads stop scaling: sections that pin a thread to its
+ * carrier (monitors, native frames), and the connection pool, whose size caps concurrent
+ * database work however many request threads there are.
+ *
+ * Pinning is recorded from the jdk.VirtualThreadPinned JFR event, which only exists from Java 21
+ * and only fires with virtual threads, so the stream is opened only when both hold. Each distinct
+ * pinned stack is logged once with its first duration; later occurrences are only counted.
+ */
+@Component
+@Slf4j
+public class RuntimeDiagnostics {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+    private static final int MAX_STACKS = 1000;
+
+    private final DiagnosticsProperties properties;
+    private final DataSource dataSource;
+    private final boolean virtualThreadsRequested;
+    private final boolean virtualThreads;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final Set<String> pinnedStacks = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger peakAwaitingConnection = new AtomicInteger();
+    private RecordingStream pinning;
+
+    public RuntimeDiagnostics(DiagnosticsProperties properties, DataSource dataSource, Environment environment) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.virtualThreadsRequested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (virtualThreadsRequested && !virtualThreads) {
+            // Spring ignores the flag below Java 21; the build targets 17, so this is a runtime choice
+            log.warn("spring.threads.virtual.enabled=true has no effect on Java {}: requests, jobs and ingest"
+                    + " writers run on platform threads; run on Java 21 or later for virtual threads",
+                    Runtime.version().feature());
+        }
+        if (!properties.isEnabled() || !virtualThreads || Runtime.version().feature() < 21) {
+            return;
+        }
+        pinning = new RecordingStream();
+        pinning.enable(PINNED_EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+        pinning.onEvent(PINNED_EVENT, this::onPinned);
+        pinning.startAsync();
+        log.info("Recording virtual threads pinned for {} ms or more", properties.getPinnedThreshold().toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pinning != null) {
+            pinning.close();
+        }
+    }
+
+    /**
+     * Record the pool's waiting threads, keeping the highest count seen
+     */
+    @Scheduled(fixedDelayString = "${rum.diagnostics.pool-sample-interval-ms:1000}")
+    public void samplePool() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        HikariPoolMXBean pool = pool();
+        if (pool == null) {
+            return;
+        }
+        int awaiting = pool.getThreadsAwaitingConnection();
+        int previousPeak = peakAwaitingConnection.getAndAccumulate(awaiting, Math::max);
+        if (awaiting > previousPeak) {
+            log.warn("{} threads waiting for one of {} database connections", awaiting, pool.getTotalConnections());
+        }
+    }
+
+    /**
+     * Current thread model, pinning counts and connection pool state
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("javaVersion", Runtime.version().toString());
+        snapshot.put("virtualThreadsRequested", virtualThreadsRequested);
+        snapshot.put("virtualThreads", virtualThreads);
+        snapshot.put("pinningMonitored", pinning != null);
+        snapshot.put("pinnedEvents", pinnedEvents.get());
+        snapshot.put("pinnedStacks", pinnedStacks.size());
+        HikariPoolMXBean pool = pool();
+        if (pool != null) {
+            snapshot.put("activeConnections", pool.getActiveConnections());
+            snapshot.put("idleConnections", pool.getIdleConnections());
+            snapshot.put("totalConnections", pool.getTotalConnections());
+            snapshot.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        }
+        snapshot.put("peakThreadsAwaitingConnection", peakAwaitingConnection.get());
+        return snapshot;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        String stack = format(event.getStackTrace());
+        if (pinnedStacks.size() < MAX_STACKS && pinnedStacks.add(stack)) {
+            log.warn("Virtual thread pinned for {} ms at\n{}", event.getDuration().toMillis(), stack);
+        }
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        StringBuilder out = new StringBuilder();
+        int frames = 0;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frames++ == MAX_FRAMES) {
+                out.append("\t...\n");
+                break;
+            }
+            out.append("\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * The Hikari pool behind the datasource, or null if it is not Hikari or not started yet
+     */
+    private HikariPoolMXBean pool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return null;
+            }
+            return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
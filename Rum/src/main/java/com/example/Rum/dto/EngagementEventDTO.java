@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class EngagementEventDTO {
+public final class EngagementEventDTO implements RumEvent {
     private String type;
     private Long timestamp;
     private String sessionId;
@@ -11,7 +11,7 @@ import java.util.Map;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ErrorEventDTO {
+public final class ErrorEventDTO implements RumEvent {
     private String type; // error
     private Long timestamp;
     private String sessionId;
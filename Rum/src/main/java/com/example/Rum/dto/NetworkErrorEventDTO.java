@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class NetworkErrorEventDTO {
+public final class NetworkErrorEventDTO implements RumEvent {
     private String type;
     private Long timestamp;
     private String sessionId;
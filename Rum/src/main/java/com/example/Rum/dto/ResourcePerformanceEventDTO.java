@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ResourcePerformanceEventDTO {
+public final class ResourcePerformanceEventDTO implements RumEvent {
     private String type;
     private Long timestamp;
     private String sessionId;
@@ -0,0 +1,53 @@
+package com.example.Rum.dto;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * An event of an SDK batch. Jackson picks the concrete DTO from the "type" property
+ * (kept on the DTO as well); an event of a type not listed here, or without a type,
+ * binds to UnknownEventDTO so it can be reported rather than failing the batch.
+ *
+ * To add an event type: add its DTO here and register a handler for it in the service.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY, property = "type",
+        visible = true, defaultImpl = UnknownEventDTO.class)
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = WebVitalEventDTO.class, name = "webVital"),
+        @JsonSubTypes.Type(value = ErrorEventDTO.class, name = "error"),
+        @JsonSubTypes.Type(value = PageViewEventDTO.class, name = "pageView"),
+        @JsonSubTypes.Type(value = PageSpeedEventDTO.class, name = "pageSpeed"),
+        @JsonSubTypes.Type(value = EngagementEventDTO.class, name = "engagement"),
+        @JsonSubTypes.Type(value = NetworkErrorEventDTO.class, name = "networkError"),
+        @JsonSubTypes.Type(value = ResourcePerformanceEventDTO.class, name = "resourcePerformance"),
+        @JsonSubTypes.Type(value = UserActionEventDTO.class, name = "userAction")
+})
+public sealed interface RumEvent permits WebVitalEventDTO, ErrorEventDTO, PageViewEventDTO, PageSpeedEventDTO,
+        EngagementEventDTO, NetworkErrorEventDTO, ResourcePerformanceEventDTO, UserActionEventDTO, UnknownEventDTO {
+
+    String getType();
+
+    Long getTimestamp();
+
+    String getSessionId();
+
+    String getUserId();
+
+    String getPageUrl();
+
+    void setSessionId(String sessionId);
+
+    void setUserId(String userId);
+
+    void setPageUrl(String pageUrl);
+
+    /**
+     * Only the types that describe the browser (webVital, error, pageView, networkError) keep one
+     */
+    default String getUserAgent() {
+        return null;
+    }
+
+    default void setUserAgent(String userAgent) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.Rum.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event whose type is missing or not known to this server; never stored
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class UnknownEventDTO implements RumEvent {
+    private String type;
+    private Long timestamp;
+    private String sessionId;
+    private String userId;
+    private String pageUrl;
+}
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class WebVitalEventDTO {
+public final class WebVitalEventDTO implements RumEvent {
     private String type; // webVital
     private Long timestamp;
     private String sessionId;
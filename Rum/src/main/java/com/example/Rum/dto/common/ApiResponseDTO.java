@@ -18,6 +18,7 @@ public class ApiResponseDTO<T> {
     private Integer processed;
     private Integer failed;
     private String error;
+    private String nextCursor; // continuation token for keyset-paginated responses
 
     public static <T> ApiResponseDTO<T> success(String message, T data) {
         ApiResponseDTO<T> response = new ApiResponseDTO<>();
@@ -37,6 +38,12 @@ public class ApiResponseDTO<T> {
         return response;
     }
 
+    public static <T> ApiResponseDTO<T> success(String message, T data, String nextCursor) {
+        ApiResponseDTO<T> response = success(message, data);
+        response.setNextCursor(nextCursor);
+        return response;
+    }
+
     public static <T> ApiResponseDTO<T> error(String errorMessage) {
         ApiResponseDTO<T> response = new ApiResponseDTO<>();
         response.setStatus("error");
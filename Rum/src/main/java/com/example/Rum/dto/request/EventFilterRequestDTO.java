@@ -0,0 +1,40 @@
+package com.example.Rum.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Optional equality filters of range and aggregate queries, bound from query parameters
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFilterRequestDTO {
+    private String pageUrl;
+    private String browser; // Chrome, Edge, Firefox, Safari, ...
+    private String os; // Windows, macOS, iOS, Android, ...
+    private String deviceType; // desktop, mobile, tablet, bot
+
+    /**
+     * The filters that are set, by attribute name
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (pageUrl != null) {
+            filters.put("pageUrl", pageUrl);
+        }
+        if (browser != null) {
+            filters.put("browser", browser);
+        }
+        if (os != null) {
+            filters.put("os", os);
+        }
+        if (deviceType != null) {
+            filters.put("deviceType", deviceType);
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+/**
+ * Response DTO for admission control and sampling counters on POST /api/rum, since start
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionStatsResponseDTO {
+    private Long acceptedBatches;
+    private Long acceptedEvents; // after shedding
+    private Map<String, Long> rejectedBatches; // by reason: bodyTooLarge, tooManyEvents, ipRateLimit, sessionRateLimit, appRateLimit, backlog
+    private Map<String, Long> rejectedEvents; // events still in those batches when they were refused
+    private Map<String, Map<String, Long>> shedEvents; // by reason, then event type
+    private Map<String, Long> sampledOutEvents; // left out by sampling (rum.sampling.*), by event type
+    private Integer queuedBatches; // async backlog, over all shards
+    private Integer waitingWrites; // threads waiting for a write slot
+    private Integer trackedAddresses;
+    private Integer trackedSessions;
+    private Integer trackedApps;
+}
@@ -0,0 +1,18 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the dashboard counters of one browser, OS or device type
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardBreakdownResponseDTO {
+    private String dimension; // browser, os or deviceType
+    private String value; // e.g. Firefox, iOS, mobile
+    private Long totalPageViews;
+    private Long totalErrors;
+}
@@ -0,0 +1,20 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the dashboard statistics of one minute, hour or day bucket
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSeriesResponseDTO {
+    private Long bucketStartMs; // Start of the bucket, epoch milliseconds
+    private Long uniqueSessions;
+    private Long uniqueUsers;
+    private Long totalPageViews;
+    private Long totalErrors;
+    private Double avgPageLoadTime;
+}
@@ -1,5 +1,6 @@
 package com.example.Rum.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,9 +24,19 @@ public class ErrorEventResponseDTO {
     private String stack;
     private String errorType;
     private String severity;
+    private String fingerprint; // ErrorIssue this occurrence is grouped under
     private String userAgent;
+    private String browser;
+    private String browserVersion;
+    private String os;
+    private String deviceType; // desktop, mobile, tablet, bot
     private String breadcrumbs; // JSON string
     private String componentStack;
+    @JsonIgnore
+    private String stackHash; // Resolved into stack on read
+    @JsonIgnore
+    private String componentStackHash; // Resolved into componentStack on read
+    private Double sampleWeight; // events this one stands for when sampled, see EventSampler
     private LocalDateTime eventTimestamp;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,25 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a group of error occurrences sharing a fingerprint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorIssueResponseDTO {
+    private String fingerprint;
+    private String errorType;
+    private String message;
+    private String source;
+    private String culprit; // Top stack frame
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    private Long occurrences;
+    private Long affectedSessions; // HyperLogLog estimate
+    private Long affectedUsers; // HyperLogLog estimate
+}
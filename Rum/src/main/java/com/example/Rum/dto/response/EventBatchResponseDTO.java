@@ -3,6 +3,7 @@ package com.example.Rum.dto.response;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 
 /**
  * Response DTO for batch event processing
@@ -14,5 +15,15 @@ public class EventBatchResponseDTO {
     private Integer processed;
     private Integer failed;
     private Integer total;
+    private List<Failure> failures; // One entry per event that was not written
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private Integer index; // Position of the event in the request array
+        private String type;
+        private String reason;
+    }
 }
 
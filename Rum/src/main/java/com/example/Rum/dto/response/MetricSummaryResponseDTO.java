@@ -0,0 +1,27 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the distribution of one numeric event attribute over a time range
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSummaryResponseDTO {
+    private String metricName; // e.g. timeOnPage, scrollDepth, duration
+    private String pageUrl; // null when computed across all pages
+    private String browser; // Set when filtered by browser
+    private String os; // Set when filtered by os
+    private String deviceType; // Set when filtered by deviceType
+    private Long count;
+    private Double avg; // avg to p99 are null when count is 0
+    private Double min;
+    private Double max;
+    private Double p50;
+    private Double p75;
+    private Double p95;
+    private Double p99;
+}
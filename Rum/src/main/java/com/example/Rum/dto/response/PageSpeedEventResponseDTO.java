@@ -21,6 +21,7 @@ public class PageSpeedEventResponseDTO {
     private Double domInteractive;
     private Double resourceLoadTime;
     private Double firstPaint;
+    private Double sampleWeight; // events this one stands for when sampled, see EventSampler
     private LocalDateTime eventTimestamp;
     private LocalDateTime createdAt;
 }
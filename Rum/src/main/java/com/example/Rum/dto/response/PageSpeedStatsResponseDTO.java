@@ -16,5 +16,17 @@ public class PageSpeedStatsResponseDTO {
     private Double avgLoadTime;
     private Double minLoadTime;
     private Double maxLoadTime;
+    private Double loadTimeP50;
+    private Double loadTimeP90;
+    private Double loadTimeP99;
+    private Double domContentLoadedP50;
+    private Double domContentLoadedP90;
+    private Double domContentLoadedP99;
+    private Double domInteractiveP50;
+    private Double domInteractiveP90;
+    private Double domInteractiveP99;
+    private Double firstPaintP50; // null when no page load reported first paint
+    private Double firstPaintP90;
+    private Double firstPaintP99;
 }
 
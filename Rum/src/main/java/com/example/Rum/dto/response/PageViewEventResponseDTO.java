@@ -17,10 +17,15 @@ public class PageViewEventResponseDTO {
     private String userId;
     private String pageUrl;
     private String userAgent;
+    private String browser;
+    private String browserVersion;
+    private String os;
+    private String deviceType; // desktop, mobile, tablet, bot
     private String pagePath;
     private String pageTitle;
     private String referrer;
     private String previousPage;
+    private Double sampleWeight; // events this one stands for when sampled, see EventSampler
     private LocalDateTime eventTimestamp;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,25 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the thread model and connection pool pressure of the running instance
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuntimeDiagnosticsResponseDTO {
+    private String javaVersion;
+    private Boolean virtualThreadsRequested; // spring.threads.virtual.enabled
+    private Boolean virtualThreads; // in effect: requested and running on Java 21+
+    private Boolean pinningMonitored; // false before Java 21 or with platform threads
+    private Long pinnedEvents; // since start
+    private Integer pinnedStacks; // distinct pinned stacks, each logged once
+    private Integer activeConnections;
+    private Integer idleConnections;
+    private Integer totalConnections;
+    private Integer threadsAwaitingConnection;
+    private Integer peakThreadsAwaitingConnection; // highest sample since start
+}
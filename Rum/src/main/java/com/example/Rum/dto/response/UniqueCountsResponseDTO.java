@@ -0,0 +1,18 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for estimated distinct sessions and users
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueCountsResponseDTO {
+    private String pageUrl; // null when counted across all pages
+    private Long uniqueSessions;
+    private Long uniqueUsers;
+    private Double standardError; // relative, e.g. 0.016 = 1.6%
+}
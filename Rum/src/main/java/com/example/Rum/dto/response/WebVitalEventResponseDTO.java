@@ -17,10 +17,15 @@ public class WebVitalEventResponseDTO {
     private String userId;
     private String pageUrl;
     private String userAgent;
+    private String browser;
+    private String browserVersion;
+    private String os;
+    private String deviceType; // desktop, mobile, tablet, bot
     private String metricName; // LCP, FCP, CLS, INP, TTFB
     private Double value;
     private String rating;
     private String navigationType;
+    private Double sampleWeight; // events this one stands for when sampled, see EventSampler
     private LocalDateTime eventTimestamp;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,25 @@
+package com.example.Rum.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for Web Vital percentiles of one metric
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebVitalPercentilesResponseDTO {
+    private Long bucketStartMs; // Set in a series, start of the bucket in epoch milliseconds
+    private String metricName; // LCP, FCP, CLS, INP, TTFB
+    private String pageUrl; // null when computed across all pages
+    private String browser; // Set when filtered or grouped by browser
+    private String os; // Set when filtered or grouped by os
+    private String deviceType; // Set when filtered or grouped by deviceType
+    private Long count;
+    private Double p50;
+    private Double p75;
+    private Double p95;
+    private Double p99;
+}
@@ -0,0 +1,207 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.dto.RumEvent;
+import lombok.Getter;
+import lombok.Setter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Events of one or more SDK batches of one application grouped by event type,
+ * so each type can be written with a single multi-row save
+ */
+@Getter
+public class EventBatch {
+
+    /**
+     * Application the events belong to: the envelope's appKey while reading, the resolved
+     * key (see AppRegistry) once accepted
+     */
+    @Setter
+    private String appKey;
+
+    private final Map<Class<? extends RumEvent>, List<RumEvent>> events = new LinkedHashMap<>();
+
+    /**
+     * Type of each event received in the request(s), in request order; null for events
+     * dropped while reading
+     */
+    private final List<Class<? extends RumEvent>> received = new ArrayList<>();
+
+    /**
+     * Events dropped while reading, by position in the request(s)
+     */
+    private final List<EventFailure> failures = new ArrayList<>();
+
+    /**
+     * Write-ahead log records the events came from, empty when the log is disabled
+     */
+    private final List<Long> logSequenceNumbers = new ArrayList<>();
+
+    /**
+     * Weight of each event kept by sampling (see EventSampler); other events weigh 1
+     */
+    private final Map<RumEvent, Double> sampleWeights = new IdentityHashMap<>();
+
+    /**
+     * Events received in the request(s), including ones that were dropped while reading
+     */
+    public int getReceived() {
+        return received.size();
+    }
+
+    public void incrementReceived() {
+        received.add(null);
+    }
+
+    /**
+     * Add the last received event to the list of its type
+     */
+    public void add(RumEvent event) {
+        events.computeIfAbsent(event.getClass(), type -> new ArrayList<>()).add(event);
+        received.set(received.size() - 1, event.getClass());
+    }
+
+    /**
+     * Record why the last received event was dropped
+     */
+    public void reject(String type, String reason) {
+        failures.add(new EventFailure(received.size() - 1, type, reason));
+    }
+
+    /**
+     * Drop the events matching a test, recording each as a failure with the given reason
+     * @return the events dropped, in request order
+     */
+    public List<RumEvent> shed(Predicate<RumEvent> test, String reason) {
+        return remove(test, reason);
+    }
+
+    /**
+     * Drop the events matching a test without reporting them: they count as processed,
+     * as events left out by sampling do
+     * @return the events dropped, in request order
+     */
+    public List<RumEvent> discard(Predicate<RumEvent> test) {
+        return remove(test, null);
+    }
+
+    public void setSampleWeight(RumEvent event, double weight) {
+        sampleWeights.put(event, weight);
+    }
+
+    /**
+     * Number of events an event stands for, 1 unless sampling kept it at a lower rate
+     */
+    public double getSampleWeight(RumEvent event) {
+        return sampleWeights.getOrDefault(event, 1.0);
+    }
+
+    private List<RumEvent> remove(Predicate<RumEvent> test, String reason) {
+        List<RumEvent> removed = new ArrayList<>();
+        Map<Class<? extends RumEvent>, Integer> seen = new HashMap<>();
+        for (int i = 0; i < received.size(); i++) {
+            Class<? extends RumEvent> type = received.get(i);
+            if (type == null) {
+                continue;
+            }
+            RumEvent event = events.get(type).get(seen.merge(type, 1, Integer::sum) - 1);
+            if (test.test(event)) {
+                removed.add(event);
+                received.set(i, null);
+                if (reason != null) {
+                    failures.add(new EventFailure(i, event.getType(), reason));
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            Set<RumEvent> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+            gone.addAll(removed);
+            events.values().forEach(list -> list.removeIf(gone::contains));
+            events.values().removeIf(List::isEmpty);
+            sampleWeights.keySet().removeAll(gone);
+            failures.sort(Comparator.comparingInt(EventFailure::getIndex));
+        }
+        return removed;
+    }
+
+    /**
+     * Event types present in the batch, in order of first appearance
+     */
+    public Set<Class<? extends RumEvent>> getTypes() {
+        return events.keySet();
+    }
+
+    /**
+     * Events of one type, in request order
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends RumEvent> List<E> getEvents(Class<E> type) {
+        return (List<E>) events.getOrDefault(type, List.of());
+    }
+
+    /**
+     * Every event of the batch, grouped by type
+     */
+    public List<RumEvent> getAllEvents() {
+        List<RumEvent> all = new ArrayList<>(size());
+        for (List<RumEvent> list : events.values()) {
+            all.addAll(list);
+        }
+        return all;
+    }
+
+    /**
+     * Position in the request(s) of the nth added event of a type
+     */
+    public int requestIndex(Class<? extends RumEvent> type, int nth) {
+        int seen = 0;
+        for (int i = 0; i < received.size(); i++) {
+            if (type == received.get(i) && seen++ == nth) {
+                return i;
+            }
+        }
+        throw new IndexOutOfBoundsException("No " + type.getSimpleName() + " #" + nth);
+    }
+
+    /**
+     * Append all events of another batch of the same application to this one
+     */
+    public void addAll(EventBatch other) {
+        if (!Objects.equals(appKey, other.appKey)) {
+            throw new IllegalArgumentException("Cannot merge batches of apps " + appKey + " and " + other.appKey);
+        }
+        int offset = received.size();
+        received.addAll(other.received);
+        for (EventFailure failure : other.failures) {
+            failures.add(new EventFailure(offset + failure.getIndex(), failure.getType(), failure.getReason()));
+        }
+        logSequenceNumbers.addAll(other.logSequenceNumbers);
+        sampleWeights.putAll(other.sampleWeights);
+        other.events.forEach((type, list) -> events.computeIfAbsent(type, key -> new ArrayList<>()).addAll(list));
+    }
+
+    /**
+     * Total number of events across all types
+     */
+    public int size() {
+        int size = 0;
+        for (List<RumEvent> list : events.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.service.RUMEventService;
+import com.example.Rum.tenancy.AppRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes an EventBatch in one transaction, with one multi-row save per event type.
+ *
+ * A write can need a second connection while holding its own (dictionary, blob and issue
+ * upserts run in transactions of their own), so writes that outnumber the connection pool
+ * would each hold one connection and wait forever for another. Concurrent writes are capped
+ * below the pool size instead; callers past the cap wait here, before taking a connection.
+ * Each application also has a smaller cap of its own, taken first, so a flood from one site
+ * queues behind itself rather than holding every write slot.
+ */
+@Component
+@Slf4j
+public class EventBatchWriter {
+
+    private final RUMEventService rumEventService;
+    private final AppRegistry appRegistry;
+    private final IngestProperties properties;
+    private final Semaphore writes;
+    private final Map<String, Semaphore> appWrites = new ConcurrentHashMap<>();
+    // Callers per app key waiting for either slot; an app with none waiting has no entry
+    private final Map<String, Integer> appWaiting = new ConcurrentHashMap<>();
+
+    public EventBatchWriter(RUMEventService rumEventService, AppRegistry appRegistry, IngestProperties properties) {
+        this.rumEventService = rumEventService;
+        this.appRegistry = appRegistry;
+        this.properties = properties;
+        this.writes = new Semaphore(properties.getMaxConcurrentWrites(), true);
+    }
+
+    /**
+     * Number of callers waiting for a write slot, globally or of their application
+     */
+    public int waitingWrites() {
+        int waiting = writes.getQueueLength();
+        for (Semaphore forApp : appWrites.values()) {
+            waiting += forApp.getQueueLength();
+        }
+        return waiting;
+    }
+
+    /**
+     * Number of callers writing events of the application that wait for a write slot
+     */
+    public int waitingWrites(String appKey) {
+        return appWaiting.getOrDefault(appKey, 0);
+    }
+
+    /**
+     * Persist all events in the batch
+     * @return the events that were not written
+     */
+    public List<EventFailure> write(EventBatch batch) {
+        // Registered before the batch transaction so it needs no second connection
+        appRegistry.register(batch.getAppKey());
+        Semaphore forApp = appWrites.computeIfAbsent(batch.getAppKey(),
+                appKey -> new Semaphore(properties.getMaxConcurrentWritesPerApp(), true));
+        List<EventFailure> failures;
+        appWaiting.merge(batch.getAppKey(), 1, Integer::sum);
+        forApp.acquireUninterruptibly();
+        try {
+            writes.acquireUninterruptibly();
+            appWaiting.computeIfPresent(batch.getAppKey(), (key, count) -> count == 1 ? null : count - 1);
+            try {
+                failures = rumEventService.processBatch(batch);
+            } finally {
+                writes.release();
+            }
+        } finally {
+            forApp.release();
+        }
+        log.debug("Wrote batch of {} events of app {}, {} failed", batch.getReceived() - failures.size(),
+                batch.getAppKey(), failures.size());
+        return failures;
+    }
+}
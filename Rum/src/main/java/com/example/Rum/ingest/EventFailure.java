@@ -0,0 +1,24 @@
+package com.example.Rum.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An event of an SDK batch that was not written, and why
+ */
+@Getter
+@AllArgsConstructor
+public class EventFailure {
+
+    /**
+     * Position of the event in the request's array
+     */
+    private final int index;
+
+    /**
+     * Event type, null if the event was rejected before its type was read
+     */
+    private final String type;
+
+    private final String reason;
+}
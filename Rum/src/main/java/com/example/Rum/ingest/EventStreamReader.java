@@ -0,0 +1,231 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.dto.UnknownEventDTO;
+import com.example.Rum.ingest.wire.WireFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an SDK batch token by token and binds each event straight into its RumEvent DTO,
+ * without building a JsonNode tree for the request. A batch is either a JSON array of
+ * events or an envelope {"appKey": "...", "events": [...]} naming the application.
+ *
+ * The envelope may also carry a "context" object with the sessionId, userId, pageUrl and
+ * userAgent shared by its events, which the SDK then leaves out of each event; an event
+ * that sets one of them keeps its own value. The same structures are read from CBOR.
+ *
+ * Jackson resolves the DTO from the "type" property: the SDK writes it first, so the
+ * common case binds directly from the request stream; if it appears later, Jackson
+ * buffers the event's tokens until it is found.
+ */
+@Component
+@Slf4j
+public class EventStreamReader {
+
+    /**
+     * Failure reason of an event larger than the reader's maxEventBytes
+     */
+    public static final String EVENT_TOO_LARGE = "Event too large";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final JsonFactory cborFactory = new CBORFactory();
+
+    public EventStreamReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(RumEvent.class);
+    }
+
+    /**
+     * Read a batch into events grouped by type, with the envelope's appKey if it has one.
+     * Events of unknown type or that fail to bind are counted as received but not added,
+     * and recorded as failures of the batch.
+     * @throws JsonParseException if the body is neither a well-formed JSON array of events
+     *                            nor an envelope holding one
+     */
+    public EventBatch read(InputStream in) throws IOException {
+        return read(in, Long.MAX_VALUE);
+    }
+
+    /**
+     * Read a batch as above, also dropping events that take more than maxEventBytes of the body
+     */
+    public EventBatch read(InputStream in, long maxEventBytes) throws IOException {
+        return read(in, maxEventBytes, WireFormat.JSON);
+    }
+
+    /**
+     * Read a batch as above from a body in the given format
+     */
+    public EventBatch read(InputStream in, long maxEventBytes, WireFormat format) throws IOException {
+        EventBatch batch = new EventBatch();
+        JsonFactory factory = format == WireFormat.CBOR ? cborFactory : objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(in)) {
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.START_ARRAY) {
+                readEvents(parser, batch, maxEventBytes);
+            } else if (first == JsonToken.START_OBJECT) {
+                readEnvelope(parser, batch, maxEventBytes);
+            } else {
+                throw new JsonParseException(parser, "Expected an array of events or a batch envelope");
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Read the fields of an envelope, in any order; unknown fields are skipped
+     */
+    private void readEnvelope(JsonParser parser, EventBatch batch, long maxEventBytes) throws IOException {
+        boolean events = false;
+        BatchContext context = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "appKey":
+                    if (value != JsonToken.VALUE_STRING) {
+                        throw new JsonParseException(parser, "Expected appKey to be a string");
+                    }
+                    batch.setAppKey(parser.getText());
+                    break;
+                case "events":
+                    if (value != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(parser, "Expected events to be a JSON array");
+                    }
+                    readEvents(parser, batch, maxEventBytes);
+                    events = true;
+                    break;
+                case "context":
+                    if (value != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "Expected context to be an object");
+                    }
+                    context = readContext(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (!events) {
+            throw new JsonParseException(parser, "Expected an events array in the batch envelope");
+        }
+        if (context != null) {
+            // Applied once the envelope is read, as the context may follow the events
+            for (Class<? extends RumEvent> type : batch.getTypes()) {
+                for (RumEvent event : batch.getEvents(type)) {
+                    context.applyTo(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the shared fields of a context object, the parser being on its START_OBJECT
+     */
+    private BatchContext readContext(JsonParser parser) throws IOException {
+        BatchContext context = new BatchContext();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "sessionId":
+                    context.sessionId = parser.getText();
+                    break;
+                case "userId":
+                    context.userId = parser.getText();
+                    break;
+                case "pageUrl":
+                    context.pageUrl = parser.getText();
+                    break;
+                case "userAgent":
+                    context.userAgent = parser.getText();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Read the events of an array, the parser being on its START_ARRAY
+     */
+    private void readEvents(JsonParser parser, EventBatch batch, long maxEventBytes) throws IOException {
+        JsonStreamContext arrayContext = parser.getParsingContext();
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            batch.incrementReceived();
+            long start = parser.currentTokenLocation().getByteOffset();
+            try {
+                RumEvent event = reader.readValue(parser);
+                if (parser.currentLocation().getByteOffset() - start > maxEventBytes) {
+                    batch.reject(event.getType(), EVENT_TOO_LARGE);
+                } else if (event instanceof UnknownEventDTO) {
+                    log.warn("Unknown event type: {}", event.getType());
+                    batch.reject(event.getType(), "Unknown event type");
+                } else {
+                    batch.add(event);
+                }
+            } catch (JsonMappingException e) {
+                log.error("Error reading event: {}", e.getOriginalMessage());
+                batch.reject(null, "Invalid event: " + e.getOriginalMessage());
+                skipToEndOfEvent(parser, arrayContext);
+            }
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected an event object, got " + token);
+        }
+    }
+
+    /**
+     * After a binding failure, advance to the END_OBJECT that closes the current event
+     */
+    private void skipToEndOfEvent(JsonParser parser, JsonStreamContext arrayContext) throws IOException {
+        while (parser.currentToken() != JsonToken.END_OBJECT || parser.getParsingContext() != arrayContext) {
+            if (parser.nextToken() == null) {
+                throw new JsonParseException(parser, "Unexpected end of event batch");
+            }
+        }
+    }
+
+    /**
+     * Session-level fields an envelope sends once for all of its events
+     */
+    private static final class BatchContext {
+        private String sessionId;
+        private String userId;
+        private String pageUrl;
+        private String userAgent;
+
+        private void applyTo(RumEvent event) {
+            if (event.getSessionId() == null) {
+                event.setSessionId(sessionId);
+            }
+            if (event.getUserId() == null) {
+                event.setUserId(userId);
+            }
+            if (event.getPageUrl() == null) {
+                event.setPageUrl(pageUrl);
+            }
+            if (event.getUserAgent() == null) {
+                event.setUserAgent(userAgent);
+            }
+        }
+    }
+}
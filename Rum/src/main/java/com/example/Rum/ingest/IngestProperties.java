@@ -0,0 +1,67 @@
+package com.example.Rum.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Ingestion pipeline settings (rum.ingest.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.ingest")
+public class IngestProperties {
+
+    /**
+     * When true, POST /api/rum enqueues the batch and returns 202;
+     * background writers persist it. When false, events are written on the request thread.
+     */
+    private boolean async = false;
+
+    /**
+     * Independent queues, each with its own writers, batches are spread over by app key
+     */
+    private int shards = 4;
+
+    /**
+     * Maximum number of SDK batches waiting in each shard's queue
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * Maximum number of batches of one application waiting in its shard's queue; admission
+     * sheds and refuses an application's batches by how much of this it uses, so keep it
+     * below queueCapacity to leave room for the other applications of the shard
+     */
+    private int maxQueuedBatchesPerApp = 250;
+
+    /**
+     * Number of background writer threads draining each shard's queue
+     */
+    private int writerThreads = 1;
+
+    /**
+     * Batches written at the same time, across request threads and background writers;
+     * keep it below spring.datasource.hikari.maximum-pool-size (default 10)
+     */
+    private int maxConcurrentWrites = 8;
+
+    /**
+     * Of those, how many may write events of the same application, so one busy site
+     * leaves connections for the others
+     */
+    private int maxConcurrentWritesPerApp = 4;
+
+    /**
+     * Upper bound on events a writer merges into one write
+     */
+    private int maxEventsPerWrite = 1000;
+
+    /**
+     * How long a writer waits for the first batch before re-checking for shutdown
+     */
+    private long pollTimeoutMs = 200;
+
+    /**
+     * Distinct user-agent strings whose parsed browser, OS and device are kept in memory
+     */
+    private int userAgentCacheSize = 10_000;
+}
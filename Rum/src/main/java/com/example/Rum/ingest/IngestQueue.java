@@ -0,0 +1,221 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.ingest.wal.IngestLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory queues of accepted SDK batches, drained by background writer threads.
+ * Each writer merges whatever is queued (up to maxEventsPerWrite events) into one EventBatch
+ * per application so the database sees a few multi-row writes instead of one transaction per event.
+ *
+ * Batches are sharded by app key over independent queues, each with its own writers. Several
+ * applications share a shard, so the backlog admission sheds by is counted per application:
+ * each may have at most maxQueuedBatchesPerApp batches queued, and a site sending more than
+ * the writers keep up with reaches its own cap and gets 429s while the others sharing its
+ * shard are still accepted. The shard capacity only bounds memory when many applications of
+ * one shard are backed up at once.
+ */
+@Component
+@Slf4j
+public class IngestQueue {
+
+    private final IngestProperties properties;
+    private final EventBatchWriter eventBatchWriter;
+    private final IngestLog ingestLog;
+    private final Environment environment;
+    private final List<BlockingQueue<EventBatch>> shards = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    // Batches queued per app key; an app without queued batches has no entry
+    private final Map<String, Integer> queued = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public IngestQueue(IngestProperties properties, EventBatchWriter eventBatchWriter, IngestLog ingestLog,
+                       Environment environment) {
+        this.properties = properties;
+        this.eventBatchWriter = eventBatchWriter;
+        this.ingestLog = ingestLog;
+        this.environment = environment;
+        for (int i = 0; i < properties.getShards(); i++) {
+            shards.add(new ArrayBlockingQueue<>(properties.getQueueCapacity()));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isAsync()) {
+            return;
+        }
+        running = true;
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        ThreadFactory threads = virtual
+                ? new VirtualThreadTaskExecutor("rum-ingest-writer-").getVirtualThreadFactory()
+                : new PlatformThreadFactory();
+        for (BlockingQueue<EventBatch> shard : shards) {
+            for (int i = 0; i < properties.getWriterThreads(); i++) {
+                Thread writer = threads.newThread(() -> drainLoop(shard));
+                writer.start();
+                writers.add(writer);
+            }
+        }
+        log.info("Started {} {} ingest writer(s) over {} shard(s), queue capacity {} per shard and {} per app",
+                writers.size(), virtual ? "virtual" : "platform", shards.size(), properties.getQueueCapacity(),
+                properties.getMaxQueuedBatchesPerApp());
+    }
+
+    /**
+     * Enqueue a batch on its application's shard without blocking
+     * @return false if the application already has its maximum of batches queued, or the
+     *         shard's queue is full, and the batch was not accepted
+     */
+    public boolean offer(EventBatch batch) {
+        String appKey = batch.getAppKey();
+        boolean[] reserved = new boolean[1];
+        queued.compute(appKey, (key, count) -> {
+            if (count != null && count >= properties.getMaxQueuedBatchesPerApp()) {
+                return count;
+            }
+            reserved[0] = true;
+            return count == null ? 1 : count + 1;
+        });
+        if (!reserved[0]) {
+            return false;
+        }
+        if (!shard(appKey).offer(batch)) {
+            dequeued(batch);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * How full the queue share of an application is, from 0 (nothing queued) to 1 (at
+     * maxQueuedBatchesPerApp); other applications' batches on the same shard do not count
+     */
+    public double backlog(String appKey) {
+        return (double) queued.getOrDefault(appKey, 0) / properties.getMaxQueuedBatchesPerApp();
+    }
+
+    /**
+     * Number of batches waiting to be written, over all shards
+     */
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<EventBatch> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Flush anything accepted after the writers stopped polling
+        for (BlockingQueue<EventBatch> shard : shards) {
+            Map<String, EventBatch> remaining = new LinkedHashMap<>();
+            EventBatch next;
+            while ((next = shard.poll()) != null) {
+                merge(remaining, next);
+            }
+            for (EventBatch batch : remaining.values()) {
+                log.info("Flushing {} queued events of app {} on shutdown", batch.size(), batch.getAppKey());
+                writeSafely(batch);
+            }
+        }
+    }
+
+    private BlockingQueue<EventBatch> shard(String appKey) {
+        return shards.get(Math.floorMod(appKey.hashCode(), shards.size()));
+    }
+
+    private void drainLoop(BlockingQueue<EventBatch> shard) {
+        while (running) {
+            try {
+                EventBatch first = shard.poll(properties.getPollTimeoutMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Apps sharing the shard are merged separately: a write holds one app's events
+                Map<String, EventBatch> merged = new LinkedHashMap<>();
+                int events = merge(merged, first);
+                EventBatch next;
+                while (events < properties.getMaxEventsPerWrite() && (next = shard.poll()) != null) {
+                    events += merge(merged, next);
+                }
+                for (EventBatch batch : merged.values()) {
+                    writeSafely(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add a batch to the merged batch of its application
+     * @return number of events added
+     */
+    private int merge(Map<String, EventBatch> merged, EventBatch batch) {
+        dequeued(batch);
+        merged.computeIfAbsent(batch.getAppKey(), appKey -> {
+            EventBatch forApp = new EventBatch();
+            forApp.setAppKey(appKey);
+            return forApp;
+        }).addAll(batch);
+        return batch.size();
+    }
+
+    private void dequeued(EventBatch batch) {
+        queued.computeIfPresent(batch.getAppKey(), (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void writeSafely(EventBatch batch) {
+        try {
+            eventBatchWriter.write(batch);
+            ingestLog.markApplied(batch);
+        } catch (Exception e) {
+            // Already acknowledged with 202: kept in the dead-letter file rather than retried forever
+            log.error("Failed to write batch of {} events", batch.size(), e);
+            ingestLog.markFailed(batch, e);
+        }
+    }
+
+    /**
+     * Daemon writer threads named rum-ingest-writer-N, used unless virtual threads are enabled
+     */
+    private static final class PlatformThreadFactory implements ThreadFactory {
+        private int next;
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "rum-ingest-writer-" + next++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.model.UserAgentDimensions;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Browser, browser major version, OS and device class of a user-agent string
+ */
+@Getter
+@AllArgsConstructor
+public final class UserAgent {
+
+    public static final UserAgent NONE = new UserAgent(null, null, null, null);
+
+    private final String browser; // Chrome, Edge, Firefox, Safari, Opera, Samsung Internet, IE, Other
+    private final String browserVersion; // Major version, e.g. "124"
+    private final String os; // Windows, macOS, iOS, Android, ChromeOS, Linux, Other
+    private final String deviceType; // desktop, mobile, tablet, bot
+
+    public void applyTo(UserAgentDimensions event) {
+        event.setBrowser(browser);
+        event.setBrowserVersion(browserVersion);
+        event.setOs(os);
+        event.setDeviceType(deviceType);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.Rum.ingest;
+
+import org.springframework.stereotype.Component;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses user-agent strings into browser, version, OS and device class at ingest.
+ *
+ * A site sees a few thousand distinct user agents against millions of events, so results
+ * are cached by UA string in a concurrent map bounded at rum.ingest.user-agent-cache-size;
+ * when it is full an arbitrary entry is evicted and simply parsed again on its next use.
+ *
+ * Rules are ordered: Chromium-based browsers also claim Chrome and Safari, and Chrome
+ * claims Safari, so the more specific tokens are tried first.
+ */
+@Component
+public class UserAgentParser {
+
+    static final String OTHER = "Other";
+
+    private static final Pattern BOT = Pattern.compile("bot|crawl|spider|slurp|HeadlessChrome|Lighthouse|PhantomJS", Pattern.CASE_INSENSITIVE);
+
+    private static final String[][] BROWSERS = {
+            {"Edge", "Edg(?:e|A|iOS)?/(\\d+)"},
+            {"Opera", "(?:OPR|Opera)/(\\d+)"},
+            {"Samsung Internet", "SamsungBrowser/(\\d+)"},
+            {"Firefox", "(?:Firefox|FxiOS)/(\\d+)"},
+            {"Chrome", "(?:Chrome|CriOS|Chromium)/(\\d+)"},
+            {"Safari", "Version/(\\d+)[.\\d]* (?:Mobile/\\S+ )?Safari/"},
+            {"IE", "(?:MSIE |Trident/.*rv:)(\\d+)"},
+    };
+    private static final Pattern[] BROWSER_PATTERNS = new Pattern[BROWSERS.length];
+
+    static {
+        for (int i = 0; i < BROWSERS.length; i++) {
+            BROWSER_PATTERNS[i] = Pattern.compile(BROWSERS[i][1]);
+        }
+    }
+
+    private static final Pattern IOS = Pattern.compile("iPhone|iPad|iPod");
+    private static final Pattern TABLET = Pattern.compile("iPad|Tablet|PlayBook|Kindle|Silk");
+    private static final Pattern MOBILE = Pattern.compile("Mobi|iPhone|iPod|Windows Phone");
+
+    private final int cacheSize;
+    private final Map<String, UserAgent> cache = new ConcurrentHashMap<>();
+
+    public UserAgentParser(IngestProperties properties) {
+        this.cacheSize = properties.getUserAgentCacheSize();
+    }
+
+    /**
+     * Parsed dimensions of a user-agent string; all null when there is none
+     */
+    public UserAgent parse(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UserAgent.NONE;
+        }
+        UserAgent parsed = cache.get(userAgent);
+        if (parsed == null) {
+            parsed = parseUncached(userAgent);
+            if (cache.size() >= cacheSize) {
+                Iterator<String> iterator = cache.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            cache.put(userAgent, parsed);
+        }
+        return parsed;
+    }
+
+    static UserAgent parseUncached(String userAgent) {
+        String browser = OTHER;
+        String version = null;
+        for (int i = 0; i < BROWSERS.length; i++) {
+            Matcher matcher = BROWSER_PATTERNS[i].matcher(userAgent);
+            if (matcher.find()) {
+                browser = BROWSERS[i][0];
+                version = matcher.group(1);
+                break;
+            }
+        }
+        return new UserAgent(browser, version, os(userAgent), deviceType(userAgent));
+    }
+
+    private static String os(String userAgent) {
+        if (userAgent.contains("Windows")) {
+            return "Windows";
+        }
+        if (IOS.matcher(userAgent).find()) {
+            return "iOS";
+        }
+        if (userAgent.contains("Android")) {
+            return "Android";
+        }
+        if (userAgent.contains("CrOS")) {
+            return "ChromeOS";
+        }
+        if (userAgent.contains("Mac OS X") || userAgent.contains("Macintosh")) {
+            return "macOS";
+        }
+        if (userAgent.contains("Linux") || userAgent.contains("X11")) {
+            return "Linux";
+        }
+        return OTHER;
+    }
+
+    private static String deviceType(String userAgent) {
+        if (BOT.matcher(userAgent).find()) {
+            return "bot";
+        }
+        if (TABLET.matcher(userAgent).find()
+                || (userAgent.contains("Android") && !userAgent.contains("Mobile"))) {
+            return "tablet";
+        }
+        if (MOBILE.matcher(userAgent).find()) {
+            return "mobile";
+        }
+        return "desktop";
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.Rum.ingest.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission control settings for POST /api/rum (rum.admission.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.admission")
+public class AdmissionProperties {
+
+    /**
+     * When false, every well-formed batch is accepted as before: no size guards, rate limits or shedding
+     */
+    private boolean enabled = true;
+
+    /**
+     * Largest request body read; longer bodies are refused with 413
+     */
+    private long maxBodyBytes = 1024 * 1024;
+
+    /**
+     * Most events one batch may hold; larger batches are refused with 413
+     */
+    private int maxEventsPerBatch = 500;
+
+    /**
+     * Largest single event, as serialized in the request; larger events are dropped from their batch
+     */
+    private int maxEventBytes = 64 * 1024;
+
+    /**
+     * Requests per client address (see clientAddressHeader), checked before the body is read;
+     * a request refused after that gives its token back
+     */
+    private RateLimit ipLimit = new RateLimit(20, 100);
+
+    /**
+     * Header a reverse proxy or load balancer sets to the client address, e.g. X-Forwarded-For;
+     * empty to use the connection's remote address. Entries are read right to left and the
+     * first one that is not a trusted proxy is the client, so a value the client sent itself is
+     * never used.
+     */
+    private String clientAddressHeader = "";
+
+    /**
+     * Addresses of the proxies in front of the server. The client address header is read only on
+     * connections from one of them; empty reads it on every connection, for servers reachable
+     * through the proxy alone.
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * Events per session
+     */
+    private RateLimit sessionLimit = new RateLimit(50, 500);
+
+    /**
+     * Events per application
+     */
+    private RateLimit appLimit = new RateLimit(5000, 20_000);
+
+    /**
+     * Lane per SDK event type, e.g. rum.admission.priorities.userAction=low; unlisted types are NORMAL
+     */
+    private Map<String, Priority> priorities = new HashMap<>(Map.of(
+            "error", Priority.HIGH,
+            "networkError", Priority.HIGH,
+            "userAction", Priority.LOW,
+            "resourcePerformance", Priority.LOW,
+            "engagement", Priority.LOW));
+
+    /**
+     * Write backlog, as a fraction of its bound, from which LOW events are shed
+     */
+    private double shedLowPriorityAt = 0.5;
+
+    /**
+     * Write backlog from which NORMAL events are shed as well; at 1.0 batches are refused with 429
+     */
+    private double shedNormalPriorityAt = 0.8;
+
+    /**
+     * With rum.ingest.async=false, request threads that may wait for a write slot before
+     * batches are refused; the async backlog is bounded by rum.ingest.queue-capacity instead
+     */
+    private int maxWaitingWrites = 64;
+
+    /**
+     * With rum.ingest.async=false, request threads of one application that may wait for a
+     * write slot; its events are shed by how much of this it uses. The async backlog of an
+     * application is bounded by rum.ingest.max-queued-batches-per-app instead
+     */
+    private int maxWaitingWritesPerApp = 16;
+
+    /**
+     * Retry-After sent when a batch is refused because the write backlog is full
+     */
+    private Duration backlogRetryAfter = Duration.ofSeconds(2);
+
+    /**
+     * Most sessions, client addresses or applications each tracked with a bucket of their own;
+     * keys past this share one bucket until idle ones are dropped
+     */
+    private int maxTrackedKeys = 100_000;
+
+    /**
+     * Interval at which buckets that have refilled completely are dropped
+     */
+    private long sweepIntervalMs = 60_000;
+
+    /**
+     * Largest event the reader should accept: maxEventBytes, or no limit with admission off
+     */
+    public long eventByteLimit() {
+        return enabled ? maxEventBytes : Long.MAX_VALUE;
+    }
+
+    /**
+     * A token bucket: sustained rate and the burst allowed above it. A perSecond of 0 disables the limit.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RateLimit {
+        private double perSecond;
+        private long burst;
+    }
+}
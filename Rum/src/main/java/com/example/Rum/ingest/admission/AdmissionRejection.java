@@ -0,0 +1,22 @@
+package com.example.Rum.ingest.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Why a batch was refused as a whole, and when the client may send it again
+ */
+@Getter
+@AllArgsConstructor
+public class AdmissionRejection {
+
+    private final HttpStatus status;
+
+    private final String message;
+
+    /**
+     * Seconds to send in Retry-After, null when retrying the same request cannot succeed
+     */
+    private final Long retryAfterSeconds;
+}
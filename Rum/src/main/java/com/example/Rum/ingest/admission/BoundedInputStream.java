@@ -0,0 +1,61 @@
+package com.example.Rum.ingest.admission;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body that fails once more than maxBytes have been read from it, so an oversized
+ * batch without (or lying about) its Content-Length is cut off while it is being parsed
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long read;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long n) throws BodyTooLargeException {
+        read += n;
+        if (read > maxBytes) {
+            throw new BodyTooLargeException(maxBytes);
+        }
+    }
+
+    /**
+     * Thrown from a read past the limit
+     */
+    public static class BodyTooLargeException extends IOException {
+        public BodyTooLargeException(long maxBytes) {
+            super("Request body larger than " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.Rum.ingest.admission;
+
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventFailure;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.IngestProperties;
+import com.example.Rum.ingest.IngestQueue;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Decides how much of an SDK batch POST /api/rum takes on, before anything is logged or written,
+ * so a traffic spike or a runaway SDK cannot starve the dashboard queries sharing the pool.
+ *
+ * In order: the client address's request rate and the body size are checked before the body
+ * is read; then the event count, oversized events, the application's share of the write
+ * backlog, and the per-session and per-application event rates. Backlog and rate limits shed by priority lane: LOW events go
+ * first, then NORMAL, so errors are still taken while user actions are being dropped. A batch
+ * left with no events, or refused outright, gets 413 or 429 with Retry-After.
+ *
+ * Buckets are charged for admitted events only: events shed by a later stage, and batches
+ * refused after all, give their tokens back.
+ *
+ * Dropped events are counted by reason and type, refused batches by reason; see snapshot().
+ */
+@Component
+@Slf4j
+public class IngestAdmission {
+
+    static final String BODY_TOO_LARGE = "bodyTooLarge";
+    static final String TOO_MANY_EVENTS = "tooManyEvents";
+    static final String EVENT_TOO_LARGE = "eventTooLarge";
+    static final String IP_RATE_LIMIT = "ipRateLimit";
+    static final String SESSION_RATE_LIMIT = "sessionRateLimit";
+    static final String APP_RATE_LIMIT = "appRateLimit";
+    static final String BACKLOG = "backlog";
+
+    private static final int LANES = Priority.values().length;
+
+    private final AdmissionProperties properties;
+    private final IngestProperties ingestProperties;
+    private final IngestQueue ingestQueue;
+    private final EventBatchWriter eventBatchWriter;
+    private final RateLimiter addresses;
+    private final RateLimiter sessions;
+    private final RateLimiter apps;
+
+    private final LongAdder acceptedBatches = new LongAdder();
+    private final LongAdder acceptedEvents = new LongAdder();
+    private final Map<String, LongAdder> rejectedBatches = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejectedEvents = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> shedEvents = new ConcurrentHashMap<>();
+
+    public IngestAdmission(AdmissionProperties properties, IngestProperties ingestProperties,
+                           IngestQueue ingestQueue, EventBatchWriter eventBatchWriter) {
+        this.properties = properties;
+        this.ingestProperties = ingestProperties;
+        this.ingestQueue = ingestQueue;
+        this.eventBatchWriter = eventBatchWriter;
+        this.addresses = new RateLimiter(properties.getIpLimit(), properties.getMaxTrackedKeys());
+        this.sessions = new RateLimiter(properties.getSessionLimit(), properties.getMaxTrackedKeys());
+        this.apps = new RateLimiter(properties.getAppLimit(), properties.getMaxTrackedKeys());
+    }
+
+    /**
+     * Address the request rate is limited by: the connection's remote address, or the client
+     * address a trusted proxy put in rum.admission.client-address-header
+     */
+    public String clientAddress(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        String header = properties.getClientAddressHeader();
+        if (header == null || header.isBlank() || !isTrustedProxy(remote)) {
+            return remote;
+        }
+        String forwarded = request.getHeader(header);
+        if (forwarded == null || forwarded.isBlank()) {
+            return remote;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !properties.getTrustedProxies().contains(hop)) {
+                return hop;
+            }
+        }
+        // Every hop is a proxy of ours: the request started at the first one
+        String first = hops.length == 0 ? "" : hops[0].trim();
+        return first.isEmpty() ? remote : first;
+    }
+
+    /**
+     * Check a request before its body is read
+     * @param contentLength declared body length, -1 if unknown
+     * @return why it is refused, or null to read it
+     */
+    public AdmissionRejection admitRequest(String clientAddress, long contentLength) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        if (contentLength > properties.getMaxBodyBytes()) {
+            return bodyTooLarge();
+        }
+        if (addresses.isEnabled() && clientAddress != null) {
+            TokenBucket bucket = addresses.bucket(clientAddress);
+            if (!bucket.tryAcquire(1)) {
+                return reject(IP_RATE_LIMIT, 0, HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many requests from this address, retry later", bucket.nanosUntil(1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The request body, cut off at rum.admission.max-body-bytes
+     */
+    public InputStream limit(InputStream body) {
+        return properties.isEnabled() ? new BoundedInputStream(body, properties.getMaxBodyBytes()) : body;
+    }
+
+    /**
+     * Largest event the reader should accept
+     */
+    public long maxEventBytes() {
+        return properties.eventByteLimit();
+    }
+
+    /**
+     * Count a body cut off by limit()
+     */
+    public AdmissionRejection bodyTooLarge() {
+        return reject(BODY_TOO_LARGE, 0, HttpStatus.PAYLOAD_TOO_LARGE,
+                "Event batch larger than " + properties.getMaxBodyBytes() + " bytes", -1);
+    }
+
+    /**
+     * Check a batch read from an admitted request, shedding the events it cannot take
+     * @param clientAddress the address admitRequest() charged, whose token a refused batch gives back
+     * @return why the batch is refused, or null if what is left of it may be written
+     */
+    public AdmissionRejection admit(EventBatch batch, String clientAddress) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        AdmissionRejection rejection = admitEvents(batch);
+        if (rejection != null) {
+            refundRequest(clientAddress);
+        }
+        return rejection;
+    }
+
+    /**
+     * Give back what admit() charged for a batch that is refused after all, e.g. because the
+     * queue filled up before it was offered
+     */
+    public void release(EventBatch batch, String clientAddress) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        refundRequest(clientAddress);
+        if (sessions.isEnabled()) {
+            sessionCosts(batch.getAllEvents()).forEach((session, cost) -> sessions.bucket(session).refund(total(cost)));
+        }
+        if (apps.isEnabled() && !batch.isEmpty()) {
+            apps.bucket(batch.getAppKey()).refund(batch.size());
+        }
+    }
+
+    private AdmissionRejection admitEvents(EventBatch batch) {
+        if (batch.getReceived() > properties.getMaxEventsPerBatch()) {
+            return reject(TOO_MANY_EVENTS, batch.size(), HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Event batch holds more than " + properties.getMaxEventsPerBatch() + " events", -1);
+        }
+        for (EventFailure failure : batch.getFailures()) {
+            if (EventStreamReader.EVENT_TOO_LARGE.equals(failure.getReason())) {
+                countShed(EVENT_TOO_LARGE, failure.getType());
+            }
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+
+        double backlog = backlog(batch.getAppKey());
+        if (backlog >= 1) {
+            return backlogFull(batch);
+        }
+        int lanes = backlog >= properties.getShedNormalPriorityAt() ? 1
+                : backlog >= properties.getShedLowPriorityAt() ? 2 : LANES;
+        if (lanes < LANES) {
+            shed(batch, BACKLOG, event -> lane(event) >= lanes);
+            if (batch.isEmpty()) {
+                return backlogFull(batch);
+            }
+        }
+
+        if (sessions.isEnabled()) {
+            Map<String, long[]> costs = sessionCosts(batch.getAllEvents());
+            Map<String, Integer> admitted = new HashMap<>();
+            long retryNanos = 0;
+            for (Map.Entry<String, long[]> session : costs.entrySet()) {
+                TokenBucket bucket = sessions.bucket(session.getKey());
+                int lanesAdmitted = charge(bucket, session.getValue());
+                if (lanesAdmitted < LANES) {
+                    admitted.put(session.getKey(), lanesAdmitted);
+                    retryNanos = Math.max(retryNanos, bucket.nanosUntil(highestLaneCost(session.getValue())));
+                }
+            }
+            if (!admitted.isEmpty()) {
+                shed(batch, SESSION_RATE_LIMIT,
+                        event -> lane(event) >= admitted.getOrDefault(event.getSessionId(), LANES));
+                if (batch.isEmpty()) {
+                    return reject(SESSION_RATE_LIMIT, 0, HttpStatus.TOO_MANY_REQUESTS,
+                            "Session event rate exceeded, retry later", retryNanos);
+                }
+            }
+        }
+
+        if (apps.isEnabled()) {
+            long[] cost = new long[LANES];
+            for (Class<? extends RumEvent> type : batch.getTypes()) {
+                for (RumEvent event : batch.getEvents(type)) {
+                    cost[lane(event)]++;
+                }
+            }
+            TokenBucket bucket = apps.bucket(batch.getAppKey());
+            int lanesAdmitted = charge(bucket, cost);
+            if (lanesAdmitted < LANES) {
+                List<RumEvent> shed = shed(batch, APP_RATE_LIMIT, event -> lane(event) >= lanesAdmitted);
+                if (sessions.isEnabled()) {
+                    // Their sessions paid for them above
+                    sessionCosts(shed).forEach((session, events) -> sessions.bucket(session).refund(total(events)));
+                }
+                if (batch.isEmpty()) {
+                    return reject(APP_RATE_LIMIT, 0, HttpStatus.TOO_MANY_REQUESTS,
+                            "Application event rate exceeded, retry later", bucket.nanosUntil(highestLaneCost(cost)));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Refuse a batch because the write backlog has no room for it
+     */
+    public AdmissionRejection backlogFull(EventBatch batch) {
+        return reject(BACKLOG, batch.size(), HttpStatus.TOO_MANY_REQUESTS, "Ingest backlog is full, retry later",
+                properties.getBacklogRetryAfter().toNanos());
+    }
+
+    /**
+     * Count a batch that was taken on, with the events left in it
+     */
+    public void accepted(EventBatch batch) {
+        acceptedBatches.increment();
+        acceptedEvents.add(batch.size());
+    }
+
+    /**
+     * Admission counters since start, and the current backlog and number of tracked buckets
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("acceptedBatches", acceptedBatches.sum());
+        snapshot.put("acceptedEvents", acceptedEvents.sum());
+        snapshot.put("rejectedBatches", sums(rejectedBatches));
+        snapshot.put("rejectedEvents", sums(rejectedEvents));
+        Map<String, Map<String, Long>> shed = new TreeMap<>();
+        shedEvents.forEach((reason, byType) -> shed.put(reason, sums(byType)));
+        snapshot.put("shedEvents", shed);
+        snapshot.put("queuedBatches", ingestQueue.size());
+        snapshot.put("waitingWrites", eventBatchWriter.waitingWrites());
+        snapshot.put("trackedAddresses", addresses.size());
+        snapshot.put("trackedSessions", sessions.size());
+        snapshot.put("trackedApps", apps.size());
+        return snapshot;
+    }
+
+    /**
+     * Drop the buckets of clients that have been idle long enough to refill
+     */
+    @Scheduled(fixedDelayString = "${rum.admission.sweep-interval-ms:60000}")
+    public void sweep() {
+        addresses.sweep();
+        sessions.sweep();
+        apps.sweep();
+    }
+
+    /**
+     * Fill of the application's own share of the write backlog: its queued batches when writes
+     * are async, otherwise its request threads waiting for a write slot. Other applications
+     * only count once request threads waiting overall reach maxWaitingWrites, which refuses all.
+     */
+    private double backlog(String appKey) {
+        if (ingestProperties.isAsync()) {
+            return ingestQueue.backlog(appKey);
+        }
+        if (eventBatchWriter.waitingWrites() >= properties.getMaxWaitingWrites()) {
+            return 1;
+        }
+        return (double) eventBatchWriter.waitingWrites(appKey) / properties.getMaxWaitingWritesPerApp();
+    }
+
+    private boolean isTrustedProxy(String address) {
+        return properties.getTrustedProxies().isEmpty() || properties.getTrustedProxies().contains(address);
+    }
+
+    private void refundRequest(String clientAddress) {
+        if (addresses.isEnabled() && clientAddress != null) {
+            addresses.bucket(clientAddress).refund(1);
+        }
+    }
+
+    /**
+     * Events per session and lane, indexed by Priority ordinal
+     */
+    private Map<String, long[]> sessionCosts(List<RumEvent> events) {
+        Map<String, long[]> costs = new HashMap<>();
+        for (RumEvent event : events) {
+            if (event.getSessionId() != null) {
+                costs.computeIfAbsent(event.getSessionId(), id -> new long[LANES])[lane(event)]++;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Take tokens for as many lanes as the bucket can pay for, highest priority first: all of
+     * them, else all but LOW, else HIGH only
+     * @param cost events per lane, indexed by Priority ordinal
+     * @return number of lanes paid for, from 0 (none) to LANES (all)
+     */
+    private static int charge(TokenBucket bucket, long[] cost) {
+        long total = total(cost);
+        for (int lanes = LANES; lanes > 0; lanes--) {
+            if (total == 0 || bucket.tryAcquire(total)) {
+                return lanes;
+            }
+            total -= cost[lanes - 1];
+        }
+        return 0;
+    }
+
+    private static long total(long[] cost) {
+        long total = 0;
+        for (long events : cost) {
+            total += events;
+        }
+        return total;
+    }
+
+    /**
+     * Events in the highest-priority lane that has any, what a retry needs at least
+     */
+    private static long highestLaneCost(long[] cost) {
+        for (long events : cost) {
+            if (events > 0) {
+                return events;
+            }
+        }
+        return 0;
+    }
+
+    private int lane(RumEvent event) {
+        return properties.getPriorities().getOrDefault(event.getType(), Priority.NORMAL).ordinal();
+    }
+
+    private List<RumEvent> shed(EventBatch batch, String reason, Predicate<RumEvent> test) {
+        List<RumEvent> shed = batch.shed(test, "Shed: " + reason);
+        for (RumEvent event : shed) {
+            countShed(reason, event.getType());
+        }
+        if (!shed.isEmpty()) {
+            log.debug("Shed {} events of app {} ({})", shed.size(), batch.getAppKey(), reason);
+        }
+        return shed;
+    }
+
+    private void countShed(String reason, String type) {
+        shedEvents.computeIfAbsent(reason, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type == null ? "unknown" : type, key -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Count and build a rejection
+     * @param retryNanos time after which a retry may be admitted, negative if it never will
+     */
+    private AdmissionRejection reject(String reason, int events, HttpStatus status, String message, long retryNanos) {
+        rejectedBatches.computeIfAbsent(reason, key -> new LongAdder()).increment();
+        rejectedEvents.computeIfAbsent(reason, key -> new LongAdder()).add(events);
+        log.warn("Refused event batch: {}", message);
+        if (retryNanos < 0) {
+            return new AdmissionRejection(status, message, null);
+        }
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return new AdmissionRejection(status, message, Math.max(1, (retryNanos + second - 1) / second));
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.Rum.ingest.admission;
+
+/**
+ * Lane an event type is admitted in. Under load, LOW events are shed first, then NORMAL;
+ * HIGH events are only refused when nothing else is left to shed.
+ */
+public enum Priority {
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -0,0 +1,53 @@
+package com.example.Rum.ingest.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One token bucket per key (session, client address or application). Keys are unbounded in
+ * number, so once maxKeys buckets exist new keys share a single overflow bucket; buckets that
+ * have refilled completely carry no state and are dropped by sweep().
+ */
+public class RateLimiter {
+
+    private static final String OVERFLOW = "";
+
+    private final AdmissionProperties.RateLimit limit;
+    private final int maxKeys;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(AdmissionProperties.RateLimit limit, int maxKeys) {
+        this.limit = limit;
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean isEnabled() {
+        return limit.getPerSecond() > 0;
+    }
+
+    /**
+     * The bucket of a key, created full on first use
+     */
+    public TokenBucket bucket(String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        String tracked = buckets.size() < maxKeys ? key : OVERFLOW;
+        return buckets.computeIfAbsent(tracked, k -> new TokenBucket(limit.getPerSecond(), limit.getBurst()));
+    }
+
+    /**
+     * Drop the buckets that are full again
+     */
+    public void sweep() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    /**
+     * Number of keys currently tracked
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Rum.ingest.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at a fixed rate up to its burst size. Tokens are
+ * refilled lazily on each call from the time elapsed since the last one.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final long burst;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double perSecond, long burst) {
+        this(perSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double perSecond, long burst, LongSupplier nanoClock) {
+        this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take n tokens if the bucket holds that many
+     * @return false, taking nothing, if it does not
+     */
+    public boolean tryAcquire(long n) {
+        lock.lock();
+        try {
+            refill();
+            if (tokens < n) {
+                return false;
+            }
+            tokens -= n;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back n tokens taken for work that was not done, up to the burst size
+     */
+    public void refund(long n) {
+        lock.lock();
+        try {
+            refill();
+            tokens = Math.min(burst, tokens + n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time until n tokens are available; a request larger than the burst is counted as a full bucket
+     */
+    public long nanosUntil(long n) {
+        lock.lock();
+        try {
+            refill();
+            double missing = Math.min(n, burst) - tokens;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether the bucket has refilled to its burst size, and so is no different from a new one
+     */
+    public boolean isFull() {
+        lock.lock();
+        try {
+            refill();
+            return tokens >= burst;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.Rum.ingest.sampling;
+
+import com.example.Rum.aggregation.DistinctCountStore;
+import com.example.Rum.aggregation.HyperLogLog;
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.ingest.EventBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a deterministic share of sessions per event type and page, so high-volume types such
+ * as resourcePerformance and userAction can be thinned while every error is kept.
+ *
+ * Each session hashes to a point u in [0, 1); an event is kept when u is below the rate that
+ * applies to it (first matching rule, else its type's rate, else the default). A session is
+ * therefore either fully kept or fully dropped for a given rate, and a session kept at a low
+ * rate is also kept at every higher one. Kept events carry a sample weight of 1 / rate, which
+ * the aggregates add instead of 1 so counts and percentiles estimate all events sent. Events
+ * left out are not stored but still recorded in the distinct session and user counts.
+ *
+ * Batches are sampled once, before they are logged: the write-ahead log keeps the kept events
+ * with their weights and replays them as they are.
+ */
+@Component
+@Slf4j
+public class EventSampler {
+
+    private final SamplingProperties properties;
+    private final DistinctCountStore distinctCountStore;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final Map<String, LongAdder> sampledOut = new ConcurrentHashMap<>();
+
+    public EventSampler(SamplingProperties properties, DistinctCountStore distinctCountStore) {
+        this.properties = properties;
+        this.distinctCountStore = distinctCountStore;
+        for (SamplingProperties.Rule rule : properties.getRules()) {
+            rules.add(new CompiledRule(rule.getType(),
+                    rule.getPageUrl() == null ? null : Pattern.compile(rule.getPageUrl()), rule.getRate()));
+        }
+    }
+
+    /**
+     * Drop the events of sessions outside their sample and weight the rest
+     */
+    public void sample(EventBatch batch) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Set<RumEvent> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Class<? extends RumEvent> type : batch.getTypes()) {
+            for (RumEvent event : batch.getEvents(type)) {
+                double rate = rate(event);
+                if (rate >= 1 || event.getSessionId() == null) {
+                    continue;
+                }
+                if (rate > 0 && position(event.getSessionId()) < rate) {
+                    batch.setSampleWeight(event, 1 / rate);
+                } else {
+                    dropped.add(event);
+                }
+            }
+        }
+        if (dropped.isEmpty()) {
+            return;
+        }
+        for (RumEvent event : batch.discard(dropped::contains)) {
+            sampledOut.computeIfAbsent(event.getType(), key -> new LongAdder()).increment();
+            if (event.getTimestamp() != null) {
+                distinctCountStore.record(batch.getAppKey(), event.getTimestamp(), event.getSessionId(),
+                        event.getUserId(), event.getPageUrl());
+            }
+        }
+        log.debug("Sampled out {} events of app {}", dropped.size(), batch.getAppKey());
+    }
+
+    /**
+     * Events left out by sampling since start, by type
+     */
+    public Map<String, Long> sampledOut() {
+        Map<String, Long> counts = new TreeMap<>();
+        sampledOut.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Share of sessions whose events like this one are kept
+     */
+    private double rate(RumEvent event) {
+        for (CompiledRule rule : rules) {
+            if (rule.matches(event)) {
+                return rule.rate;
+            }
+        }
+        return properties.getTypes().getOrDefault(event.getType(), properties.getDefaultRate());
+    }
+
+    /**
+     * Where a session falls in [0, 1), uniformly over sessions and independent of the
+     * HyperLogLog registers the same session id is hashed into
+     */
+    private double position(String sessionId) {
+        return (HyperLogLog.hash64(properties.getSalt() + ':' + sessionId) >>> 11) * 0x1.0p-53;
+    }
+
+    private static final class CompiledRule {
+        private final String type; // null for every type
+        private final Pattern pageUrl; // null for every page
+        private final double rate;
+
+        private CompiledRule(String type, Pattern pageUrl, double rate) {
+            this.type = type;
+            this.pageUrl = pageUrl;
+            this.rate = rate;
+        }
+
+        private boolean matches(RumEvent event) {
+            return (type == null || type.equals(event.getType()))
+                    && (pageUrl == null || (event.getPageUrl() != null && pageUrl.matcher(event.getPageUrl()).find()));
+        }
+    }
+}
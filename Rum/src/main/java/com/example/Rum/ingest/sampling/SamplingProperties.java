@@ -0,0 +1,53 @@
+package com.example.Rum.ingest.sampling;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side sampling of ingested events (rum.sampling.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.sampling")
+public class SamplingProperties {
+
+    /**
+     * When false, every event is kept with weight 1; off by default, as sampling drops raw
+     * events for good and is a per-deployment choice
+     */
+    private boolean enabled = false;
+
+    /**
+     * Share of sessions whose events are kept, for types without a rate of their own
+     */
+    private double defaultRate = 1.0;
+
+    /**
+     * Rate per SDK event type, e.g. rum.sampling.types.resourcePerformance=0.1
+     */
+    private Map<String, Double> types = new HashMap<>();
+
+    /**
+     * Rates for pages matching a pattern, checked in order before the type rates; the first match wins
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Mixed into the session hash; changing it picks a different set of sessions at the same rates
+     */
+    private String salt = "rum-sampling";
+
+    /**
+     * A rate for the events of one type (or of every type when type is unset) on pages whose URL
+     * contains a match of the regular expression pageUrl (every page when unset)
+     */
+    @Data
+    public static class Rule {
+        private String type;
+        private String pageUrl;
+        private double rate = 1.0;
+    }
+}
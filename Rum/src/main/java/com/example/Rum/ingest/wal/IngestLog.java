@@ -0,0 +1,261 @@
+package com.example.Rum.ingest.wal;
+
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.admission.AdmissionProperties;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.tenancy.AppRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-ahead log of raw SDK batches in front of the event store (rum.wal.enabled=true).
+ *
+ * The controller appends each request body before acknowledging it; once the batch has been
+ * written, markApplied releases it. A background checkpoint flushes the event store and
+ * truncates the log up to the highest LSN below which everything is applied. On startup,
+ * records after the last checkpoint are read and written again before requests are served.
+ *
+ * Delivery is at-least-once: a batch written to the store but not yet checkpointed when
+ * the process dies is written a second time on replay.
+ *
+ * A record is three lines: the batch's resolved app key, since it may have come from a header;
+ * the sample weights of its events as a JSON array, empty when none was sampled; then the
+ * events. Events are logged after sampling and replayed as logged, so a restart under another
+ * sampling configuration writes exactly the events that were acknowledged, with their weights.
+ *
+ * A record that cannot be written, on replay or by the async writer, is moved to
+ * dead-letter.ndjson in the log directory and released, so it neither blocks startup nor
+ * holds back truncation. Each line is {"lsns", "error", "failedAt", "record"}, the record
+ * in the format above, kept to be replayed once the cause is fixed.
+ */
+@Component
+@Slf4j
+public class IngestLog {
+
+    static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+
+    private final WalProperties properties;
+    private final EventStreamReader eventStreamReader;
+    private final EventBatchWriter eventBatchWriter;
+    private final EventStore eventStore;
+    private final AppRegistry appRegistry;
+    private final ObjectMapper objectMapper;
+    private final AdmissionProperties admissionProperties;
+    private WriteAheadLog wal;
+    private Path deadLetter;
+    private Thread checkpointer;
+    private volatile boolean running;
+
+    public IngestLog(WalProperties properties, EventStreamReader eventStreamReader,
+                     EventBatchWriter eventBatchWriter, EventStore eventStore, AppRegistry appRegistry,
+                     ObjectMapper objectMapper, AdmissionProperties admissionProperties) {
+        this.properties = properties;
+        this.eventStreamReader = eventStreamReader;
+        this.eventBatchWriter = eventBatchWriter;
+        this.eventStore = eventStore;
+        this.appRegistry = appRegistry;
+        this.objectMapper = objectMapper;
+        this.admissionProperties = admissionProperties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path directory = Path.of(properties.getDirectory()).toAbsolutePath();
+        wal = new WriteAheadLog(directory, properties.getSegmentBytes());
+        deadLetter = directory.resolve(DEAD_LETTER_FILE);
+        int replayed = wal.replay((lsn, payload) -> {
+            try {
+                eventBatchWriter.write(readRecord(payload));
+            } catch (Exception e) {
+                log.error("Cannot replay write-ahead log record {}, moving it to {}", lsn, deadLetter, e);
+                deadLetter(List.of(lsn), payload, e);
+            }
+        });
+        if (replayed > 0) {
+            log.info("Replayed {} batches from the write-ahead log", replayed);
+        }
+        checkpoint();
+
+        running = true;
+        checkpointer = new Thread(this::checkpointLoop, "rum-wal-checkpoint");
+        checkpointer.setDaemon(true);
+        checkpointer.start();
+        log.info("Write-ahead log at {}, checkpointed at LSN {}", directory, wal.getCheckpointLsn());
+    }
+
+    public boolean isEnabled() {
+        return wal != null;
+    }
+
+    /**
+     * Append a batch to the log, returning once it is on disk
+     * @param body the request body as JSON if every event of it was kept at weight 1, else
+     *             the batch's getAllEvents(), which the weights are logged in the order of
+     * @param batch the events read from the body; the record's LSN is attached to it
+     */
+    public void append(byte[] body, EventBatch batch) throws IOException {
+        batch.getLogSequenceNumbers().add(wal.append(record(batch, body)));
+    }
+
+    /**
+     * Release the batch's log records: its events have been written to the store
+     */
+    public void markApplied(EventBatch batch) {
+        if (wal != null && !batch.getLogSequenceNumbers().isEmpty()) {
+            wal.markApplied(batch.getLogSequenceNumbers());
+        }
+    }
+
+    /**
+     * Move a batch that failed to write to the dead-letter file and release its log records,
+     * which would otherwise be replayed, and fail, on every start
+     */
+    public void markFailed(EventBatch batch, Exception cause) {
+        if (wal == null || batch.getLogSequenceNumbers().isEmpty()) {
+            return;
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(batch.getAllEvents());
+            deadLetter(batch.getLogSequenceNumbers(), record(batch, body), cause);
+        } catch (IOException e) {
+            // Left pending: replayed on the next start rather than lost
+            log.error("Cannot move failed batch to {}", deadLetter, e);
+        }
+    }
+
+    private byte[] record(EventBatch batch, byte[] body) throws IOException {
+        List<Double> weights = new ArrayList<>();
+        if (!batch.getSampleWeights().isEmpty()) {
+            for (RumEvent event : batch.getAllEvents()) {
+                weights.add(batch.getSampleWeight(event));
+            }
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(body.length + 16 + weights.size() * 4);
+        record.write((batch.getAppKey() + '\n').getBytes(StandardCharsets.UTF_8));
+        record.write(objectMapper.writeValueAsBytes(weights));
+        record.write('\n');
+        record.write(body);
+        return record.toByteArray();
+    }
+
+    /**
+     * Append a record to the dead-letter file, synced, then release it from the log
+     */
+    private void deadLetter(List<Long> lsns, byte[] record, Exception cause) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("lsns", lsns);
+        line.put("error", String.valueOf(cause));
+        line.put("failedAt", System.currentTimeMillis());
+        line.put("record", new String(record, StandardCharsets.UTF_8));
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(line);
+            synchronized (this) {
+                try (FileChannel channel = FileChannel.open(deadLetter, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    channel.write(ByteBuffer.wrap(bytes));
+                    channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+                    channel.force(false);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write to dead-letter file " + deadLetter, e);
+        }
+        wal.markApplied(lsns);
+    }
+
+    /**
+     * Read a logged record back into the batch it was appended for
+     */
+    private EventBatch readRecord(byte[] payload) throws IOException {
+        int keyEnd = lineEnd(payload, 0);
+        int weightsEnd = lineEnd(payload, keyEnd + 1);
+        String appKey = new String(payload, 0, keyEnd, StandardCharsets.UTF_8);
+        double[] weights = objectMapper.readValue(payload, keyEnd + 1, weightsEnd - keyEnd - 1, double[].class);
+        // Records are logged without the events dropped as too large; the limit is applied
+        // again in case it was lowered since
+        EventBatch batch = eventStreamReader.read(
+                new ByteArrayInputStream(payload, weightsEnd + 1, payload.length - weightsEnd - 1),
+                admissionProperties.eventByteLimit());
+        batch.setAppKey(appRegistry.resolve(appKey, batch.getAppKey()));
+        if (weights.length > 0) {
+            if (batch.getReceived() != weights.length) {
+                throw new IOException("Write-ahead log record holds " + batch.getReceived() + " events and "
+                        + weights.length + " weights");
+            }
+            for (Class<? extends RumEvent> type : batch.getTypes()) {
+                List<? extends RumEvent> events = batch.getEvents(type);
+                for (int i = 0; i < events.size(); i++) {
+                    batch.setSampleWeight(events.get(i), weights[batch.requestIndex(type, i)]);
+                }
+            }
+        }
+        return batch;
+    }
+
+    private static int lineEnd(byte[] payload, int from) throws IOException {
+        for (int i = from; i < payload.length; i++) {
+            if (payload[i] == '\n') {
+                return i;
+            }
+        }
+        throw new IOException("Truncated write-ahead log record");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (wal == null) {
+            return;
+        }
+        running = false;
+        checkpointer.interrupt();
+        try {
+            checkpointer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+        wal.close();
+    }
+
+    private void checkpoint() throws IOException {
+        long applied = wal.appliedLsn();
+        if (applied > wal.getCheckpointLsn()) {
+            eventStore.flush();
+            wal.checkpoint(applied);
+        }
+    }
+
+    private void checkpointLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getCheckpointIntervalMs());
+                checkpoint();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Write-ahead log checkpoint failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Rum.ingest.wal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Write-ahead log settings (rum.wal.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.wal")
+public class WalProperties {
+
+    /**
+     * When true, POST /api/rum appends the raw batch to the log and waits for fsync before responding
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding log segments and the checkpoint file
+     */
+    private String directory = "data/wal";
+
+    /**
+     * Size at which the active segment is closed and a new one started
+     */
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    /**
+     * How often applied records are made durable in the event store and the log truncated
+     */
+    private long checkpointIntervalMs = 1000;
+}
@@ -0,0 +1,356 @@
+package com.example.Rum.ingest.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, segmented write-ahead log of opaque records.
+ *
+ * Each record gets a log sequence number (LSN) and is framed as
+ * [payload length][CRC32C of lsn and payload][lsn][payload]. Segments are named after
+ * the first LSN they hold and rolled at segmentBytes.
+ *
+ * append() returns only once the record is on disk. Appenders write to the active segment
+ * and wait while a single sync thread calls fsync for everything written so far, so records
+ * appended during one fsync share the next one (group commit).
+ *
+ * Records stay pending until markApplied(); checkpoint() persists an LSN below which every
+ * record is durable elsewhere and deletes the segments that lie entirely below it. On open,
+ * a torn record at the tail of the last segment (a crash mid-append) is truncated away.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    static final String SUFFIX = ".wal";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition unsynced = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+    private final Thread syncer;
+
+    private FileChannel active;
+    private long activeSize;
+    private long nextLsn;
+    private long writtenLsn;
+    private long syncedLsn;
+    private boolean syncing;
+    private IOException failure;
+    private volatile long checkpointLsn;
+    private volatile boolean running = true;
+
+    public WriteAheadLog(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(CHECKPOINT + ".tmp"));
+        this.checkpointLsn = readCheckpoint();
+
+        long lastLsn = checkpointLsn;
+        List<Path> segments = segments();
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            long[] tail = {Math.max(lastLsn, firstLsn(last) - 1)};
+            long validBytes = scan(last, (lsn, payload) -> tail[0] = Math.max(tail[0], lsn));
+            lastLsn = tail[0];
+            this.active = FileChannel.open(last, StandardOpenOption.WRITE);
+            if (validBytes < active.size()) {
+                log.warn("Truncating torn tail of {} at byte {}", last.getFileName(), validBytes);
+                active.truncate(validBytes);
+                active.force(true);
+            }
+            active.position(validBytes);
+            this.activeSize = validBytes;
+        }
+        this.nextLsn = lastLsn + 1;
+        this.writtenLsn = lastLsn;
+        this.syncedLsn = lastLsn;
+        if (active == null) {
+            openSegment();
+        }
+
+        this.syncer = new Thread(this::syncLoop, "rum-wal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * Append a record and wait until it is on disk
+     * @return the record's LSN
+     * @throws IOException if the record could not be written or synced
+     */
+    public long append(byte[] payload) throws IOException {
+        ByteBuffer record = frame(payload);
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IOException("Write-ahead log failed", failure);
+            }
+            if (activeSize > 0 && activeSize + record.remaining() > segmentBytes) {
+                roll();
+            }
+            long lsn = nextLsn++;
+            record.putLong(8, lsn);
+            record.putInt(4, checksum(record));
+            while (record.hasRemaining()) {
+                activeSize += active.write(record);
+            }
+            pending.add(lsn);
+            writtenLsn = lsn;
+            unsynced.signal();
+            while (syncedLsn < lsn) {
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+                synced.awaitUninterruptibly();
+            }
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that the entries are durable in the store and no longer needed for recovery
+     */
+    public void markApplied(List<Long> lsns) {
+        pending.removeAll(lsns);
+    }
+
+    /**
+     * Highest LSN at or below which every appended record has been applied
+     */
+    public long appliedLsn() {
+        lock.lock();
+        try {
+            return pending.isEmpty() ? writtenLsn : pending.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCheckpointLsn() {
+        return checkpointLsn;
+    }
+
+    /**
+     * Persist lsn as the recovery starting point and delete segments that lie entirely at or below it
+     */
+    public void checkpoint(long lsn) throws IOException {
+        if (lsn <= checkpointLsn) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, lsn));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+        checkpointLsn = lsn;
+
+        lock.lock();
+        try {
+            if (nextLsn - 1 <= lsn && activeSize > 0) {
+                // Everything is checkpointed: start a fresh segment so the old one can go
+                roll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstLsn(segments.get(i + 1)) - 1 <= lsn) {
+                Files.delete(segments.get(i));
+            }
+        }
+    }
+
+    /**
+     * Feed every intact record after the checkpoint to the consumer, in LSN order
+     * @return number of records replayed
+     */
+    public int replay(BiConsumer<Long, byte[]> consumer) throws IOException {
+        long after = checkpointLsn;
+        int[] replayed = {0};
+        for (Path segment : segments()) {
+            scan(segment, (lsn, payload) -> {
+                if (lsn > after) {
+                    consumer.accept(lsn, payload);
+                    replayed[0]++;
+                }
+            });
+        }
+        return replayed[0];
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        syncer.interrupt();
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            active.force(false);
+            active.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            FileChannel channel;
+            lock.lock();
+            try {
+                while (writtenLsn == syncedLsn) {
+                    if (!running) {
+                        return;
+                    }
+                    try {
+                        unsynced.await();
+                    } catch (InterruptedException e) {
+                        if (!running && writtenLsn == syncedLsn) {
+                            return;
+                        }
+                    }
+                }
+                target = writtenLsn;
+                channel = active;
+                syncing = true;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                syncing = false;
+                if (error != null) {
+                    log.error("Write-ahead log fsync failed", error);
+                    failure = error;
+                } else {
+                    syncedLsn = Math.max(syncedLsn, target);
+                }
+                synced.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Close the active segment and start a new one at nextLsn. Caller holds the lock;
+     * records of the old segment are forced here since the sync thread will not see it again.
+     */
+    private void roll() throws IOException {
+        while (syncing) {
+            synced.awaitUninterruptibly();
+        }
+        active.force(false);
+        active.close();
+        syncedLsn = writtenLsn;
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%019d%s", nextLsn, SUFFIX));
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        active.truncate(0);
+        activeSize = 0;
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(0).putLong(0).put(payload);
+        return record.flip();
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(8, record.limit() - 8));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Read the intact records of a segment
+     * @return the number of bytes up to the end of the last intact record
+     */
+    private static long scan(Path segment, BiConsumer<Long, byte[]> consumer) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (data.remaining() >= HEADER_BYTES) {
+            int start = data.position();
+            int length = data.getInt(start);
+            if (length < 0 || length > data.remaining() - HEADER_BYTES) {
+                break;
+            }
+            ByteBuffer record = data.slice(start, HEADER_BYTES + length);
+            if (record.getInt(4) != checksum(record)) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            record.get(HEADER_BYTES, payload);
+            consumer.accept(record.getLong(8), payload);
+            data.position(start + HEADER_BYTES + length);
+        }
+        if (data.hasRemaining()) {
+            log.warn("Ignoring {} bytes after the last intact record of {}", data.remaining(), segment.getFileName());
+        }
+        return data.position();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+    }
+}
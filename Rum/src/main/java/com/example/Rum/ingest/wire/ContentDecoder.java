@@ -0,0 +1,132 @@
+package com.example.Rum.ingest.wire;
+
+import com.github.luben.zstd.ZstdIOException;
+import com.github.luben.zstd.ZstdInputStream;
+import org.springframework.stereotype.Component;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Undoes the Content-Encoding of a request body while it is read: gzip, deflate and zstd,
+ * in the reverse of the order they are listed. "deflate" is zlib-wrapped per RFC 9110, but
+ * raw deflate streams (CompressionStream's "deflate-raw", some older clients) are accepted too.
+ *
+ * The decoded stream is what admission bounds, so rum.admission.max-body-bytes caps the
+ * decompressed size and a small compressed body cannot expand without limit.
+ */
+@Component
+public class ContentDecoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Wrap the body in a decoder for each coding of the Content-Encoding header
+     * @throws UnsupportedCodingException for a coding other than gzip, deflate, zstd or identity
+     * @throws MalformedBodyException if the body does not start like the coding it is sent with
+     */
+    public InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return body;
+        }
+        String[] codings = contentEncoding.split(",");
+        InputStream decoded = body;
+        boolean decoding = false;
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String coding = codings[i].trim().toLowerCase(Locale.ROOT);
+            try {
+                switch (coding) {
+                    case "identity":
+                    case "":
+                        continue;
+                    case "gzip":
+                    case "x-gzip":
+                        decoded = new GZIPInputStream(decoded, BUFFER_SIZE);
+                        break;
+                    case "deflate":
+                        decoded = inflate(decoded);
+                        break;
+                    case "zstd":
+                        decoded = new ZstdInputStream(decoded);
+                        break;
+                    default:
+                        throw new UnsupportedCodingException(coding);
+                }
+            } catch (ZipException | EOFException e) {
+                throw new MalformedBodyException(coding, e);
+            }
+            decoding = true;
+        }
+        return decoding ? new DecodingInputStream(decoded) : decoded;
+    }
+
+    /**
+     * Inflate a zlib stream, or a raw deflate stream when the first two bytes are not a zlib header
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream peek = new PushbackInputStream(in, 2);
+        int cmf = peek.read();
+        int flg = cmf < 0 ? -1 : peek.read();
+        if (flg < 0) {
+            throw new EOFException("Empty deflate body");
+        }
+        peek.unread(flg);
+        peek.unread(cmf);
+        boolean zlib = (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        return new InflaterInputStream(peek, new Inflater(!zlib), BUFFER_SIZE);
+    }
+
+    /**
+     * Reports corrupt or truncated compressed data as a MalformedBodyException, so it can be
+     * told apart from a failure of the connection
+     */
+    private static final class DecodingInputStream extends FilterInputStream {
+
+        private DecodingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (ZipException | ZstdIOException | EOFException e) {
+                throw new MalformedBodyException("compressed", e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (ZipException | ZstdIOException | EOFException e) {
+                throw new MalformedBodyException("compressed", e);
+            }
+        }
+    }
+
+    /**
+     * Thrown for a Content-Encoding this server cannot decode
+     */
+    public static class UnsupportedCodingException extends IOException {
+        public UnsupportedCodingException(String coding) {
+            super("Unsupported Content-Encoding: " + coding + " (expected gzip, deflate or zstd)");
+        }
+    }
+
+    /**
+     * Thrown when a body is not valid data of the coding it was sent with
+     */
+    public static class MalformedBodyException extends IOException {
+        public MalformedBodyException(String coding, IOException cause) {
+            super("Malformed " + coding + " body: " + cause.getMessage(), cause);
+        }
+    }
+}
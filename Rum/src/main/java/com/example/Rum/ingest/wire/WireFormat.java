@@ -0,0 +1,30 @@
+package com.example.Rum.ingest.wire;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Encoding of an SDK batch, picked from the request's Content-Type. Both carry the same
+ * array or envelope; CBOR is the binary form Jackson reads with the same event bindings.
+ */
+public enum WireFormat {
+    JSON,
+    CBOR;
+
+    public static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    /**
+     * CBOR for application/cbor; JSON for anything else, including no Content-Type and the
+     * text/plain that navigator.sendBeacon sends
+     */
+    public static WireFormat forContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        try {
+            return APPLICATION_CBOR.equalsTypeAndSubtype(MediaType.parseMediaType(contentType)) ? CBOR : JSON;
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+    }
+}
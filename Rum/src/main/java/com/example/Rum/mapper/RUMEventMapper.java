@@ -1,6 +1,7 @@
 package com.example.Rum.mapper;
 
 import com.example.Rum.dto.response.*;
+import com.example.Rum.ingest.EventFailure;
 import com.example.Rum.model.ErrorEvent;
 import com.example.Rum.model.WebVitalEvent;
 import com.example.Rum.model.PageViewEvent;
@@ -37,10 +38,17 @@ public class RUMEventMapper {
         dto.setColno(entity.getColno());
         dto.setStack(entity.getStack());
         dto.setErrorType(entity.getErrorType());
+        dto.setFingerprint(entity.getFingerprint());
         dto.setSeverity(entity.getSeverity());
         dto.setUserAgent(entity.getUserAgent());
+        dto.setBrowser(entity.getBrowser());
+        dto.setBrowserVersion(entity.getBrowserVersion());
+        dto.setOs(entity.getOs());
+        dto.setDeviceType(entity.getDeviceType());
         dto.setBreadcrumbs(entity.getBreadcrumbs());
         dto.setComponentStack(entity.getComponentStack());
+        dto.setStackHash(entity.getStackHash());
+        dto.setComponentStackHash(entity.getComponentStackHash());
         dto.setEventTimestamp(entity.getEventTimestamp());
         dto.setCreatedAt(entity.getCreatedAt());
         return dto;
@@ -60,6 +68,10 @@ public class RUMEventMapper {
         dto.setUserId(entity.getUserId());
         dto.setPageUrl(entity.getPageUrl());
         dto.setUserAgent(entity.getUserAgent());
+        dto.setBrowser(entity.getBrowser());
+        dto.setBrowserVersion(entity.getBrowserVersion());
+        dto.setOs(entity.getOs());
+        dto.setDeviceType(entity.getDeviceType());
         dto.setMetricName(entity.getMetricName());
         dto.setValue(entity.getValue());
         dto.setRating(entity.getRating());
@@ -83,6 +95,10 @@ public class RUMEventMapper {
         dto.setUserId(entity.getUserId());
         dto.setPageUrl(entity.getPageUrl());
         dto.setUserAgent(entity.getUserAgent());
+        dto.setBrowser(entity.getBrowser());
+        dto.setBrowserVersion(entity.getBrowserVersion());
+        dto.setOs(entity.getOs());
+        dto.setDeviceType(entity.getDeviceType());
         dto.setPagePath(entity.getPagePath());
         dto.setPageTitle(entity.getPageTitle());
         dto.setReferrer(entity.getReferrer());
@@ -180,6 +196,206 @@ public class RUMEventMapper {
         return dto;
     }
 
+    /**
+     * Convert Map of one bucket's statistics to DashboardSeriesResponseDTO
+     */
+    public DashboardSeriesResponseDTO toDashboardSeriesResponseDTO(Map<String, Object> row) {
+        if (row == null) {
+            return null;
+        }
+
+        DashboardSeriesResponseDTO dto = new DashboardSeriesResponseDTO();
+        dto.setBucketStartMs((Long) row.get("bucketStartMs"));
+        dto.setUniqueSessions(((Number) row.getOrDefault("uniqueSessions", 0L)).longValue());
+        dto.setUniqueUsers(((Number) row.getOrDefault("uniqueUsers", 0L)).longValue());
+        dto.setTotalPageViews(((Number) row.getOrDefault("totalPageViews", 0L)).longValue());
+        dto.setTotalErrors(((Number) row.getOrDefault("totalErrors", 0L)).longValue());
+        dto.setAvgPageLoadTime(((Number) row.getOrDefault("avgPageLoadTime", 0.0)).doubleValue());
+        return dto;
+    }
+
+    /**
+     * Convert list of Maps to list of DashboardSeriesResponseDTO
+     */
+    public List<DashboardSeriesResponseDTO> toDashboardSeriesResponseDTOList(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .map(this::toDashboardSeriesResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build the EventBatchResponseDTO of a batch from the events that were not written
+     */
+    public EventBatchResponseDTO toEventBatchResponseDTO(int received, List<EventFailure> failures) {
+        EventBatchResponseDTO dto = new EventBatchResponseDTO();
+        dto.setProcessed(received - failures.size());
+        dto.setFailed(failures.size());
+        dto.setTotal(received);
+        dto.setFailures(failures.stream()
+                .map(failure -> new EventBatchResponseDTO.Failure(failure.getIndex(), failure.getType(), failure.getReason()))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    /**
+     * Convert Map of per-dimension dashboard counters to DashboardBreakdownResponseDTO
+     */
+    public DashboardBreakdownResponseDTO toDashboardBreakdownResponseDTO(Map<String, Object> row) {
+        if (row == null) {
+            return null;
+        }
+
+        DashboardBreakdownResponseDTO dto = new DashboardBreakdownResponseDTO();
+        dto.setDimension((String) row.get("dimension"));
+        dto.setValue((String) row.get("value"));
+        dto.setTotalPageViews(((Number) row.getOrDefault("totalPageViews", 0L)).longValue());
+        dto.setTotalErrors(((Number) row.getOrDefault("totalErrors", 0L)).longValue());
+        return dto;
+    }
+
+    /**
+     * Convert list of Maps to list of DashboardBreakdownResponseDTO
+     */
+    public List<DashboardBreakdownResponseDTO> toDashboardBreakdownResponseDTOList(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .map(this::toDashboardBreakdownResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert Map of distinct-count estimates to UniqueCountsResponseDTO
+     */
+    public UniqueCountsResponseDTO toUniqueCountsResponseDTO(Map<String, Object> counts) {
+        if (counts == null) {
+            return new UniqueCountsResponseDTO();
+        }
+
+        UniqueCountsResponseDTO dto = new UniqueCountsResponseDTO();
+        dto.setPageUrl((String) counts.get("pageUrl"));
+        dto.setUniqueSessions(((Number) counts.getOrDefault("uniqueSessions", 0L)).longValue());
+        dto.setUniqueUsers(((Number) counts.getOrDefault("uniqueUsers", 0L)).longValue());
+        dto.setStandardError(((Number) counts.getOrDefault("standardError", 0.0)).doubleValue());
+        return dto;
+    }
+
+    /**
+     * Convert Map of runtime diagnostics to RuntimeDiagnosticsResponseDTO;
+     * connection fields stay null until the pool has started
+     */
+    public RuntimeDiagnosticsResponseDTO toRuntimeDiagnosticsResponseDTO(Map<String, Object> diagnostics) {
+        RuntimeDiagnosticsResponseDTO dto = new RuntimeDiagnosticsResponseDTO();
+        dto.setJavaVersion((String) diagnostics.get("javaVersion"));
+        dto.setVirtualThreadsRequested((Boolean) diagnostics.get("virtualThreadsRequested"));
+        dto.setVirtualThreads((Boolean) diagnostics.get("virtualThreads"));
+        dto.setPinningMonitored((Boolean) diagnostics.get("pinningMonitored"));
+        dto.setPinnedEvents(((Number) diagnostics.getOrDefault("pinnedEvents", 0L)).longValue());
+        dto.setPinnedStacks(((Number) diagnostics.getOrDefault("pinnedStacks", 0)).intValue());
+        dto.setActiveConnections((Integer) diagnostics.get("activeConnections"));
+        dto.setIdleConnections((Integer) diagnostics.get("idleConnections"));
+        dto.setTotalConnections((Integer) diagnostics.get("totalConnections"));
+        dto.setThreadsAwaitingConnection((Integer) diagnostics.get("threadsAwaitingConnection"));
+        dto.setPeakThreadsAwaitingConnection(((Number) diagnostics.getOrDefault("peakThreadsAwaitingConnection", 0)).intValue());
+        return dto;
+    }
+
+    /**
+     * Convert Map of admission counters to AdmissionStatsResponseDTO
+     */
+    @SuppressWarnings("unchecked")
+    public AdmissionStatsResponseDTO toAdmissionStatsResponseDTO(Map<String, Object> counters) {
+        AdmissionStatsResponseDTO dto = new AdmissionStatsResponseDTO();
+        dto.setAcceptedBatches(((Number) counters.getOrDefault("acceptedBatches", 0L)).longValue());
+        dto.setAcceptedEvents(((Number) counters.getOrDefault("acceptedEvents", 0L)).longValue());
+        dto.setRejectedBatches((Map<String, Long>) counters.get("rejectedBatches"));
+        dto.setRejectedEvents((Map<String, Long>) counters.get("rejectedEvents"));
+        dto.setShedEvents((Map<String, Map<String, Long>>) counters.get("shedEvents"));
+        dto.setSampledOutEvents((Map<String, Long>) counters.get("sampledOutEvents"));
+        dto.setQueuedBatches((Integer) counters.get("queuedBatches"));
+        dto.setWaitingWrites((Integer) counters.get("waitingWrites"));
+        dto.setTrackedAddresses((Integer) counters.get("trackedAddresses"));
+        dto.setTrackedSessions((Integer) counters.get("trackedSessions"));
+        dto.setTrackedApps((Integer) counters.get("trackedApps"));
+        return dto;
+    }
+
+    /**
+     * Convert Map of web vital percentiles to WebVitalPercentilesResponseDTO
+     */
+    public WebVitalPercentilesResponseDTO toWebVitalPercentilesResponseDTO(Map<String, Object> row) {
+        if (row == null) {
+            return null;
+        }
+
+        WebVitalPercentilesResponseDTO dto = new WebVitalPercentilesResponseDTO();
+        dto.setBucketStartMs((Long) row.get("bucketStartMs"));
+        dto.setMetricName((String) row.get("metricName"));
+        dto.setPageUrl((String) row.get("pageUrl"));
+        dto.setBrowser((String) row.get("browser"));
+        dto.setOs((String) row.get("os"));
+        dto.setDeviceType((String) row.get("deviceType"));
+        dto.setCount(((Number) row.getOrDefault("count", 0L)).longValue());
+        dto.setP50(((Number) row.getOrDefault("p50", 0.0)).doubleValue());
+        dto.setP75(((Number) row.getOrDefault("p75", 0.0)).doubleValue());
+        dto.setP95(((Number) row.getOrDefault("p95", 0.0)).doubleValue());
+        dto.setP99(((Number) row.getOrDefault("p99", 0.0)).doubleValue());
+        return dto;
+    }
+
+    /**
+     * Convert list of Maps to list of WebVitalPercentilesResponseDTO
+     */
+    public List<WebVitalPercentilesResponseDTO> toWebVitalPercentilesResponseDTOList(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .map(this::toWebVitalPercentilesResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert Map of metric summary values to MetricSummaryResponseDTO
+     */
+    public MetricSummaryResponseDTO toMetricSummaryResponseDTO(Map<String, Object> row) {
+        if (row == null) {
+            return null;
+        }
+
+        MetricSummaryResponseDTO dto = new MetricSummaryResponseDTO();
+        dto.setMetricName((String) row.get("metricName"));
+        dto.setPageUrl((String) row.get("pageUrl"));
+        dto.setBrowser((String) row.get("browser"));
+        dto.setOs((String) row.get("os"));
+        dto.setDeviceType((String) row.get("deviceType"));
+        dto.setCount(((Number) row.getOrDefault("count", 0L)).longValue());
+        dto.setAvg(toDouble(row.get("avg")));
+        dto.setMin(toDouble(row.get("min")));
+        dto.setMax(toDouble(row.get("max")));
+        dto.setP50(toDouble(row.get("p50")));
+        dto.setP75(toDouble(row.get("p75")));
+        dto.setP95(toDouble(row.get("p95")));
+        dto.setP99(toDouble(row.get("p99")));
+        return dto;
+    }
+
+    /**
+     * Convert list of Maps to list of MetricSummaryResponseDTO
+     */
+    public List<MetricSummaryResponseDTO> toMetricSummaryResponseDTOList(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .map(this::toMetricSummaryResponseDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convert Map of page speed statistics to PageSpeedStatsResponseDTO
      */
@@ -194,6 +410,18 @@ public class RUMEventMapper {
         dto.setAvgLoadTime(((Number) stat.getOrDefault("avgLoadTime", 0.0)).doubleValue());
         dto.setMinLoadTime(((Number) stat.getOrDefault("minLoadTime", 0.0)).doubleValue());
         dto.setMaxLoadTime(((Number) stat.getOrDefault("maxLoadTime", 0.0)).doubleValue());
+        dto.setLoadTimeP50(toDouble(stat.get("loadTimeP50")));
+        dto.setLoadTimeP90(toDouble(stat.get("loadTimeP90")));
+        dto.setLoadTimeP99(toDouble(stat.get("loadTimeP99")));
+        dto.setDomContentLoadedP50(toDouble(stat.get("domContentLoadedP50")));
+        dto.setDomContentLoadedP90(toDouble(stat.get("domContentLoadedP90")));
+        dto.setDomContentLoadedP99(toDouble(stat.get("domContentLoadedP99")));
+        dto.setDomInteractiveP50(toDouble(stat.get("domInteractiveP50")));
+        dto.setDomInteractiveP90(toDouble(stat.get("domInteractiveP90")));
+        dto.setDomInteractiveP99(toDouble(stat.get("domInteractiveP99")));
+        dto.setFirstPaintP50(toDouble(stat.get("firstPaintP50")));
+        dto.setFirstPaintP90(toDouble(stat.get("firstPaintP90")));
+        dto.setFirstPaintP99(toDouble(stat.get("firstPaintP99")));
         return dto;
     }
 
@@ -208,5 +436,8 @@ public class RUMEventMapper {
                 .map(this::toPageSpeedStatsResponseDTO)
                 .collect(Collectors.toList());
     }
-}
 
+    private Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.Rum.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * A site or app sending events, registered the first time an event arrives for its key (see AppRegistry)
+ */
+@Entity
+@Table(name = "applications")
+@Data
+@NoArgsConstructor
+public class Application implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String appKey;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime firstSeen = LocalDateTime.now();
+
+    public Application(String appKey) {
+        this.appKey = appKey;
+    }
+
+    @Override
+    public String getId() {
+        return appKey;
+    }
+
+    /**
+     * Applications are only ever inserted, so save() can skip the merge lookup
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
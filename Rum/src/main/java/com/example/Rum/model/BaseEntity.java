@@ -10,8 +10,14 @@ import java.time.LocalDateTime;
 @Setter
 public abstract class BaseEntity {
 
+    /**
+     * Pooled sequence ids: Hibernate reserves allocationSize ids per sequence call,
+     * so inserts can be grouped into JDBC batches (IDENTITY disables batching).
+     * Keep allocationSize aligned with hibernate.jdbc.batch_size.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rum_event_seq")
+    @SequenceGenerator(name = "rum_event_seq", sequenceName = "rum_event_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, updatable = false)
@@ -0,0 +1,52 @@
+package com.example.Rum.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable text stored once under the hash of its content (see BlobStore)
+ */
+@Entity
+@Table(
+        name = "content_blobs",
+        indexes = {
+                @Index(name = "idx_blob_created", columnList = "createdAt")
+        }
+)
+@Data
+@NoArgsConstructor
+public class ContentBlob implements Persistable<String> {
+
+    @Id
+    @Column(length = 22)
+    private String hash; // Base64url of the first 128 bits of the SHA-256 of the UTF-8 text
+
+    @Column(nullable = false)
+    private boolean compressed; // content is deflated
+
+    @Column(nullable = false)
+    private Integer size; // Uncompressed UTF-8 length
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] content;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    /**
+     * Blobs are only ever inserted, so save() can skip the merge lookup
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
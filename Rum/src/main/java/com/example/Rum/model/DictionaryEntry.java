@@ -0,0 +1,23 @@
+package com.example.Rum.model;
+
+import com.example.Rum.store.StringDictionary;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A string shared by many event rows, referenced from them by id (see StringDictionary)
+ */
+@Entity
+@Table(name = "string_dictionary")
+@Data
+@NoArgsConstructor
+public class DictionaryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true, length = StringDictionary.MAX_LENGTH)
+    private String text;
+}
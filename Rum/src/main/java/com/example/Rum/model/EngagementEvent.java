@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,15 +11,21 @@ import java.time.LocalDateTime;
 @Table(
         name = "engagement_events",
         indexes = {
-                @Index(name = "idx_eng_session", columnList = "sessionId"),
-                @Index(name = "idx_eng_user", columnList = "userId"),
-                @Index(name = "idx_eng_timestamp", columnList = "eventTimestamp")
+                @Index(name = "idx_eng_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_eng_user", columnList = "appKey, userId"),
+                @Index(name = "idx_eng_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class EngagementEvent extends BaseEntity {
+public class EngagementEvent extends BaseEntity implements TrackedEvent {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -26,6 +33,7 @@ public class EngagementEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,16 +11,23 @@ import java.time.LocalDateTime;
 @Table(
         name = "error_events",
         indexes = {
-                @Index(name = "idx_err_session", columnList = "sessionId"),
-                @Index(name = "idx_err_user", columnList = "userId"),
-                @Index(name = "idx_err_severity", columnList = "severity"),
-                @Index(name = "idx_err_timestamp", columnList = "eventTimestamp")
+                @Index(name = "idx_err_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_err_user", columnList = "appKey, userId"),
+                @Index(name = "idx_err_type", columnList = "appKey, errorType, eventTimestamp"),
+                @Index(name = "idx_err_timestamp", columnList = "appKey, eventTimestamp"),
+                @Index(name = "idx_err_fingerprint", columnList = "appKey, fingerprint")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ErrorEvent extends BaseEntity {
+public class ErrorEvent extends BaseEntity implements TrackedEvent, UserAgentDimensions {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -27,12 +35,14 @@ public class ErrorEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
     @Column(nullable = false)
     private String message;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 300)
     private String source; // File name
 
@@ -42,8 +52,10 @@ public class ErrorEvent extends BaseEntity {
     @Column
     private Integer colno;
 
-    @Column
-    private String stack; // Stack trace
+    private transient String stack; // Stack trace, stored in BlobStore
+
+    @Column(length = 22)
+    private String stackHash;
 
     @Column(nullable = false, length = 30)
     private String errorType; // javascript, unhandledRejection, network
@@ -51,13 +63,33 @@ public class ErrorEvent extends BaseEntity {
     @Column(length = 20)
     private String severity; // low, medium, high, critical
 
+    @Column(length = 64)
+    private String fingerprint; // ErrorIssue this occurrence is grouped under
+
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 300)
     private String userAgent;
 
+    @Column(length = 20)
+    private String browser; // Parsed from userAgent at ingest
+
+    @Column(length = 10)
+    private String browserVersion; // Major version
+
+    @Column(length = 20)
+    private String os;
+
+    @Column(length = 10)
+    private String deviceType; // desktop, mobile, tablet, bot
+
+    @Lob
     @Column
-    private String breadcrumbs; // JSON array of breadcrumbs
-    @Column
-    private String componentStack; // React component stack
+    private String breadcrumbs; // JSON array of breadcrumbs; timestamped, so nearly always distinct
+
+    private transient String componentStack; // React component stack, stored in BlobStore
+
+    @Column(length = 22)
+    private String componentStackHash;
 
     @Column(nullable = false)
     private LocalDateTime eventTimestamp;
@@ -0,0 +1,67 @@
+package com.example.Rum.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Occurrences of one error grouped by application and fingerprint, with counters maintained
+ * at ingest (see ErrorIssueStore). message, source and culprit are taken from the first occurrence.
+ */
+@Entity
+@Table(
+        name = "error_issues",
+        indexes = {
+                @Index(name = "idx_issue_fingerprint", columnList = "appKey, fingerprint", unique = true),
+                @Index(name = "idx_issue_occurrences", columnList = "appKey, occurrences"),
+                @Index(name = "idx_issue_last_seen", columnList = "appKey, lastSeen")
+        }
+)
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+public class ErrorIssue extends BaseEntity {
+
+    @Column(nullable = false, length = 64)
+    private String appKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false, length = 30)
+    private String errorType;
+
+    @Column(nullable = false)
+    private String message;
+
+    @Column(length = 300)
+    private String source;
+
+    @Column(length = 500)
+    private String culprit; // Top stack frame, function@source
+
+    @Column(nullable = false)
+    private LocalDateTime firstSeen;
+
+    @Column(nullable = false)
+    private LocalDateTime lastSeen;
+
+    @Column(nullable = false)
+    private Long occurrences;
+
+    @Column(nullable = false)
+    private Long affectedSessions;
+
+    @Column(nullable = false)
+    private Long affectedUsers;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] sessionSketch; // HyperLogLog.toBytes
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] userSketch; // HyperLogLog.toBytes
+}
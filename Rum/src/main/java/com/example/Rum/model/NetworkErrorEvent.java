@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,15 +11,22 @@ import java.time.LocalDateTime;
 @Table(
         name = "network_error_events",
         indexes = {
-                @Index(name = "idx_ne_session", columnList = "sessionId"),
-                @Index(name = "idx_ne_user", columnList = "userId"),
-                @Index(name = "idx_ne_error_type", columnList = "errorType")
+                @Index(name = "idx_ne_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_ne_user", columnList = "appKey, userId"),
+                @Index(name = "idx_ne_error_type", columnList = "appKey, errorType, eventTimestamp"),
+                @Index(name = "idx_ne_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class NetworkErrorEvent extends BaseEntity {
+public class NetworkErrorEvent extends BaseEntity implements TrackedEvent, UserAgentDimensions {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -26,9 +34,11 @@ public class NetworkErrorEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 1000)
     private String url;
 
@@ -47,9 +57,22 @@ public class NetworkErrorEvent extends BaseEntity {
     @Column(nullable = false, length = 20)
     private String errorType; // timeout, failed, aborted
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 300)
     private String userAgent;
 
+    @Column(length = 20)
+    private String browser; // Parsed from userAgent at ingest
+
+    @Column(length = 10)
+    private String browserVersion; // Major version
+
+    @Column(length = 20)
+    private String os;
+
+    @Column(length = 10)
+    private String deviceType; // desktop, mobile, tablet, bot
+
     @Column(nullable = false)
     private LocalDateTime eventTimestamp;
 }
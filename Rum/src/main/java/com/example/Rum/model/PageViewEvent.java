@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,16 +11,21 @@ import java.time.LocalDateTime;
 @Table(
         name = "page_view_events",
         indexes = {
-                @Index(name = "idx_pv_session", columnList = "sessionId"),
-                @Index(name = "idx_pv_user", columnList = "userId"),
-                @Index(name = "idx_pv_path", columnList = "pagePath"),
-                @Index(name = "idx_pv_timestamp", columnList = "eventTimestamp")
+                @Index(name = "idx_pv_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_pv_user", columnList = "appKey, userId"),
+                @Index(name = "idx_pv_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class PageViewEvent extends BaseEntity {
+public class PageViewEvent extends BaseEntity implements TrackedEvent, UserAgentDimensions {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -27,6 +33,7 @@ public class PageViewEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
@@ -36,15 +43,30 @@ public class PageViewEvent extends BaseEntity {
     @Column(length = 200)
     private String pageTitle;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 500)
     private String referrer;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 500)
     private String previousPage;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 300)
     private String userAgent;
 
+    @Column(length = 20)
+    private String browser; // Parsed from userAgent at ingest
+
+    @Column(length = 10)
+    private String browserVersion; // Major version
+
+    @Column(length = 20)
+    private String os;
+
+    @Column(length = 10)
+    private String deviceType; // desktop, mobile, tablet, bot
+
     @Column(nullable = false)
     private LocalDateTime eventTimestamp;
 }
@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,15 +11,22 @@ import java.time.LocalDateTime;
 @Table(
         name = "resource_performance_events",
         indexes = {
-                @Index(name = "idx_rp_session", columnList = "sessionId"),
-                @Index(name = "idx_rp_user", columnList = "userId"),
-                @Index(name = "idx_rp_type", columnList = "resourceType")
+                @Index(name = "idx_rp_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_rp_user", columnList = "appKey, userId"),
+                @Index(name = "idx_rp_type", columnList = "appKey, resourceType"),
+                @Index(name = "idx_rp_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ResourcePerformanceEvent extends BaseEntity {
+public class ResourcePerformanceEvent extends BaseEntity implements TrackedEvent {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -26,9 +34,11 @@ public class ResourcePerformanceEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 1000)
     private String url;
 
@@ -0,0 +1,31 @@
+package com.example.Rum.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fields every RUM event entity carries, whatever its type
+ */
+public interface TrackedEvent {
+
+    String getAppKey();
+
+    String getSessionId();
+
+    String getUserId();
+
+    String getPageUrl();
+
+    LocalDateTime getEventTimestamp();
+
+    Double getSampleWeight();
+
+    void setSampleWeight(Double sampleWeight);
+
+    /**
+     * Events this one stands for in aggregates: the sample weight, 1 when it was not sampled
+     */
+    default double weight() {
+        Double sampleWeight = getSampleWeight();
+        return sampleWeight == null ? 1 : sampleWeight;
+    }
+}
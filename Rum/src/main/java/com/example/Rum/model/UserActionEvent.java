@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,15 +11,22 @@ import java.time.LocalDateTime;
 @Table(
         name = "user_action_events",
         indexes = {
-                @Index(name = "idx_ua_session", columnList = "sessionId"),
-                @Index(name = "idx_ua_user", columnList = "userId"),
-                @Index(name = "idx_ua_type", columnList = "actionType")
+                @Index(name = "idx_ua_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_ua_user", columnList = "appKey, userId"),
+                @Index(name = "idx_ua_type", columnList = "appKey, actionType"),
+                @Index(name = "idx_ua_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class UserActionEvent extends BaseEntity {
+public class UserActionEvent extends BaseEntity implements TrackedEvent {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -26,12 +34,14 @@ public class UserActionEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
     @Column(nullable = false, length = 20)
     private String actionType; // click, input, submit, rageClick, etc.
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 100)
     private String targetElement;
 
@@ -0,0 +1,25 @@
+package com.example.Rum.model;
+
+/**
+ * Events carrying a user agent, with the browser, OS and device class parsed from it at ingest
+ */
+public interface UserAgentDimensions {
+
+    String getUserAgent();
+
+    String getBrowser();
+
+    void setBrowser(String browser);
+
+    String getBrowserVersion();
+
+    void setBrowserVersion(String browserVersion);
+
+    String getOs();
+
+    void setOs(String os);
+
+    String getDeviceType();
+
+    void setDeviceType(String deviceType);
+}
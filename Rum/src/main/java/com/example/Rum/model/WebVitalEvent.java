@@ -1,5 +1,6 @@
 package com.example.Rum.model;
 
+import com.example.Rum.store.DictionaryConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,16 +11,23 @@ import java.time.LocalDateTime;
 @Table(
         name = "web_vital_events",
         indexes = {
-                @Index(name = "idx_wv_session", columnList = "sessionId"),
-                @Index(name = "idx_wv_user", columnList = "userId"),
-                @Index(name = "idx_wv_metric", columnList = "metricName"),
-                @Index(name = "idx_wv_timestamp", columnList = "eventTimestamp")
+                @Index(name = "idx_wv_session", columnList = "appKey, sessionId, eventTimestamp"),
+                @Index(name = "idx_wv_user", columnList = "appKey, userId"),
+                @Index(name = "idx_wv_metric_timestamp", columnList = "appKey, metricName, eventTimestamp"),
+                @Index(name = "idx_wv_page_timestamp", columnList = "appKey, pageUrl, eventTimestamp"),
+                @Index(name = "idx_wv_timestamp", columnList = "appKey, eventTimestamp")
         }
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class WebVitalEvent extends BaseEntity {
+public class WebVitalEvent extends BaseEntity implements TrackedEvent, UserAgentDimensions {
+
+    @Column(nullable = false, length = 64)
+    private String appKey; // Application the event was sent for, see AppRegistry
+
+    @Column
+    private Double sampleWeight; // Events this one stands for, 1 / the rate it was sampled at; null (legacy rows) counts as 1
 
     @Column(nullable = false, length = 50)
     private String sessionId;
@@ -27,6 +35,7 @@ public class WebVitalEvent extends BaseEntity {
     @Column(nullable = false, length = 50)
     private String userId;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(nullable = false, length = 500)
     private String pageUrl;
 
@@ -42,9 +51,22 @@ public class WebVitalEvent extends BaseEntity {
     @Column(length = 50)
     private String navigationType;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(length = 300)
     private String userAgent;
 
+    @Column(length = 20)
+    private String browser; // Parsed from userAgent at ingest
+
+    @Column(length = 10)
+    private String browserVersion; // Major version
+
+    @Column(length = 20)
+    private String os;
+
+    @Column(length = 10)
+    private String deviceType; // desktop, mobile, tablet, bot
+
     @Column(nullable = false)
     private LocalDateTime eventTimestamp;
 }
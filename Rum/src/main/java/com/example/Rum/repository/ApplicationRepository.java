@@ -0,0 +1,9 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.model.Application;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ApplicationRepository extends JpaRepository<Application, String> {
+}
@@ -0,0 +1,20 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.model.ContentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    @Query("SELECT b.hash FROM ContentBlob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT b.hash FROM ContentBlob b WHERE b.createdAt < :time")
+    List<String> findHashesCreatedBefore(@Param("time") LocalDateTime time);
+}
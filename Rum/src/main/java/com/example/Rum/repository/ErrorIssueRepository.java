@@ -0,0 +1,26 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.dto.response.ErrorIssueResponseDTO;
+import com.example.Rum.model.ErrorIssue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ErrorIssueRepository extends JpaRepository<ErrorIssue, Long> {
+
+    List<ErrorIssue> findByAppKeyAndFingerprintIn(String appKey, Collection<String> fingerprints);
+
+    /**
+     * Issues seen since the given time, projected without their sketches; order comes from the Pageable
+     */
+    @Query("SELECT new com.example.Rum.dto.response.ErrorIssueResponseDTO(i.fingerprint, i.errorType, i.message, i.source, "
+            + "i.culprit, i.firstSeen, i.lastSeen, i.occurrences, i.affectedSessions, i.affectedUsers) "
+            + "FROM ErrorIssue i WHERE i.appKey = :appKey AND i.lastSeen >= :since")
+    List<ErrorIssueResponseDTO> findSeenSince(@Param("appKey") String appKey, @Param("since") LocalDateTime since, Pageable pageable);
+}
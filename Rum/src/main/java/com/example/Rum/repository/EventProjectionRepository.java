@@ -0,0 +1,220 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.store.DtoProjection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read-only time-range queries that project event rows straight into response DTOs.
+ *
+ * Only the requested columns are selected, as scalars, so no entities are hydrated:
+ * nothing enters the persistence context, nothing is dirty-checked, and columns the
+ * caller did not ask for (e.g. ErrorEvent.stack) are never read. id and eventTimestamp
+ * are always selected since results are ordered, and keyset cursors built, on them.
+ */
+@Repository
+public class EventProjectionRepository {
+
+    // appKey leads every event index, so each query reads one application's index range
+    private static final String IN_RANGE = " WHERE e.appKey = :appKey AND e.eventTimestamp BETWEEN :start AND :end";
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, DtoProjection<?>> projections = new ConcurrentHashMap<>();
+
+    public EventProjectionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * All rows of an application's time range
+     * @param filters attribute names mapped to the value returned rows must have
+     * @param fields DTO properties to populate; null or empty selects all of them
+     * @param newestFirst order by eventTimestamp descending instead of ascending
+     */
+    public <D> List<D> findByTimeRange(Class<? extends BaseEntity> entityClass, Class<D> dtoClass, String appKey,
+                                       LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                       Set<String> fields, boolean newestFirst) {
+        DtoProjection<D> projection = projection(entityClass, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        String order = newestFirst ? " ORDER BY e.eventTimestamp DESC, e.id DESC" : " ORDER BY e.eventTimestamp, e.id";
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                        select(entityClass, columns) + IN_RANGE + where(entityClass, filters) + order, Object[].class)
+                .setParameter("appKey", appKey)
+                .setParameter("start", start)
+                .setParameter("end", end);
+        return toDtos(projection, columns, bind(query, filters).getResultList());
+    }
+
+    /**
+     * All rows of one session of an application, in event time order
+     * @param fields DTO properties to populate; null or empty selects all of them
+     */
+    public <D> List<D> findBySessionId(Class<? extends BaseEntity> entityClass, Class<D> dtoClass, String appKey,
+                                       String sessionId, Set<String> fields) {
+        DtoProjection<D> projection = projection(entityClass, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        String jpql = select(entityClass, columns) + " WHERE e.appKey = :appKey AND e.sessionId = :sessionId"
+                + " ORDER BY e.eventTimestamp, e.id";
+        return toDtos(projection, columns, entityManager.createQuery(jpql, Object[].class)
+                .setParameter("appKey", appKey)
+                .setParameter("sessionId", sessionId)
+                .getResultList());
+    }
+
+    /**
+     * Keyset page ordered by (eventTimestamp, id), starting after the given position
+     */
+    public <D> KeysetPage<D> findPageByTimeRange(Class<? extends BaseEntity> entityClass, Class<D> dtoClass, String appKey,
+                                                 LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                                 KeysetCursor after, int limit, Set<String> fields) {
+        DtoProjection<D> projection = projection(entityClass, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        String jpql = select(entityClass, columns) + IN_RANGE + where(entityClass, filters)
+                + " AND (e.eventTimestamp > :afterTime OR (e.eventTimestamp = :afterTime AND e.id > :afterId))"
+                + " ORDER BY e.eventTimestamp, e.id";
+        // One look-ahead row tells whether there is a next page
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("appKey", appKey)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setParameter("afterTime", after.getAfterTime())
+                .setParameter("afterId", after.getAfterId())
+                .setMaxResults(limit + 1);
+        List<Object[]> rows = bind(query, filters).getResultList();
+
+        int size = Math.min(rows.size(), limit);
+        List<D> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(projection.toDto(columns, rows.get(i)));
+        }
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            Object[] last = rows.get(limit - 1);
+            nextCursor = KeysetCursor.encode((LocalDateTime) last[1], (Long) last[0]);
+        }
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    /**
+     * Stream a time range in (eventTimestamp, id) order; must be called inside a transaction
+     */
+    public <D> void streamByTimeRange(Class<? extends BaseEntity> entityClass, Class<D> dtoClass, String appKey,
+                                      LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                      Set<String> fields, Consumer<D> consumer) {
+        DtoProjection<D> projection = projection(entityClass, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                        select(entityClass, columns) + IN_RANGE + where(entityClass, filters) + " ORDER BY e.eventTimestamp, e.id", Object[].class)
+                .setParameter("appKey", appKey)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500);
+        try (Stream<Object[]> rows = bind(query, filters).getResultStream()) {
+            rows.forEach(row -> consumer.accept(projection.toDto(columns, row)));
+        }
+    }
+
+    /**
+     * Count, sum, min and max of a numeric attribute over a time range, computed by the database
+     */
+    public DoubleSummaryStatistics summarizeByTimeRange(Class<? extends BaseEntity> entityClass, String appKey, String attribute,
+                                                        LocalDateTime start, LocalDateTime end) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+        Class<?> javaType;
+        try {
+            javaType = entityType.getAttribute(attribute).getJavaType();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown attribute '" + attribute + "' on " + entityType.getName());
+        }
+        if (!Number.class.isAssignableFrom(javaType)) {
+            throw new IllegalArgumentException("Attribute '" + attribute + "' is not numeric");
+        }
+        String f = "e." + attribute;
+        String jpql = "SELECT COUNT(" + f + "), MIN(" + f + "), MAX(" + f + "), SUM(" + f + ") FROM "
+                + entityType.getName() + " e" + IN_RANGE;
+        Object[] row = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("appKey", appKey)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getSingleResult();
+        long count = ((Number) row[0]).longValue();
+        if (count == 0) {
+            return new DoubleSummaryStatistics();
+        }
+        return new DoubleSummaryStatistics(count, ((Number) row[1]).doubleValue(),
+                ((Number) row[2]).doubleValue(), ((Number) row[3]).doubleValue());
+    }
+
+    private <D> List<D> toDtos(DtoProjection<D> projection, List<String> columns, List<Object[]> rows) {
+        List<D> results = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            results.add(projection.toDto(columns, row));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D> DtoProjection<D> projection(Class<? extends BaseEntity> entityClass, Class<D> dtoClass) {
+        return (DtoProjection<D>) projections.computeIfAbsent(dtoClass, key -> {
+            Set<String> attributes = new HashSet<>();
+            for (Attribute<?, ?> attribute : entityManager.getMetamodel().entity(entityClass).getAttributes()) {
+                attributes.add(attribute.getName());
+            }
+            return new DtoProjection<>(dtoClass, attributes);
+        });
+    }
+
+    /**
+     * " AND e.a = :filter_a ..." for each filter, in map order
+     * @throws IllegalArgumentException for an attribute the entity does not have or that is not a string
+     */
+    private String where(Class<? extends BaseEntity> entityClass, Map<String, String> filters) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+        StringBuilder jpql = new StringBuilder();
+        for (String attribute : filters.keySet()) {
+            Class<?> javaType;
+            try {
+                javaType = entityType.getAttribute(attribute).getJavaType();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown attribute '" + attribute + "' on " + entityType.getName());
+            }
+            if (javaType != String.class) {
+                throw new IllegalArgumentException("Attribute '" + attribute + "' is not a string");
+            }
+            jpql.append(" AND e.").append(attribute).append(" = :filter_").append(attribute);
+        }
+        return jpql.toString();
+    }
+
+    private static TypedQuery<Object[]> bind(TypedQuery<Object[]> query, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            query.setParameter("filter_" + filter.getKey(), filter.getValue());
+        }
+        return query;
+    }
+
+    private String select(Class<? extends BaseEntity> entityClass, List<String> columns) {
+        StringBuilder jpql = new StringBuilder("SELECT e.id, e.eventTimestamp");
+        for (String column : columns) {
+            jpql.append(", e.").append(column);
+        }
+        return jpql.append(" FROM ").append(entityManager.getMetamodel().entity(entityClass).getName())
+                .append(" e").toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.aggregation.TimeBuckets;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Position in an (eventTimestamp, id) ordered range.
+ * Encoded as base64url("epochMillis:id") of the last row returned.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private final LocalDateTime afterTime;
+    private final Long afterId;
+
+    /**
+     * Decode a cursor; no cursor starts just before the range
+     * @throws IllegalArgumentException if the cursor is not one produced by {@link #encode}
+     */
+    public static KeysetCursor decode(String cursor, LocalDateTime rangeStart) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new KeysetCursor(rangeStart.minusNanos(1), Long.MAX_VALUE);
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            long epochMs = Long.parseLong(position.substring(0, separator));
+            return new KeysetCursor(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault()),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encode(LocalDateTime eventTimestamp, Long id) {
+        String position = TimeBuckets.epochMillis(eventTimestamp) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
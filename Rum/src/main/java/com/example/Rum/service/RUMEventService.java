@@ -1,30 +1,56 @@
 package com.example.Rum.service;
 
 import com.example.Rum.dto.*;
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.dto.response.*;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventFailure;
 import com.example.Rum.model.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+/**
+ * Ingest and query of RUM events. Every method but processBatch (whose batch carries its own)
+ * takes the app key of the application the events belong to; queries only see that
+ * application's events and aggregates.
+ */
 public interface RUMEventService {
 
-    void processWebVital(WebVitalEventDTO dto);
-    void processError(ErrorEventDTO dto);
-    void processPageView(PageViewEventDTO dto);
-    void processPageSpeed(PageSpeedEventDTO dto);
-    void processEngagement(EngagementEventDTO dto);
-    void processNetworkError(NetworkErrorEventDTO dto);
-    void processResourcePerformance(ResourcePerformanceEventDTO dto);
-    void processUserAction(UserActionEventDTO dto);
+    /**
+     * Write all events of a mixed-type batch in one transaction
+     * @return the events that were not written: the batch's read failures plus events that fail validation
+     */
+    List<EventFailure> processBatch(EventBatch batch);
 
-    List<WebVitalEvent> getWebVitalsBySession(String sessionId);
-    List<ErrorEvent> getErrorsBySession(String sessionId);
-    List<WebVitalEvent> getWebVitalsByTimeRange(Long startMs, Long endMs);
-    List<ErrorEvent> getErrorsByTimeRange(Long startMs, Long endMs);
-    List<PageViewEvent> getPageViewsByTimeRange(Long startMs, Long endMs);
-    List<PageSpeedEvent> getPageSpeedByTimeRange(Long startMs, Long endMs);
-    List<Map<String, Object>> getPageSpeedStatsByPage(Long startMs, Long endMs);
-    Map<String, Object> getDashboardStats(Long startMs, Long endMs);
+    List<WebVitalEventResponseDTO> getWebVitalsBySession(String appKey, String sessionId, Set<String> fields);
+    List<ErrorEventResponseDTO> getErrorsBySession(String appKey, String sessionId, Set<String> fields);
+    List<WebVitalEventResponseDTO> getWebVitalsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields);
+    List<ErrorEventResponseDTO> getErrorsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields);
+    List<PageViewEventResponseDTO> getPageViewsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields);
+    List<PageSpeedEventResponseDTO> getPageSpeedByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields);
+    List<Map<String, Object>> getPageSpeedStatsByPage(String appKey, Long startMs, Long endMs);
+
+    KeysetPage<WebVitalEventResponseDTO> getWebVitalsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields);
+    KeysetPage<ErrorEventResponseDTO> getErrorsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields);
+    KeysetPage<PageViewEventResponseDTO> getPageViewsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields);
+    KeysetPage<PageSpeedEventResponseDTO> getPageSpeedPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields);
+
+    void streamWebVitals(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<WebVitalEventResponseDTO> consumer);
+    void streamErrors(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<ErrorEventResponseDTO> consumer);
+    void streamPageViews(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<PageViewEventResponseDTO> consumer);
+    void streamPageSpeed(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<PageSpeedEventResponseDTO> consumer);
+    Map<String, Object> getDashboardStats(String appKey, Long startMs, Long endMs);
+    List<Map<String, Object>> getDashboardSeries(String appKey, Long startMs, Long endMs, String resolution);
+    List<Map<String, Object>> getDashboardBreakdown(String appKey, Long startMs, Long endMs, String dimension);
+    Map<String, Object> getUniqueCounts(String appKey, Long startMs, Long endMs, String pageUrl);
+    List<Map<String, Object>> getWebVitalPercentiles(String appKey, Long startMs, Long endMs, String metric, Map<String, String> filters, String groupBy);
+    List<Map<String, Object>> getWebVitalSeries(String appKey, Long startMs, Long endMs, String metric, String resolution);
+    List<ErrorIssueResponseDTO> getTopIssues(String appKey, Long sinceMs, int limit, String sort);
+    List<Map<String, Object>> getEngagementSummary(String appKey, Long startMs, Long endMs, String pageUrl);
+    List<Map<String, Object>> getNetworkErrorSummary(String appKey, Long startMs, Long endMs, Map<String, String> filters);
 
     LocalDateTime convertTimestamp(Long timestamp);
 }
@@ -1,381 +1,717 @@
 package com.example.Rum.service.impl;
 
+import com.example.Rum.aggregation.DistinctCountStore;
+import com.example.Rum.aggregation.ErrorFingerprinter;
+import com.example.Rum.aggregation.ErrorIssueStore;
+import com.example.Rum.aggregation.PercentileStore;
+import com.example.Rum.aggregation.RollupStore;
+import com.example.Rum.aggregation.SessionUserSketch;
+import com.example.Rum.aggregation.TierProperties;
+import com.example.Rum.aggregation.TierSnapshots;
+import com.example.Rum.aggregation.TieredBuckets;
 import com.example.Rum.dto.*;
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.dto.response.*;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventFailure;
+import com.example.Rum.ingest.UserAgentParser;
 import com.example.Rum.model.*;
 import com.example.Rum.repository.*;
 import com.example.Rum.service.RUMEventService;
+import com.example.Rum.store.BlobStore;
+import com.example.Rum.store.ColumnConstraints;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.tenancy.AppRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 @Service
 @AllArgsConstructor
 @Slf4j
 public class RUMEventServiceImpl implements RUMEventService {
 
-    private final WebVitalEventRepository webVitalRepository;
-    private final ErrorEventRepository errorEventRepository;
-    private final PageViewEventRepository pageViewRepository;
-    private final PageSpeedEventRepository pageSpeedRepository;
-    private final EngagementEventRepository engagementRepository;
-    private final NetworkErrorEventRepository networkErrorRepository;
-    private final ResourcePerformanceEventRepository resourceRepository;
-    private final UserActionEventRepository userActionRepository;
+    // ErrorEvent fields kept in the BlobStore, each read through the <field>Hash column
+    private static final Set<String> BLOB_FIELDS = Set.of("stack", "componentStack");
+    // Bounds of "all time" that every engine can represent, for rebuilding the aggregates
+    private static final LocalDateTime FIRST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LAST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final EventStore eventStore;
     private final ObjectMapper objectMapper;
+    private final RollupStore rollupStore;
+    private final DistinctCountStore distinctCountStore;
+    private final PercentileStore percentileStore;
+    private final ErrorIssueStore errorIssueStore;
+    private final BlobStore blobStore;
+    private final UserAgentParser userAgentParser;
+    private final AppRegistry appRegistry;
+    private final TierProperties tierProperties;
+    private final TierSnapshots tierSnapshots;
+
+    // Type-specific processing of each RumEvent type in a batch; a new event type only needs an entry here
+    private final Map<Class<? extends RumEvent>, EventHandler<?, ?>> handlers = registry(
+            new EventHandler<>(WebVitalEventDTO.class, WebVitalEvent.class, this::toWebVitalEvent, null, this::aggregateWebVitals),
+            new EventHandler<>(ErrorEventDTO.class, ErrorEvent.class, this::toErrorEvent, this::storeBlobs, this::aggregateErrors),
+            new EventHandler<>(PageViewEventDTO.class, PageViewEvent.class, this::toPageViewEvent, null, this::aggregatePageViews),
+            new EventHandler<>(PageSpeedEventDTO.class, PageSpeedEvent.class, this::toPageSpeedEvent, null, this::aggregatePageSpeeds),
+            new EventHandler<>(EngagementEventDTO.class, EngagementEvent.class, this::toEngagementEvent, null, this::aggregateEngagements),
+            new EventHandler<>(NetworkErrorEventDTO.class, NetworkErrorEvent.class, this::toNetworkErrorEvent, null,
+                    this::aggregateNetworkErrors),
+            new EventHandler<>(ResourcePerformanceEventDTO.class, ResourcePerformanceEvent.class,
+                    this::toResourcePerformanceEvent, null, this::aggregateDistinct),
+            new EventHandler<>(UserActionEventDTO.class, UserActionEvent.class, this::toUserActionEvent, null,
+                    this::aggregateDistinct)
+    );
 
     /**
-     * Process and save a web vital event
+     * Restore the in-memory aggregates (rollups, distinct counts, percentiles), which a restart
+     * would otherwise leave empty. Closed hour and day buckets saved by TierSnapshots are loaded,
+     * so they reach back as far as their tier retentions; the rest is rebuilt from the stored
+     * events: only the minute tier's retention when buckets were saved, else as far as the raw
+     * events reach (rum.retention), with distinct counts missing the sessions of events sampling
+     * left out. Error issues are stored with the events and are not recounted.
+     *
+     * Rebuilt hour and day buckets are replaced by the saved ones, so none is counted twice.
+     * Runs while the context starts: before the write-ahead log is replayed through this
+     * service and before requests are accepted.
      */
-    @Override
-    @Transactional
-    public void processWebVital(WebVitalEventDTO dto) {
-        try {
-            WebVitalEvent entity = new WebVitalEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setUserAgent(dto.getUserAgent());
-            entity.setMetricName(dto.getData().getName());
-            entity.setValue(dto.getData().getValue());
-            entity.setRating(dto.getData().getRating());
-            entity.setNavigationType(dto.getData().getNavigationType());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            webVitalRepository.save(entity);
-            log.debug("Saved web vital: {} = {}", dto.getData().getName(), dto.getData().getValue());
-        } catch (Exception e) {
-            log.error("Error processing web vital event", e);
+    @PostConstruct
+    public void rebuildAggregates() {
+        boolean saved = tierSnapshots.hasSaved();
+        if (tierProperties.isRebuildOnStartup()) {
+            // From the start of a UTC day, so the day bucket holding the first minute is whole
+            LocalDateTime from = saved ? LocalDateTime.ofInstant(Instant.now().minus(tierProperties.getMinuteRetention())
+                    .truncatedTo(ChronoUnit.DAYS), ZoneId.systemDefault()) : FIRST;
+            long started = System.currentTimeMillis();
+            long events = 0;
+            for (String appKey : appRegistry.appKeys()) {
+                events += rebuild(WebVitalEvent.class, appKey, from, this::aggregateWebVitals);
+                events += rebuild(ErrorEvent.class, appKey, from, this::countErrors);
+                events += rebuild(PageViewEvent.class, appKey, from, this::aggregatePageViews);
+                events += rebuild(PageSpeedEvent.class, appKey, from, this::aggregatePageSpeeds);
+                events += rebuild(EngagementEvent.class, appKey, from, this::aggregateEngagements);
+                events += rebuild(NetworkErrorEvent.class, appKey, from, this::aggregateNetworkErrors);
+                events += rebuild(ResourcePerformanceEvent.class, appKey, from, this::aggregateDistinct);
+                events += rebuild(UserActionEvent.class, appKey, from, this::aggregateDistinct);
+            }
+            if (events > 0) {
+                log.info("Rebuilt aggregates from {} stored events in {} ms", events, System.currentTimeMillis() - started);
+            }
+        }
+        if (saved) {
+            log.info("Loaded {} saved aggregate buckets", tierSnapshots.load());
         }
     }
 
     /**
-     * Process and save an error event
+     * Save a mixed-type batch in one transaction, one multi-row save per event type, each type
+     * routed to its handler. Events that cannot be mapped or violate a column constraint are
+     * left out and reported, so they cannot fail the flush of the others.
      */
     @Override
     @Transactional
-    public void processError(ErrorEventDTO dto) {
-        try {
-            ErrorEvent entity = new ErrorEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setUserAgent(dto.getUserAgent());
-            entity.setMessage(dto.getData().getMessage());
-            entity.setSource(dto.getData().getSource());
-            entity.setLineno(dto.getData().getLineno());
-            entity.setColno(dto.getData().getColno());
-            entity.setStack(dto.getData().getStack());
-            entity.setErrorType(dto.getData().getErrorType());
-            entity.setSeverity(dto.getData().getSeverity());
-            
-            // Serialize breadcrumbs to JSON if present
-            if (dto.getData().getBreadcrumbs() != null && !dto.getData().getBreadcrumbs().isEmpty()) {
-                try {
-                    entity.setBreadcrumbs(objectMapper.writeValueAsString(dto.getData().getBreadcrumbs()));
-                } catch (Exception e) {
-                    log.warn("Failed to serialize breadcrumbs", e);
+    public List<EventFailure> processBatch(EventBatch batch) {
+        List<EventFailure> failures = new ArrayList<>(batch.getFailures());
+        List<Runnable> onCommit = new ArrayList<>();
+        for (Class<? extends RumEvent> type : batch.getTypes()) {
+            EventHandler<?, ?> handler = handlers.get(type);
+            if (handler == null) {
+                List<? extends RumEvent> events = batch.getEvents(type);
+                for (int i = 0; i < events.size(); i++) {
+                    failures.add(new EventFailure(batch.requestIndex(type, i), events.get(i).getType(), "No handler for event type"));
                 }
+                continue;
             }
-            
-            // Set component stack if present
-            if (dto.getData().getComponentStack() != null) {
-                entity.setComponentStack(dto.getData().getComponentStack());
-            }
-            
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            errorEventRepository.save(entity);
-            log.debug("Saved error event: {}", dto.getData().getMessage());
-        } catch (Exception e) {
-            log.error("Error processing error event", e);
+            onCommit.add(process(handler, batch, failures));
         }
+        afterCommit(() -> onCommit.forEach(Runnable::run));
+        failures.sort(Comparator.comparingInt(EventFailure::getIndex));
+        return failures;
     }
 
     /**
-     * Process and save a page view event
+     * Get all web vitals for a session
      */
     @Override
-    @Transactional
-    public void processPageView(PageViewEventDTO dto) {
-        try {
-            PageViewEvent entity = new PageViewEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setUserAgent(dto.getUserAgent());
-            entity.setPagePath(dto.getData().getPagePath());
-            entity.setPageTitle(dto.getData().getPageTitle());
-            entity.setReferrer(dto.getData().getReferrer());
-            entity.setPreviousPage(dto.getData().getPreviousPage());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            pageViewRepository.save(entity);
-            log.debug("Saved page view: {}", dto.getData().getPagePath());
-        } catch (Exception e) {
-            log.error("Error processing page view event", e);
-        }
+    public List<WebVitalEventResponseDTO> getWebVitalsBySession(String appKey, String sessionId, Set<String> fields) {
+        return eventStore.findBySessionId(WebVitalEvent.class, WebVitalEventResponseDTO.class, appKey, sessionId, fields);
     }
 
     /**
-     * Process and save a page speed event
+     * Get all errors for a session
      */
     @Override
-    @Transactional
-    public void processPageSpeed(PageSpeedEventDTO dto) {
-        try {
-            // Validate and ensure non-negative values
-            double loadTime = Math.max(0, dto.getData().getLoadTime());
-            double domContentLoaded = Math.max(0, dto.getData().getDomContentLoaded());
-            double domInteractive = Math.max(0, dto.getData().getDomInteractive());
-            double resourceLoadTime = Math.max(0, dto.getData().getResourceLoadTime());
-            Double firstPaint = dto.getData().getFirstPaint() != null ? Math.max(0, dto.getData().getFirstPaint()) : null;
-
-            PageSpeedEvent entity = new PageSpeedEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setLoadTime(loadTime);
-            entity.setDomContentLoaded(domContentLoaded);
-            entity.setDomInteractive(domInteractive);
-            entity.setResourceLoadTime(resourceLoadTime);
-            entity.setFirstPaint(firstPaint);
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            pageSpeedRepository.save(entity);
-            log.debug("Saved page speed: load={}ms", loadTime);
-        } catch (Exception e) {
-            log.error("Error processing page speed event", e);
-        }
+    public List<ErrorEventResponseDTO> getErrorsBySession(String appKey, String sessionId, Set<String> fields) {
+        return resolveBlobs(eventStore.findBySessionId(ErrorEvent.class, ErrorEventResponseDTO.class, appKey, sessionId, blobFields(fields)));
     }
 
     /**
-     * Process and save an engagement event
+     * Get web vitals for a time range, projected onto the requested fields
      */
     @Override
-    @Transactional
-    public void processEngagement(EngagementEventDTO dto) {
-        try {
-            EngagementEvent entity = new EngagementEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setTimeOnPage(dto.getData().getTimeOnPage());
-            entity.setScrollDepth(dto.getData().getScrollDepth());
-            entity.setInteractionCount(dto.getData().getInteractionCount());
-            entity.setExitType(dto.getData().getExitType());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            engagementRepository.save(entity);
-            log.debug("Saved engagement: time={}ms", dto.getData().getTimeOnPage());
-        } catch (Exception e) {
-            log.error("Error processing engagement event", e);
-        }
+    public List<WebVitalEventResponseDTO> getWebVitalsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields) {
+        return eventStore.findByTimeRange(WebVitalEvent.class, WebVitalEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, false);
     }
 
     /**
-     * Process and save a network error event
+     * Get errors for a time range, projected onto the requested fields
      */
     @Override
-    @Transactional
-    public void processNetworkError(NetworkErrorEventDTO dto) {
-        try {
-            NetworkErrorEvent entity = new NetworkErrorEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setUserAgent(dto.getUserAgent());
-            entity.setUrl(dto.getData().getUrl());
-            entity.setMethod(dto.getData().getMethod());
-            entity.setStatusCode(dto.getData().getStatusCode());
-            entity.setMessage(dto.getData().getMessage());
-            entity.setDuration(dto.getData().getDuration());
-            entity.setErrorType(dto.getData().getErrorType());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            networkErrorRepository.save(entity);
-            log.debug("Saved network error: {} {}", dto.getData().getMethod(), dto.getData().getUrl());
-        } catch (Exception e) {
-            log.error("Error processing network error event", e);
-        }
+    public List<ErrorEventResponseDTO> getErrorsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields) {
+        return resolveBlobs(eventStore.findByTimeRange(ErrorEvent.class, ErrorEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, blobFields(fields), false));
     }
 
     /**
-     * Process and save a resource performance event
+     * Get page views for a time range, projected onto the requested fields
      */
     @Override
-    @Transactional
-    public void processResourcePerformance(ResourcePerformanceEventDTO dto) {
-        try {
-            ResourcePerformanceEvent entity = new ResourcePerformanceEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setUrl(dto.getData().getUrl());
-            entity.setResourceType(dto.getData().getResourceType());
-            entity.setDuration(dto.getData().getDuration());
-            entity.setTransferSize(dto.getData().getTransferSize());
-            entity.setEncodedBodySize(dto.getData().getEncodedBodySize());
-            entity.setDecodedBodySize(dto.getData().getDecodedBodySize());
-            entity.setCacheHit(dto.getData().getCacheHit());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            resourceRepository.save(entity);
-            log.debug("Saved resource performance: {}", dto.getData().getUrl());
-        } catch (Exception e) {
-            log.error("Error processing resource performance event", e);
-        }
+    public List<PageViewEventResponseDTO> getPageViewsByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields) {
+        return eventStore.findByTimeRange(PageViewEvent.class, PageViewEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, true);
     }
 
     /**
-     * Process and save a user action event
+     * Get page speed events for a time range, projected onto the requested fields
      */
     @Override
-    @Transactional
-    public void processUserAction(UserActionEventDTO dto) {
-        try {
-            UserActionEvent entity = new UserActionEvent();
-            entity.setSessionId(dto.getSessionId());
-            entity.setUserId(dto.getUserId());
-            entity.setPageUrl(dto.getPageUrl());
-            entity.setActionType(dto.getData().getActionType());
-            entity.setTargetElement(dto.getData().getTargetElement());
-            entity.setTargetText(dto.getData().getTargetText());
-            entity.setTargetId(dto.getData().getTargetId());
-            entity.setTargetClass(dto.getData().getTargetClass());
-            entity.setXPath(dto.getData().getXPath());
-            entity.setValue(dto.getData().getValue());
-            entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
-
-            userActionRepository.save(entity);
-            log.debug("Saved user action: {}", dto.getData().getActionType());
-        } catch (Exception e) {
-            log.error("Error processing user action event", e);
-        }
+    public List<PageSpeedEventResponseDTO> getPageSpeedByTimeRange(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields) {
+        return eventStore.findByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, true);
     }
 
     /**
-     * Get all web vitals for a session
+     * Get a keyset page of web vitals for a time range
      */
     @Override
-    public List<WebVitalEvent> getWebVitalsBySession(String sessionId) {
-        return webVitalRepository.findBySessionId(sessionId);
+    public KeysetPage<WebVitalEventResponseDTO> getWebVitalsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields) {
+        LocalDateTime start = convertTimestamp(startMs);
+        return eventStore.findPageByTimeRange(WebVitalEvent.class, WebVitalEventResponseDTO.class, appKey,
+                start, convertTimestamp(endMs), filters, KeysetCursor.decode(cursor, start), limit, fields);
     }
 
     /**
-     * Get all errors for a session
+     * Get a keyset page of errors for a time range
      */
     @Override
-    public List<ErrorEvent> getErrorsBySession(String sessionId) {
-        return errorEventRepository.findBySessionId(sessionId);
+    public KeysetPage<ErrorEventResponseDTO> getErrorsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields) {
+        LocalDateTime start = convertTimestamp(startMs);
+        KeysetPage<ErrorEventResponseDTO> page = eventStore.findPageByTimeRange(ErrorEvent.class, ErrorEventResponseDTO.class, appKey,
+                start, convertTimestamp(endMs), filters, KeysetCursor.decode(cursor, start), limit, blobFields(fields));
+        resolveBlobs(page.getItems());
+        return page;
     }
 
     /**
-     * Get web vitals for a time range
+     * Get a keyset page of page views for a time range
      */
     @Override
-    public List<WebVitalEvent> getWebVitalsByTimeRange(Long startMs, Long endMs) {
+    public KeysetPage<PageViewEventResponseDTO> getPageViewsPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields) {
         LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        return webVitalRepository.findByTimeRange(start, end);
+        return eventStore.findPageByTimeRange(PageViewEvent.class, PageViewEventResponseDTO.class, appKey,
+                start, convertTimestamp(endMs), filters, KeysetCursor.decode(cursor, start), limit, fields);
     }
 
     /**
-     * Get errors for a time range
+     * Get a keyset page of page speed events for a time range
      */
     @Override
-    public List<ErrorEvent> getErrorsByTimeRange(Long startMs, Long endMs) {
+    public KeysetPage<PageSpeedEventResponseDTO> getPageSpeedPage(String appKey, Long startMs, Long endMs, Map<String, String> filters, String cursor, int limit, Set<String> fields) {
         LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        return errorEventRepository.findByTimeRange(start, end);
+        return eventStore.findPageByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, appKey,
+                start, convertTimestamp(endMs), filters, KeysetCursor.decode(cursor, start), limit, fields);
     }
 
     /**
-     * Get page views for a time range
+     * Stream web vitals for a time range in event time order
      */
     @Override
-    public List<PageViewEvent> getPageViewsByTimeRange(Long startMs, Long endMs) {
-        LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        return pageViewRepository.findByTimeRange(start, end);
+    @Transactional(readOnly = true)
+    public void streamWebVitals(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<WebVitalEventResponseDTO> consumer) {
+        eventStore.streamByTimeRange(WebVitalEvent.class, WebVitalEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, consumer);
     }
 
     /**
-     * Get page speed events for a time range
+     * Stream errors for a time range in event time order
      */
     @Override
-    public List<PageSpeedEvent> getPageSpeedByTimeRange(Long startMs, Long endMs) {
-        LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        return pageSpeedRepository.findByTimeRange(start, end);
+    @Transactional(readOnly = true)
+    public void streamErrors(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<ErrorEventResponseDTO> consumer) {
+        eventStore.streamByTimeRange(ErrorEvent.class, ErrorEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, blobFields(fields),
+                dto -> consumer.accept(resolveBlobs(List.of(dto)).get(0)));
     }
 
     /**
-     * Get page speed statistics grouped by page URL
+     * Stream page views for a time range in event time order
      */
     @Override
-    public List<Map<String, Object>> getPageSpeedStatsByPage(Long startMs, Long endMs) {
-        LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        List<Object[]> results = pageSpeedRepository.findPageSpeedStatsByPage(start, end);
-        
-        return results.stream().map(row -> {
-            Map<String, Object> stat = new java.util.HashMap<>();
-            stat.put("pageUrl", row[0]);
-            stat.put("viewCount", ((Number) row[1]).longValue());
-            double avgLoadTime = row[2] != null ? ((Number) row[2]).doubleValue() : 0.0;
-            double minLoadTime = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
-            double maxLoadTime = row[4] != null ? ((Number) row[4]).doubleValue() : 0.0;
-            stat.put("avgLoadTime", Math.max(0, avgLoadTime));
-            stat.put("minLoadTime", Math.max(0, minLoadTime));
-            stat.put("maxLoadTime", Math.max(0, maxLoadTime));
-            return stat;
-        }).collect(java.util.stream.Collectors.toList());
-    }
-
-    /**
-     * Get dashboard statistics
+    @Transactional(readOnly = true)
+    public void streamPageViews(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<PageViewEventResponseDTO> consumer) {
+        eventStore.streamByTimeRange(PageViewEvent.class, PageViewEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, consumer);
+    }
+
+    /**
+     * Stream page speed events for a time range in event time order
      */
     @Override
-    public Map<String, Object> getDashboardStats(Long startMs, Long endMs) {
-        LocalDateTime start = convertTimestamp(startMs);
-        LocalDateTime end = convertTimestamp(endMs);
-        
-        Map<String, Object> stats = new java.util.HashMap<>();
-        
-        // Count unique sessions
-        long uniqueSessions = webVitalRepository.findAll().stream()
-            .filter(e -> !e.getEventTimestamp().isBefore(start) && !e.getEventTimestamp().isAfter(end))
-            .map(WebVitalEvent::getSessionId)
-            .distinct()
-            .count();
-        stats.put("uniqueSessions", uniqueSessions);
-        
-        // Count unique users
-        Long uniqueUsers = pageViewRepository.countUniqueUsersByTimeRange(start, end);
-        stats.put("uniqueUsers", uniqueUsers != null ? uniqueUsers : 0L);
-        
-        // Total page views
-        long totalPageViews = pageViewRepository.findByTimeRange(start, end).size();
-        stats.put("totalPageViews", totalPageViews);
-        
-        // Total errors
-        long totalErrors = errorEventRepository.findByTimeRange(start, end).size();
-        stats.put("totalErrors", totalErrors);
-        
-        // Average page load time (ensure non-negative)
-        Double avgLoadTime = pageSpeedRepository.findAverageLoadTime(start, end);
-        stats.put("avgPageLoadTime", avgLoadTime != null && avgLoadTime >= 0 ? avgLoadTime : 0.0);
-        
+    @Transactional(readOnly = true)
+    public void streamPageSpeed(String appKey, Long startMs, Long endMs, Map<String, String> filters, Set<String> fields, Consumer<PageSpeedEventResponseDTO> consumer) {
+        eventStore.streamByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, appKey,
+                convertTimestamp(startMs), convertTimestamp(endMs), filters, fields, consumer);
+    }
+
+    /**
+     * Get page speed statistics grouped by page URL, from the per-page quantile sketches
+     */
+    @Override
+    public List<Map<String, Object>> getPageSpeedStatsByPage(String appKey, Long startMs, Long endMs) {
+        return percentileStore.getPageSpeedStatsByPage(appKey, startMs, endMs);
+    }
+
+    /**
+     * Get dashboard statistics from the per-minute rollups and distinct-count sketches
+     */
+    @Override
+    public Map<String, Object> getDashboardStats(String appKey, Long startMs, Long endMs) {
+        Map<String, Object> stats = rollupStore.getDashboardStats(appKey, startMs, endMs);
+        SessionUserSketch uniques = distinctCountStore.query(appKey, startMs, endMs, null);
+        stats.put("uniqueSessions", uniques.estimateSessions());
+        stats.put("uniqueUsers", uniques.estimateUsers());
         return stats;
     }
 
+    /**
+     * Get dashboard statistics per minute, hour or day from the buckets of that tier
+     */
+    @Override
+    public List<Map<String, Object>> getDashboardSeries(String appKey, Long startMs, Long endMs, String resolution) {
+        TieredBuckets.Tier tier = TieredBuckets.Tier.of(resolution);
+        List<Map<String, Object>> series = rollupStore.getDashboardSeries(appKey, startMs, endMs, tier);
+        Map<Long, SessionUserSketch> uniques = distinctCountStore.series(appKey, startMs, endMs, tier);
+        for (Map<String, Object> row : series) {
+            SessionUserSketch bucket = uniques.get((Long) row.get("bucketStartMs"));
+            row.put("uniqueSessions", bucket != null ? bucket.estimateSessions() : 0L);
+            row.put("uniqueUsers", bucket != null ? bucket.estimateUsers() : 0L);
+        }
+        return series;
+    }
+
+    /**
+     * Get page view and error counts per browser, OS or device type from the rollups
+     */
+    @Override
+    public List<Map<String, Object>> getDashboardBreakdown(String appKey, Long startMs, Long endMs, String dimension) {
+        return rollupStore.getDashboardBreakdown(appKey, startMs, endMs, dimension);
+    }
+
+    /**
+     * Estimate distinct sessions and users for a range, optionally for one page
+     */
+    @Override
+    public Map<String, Object> getUniqueCounts(String appKey, Long startMs, Long endMs, String pageUrl) {
+        SessionUserSketch uniques = distinctCountStore.query(appKey, startMs, endMs, pageUrl);
+        Map<String, Object> counts = new HashMap<>();
+        counts.put("pageUrl", pageUrl);
+        counts.put("uniqueSessions", uniques.estimateSessions());
+        counts.put("uniqueUsers", uniques.estimateUsers());
+        counts.put("standardError", uniques.standardError());
+        return counts;
+    }
+
+    /**
+     * Get web vital percentiles from the quantile sketches
+     */
+    @Override
+    public List<Map<String, Object>> getWebVitalPercentiles(String appKey, Long startMs, Long endMs, String metric,
+                                                            Map<String, String> filters, String groupBy) {
+        return percentileStore.getWebVitalPercentiles(appKey, startMs, endMs, metric, filters, groupBy);
+    }
+
+    /**
+     * Get percentiles of one web vital per minute, hour or day from the sketches of that tier
+     */
+    @Override
+    public List<Map<String, Object>> getWebVitalSeries(String appKey, Long startMs, Long endMs, String metric, String resolution) {
+        return percentileStore.getWebVitalSeries(appKey, startMs, endMs, metric, TieredBuckets.Tier.of(resolution));
+    }
+
+    /**
+     * Get the top error issues seen since sinceMs (all time when null)
+     */
+    @Override
+    public List<ErrorIssueResponseDTO> getTopIssues(String appKey, Long sinceMs, int limit, String sort) {
+        LocalDateTime since = convertTimestamp(sinceMs != null ? sinceMs : 0L);
+        return errorIssueStore.top(appKey, since, limit, sort);
+    }
+
+    /**
+     * Get engagement summaries from the quantile sketches
+     */
+    @Override
+    public List<Map<String, Object>> getEngagementSummary(String appKey, Long startMs, Long endMs, String pageUrl) {
+        return percentileStore.getEngagementSummary(appKey, startMs, endMs, pageUrl);
+    }
+
+    /**
+     * Get network error duration summary from the quantile sketches
+     */
+    @Override
+    public List<Map<String, Object>> getNetworkErrorSummary(String appKey, Long startMs, Long endMs, Map<String, String> filters) {
+        return percentileStore.getNetworkErrorSummary(appKey, startMs, endMs, filters);
+    }
+
+    /**
+     * Move stack and component stack into the blob store, keeping their hashes on the events.
+     * Breadcrumbs stay inline: each carries its timestamp, so they hardly ever repeat.
+     */
+    private void storeBlobs(List<ErrorEvent> entities) {
+        List<String> texts = new ArrayList<>(entities.size() * 2);
+        for (ErrorEvent entity : entities) {
+            texts.add(entity.getStack());
+            texts.add(entity.getComponentStack());
+        }
+        List<String> hashes = blobStore.putAll(texts);
+        for (int i = 0; i < entities.size(); i++) {
+            entities.get(i).setStackHash(hashes.get(i * 2));
+            entities.get(i).setComponentStackHash(hashes.get(i * 2 + 1));
+        }
+    }
+
+    // Ingest-time aggregates fed by each event type, run once its events are committed
+
+    private void aggregateWebVitals(List<WebVitalEvent> entities) {
+        distinctCountStore.record(entities);
+        percentileStore.recordWebVitals(entities);
+    }
+
+    private void aggregateErrors(List<ErrorEvent> entities) {
+        countErrors(entities);
+        errorIssueStore.record(entities);
+    }
+
+    private void countErrors(List<ErrorEvent> entities) {
+        rollupStore.recordErrors(entities);
+        distinctCountStore.record(entities);
+    }
+
+    private void aggregatePageViews(List<PageViewEvent> entities) {
+        rollupStore.recordPageViews(entities);
+        distinctCountStore.record(entities);
+    }
+
+    private void aggregatePageSpeeds(List<PageSpeedEvent> entities) {
+        rollupStore.recordPageSpeeds(entities);
+        percentileStore.recordPageSpeeds(entities);
+        distinctCountStore.record(entities);
+    }
+
+    private void aggregateEngagements(List<EngagementEvent> entities) {
+        distinctCountStore.record(entities);
+        percentileStore.recordEngagements(entities);
+    }
+
+    private void aggregateNetworkErrors(List<NetworkErrorEvent> entities) {
+        distinctCountStore.record(entities);
+        percentileStore.recordNetworkErrors(entities);
+    }
+
+    private void aggregateDistinct(List<? extends TrackedEvent> entities) {
+        distinctCountStore.record(entities);
+    }
+
+    /**
+     * Requested error fields with the blob-backed ones replaced by the hashes they are read from
+     */
+    private static Set<String> blobFields(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return fields;
+        }
+        Set<String> stored = new LinkedHashSet<>(fields.size());
+        for (String field : fields) {
+            String name = field.trim();
+            stored.add(BLOB_FIELDS.contains(name) ? name + "Hash" : name);
+        }
+        return stored;
+    }
+
+    private List<ErrorEventResponseDTO> resolveBlobs(List<ErrorEventResponseDTO> dtos) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (ErrorEventResponseDTO dto : dtos) {
+            hashes.add(dto.getStackHash());
+            hashes.add(dto.getComponentStackHash());
+        }
+        hashes.remove(null);
+        if (hashes.isEmpty()) {
+            return dtos;
+        }
+        Map<String, String> texts = blobStore.getAll(hashes);
+        for (ErrorEventResponseDTO dto : dtos) {
+            dto.setStack(dto.getStackHash() == null ? null : texts.get(dto.getStackHash()));
+            dto.setComponentStack(dto.getComponentStackHash() == null ? null : texts.get(dto.getComponentStackHash()));
+        }
+        return dtos;
+    }
+
+    /**
+     * Run an action once the current transaction commits, or immediately outside a transaction
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Map and save the events of one type of a batch, adding a failure (by request position)
+     * for each event that cannot be mapped or stored
+     * @return the handler's aggregation of the saved events, to run once they are committed
+     */
+    private <D extends RumEvent, E extends BaseEntity & TrackedEvent> Runnable process(EventHandler<D, E> handler,
+                                                                                     EventBatch batch,
+                                                                                     List<EventFailure> failures) {
+        List<D> dtos = batch.getEvents(handler.eventType);
+        List<E> entities = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            try {
+                E entity = handler.mapper.apply(batch.getAppKey(), dtos.get(i));
+                entity.setSampleWeight(batch.getSampleWeight(dtos.get(i)));
+                ColumnConstraints.check(entity);
+                entities.add(entity);
+            } catch (IllegalArgumentException e) {
+                failures.add(new EventFailure(batch.requestIndex(handler.eventType, i), dtos.get(i).getType(), e.getMessage()));
+            } catch (RuntimeException e) {
+                log.debug("Malformed {} event", dtos.get(i).getType(), e);
+                failures.add(new EventFailure(batch.requestIndex(handler.eventType, i), dtos.get(i).getType(), "Malformed event"));
+            }
+        }
+        if (entities.isEmpty()) {
+            return () -> { };
+        }
+        if (handler.beforeSave != null) {
+            handler.beforeSave.accept(entities);
+        }
+        eventStore.saveAll(handler.entityType, entities);
+        return () -> handler.afterCommit.accept(entities);
+    }
+
+    /**
+     * Feed every stored event of one type and application to an aggregation, in chunks
+     * @return number of events
+     */
+    private <E extends BaseEntity & TrackedEvent> long rebuild(Class<E> type, String appKey, LocalDateTime from,
+                                                               Consumer<List<E>> aggregate) {
+        List<E> chunk = new ArrayList<>(REBUILD_CHUNK);
+        long[] events = {0};
+        eventStore.streamByTimeRange(type, type, appKey, from, LAST, Map.of(), null, event -> {
+            chunk.add(event);
+            if (chunk.size() == REBUILD_CHUNK) {
+                aggregate.accept(chunk);
+                events[0] += chunk.size();
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            aggregate.accept(chunk);
+            events[0] += chunk.size();
+        }
+        return events[0];
+    }
+
+    private static Map<Class<? extends RumEvent>, EventHandler<?, ?>> registry(EventHandler<?, ?>... handlers) {
+        Map<Class<? extends RumEvent>, EventHandler<?, ?>> registry = new HashMap<>();
+        for (EventHandler<?, ?> handler : handlers) {
+            registry.put(handler.eventType, handler);
+        }
+        return Map.copyOf(registry);
+    }
+
+
+    private WebVitalEvent toWebVitalEvent(String appKey, WebVitalEventDTO dto) {
+        WebVitalEvent entity = new WebVitalEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setUserAgent(dto.getUserAgent());
+        userAgentParser.parse(dto.getUserAgent()).applyTo(entity);
+        entity.setMetricName(dto.getData().getName());
+        entity.setValue(dto.getData().getValue());
+        entity.setRating(dto.getData().getRating());
+        entity.setNavigationType(dto.getData().getNavigationType());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private ErrorEvent toErrorEvent(String appKey, ErrorEventDTO dto) {
+        ErrorEvent entity = new ErrorEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setUserAgent(dto.getUserAgent());
+        userAgentParser.parse(dto.getUserAgent()).applyTo(entity);
+        entity.setMessage(dto.getData().getMessage());
+        entity.setSource(dto.getData().getSource());
+        entity.setLineno(dto.getData().getLineno());
+        entity.setColno(dto.getData().getColno());
+        entity.setStack(dto.getData().getStack());
+        entity.setErrorType(dto.getData().getErrorType());
+        entity.setSeverity(dto.getData().getSeverity());
+
+        // Serialize breadcrumbs to JSON if present
+        if (dto.getData().getBreadcrumbs() != null && !dto.getData().getBreadcrumbs().isEmpty()) {
+            try {
+                entity.setBreadcrumbs(objectMapper.writeValueAsString(dto.getData().getBreadcrumbs()));
+            } catch (Exception e) {
+                log.warn("Failed to serialize breadcrumbs", e);
+            }
+        }
+
+        // Set component stack if present
+        if (dto.getData().getComponentStack() != null) {
+            entity.setComponentStack(dto.getData().getComponentStack());
+        }
+
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        entity.setFingerprint(ErrorFingerprinter.fingerprint(entity));
+        return entity;
+    }
+
+    private PageViewEvent toPageViewEvent(String appKey, PageViewEventDTO dto) {
+        PageViewEvent entity = new PageViewEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setUserAgent(dto.getUserAgent());
+        userAgentParser.parse(dto.getUserAgent()).applyTo(entity);
+        entity.setPagePath(dto.getData().getPagePath());
+        entity.setPageTitle(dto.getData().getPageTitle());
+        entity.setReferrer(dto.getData().getReferrer());
+        entity.setPreviousPage(dto.getData().getPreviousPage());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private PageSpeedEvent toPageSpeedEvent(String appKey, PageSpeedEventDTO dto) {
+        // Validate and ensure non-negative values
+        double loadTime = Math.max(0, dto.getData().getLoadTime());
+        double domContentLoaded = Math.max(0, dto.getData().getDomContentLoaded());
+        double domInteractive = Math.max(0, dto.getData().getDomInteractive());
+        double resourceLoadTime = Math.max(0, dto.getData().getResourceLoadTime());
+        Double firstPaint = dto.getData().getFirstPaint() != null ? Math.max(0, dto.getData().getFirstPaint()) : null;
+
+        PageSpeedEvent entity = new PageSpeedEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setLoadTime(loadTime);
+        entity.setDomContentLoaded(domContentLoaded);
+        entity.setDomInteractive(domInteractive);
+        entity.setResourceLoadTime(resourceLoadTime);
+        entity.setFirstPaint(firstPaint);
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private EngagementEvent toEngagementEvent(String appKey, EngagementEventDTO dto) {
+        EngagementEvent entity = new EngagementEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setTimeOnPage(dto.getData().getTimeOnPage());
+        entity.setScrollDepth(dto.getData().getScrollDepth());
+        entity.setInteractionCount(dto.getData().getInteractionCount());
+        entity.setExitType(dto.getData().getExitType());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private NetworkErrorEvent toNetworkErrorEvent(String appKey, NetworkErrorEventDTO dto) {
+        NetworkErrorEvent entity = new NetworkErrorEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setUserAgent(dto.getUserAgent());
+        userAgentParser.parse(dto.getUserAgent()).applyTo(entity);
+        entity.setUrl(dto.getData().getUrl());
+        entity.setMethod(dto.getData().getMethod());
+        entity.setStatusCode(dto.getData().getStatusCode());
+        entity.setMessage(dto.getData().getMessage());
+        entity.setDuration(dto.getData().getDuration());
+        entity.setErrorType(dto.getData().getErrorType());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private ResourcePerformanceEvent toResourcePerformanceEvent(String appKey, ResourcePerformanceEventDTO dto) {
+        ResourcePerformanceEvent entity = new ResourcePerformanceEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setUrl(dto.getData().getUrl());
+        entity.setResourceType(dto.getData().getResourceType());
+        entity.setDuration(dto.getData().getDuration());
+        entity.setTransferSize(dto.getData().getTransferSize());
+        entity.setEncodedBodySize(dto.getData().getEncodedBodySize());
+        entity.setDecodedBodySize(dto.getData().getDecodedBodySize());
+        entity.setCacheHit(dto.getData().getCacheHit());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
+    private UserActionEvent toUserActionEvent(String appKey, UserActionEventDTO dto) {
+        UserActionEvent entity = new UserActionEvent();
+        entity.setAppKey(appKey);
+        entity.setSessionId(dto.getSessionId());
+        entity.setUserId(dto.getUserId());
+        entity.setPageUrl(dto.getPageUrl());
+        entity.setActionType(dto.getData().getActionType());
+        entity.setTargetElement(dto.getData().getTargetElement());
+        entity.setTargetText(dto.getData().getTargetText());
+        entity.setTargetId(dto.getData().getTargetId());
+        entity.setTargetClass(dto.getData().getTargetClass());
+        entity.setXPath(dto.getData().getXPath());
+        entity.setValue(dto.getData().getValue());
+        entity.setEventTimestamp(convertTimestamp(dto.getTimestamp()));
+        return entity;
+    }
+
     /**
      * Helper to convert millisecond timestamp to LocalDateTime
      */
@@ -386,5 +722,25 @@ public class RUMEventServiceImpl implements RUMEventService {
                 ZoneId.systemDefault()
         );
     }
-}
 
+    /**
+     * How the events of one RumEvent type are stored: the entity they map to, what has to be
+     * stored before them (null if nothing) and the aggregates they feed once committed
+     */
+    private static final class EventHandler<D extends RumEvent, E extends BaseEntity & TrackedEvent> {
+        private final Class<D> eventType;
+        private final Class<E> entityType;
+        private final BiFunction<String, D, E> mapper;
+        private final Consumer<List<E>> beforeSave;
+        private final Consumer<List<E>> afterCommit;
+
+        private EventHandler(Class<D> eventType, Class<E> entityType, BiFunction<String, D, E> mapper,
+                             Consumer<List<E>> beforeSave, Consumer<List<E>> afterCommit) {
+            this.eventType = eventType;
+            this.entityType = entityType;
+            this.mapper = mapper;
+            this.beforeSave = beforeSave;
+            this.afterCommit = afterCommit;
+        }
+    }
+}
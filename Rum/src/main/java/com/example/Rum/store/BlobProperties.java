@@ -0,0 +1,35 @@
+package com.example.Rum.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+/**
+ * Content-addressed text storage settings (rum.blob.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.blob")
+public class BlobProperties {
+
+    /**
+     * Deflate blob content before storing it
+     */
+    private boolean compression = true;
+
+    /**
+     * Texts shorter than this (UTF-8 bytes) are stored uncompressed
+     */
+    private int compressionMinBytes = 256;
+
+    /**
+     * Hashes known to be stored, kept so ingest can skip the existence check; also the
+     * number of decoded texts cached for reads
+     */
+    private int cacheSize = 10_000;
+
+    /**
+     * Unreferenced blobs are deleted once they were neither stored nor reused by ingest for
+     * this long, which must cover the time from storing a blob to writing its events
+     */
+    private Duration unreferencedGrace = Duration.ofHours(1);
+}
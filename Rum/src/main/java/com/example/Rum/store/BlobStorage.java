@@ -0,0 +1,40 @@
+package com.example.Rum.store;
+
+import com.example.Rum.model.ContentBlob;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Where BlobStore keeps its blobs, selected with rum.store.engine so blobs live next to
+ * the events referencing them: content_blobs in the JPA datasource, or files beside the
+ * column store's directory.
+ */
+public interface BlobStorage {
+
+    /**
+     * The given hashes that are stored
+     */
+    Set<String> findExisting(Collection<String> hashes);
+
+    /**
+     * Store new blobs; they are durable (committed) when this returns
+     */
+    void insert(List<ContentBlob> blobs);
+
+    /**
+     * Blobs of the given hashes; unknown hashes are left out
+     */
+    List<ContentBlob> findAll(Collection<String> hashes);
+
+    /**
+     * Hashes of the blobs stored before the given time
+     */
+    List<String> findCreatedBefore(LocalDateTime time);
+
+    /**
+     * Remove blobs; unknown hashes are ignored
+     */
+    void delete(Collection<String> hashes);
+}
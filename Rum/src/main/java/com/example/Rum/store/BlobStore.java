@@ -0,0 +1,276 @@
+package com.example.Rum.store;
+
+import com.example.Rum.model.ContentBlob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Content-addressed storage for large, highly repetitive texts (stack traces, component
+ * stacks): each distinct text is stored once under a 22 character hash, optionally
+ * deflated, and events keep only the hash. The blobs themselves are kept by the
+ * BlobStorage of the configured event engine.
+ *
+ * Hashes known to be stored are kept in an LRU so the ingest path skips the existence check
+ * for texts it has seen recently; misses are checked and inserted on their own, durable
+ * before the events referencing them are written.
+ *
+ * Blobs no event references any more (their events expired, or were rolled back after the
+ * blob was stored) are removed by deleteUnreferenced, which retention runs after expiring
+ * error events.
+ */
+@Component
+@Slf4j
+public class BlobStore {
+
+    private static final int HASH_BYTES = 16;
+    private static final int DELETE_CHUNK = 1000;
+
+    private final BlobStorage storage;
+    private final BlobProperties properties;
+    // Hash to when it was last stored or reused (epoch millis), so a sweep spares blobs
+    // that events still being written may reference
+    private final Map<String, Long> stored;
+    private final Map<String, String> texts;
+    // One inserter or sweeper at a time: two batches carrying the same new text must not
+    // both insert it, and a sweep must not delete a blob while it is being stored
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guards both LRUs (access-ordered, so even reads mutate them); not a monitor, so waiting
+    // ingest threads do not pin virtual thread carriers
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    public BlobStore(BlobStorage storage, BlobProperties properties) {
+        this.storage = storage;
+        this.properties = properties;
+        this.stored = lru(properties.getCacheSize());
+        this.texts = lru(properties.getCacheSize());
+    }
+
+    /**
+     * Base64url of the first 128 bits of the SHA-256 of the UTF-8 text, or null for null
+     */
+    public static String hash(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, HASH_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Store the texts that are not stored yet
+     * @return the hash of each text, in order; null for null texts
+     */
+    public List<String> putAll(List<String> values) {
+        List<String> hashes = new ArrayList<>(values.size());
+        Map<String, String> missing = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        cacheLock.lock();
+        try {
+            for (String value : values) {
+                String hash = hash(value);
+                hashes.add(hash);
+                if (hash != null && stored.replace(hash, now) == null) {
+                    missing.put(hash, value);
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        if (!missing.isEmpty()) {
+            lock.lock();
+            try {
+                insert(missing);
+                cacheLock.lock();
+                try {
+                    missing.keySet().forEach(hash -> stored.put(hash, now));
+                } finally {
+                    cacheLock.unlock();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Texts of the given hashes; unknown and null hashes are left out
+     */
+    public Map<String, String> getAll(Collection<String> hashes) {
+        Map<String, String> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        cacheLock.lock();
+        try {
+            for (String hash : hashes) {
+                if (hash == null) {
+                    continue;
+                }
+                String text = texts.get(hash);
+                if (text != null) {
+                    found.put(hash, text);
+                } else if (!found.containsKey(hash)) {
+                    misses.add(hash);
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        for (ContentBlob blob : storage.findAll(misses)) {
+            found.put(blob.getHash(), decode(blob));
+        }
+        cacheLock.lock();
+        try {
+            misses.forEach(hash -> {
+                String text = found.get(hash);
+                if (text != null) {
+                    texts.put(hash, text);
+                }
+            });
+        } finally {
+            cacheLock.unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Delete the blobs stored longer than rum.blob.unreferenced-grace ago that no event
+     * references, and that were not reused by ingest within the grace period either
+     * (their events may not be visible to the referenced hashes yet)
+     * @param referencedHashes every hash events still hold, collected after the candidates
+     * @return number of blobs deleted
+     */
+    public int deleteUnreferenced(Supplier<Set<String>> referencedHashes) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getUnreferencedGrace());
+        long cutoffMillis = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<String> candidates = storage.findCreatedBefore(cutoff);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = referencedHashes.get();
+        lock.lock();
+        try {
+            List<String> unreferenced = new ArrayList<>();
+            cacheLock.lock();
+            try {
+                for (String hash : candidates) {
+                    Long lastStored = stored.get(hash);
+                    if (!referenced.contains(hash) && (lastStored == null || lastStored < cutoffMillis)) {
+                        unreferenced.add(hash);
+                        stored.remove(hash);
+                        texts.remove(hash);
+                    }
+                }
+            } finally {
+                cacheLock.unlock();
+            }
+            for (int i = 0; i < unreferenced.size(); i += DELETE_CHUNK) {
+                storage.delete(unreferenced.subList(i, Math.min(i + DELETE_CHUNK, unreferenced.size())));
+            }
+            return unreferenced.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void insert(Map<String, String> missing) {
+        List<ContentBlob> blobs = new ArrayList<>();
+        Set<String> existing = storage.findExisting(missing.keySet());
+        for (Map.Entry<String, String> entry : missing.entrySet()) {
+            if (!existing.contains(entry.getKey())) {
+                blobs.add(encode(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (!blobs.isEmpty()) {
+            storage.insert(blobs);
+            log.debug("Stored {} new blob(s)", blobs.size());
+        }
+    }
+
+    private ContentBlob encode(String hash, String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        ContentBlob blob = new ContentBlob();
+        blob.setHash(hash);
+        blob.setSize(raw.length);
+        blob.setContent(raw);
+        if (properties.isCompression() && raw.length >= properties.getCompressionMinBytes()) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                blob.setCompressed(true);
+                blob.setContent(deflated);
+            }
+        }
+        return blob;
+    }
+
+    private static String decode(ContentBlob blob) {
+        if (!blob.isCompressed()) {
+            return new String(blob.getContent(), StandardCharsets.UTF_8);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob.getContent());
+            byte[] raw = new byte[blob.getSize()];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+            return new String(raw, 0, length, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt blob " + blob.getHash(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static <V> Map<String, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
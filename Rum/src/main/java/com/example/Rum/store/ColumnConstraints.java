@@ -0,0 +1,90 @@
+package com.example.Rum.store;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Transient;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks an entity against the nullable and length constraints of its @Column mappings
+ * before it is written, so one invalid event is rejected on its own instead of failing
+ * the flush (and rolling back the transaction) of every event written with it.
+ *
+ * Only the entity's own fields are checked; BaseEntity's are set by the application.
+ * Dictionary-encoded strings are held to their @Column length too: the column stores an
+ * id, but the text goes into string_dictionary, whose entries are at most
+ * StringDictionary.MAX_LENGTH characters.
+ */
+public final class ColumnConstraints {
+
+    private static final ClassValue<List<Constraint>> CONSTRAINTS = new ClassValue<>() {
+        @Override
+        protected List<Constraint> computeValue(Class<?> type) {
+            return constraintsOf(type);
+        }
+    };
+
+    private ColumnConstraints() {
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the first field that violates its column's constraints
+     */
+    public static void check(Object entity) {
+        for (Constraint constraint : CONSTRAINTS.get(entity.getClass())) {
+            Object value;
+            try {
+                value = constraint.field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value == null) {
+                if (!constraint.nullable) {
+                    throw new IllegalArgumentException(constraint.field.getName() + " is required");
+                }
+            } else if (constraint.maxLength > 0 && ((String) value).length() > constraint.maxLength) {
+                throw new IllegalArgumentException(constraint.field.getName() + " is longer than "
+                        + constraint.maxLength + " characters");
+            }
+        }
+    }
+
+    private static List<Constraint> constraintsOf(Class<?> type) {
+        List<Constraint> constraints = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            if (column == null || Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                    || field.isAnnotationPresent(Transient.class)) {
+                continue;
+            }
+            boolean limited = field.getType() == String.class && !field.isAnnotationPresent(Lob.class);
+            int maxLength = column.length();
+            Convert convert = field.getAnnotation(Convert.class);
+            if (convert != null && convert.converter() == DictionaryConverter.class && maxLength > StringDictionary.MAX_LENGTH) {
+                throw new IllegalStateException(type.getSimpleName() + "." + field.getName()
+                        + " is longer than a dictionary entry can be");
+            }
+            if (!column.nullable() || limited) {
+                field.setAccessible(true);
+                constraints.add(new Constraint(field, column.nullable(), limited ? maxLength : 0));
+            }
+        }
+        return List.copyOf(constraints);
+    }
+
+    private static final class Constraint {
+        private final Field field;
+        private final boolean nullable;
+        private final int maxLength;
+
+        private Constraint(Field field, boolean nullable, int maxLength) {
+            this.field = field;
+            this.nullable = nullable;
+            this.maxLength = maxLength;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.Rum.store;
+
+import org.springframework.beans.BeanUtils;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapping of a stored event type onto a response DTO: the DTO properties that are also
+ * attributes of the stored type, in DTO declaration order, with their setters. The target
+ * may also be the entity class itself, whose inherited BaseEntity properties are included.
+ *
+ * Projected rows are Object arrays of [id, eventTimestamp, column values...]; id and
+ * eventTimestamp are always present since results are ordered, and keyset cursors built, on them.
+ */
+public final class DtoProjection<D> {
+
+    public static final String ID = "id";
+    public static final String EVENT_TIMESTAMP = "eventTimestamp";
+
+    private final Class<D> dtoClass;
+    private final Constructor<D> constructor;
+    private final Map<String, Method> setters = new LinkedHashMap<>();
+    private final List<String> allColumns;
+
+    public DtoProjection(Class<D> dtoClass, Set<String> sourceAttributes) {
+        this.dtoClass = dtoClass;
+        this.constructor = BeanUtils.getResolvableConstructor(dtoClass);
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = dtoClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                PropertyDescriptor property = BeanUtils.getPropertyDescriptor(dtoClass, field.getName());
+                if (property != null && property.getWriteMethod() != null && sourceAttributes.contains(field.getName())) {
+                    setters.put(field.getName(), property.getWriteMethod());
+                }
+            }
+        }
+        List<String> columns = new ArrayList<>(setters.keySet());
+        columns.remove(ID);
+        columns.remove(EVENT_TIMESTAMP);
+        this.allColumns = List.copyOf(columns);
+    }
+
+    /**
+     * Columns to read besides id and eventTimestamp
+     * @param fields requested DTO properties; null or empty selects all of them
+     * @throws IllegalArgumentException for a field the DTO does not expose
+     */
+    public List<String> resolve(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return allColumns;
+        }
+        List<String> columns = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            String name = field.trim();
+            if (!setters.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of " + setters.keySet());
+            }
+            if (!name.equals(ID) && !name.equals(EVENT_TIMESTAMP) && !columns.contains(name)) {
+                columns.add(name);
+            }
+        }
+        return columns;
+    }
+
+    public D toDto(List<String> columns, Object[] row) {
+        D dto = BeanUtils.instantiateClass(constructor);
+        set(dto, ID, row[0]);
+        set(dto, EVENT_TIMESTAMP, row[1]);
+        for (int i = 0; i < columns.size(); i++) {
+            set(dto, columns.get(i), row[i + 2]);
+        }
+        return dto;
+    }
+
+    private void set(D dto, String property, Object value) {
+        try {
+            setters.get(property).invoke(dto, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + dtoClass.getSimpleName() + "." + property, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Rum.store;
+
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.TrackedEvent;
+import com.example.Rum.repository.KeysetCursor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine for raw RUM events, selected with rum.store.engine.
+ *
+ * Every read is for one application (appKey) and never returns events of another.
+ * Reads project straight into response DTOs: fields names the DTO properties to populate
+ * (null or empty for all of them); id and eventTimestamp are always populated.
+ * Range reads take filters, attribute names mapped to the value every returned event must
+ * have (empty for no filtering), e.g. {browser=Firefox, deviceType=mobile}.
+ * Unknown fields and filter attributes are rejected with IllegalArgumentException.
+ */
+public interface EventStore {
+
+    /**
+     * Persist one event, assigning its id
+     */
+    <E extends BaseEntity & TrackedEvent> E save(Class<E> type, E event);
+
+    /**
+     * Persist events of one type, assigning their ids
+     */
+    <E extends BaseEntity & TrackedEvent> List<E> saveAll(Class<E> type, List<E> events);
+
+    /**
+     * All events of a time range, ordered by (eventTimestamp, id)
+     * @param newestFirst reverse the order
+     */
+    <D> List<D> findByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                Set<String> fields, boolean newestFirst);
+
+    /**
+     * Keyset page of a time range ordered by (eventTimestamp, id), starting after the cursor position
+     */
+    <D> KeysetPage<D> findPageByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                          LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                          KeysetCursor after, int limit, Set<String> fields);
+
+    /**
+     * Hand every event of a time range to the consumer in (eventTimestamp, id) order,
+     * without holding the whole range in memory
+     */
+    <D> void streamByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                               LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                               Set<String> fields, Consumer<D> consumer);
+
+    /**
+     * All events of one session, ordered by (eventTimestamp, id)
+     */
+    <D> List<D> findBySessionId(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                String sessionId, Set<String> fields);
+
+    /**
+     * Count, sum, min and max of a numeric attribute over a time range (nulls ignored)
+     * @throws IllegalArgumentException if the attribute does not exist or is not numeric
+     */
+    DoubleSummaryStatistics summarizeByTimeRange(Class<? extends BaseEntity> type, String appKey, String attribute,
+                                                 LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Remove all events of the days before firstKeptDay (UTC), of every application
+     * @return number of events removed
+     */
+    long deleteBefore(Class<? extends BaseEntity> type, LocalDate firstKeptDay);
+
+    /**
+     * Make every event saved so far durable. Engines that persist on save (JPA commits
+     * with the caller's transaction) have nothing to do.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.Rum.store;
+
+import com.example.Rum.model.ContentBlob;
+import com.example.Rum.repository.ContentBlobRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Blobs in the content_blobs table of the JPA datasource, for the jpa event engine
+ */
+@Component
+@ConditionalOnProperty(prefix = "rum.store", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaBlobStorage implements BlobStorage {
+
+    private final ContentBlobRepository contentBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaBlobStorage(ContentBlobRepository contentBlobRepository, PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Commits on its own so a blob is visible before any event referencing it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> hashes) {
+        return Set.copyOf(contentBlobRepository.findExistingHashes(hashes));
+    }
+
+    @Override
+    public void insert(List<ContentBlob> blobs) {
+        transactionTemplate.executeWithoutResult(status -> contentBlobRepository.saveAll(blobs));
+    }
+
+    @Override
+    public List<ContentBlob> findAll(Collection<String> hashes) {
+        return contentBlobRepository.findAllById(Set.copyOf(hashes));
+    }
+
+    @Override
+    public List<String> findCreatedBefore(LocalDateTime time) {
+        return contentBlobRepository.findHashesCreatedBefore(time);
+    }
+
+    @Override
+    public void delete(Collection<String> hashes) {
+        transactionTemplate.executeWithoutResult(status -> contentBlobRepository.deleteAllByIdInBatch(hashes));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.Rum.store;
+
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.model.*;
+import com.example.Rum.repository.*;
+import com.example.Rum.tenancy.AppRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Event store on the Spring Data repositories: writes go through saveAll (JDBC batched),
+ * reads through the scalar projections of EventProjectionRepository.
+ *
+ * H2 has no declarative table partitioning, so expired days are removed with a bulk
+ * DELETE on (appKey, eventTimestamp) per type and application rather than by dropping
+ * partitions; the per-application statements each stay within one range of the
+ * appKey-led indexes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rum.store", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaEventStore implements EventStore {
+
+    private final Map<Class<?>, JpaRepository<?, Long>> repositories;
+    private final EventProjectionRepository projectionRepository;
+    private final EntityManager entityManager;
+    private final AppRegistry appRegistry;
+    private final StringDictionary dictionary;
+
+    public JpaEventStore(WebVitalEventRepository webVitalRepository,
+                         ErrorEventRepository errorEventRepository,
+                         PageViewEventRepository pageViewRepository,
+                         PageSpeedEventRepository pageSpeedRepository,
+                         EngagementEventRepository engagementRepository,
+                         NetworkErrorEventRepository networkErrorRepository,
+                         ResourcePerformanceEventRepository resourceRepository,
+                         UserActionEventRepository userActionRepository,
+                         EventProjectionRepository projectionRepository,
+                         EntityManager entityManager,
+                         AppRegistry appRegistry,
+                         StringDictionary dictionary) {
+        this.repositories = Map.of(
+                WebVitalEvent.class, webVitalRepository,
+                ErrorEvent.class, errorEventRepository,
+                PageViewEvent.class, pageViewRepository,
+                PageSpeedEvent.class, pageSpeedRepository,
+                EngagementEvent.class, engagementRepository,
+                NetworkErrorEvent.class, networkErrorRepository,
+                ResourcePerformanceEvent.class, resourceRepository,
+                UserActionEvent.class, userActionRepository
+        );
+        this.projectionRepository = projectionRepository;
+        this.entityManager = entityManager;
+        this.appRegistry = appRegistry;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public <E extends BaseEntity & TrackedEvent> E save(Class<E> type, E event) {
+        dictionary.encodeFields(event);
+        return repository(type).save(event);
+    }
+
+    @Override
+    public <E extends BaseEntity & TrackedEvent> List<E> saveAll(Class<E> type, List<E> events) {
+        for (E event : events) {
+            dictionary.encodeFields(event);
+        }
+        return repository(type).saveAll(events);
+    }
+
+    @Override
+    public <D> List<D> findByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                       LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                       Set<String> fields, boolean newestFirst) {
+        return projectionRepository.findByTimeRange(type, dtoClass, appKey, start, end, filters, fields, newestFirst);
+    }
+
+    @Override
+    public <D> KeysetPage<D> findPageByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                                 LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                                 KeysetCursor after, int limit, Set<String> fields) {
+        return projectionRepository.findPageByTimeRange(type, dtoClass, appKey, start, end, filters, after, limit, fields);
+    }
+
+    /**
+     * Joins the caller's transaction, or runs in a read-only one of its own: the rows are
+     * read from an open result set while the consumer runs
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public <D> void streamByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                      LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                      Set<String> fields, Consumer<D> consumer) {
+        projectionRepository.streamByTimeRange(type, dtoClass, appKey, start, end, filters, fields, consumer);
+    }
+
+    @Override
+    public <D> List<D> findBySessionId(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                       String sessionId, Set<String> fields) {
+        return projectionRepository.findBySessionId(type, dtoClass, appKey, sessionId, fields);
+    }
+
+    @Override
+    public DoubleSummaryStatistics summarizeByTimeRange(Class<? extends BaseEntity> type, String appKey, String attribute,
+                                                        LocalDateTime start, LocalDateTime end) {
+        return projectionRepository.summarizeByTimeRange(type, appKey, attribute, start, end);
+    }
+
+    @Override
+    @Transactional
+    public long deleteBefore(Class<? extends BaseEntity> type, LocalDate firstKeptDay) {
+        repository(type);
+        long removed = 0;
+        for (String appKey : appRegistry.appKeys()) {
+            removed += entityManager.createQuery("DELETE FROM " + type.getSimpleName()
+                            + " e WHERE e.appKey = :appKey AND e.eventTimestamp < :cutoff")
+                    .setParameter("appKey", appKey)
+                    .setParameter("cutoff", firstKeptDay.atStartOfDay())
+                    .executeUpdate();
+        }
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> JpaRepository<E, Long> repository(Class<E> type) {
+        JpaRepository<?, Long> repository = repositories.get(type);
+        if (repository == null) {
+            throw new IllegalArgumentException("No repository for " + type.getSimpleName());
+        }
+        return (JpaRepository<E, Long>) repository;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Rum.store;
+
+import com.example.Rum.dto.response.ErrorEventResponseDTO;
+import com.example.Rum.model.*;
+import com.example.Rum.tenancy.AppRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically removes raw events older than their type's retention.
+ *
+ * Expiry is by whole UTC days, matching the day partitions of the column store: a type
+ * kept for 30 days keeps today plus the 30 days before it, and everything older goes
+ * as complete partitions instead of row by row.
+ *
+ * Once error events were removed, the blobs (stack traces, component stacks) no remaining
+ * error event references are deleted from the BlobStore as well.
+ */
+@Component
+@Slf4j
+public class RetentionJob {
+
+    private static final Map<String, Class<? extends BaseEntity>> EVENT_TYPES = new LinkedHashMap<>();
+
+    static {
+        EVENT_TYPES.put("webVital", WebVitalEvent.class);
+        EVENT_TYPES.put("error", ErrorEvent.class);
+        EVENT_TYPES.put("pageView", PageViewEvent.class);
+        EVENT_TYPES.put("pageSpeed", PageSpeedEvent.class);
+        EVENT_TYPES.put("engagement", EngagementEvent.class);
+        EVENT_TYPES.put("networkError", NetworkErrorEvent.class);
+        EVENT_TYPES.put("resourcePerformance", ResourcePerformanceEvent.class);
+        EVENT_TYPES.put("userAction", UserActionEvent.class);
+    }
+
+    private static final Set<String> BLOB_HASHES = Set.of("stackHash", "componentStackHash");
+    // Bounds of "all time" that every engine can represent
+    private static final LocalDateTime FIRST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LAST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final RetentionProperties properties;
+    private final EventStore eventStore;
+    private final BlobStore blobStore;
+    private final AppRegistry appRegistry;
+
+    public RetentionJob(RetentionProperties properties, EventStore eventStore, BlobStore blobStore, AppRegistry appRegistry) {
+        this.properties = properties;
+        this.eventStore = eventStore;
+        this.blobStore = blobStore;
+        this.appRegistry = appRegistry;
+    }
+
+    @PostConstruct
+    public void validate() {
+        for (String type : properties.getTypes().keySet()) {
+            if (!EVENT_TYPES.containsKey(type)) {
+                throw new IllegalArgumentException("Unknown event type '" + type + "' in rum.retention.types, expected one of "
+                        + EVENT_TYPES.keySet());
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${rum.retention.check-interval-ms:3600000}",
+            fixedDelayString = "${rum.retention.check-interval-ms:3600000}")
+    public void run() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        boolean errorsRemoved = false;
+        for (Map.Entry<String, Class<? extends BaseEntity>> type : EVENT_TYPES.entrySet()) {
+            Duration retention = properties.getTypes().getOrDefault(type.getKey(), properties.getDefaultRetention());
+            LocalDate firstKeptDay = today.minusDays(retention.toDays());
+            try {
+                long removed = eventStore.deleteBefore(type.getValue(), firstKeptDay);
+                if (removed > 0) {
+                    log.info("Retention removed {} {} events before {}", removed, type.getKey(), firstKeptDay);
+                    errorsRemoved |= type.getValue() == ErrorEvent.class;
+                }
+            } catch (RuntimeException e) {
+                log.error("Retention failed for {} events", type.getKey(), e);
+            }
+        }
+        if (errorsRemoved) {
+            try {
+                int deleted = blobStore.deleteUnreferenced(this::referencedBlobs);
+                if (deleted > 0) {
+                    log.info("Retention deleted {} unreferenced blob(s)", deleted);
+                }
+            } catch (RuntimeException e) {
+                log.error("Retention failed for blobs", e);
+            }
+        }
+    }
+
+    /**
+     * Blob hashes held by the error events of every application
+     */
+    private Set<String> referencedBlobs() {
+        Set<String> hashes = new HashSet<>();
+        for (String appKey : appRegistry.appKeys()) {
+            eventStore.streamByTimeRange(ErrorEvent.class, ErrorEventResponseDTO.class, appKey,
+                    FIRST, LAST, Map.of(), BLOB_HASHES, error -> {
+                        hashes.add(error.getStackHash());
+                        hashes.add(error.getComponentStackHash());
+                    });
+        }
+        hashes.remove(null);
+        return hashes;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.Rum.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Raw event retention settings (rum.retention.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.retention")
+public class RetentionProperties {
+
+    /**
+     * When false, raw events are kept forever
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long raw events are kept when their type has no entry in types; rounded down to whole days
+     */
+    private Duration defaultRetention = Duration.ofDays(30);
+
+    /**
+     * Retention per SDK event type (webVital, error, pageView, pageSpeed, engagement,
+     * networkError, resourcePerformance, userAction), e.g. rum.retention.types.error=90d
+     */
+    private Map<String, Duration> types = new HashMap<>();
+
+    /**
+     * Interval between retention runs
+     */
+    private long checkIntervalMs = 3_600_000;
+}
@@ -0,0 +1,56 @@
+package com.example.Rum.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Raw event storage settings (rum.store.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.store")
+public class StoreProperties {
+
+    /**
+     * Storage engine: "jpa" (Spring Data repositories on the configured datasource)
+     * or "columnar" (embedded append-only column store on local disk)
+     */
+    private String engine = "jpa";
+
+    private Columnar columnar = new Columnar();
+
+    private Dictionary dictionary = new Dictionary();
+
+    @Data
+    public static class Columnar {
+
+        /**
+         * Root directory; one sub-directory per app, per event type below it, then per day
+         */
+        private String directory = "data/events";
+
+        /**
+         * Buffered rows across all partitions of a type that trigger writing segments
+         */
+        private int segmentRows = 65536;
+
+        /**
+         * Interval at which buffered rows are written to segments even below segmentRows
+         */
+        private long flushIntervalMs = 5000;
+
+        /**
+         * Directory of the stack traces and component stacks of error events (see BlobStore),
+         * one file per distinct text
+         */
+        private String blobDirectory = "data/blobs";
+    }
+
+    @Data
+    public static class Dictionary {
+
+        /**
+         * Dictionary entries cached in each direction (value to id, id to value)
+         */
+        private int cacheSize = 100_000;
+    }
+}
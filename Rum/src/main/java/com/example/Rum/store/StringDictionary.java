@@ -0,0 +1,205 @@
+package com.example.Rum.store;
+
+import jakarta.persistence.Convert;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Two-way mapping between long, repetitive strings (URLs, user agents, selectors) and
+ * compact int ids, backed by the string_dictionary table and used by DictionaryConverter.
+ *
+ * Both directions are cached in concurrent maps bounded at rum.store.dictionary.cache-size;
+ * when a map is full an arbitrary entry is evicted, which costs one indexed lookup the next
+ * time it is needed. New strings are inserted in a transaction of their own so an id handed
+ * out is never rolled back with the event that first carried it. Entries are never deleted:
+ * ids stay valid for every row that was written with them.
+ *
+ * Only writes add entries: JpaEventStore calls encodeFields before saving, and the converter
+ * itself only looks strings up, so a query parameter never seen in an event (a pageUrl
+ * filter, say) maps to UNKNOWN_ID and matches no row instead of growing the table.
+ */
+@Component
+@Slf4j
+public class StringDictionary {
+
+    /**
+     * Longest string an entry holds; the @Column length of every encoded field is at most this
+     */
+    public static final int MAX_LENGTH = 2000;
+
+    /**
+     * Id of strings that are not in the dictionary; no entry has it
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    private static final ClassValue<List<Field>> ENCODED_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            return encodedFieldsOf(type);
+        }
+    };
+
+    private static final String TABLE = "\"string_dictionary\"";
+    private static final String SELECT_ID = "SELECT \"id\" FROM " + TABLE + " WHERE \"text\" = ?";
+    private static final String SELECT_TEXT = "SELECT \"text\" FROM " + TABLE + " WHERE \"id\" = ?";
+    private static final String INSERT = "INSERT INTO " + TABLE + " (\"text\") VALUES (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int cacheSize;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> texts = new ConcurrentHashMap<>();
+    // One inserter at a time, so a new string gets exactly one id
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public StringDictionary(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            StoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Called while the event transaction flushes, so it needs a transaction of its own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheSize = properties.getDictionary().getCacheSize();
+    }
+
+    /**
+     * Add the dictionary-encoded fields of an entity about to be saved, so that the converter
+     * finds them when the entity is flushed
+     */
+    public void encodeFields(Object entity) {
+        for (Field field : ENCODED_FIELDS.get(entity.getClass())) {
+            Object value;
+            try {
+                value = field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value != null) {
+                encode((String) value);
+            }
+        }
+    }
+
+    /**
+     * Id of the string, adding it to the dictionary on first sight
+     * @throws IllegalArgumentException if the string is longer than MAX_LENGTH
+     */
+    public int encode(String text) {
+        if (text.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Dictionary strings are limited to " + MAX_LENGTH + " characters");
+        }
+        Integer id = lookup(text);
+        if (id != null) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = transactionTemplate.execute(status -> {
+                Integer existing = find(text);
+                return existing != null ? existing : insert(text);
+            });
+        } catch (DuplicateKeyException e) {
+            // Inserted by another instance sharing the database
+            id = find(text);
+        } finally {
+            lock.unlock();
+        }
+        cache(id, text);
+        return id;
+    }
+
+    /**
+     * Id of the string if it is in the dictionary, else null; never adds it
+     */
+    public Integer lookup(String text) {
+        Integer id = ids.get(text);
+        if (id != null) {
+            return id;
+        }
+        id = find(text);
+        if (id != null) {
+            cache(id, text);
+        }
+        return id;
+    }
+
+    /**
+     * String of the id
+     * @throws IllegalStateException if no such entry exists
+     */
+    public String decode(int id) {
+        String text = texts.get(id);
+        if (text != null) {
+            return text;
+        }
+        List<String> found = jdbcTemplate.queryForList(SELECT_TEXT, String.class, id);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No dictionary entry " + id);
+        }
+        text = found.get(0);
+        cache(id, text);
+        return text;
+    }
+
+    private Integer find(String text) {
+        List<Integer> found = jdbcTemplate.queryForList(SELECT_ID, Integer.class, text);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private int insert(String text) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"});
+            statement.setString(1, text);
+            return statement;
+        }, keyHolder);
+        int id = keyHolder.getKey().intValue();
+        log.debug("Added dictionary entry {}", id);
+        return id;
+    }
+
+    private void cache(int id, String text) {
+        evictIfFull(ids);
+        evictIfFull(texts);
+        ids.put(text, id);
+        texts.put(id, text);
+    }
+
+    private static List<Field> encodedFieldsOf(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            Convert convert = field.getAnnotation(Convert.class);
+            if (convert != null && convert.converter() == DictionaryConverter.class
+                    && !Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return List.copyOf(fields);
+    }
+
+    private void evictIfFull(Map<?, ?> map) {
+        if (map.size() >= cacheSize) {
+            Iterator<?> iterator = map.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.Rum.store.columnar;
+
+import java.util.BitSet;
+
+/**
+ * One decoded column of a segment; values are dense arrays indexed by row
+ */
+abstract class Column {
+
+    private final BitSet nulls;
+
+    Column(BitSet nulls) {
+        this.nulls = nulls;
+    }
+
+    boolean isNull(int row) {
+        return nulls != null && nulls.get(row);
+    }
+
+    /**
+     * Boxed value of a row, or null
+     */
+    abstract Object get(int row);
+
+    /**
+     * Column of a type that predates this attribute: every row is null
+     */
+    static Column missing(int rowCount) {
+        return new Strings(new int[rowCount], new String[0]);
+    }
+
+    static final class Longs extends Column {
+
+        final long[] values;
+        private final boolean timestamp;
+
+        Longs(long[] values, BitSet nulls, boolean timestamp) {
+            super(nulls);
+            this.values = values;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return timestamp ? ColumnCodec.fromMicros(values[row]) : Long.valueOf(values[row]);
+        }
+    }
+
+    static final class Ints extends Column {
+
+        final int[] values;
+
+        Ints(int[] values, BitSet nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : Integer.valueOf(values[row]);
+        }
+    }
+
+    static final class Doubles extends Column {
+
+        final double[] values;
+
+        Doubles(double[] values, BitSet nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : Double.valueOf(values[row]);
+        }
+    }
+
+    static final class Booleans extends Column {
+
+        private final BitSet values;
+
+        Booleans(BitSet values, BitSet nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : Boolean.valueOf(values.get(row));
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings: code 0 is null, code k is dictionary[k - 1]
+     */
+    static class Strings extends Column {
+
+        final int[] codes;
+        private final String[] dictionary;
+
+        Strings(int[] codes, String[] dictionary) {
+            super(null);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return codes[row] == 0;
+        }
+
+        @Override
+        Object get(int row) {
+            int code = codes[row];
+            return code == 0 ? null : dictionary[code - 1];
+        }
+
+        /**
+         * Code of a value in this segment's dictionary, or -1 if no row holds it
+         */
+        int codeOf(String value) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.Rum.store.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Integer and floating-point encodings used by segment columns
+ */
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Delta + zigzag varint encoding; sorted or slowly changing values (ids, timestamps)
+     * take one or two bytes each
+     */
+    static void writeDeltas(ByteArrayOutputStream out, long[] values, int count) {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarLong(out, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    static long[] readDeltas(ByteBuffer in, int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += unzigzag(readVarLong(in));
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Gorilla XOR compression (Pelkonen et al., VLDB 2015): each value is XORed with its
+     * predecessor and only the meaningful bits are written, so repeated values cost one bit
+     */
+    static void writeDoubles(ByteArrayOutputStream out, double[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        BitWriter writer = new BitWriter(out);
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                writer.write(0, 1);
+                continue;
+            }
+            writer.write(1, 1);
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Meaningful bits fit in the previous window
+                writer.write(0, 1);
+                writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writer.write(1, 1);
+                writer.write(leading, 5);
+                writer.write(significant == 64 ? 0 : significant, 6);
+                writer.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        writer.flush();
+    }
+
+    static double[] readDoubles(ByteBuffer in, int count) {
+        double[] values = new double[count];
+        if (count == 0) {
+            return values;
+        }
+        BitReader reader = new BitReader(in);
+        long previous = reader.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(5);
+                    int significant = (int) reader.read(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    /**
+     * MSB-first bit packer
+     */
+    private static final class BitWriter {
+
+        private final ByteArrayOutputStream out;
+        private int current;
+        private int used;
+
+        BitWriter(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        void write(long value, int bits) {
+            while (bits > 0) {
+                int take = Math.min(bits, 8 - used);
+                int chunk = (int) (value >>> (bits - take)) & ((1 << take) - 1);
+                current = (current << take) | chunk;
+                used += take;
+                bits -= take;
+                if (used == 8) {
+                    out.write(current);
+                    current = 0;
+                    used = 0;
+                }
+            }
+        }
+
+        void flush() {
+            if (used > 0) {
+                out.write(current << (8 - used));
+                current = 0;
+                used = 0;
+            }
+        }
+    }
+
+    private static final class BitReader {
+
+        private final ByteBuffer in;
+        private int current;
+        private int available;
+
+        BitReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            while (bits > 0) {
+                if (available == 0) {
+                    current = in.get() & 0xFF;
+                    available = 8;
+                }
+                int take = Math.min(bits, available);
+                value = (value << take) | ((current >>> (available - take)) & ((1 << take) - 1));
+                available -= take;
+                bits -= take;
+            }
+            return value;
+        }
+    }
+}
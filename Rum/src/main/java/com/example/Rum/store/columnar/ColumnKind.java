@@ -0,0 +1,59 @@
+package com.example.Rum.store.columnar;
+
+import java.time.LocalDateTime;
+
+/**
+ * Physical encoding of a column in a segment file
+ */
+enum ColumnKind {
+
+    /** Delta + zigzag varint */
+    LONG(1),
+    /** Epoch microseconds (UTC-normalised LocalDateTime), delta + zigzag varint */
+    TIMESTAMP(2),
+    /** Zigzag varint */
+    INT(3),
+    /** Gorilla XOR compression */
+    DOUBLE(4),
+    /** Per-segment dictionary + varint codes */
+    STRING(5),
+    /** Bitmap */
+    BOOLEAN(6);
+
+    final int code;
+
+    ColumnKind(int code) {
+        this.code = code;
+    }
+
+    static ColumnKind of(int code) {
+        for (ColumnKind kind : values()) {
+            if (kind.code == code) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column kind " + code);
+    }
+
+    static ColumnKind forJavaType(Class<?> javaType) {
+        if (javaType == Long.class) {
+            return LONG;
+        }
+        if (javaType == LocalDateTime.class) {
+            return TIMESTAMP;
+        }
+        if (javaType == Integer.class) {
+            return INT;
+        }
+        if (javaType == Double.class) {
+            return DOUBLE;
+        }
+        if (javaType == String.class) {
+            return STRING;
+        }
+        if (javaType == Boolean.class) {
+            return BOOLEAN;
+        }
+        return null;
+    }
+}
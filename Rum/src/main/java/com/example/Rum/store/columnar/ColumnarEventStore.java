@@ -0,0 +1,351 @@
+package com.example.Rum.store.columnar;
+
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.model.*;
+import com.example.Rum.repository.KeysetCursor;
+import com.example.Rum.store.DtoProjection;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.store.StoreProperties;
+import com.example.Rum.tenancy.AppRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Embedded, append-only column store on local disk (rum.store.engine=columnar).
+ *
+ * Each application has a directory holding one table directory per event type,
+ * partitioned by day (directory/appKey/Type/day), so a query only ever opens the files of
+ * the application it is for; a partition is a set of
+ * immutable memory-mapped segment files with delta-varint ids and timestamps,
+ * Gorilla-compressed doubles and dictionary-encoded strings. Queries prune partitions
+ * and segments on eventTimestamp and decode only the columns they project, so range
+ * aggregations run over a few primitive arrays instead of materialised rows.
+ *
+ * Appended rows are buffered in memory until their segment is written (segmentRows or
+ * flushIntervalMs) and flushed on shutdown. Requests are acknowledged before that, so a
+ * crash loses up to flushIntervalMs of acknowledged events unless the write-ahead log
+ * (rum.wal.enabled) is on: its records are only checkpointed once flush() has sealed them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rum.store", name = "engine", havingValue = "columnar")
+@Slf4j
+public class ColumnarEventStore implements EventStore {
+
+    // Table directory name to event type, for opening the tables found on disk
+    private static final Map<String, Class<? extends BaseEntity>> EVENT_TYPES = new HashMap<>();
+
+    static {
+        for (Class<? extends BaseEntity> type : List.of(WebVitalEvent.class, ErrorEvent.class, PageViewEvent.class,
+                PageSpeedEvent.class, EngagementEvent.class, NetworkErrorEvent.class,
+                ResourcePerformanceEvent.class, UserActionEvent.class)) {
+            EVENT_TYPES.put(type.getSimpleName(), type);
+        }
+    }
+
+    private final StoreProperties.Columnar properties;
+    private final AppRegistry appRegistry;
+    private final Path directory;
+    private final Map<TableKey, EventTable<?>> tables = new ConcurrentHashMap<>();
+    private final Map<Class<?>, AtomicLong> ids = new ConcurrentHashMap<>();
+    private final Map<Class<?>, DtoProjection<?>> projections = new ConcurrentHashMap<>();
+    private Thread flusher;
+    private volatile boolean running;
+
+    public ColumnarEventStore(StoreProperties properties, AppRegistry appRegistry) {
+        this.properties = properties.getColumnar();
+        this.appRegistry = appRegistry;
+        this.directory = Path.of(this.properties.getDirectory()).toAbsolutePath();
+    }
+
+    @PostConstruct
+    public void start() {
+        openAll();
+        running = true;
+        flusher = new Thread(this::flushLoop, "rum-store-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Columnar event store at {}", directory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Seal all buffered rows into segments
+     */
+    @Override
+    public void flush() {
+        for (EventTable<?> table : tables.values()) {
+            table.flush();
+        }
+    }
+
+    @Override
+    public <E extends BaseEntity & TrackedEvent> E save(Class<E> type, E event) {
+        table(type, event.getAppKey()).append(List.of(event));
+        return event;
+    }
+
+    @Override
+    public <E extends BaseEntity & TrackedEvent> List<E> saveAll(Class<E> type, List<E> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
+        table(type, events.get(0).getAppKey()).append(events);
+        return events;
+    }
+
+    @Override
+    public <D> List<D> findByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                       LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                       Set<String> fields, boolean newestFirst) {
+        DtoProjection<D> projection = projection(type, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        List<D> results = new ArrayList<>();
+        EventTable<?> table = existingTable(type, appKey);
+        if (table == null) {
+            return results;
+        }
+        table.scan(ColumnCodec.toMicros(start), Long.MIN_VALUE, ColumnCodec.toMicros(end), filters, columns, Integer.MAX_VALUE,
+                row -> results.add(projection.toDto(columns, row)));
+        if (newestFirst) {
+            Collections.reverse(results);
+        }
+        return results;
+    }
+
+    @Override
+    public <D> KeysetPage<D> findPageByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                                 LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                                 KeysetCursor after, int limit, Set<String> fields) {
+        DtoProjection<D> projection = projection(type, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        List<Object[]> rows = new ArrayList<>(limit + 1);
+        EventTable<?> table = existingTable(type, appKey);
+        if (table == null) {
+            return new KeysetPage<>(List.of(), null);
+        }
+        long afterMicros = ColumnCodec.toMicros(after.getAfterTime());
+        long afterId = after.getAfterId();
+        if (afterMicros < ColumnCodec.toMicros(start)) {
+            afterMicros = ColumnCodec.toMicros(start);
+            afterId = Long.MIN_VALUE;
+        }
+        table.scan(afterMicros, afterId, ColumnCodec.toMicros(end),
+                filters, columns, limit + 1, row -> {
+                    rows.add(row);
+                    return rows.size() <= limit;
+                });
+        List<D> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            items.add(projection.toDto(columns, rows.get(i)));
+        }
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            Object[] last = rows.get(limit - 1);
+            nextCursor = KeysetCursor.encode((LocalDateTime) last[1], (Long) last[0]);
+        }
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    @Override
+    public <D> void streamByTimeRange(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                      LocalDateTime start, LocalDateTime end, Map<String, String> filters,
+                                      Set<String> fields, Consumer<D> consumer) {
+        DtoProjection<D> projection = projection(type, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        EventTable<?> table = existingTable(type, appKey);
+        if (table == null) {
+            return;
+        }
+        table.scan(ColumnCodec.toMicros(start), Long.MIN_VALUE, ColumnCodec.toMicros(end), filters, columns, Integer.MAX_VALUE,
+                row -> {
+                    consumer.accept(projection.toDto(columns, row));
+                    return true;
+                });
+    }
+
+    @Override
+    public <D> List<D> findBySessionId(Class<? extends BaseEntity> type, Class<D> dtoClass, String appKey,
+                                       String sessionId, Set<String> fields) {
+        DtoProjection<D> projection = projection(type, dtoClass);
+        List<String> columns = projection.resolve(fields);
+        List<D> results = new ArrayList<>();
+        EventTable<?> table = existingTable(type, appKey);
+        if (sessionId == null || table == null) {
+            return results;
+        }
+        table.scan(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Map.of("sessionId", sessionId), columns, Integer.MAX_VALUE,
+                row -> results.add(projection.toDto(columns, row)));
+        return results;
+    }
+
+    @Override
+    public DoubleSummaryStatistics summarizeByTimeRange(Class<? extends BaseEntity> type, String appKey, String attribute,
+                                                        LocalDateTime start, LocalDateTime end) {
+        EventTable<?> table = existingTable(type, appKey);
+        if (table == null) {
+            EventSchema.of(type).numericColumn(attribute);
+            return new DoubleSummaryStatistics();
+        }
+        return table.summarize(attribute, ColumnCodec.toMicros(start), ColumnCodec.toMicros(end));
+    }
+
+    /**
+     * Drops the expired day partitions of every application as whole directories
+     */
+    @Override
+    public long deleteBefore(Class<? extends BaseEntity> type, LocalDate firstKeptDay) {
+        eventType(type);
+        openAll();
+        long rows = 0;
+        for (Map.Entry<TableKey, EventTable<?>> table : tables.entrySet()) {
+            if (table.getKey().type == type) {
+                rows += table.getValue().dropBefore(firstKeptDay);
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends BaseEntity & TrackedEvent> EventTable<E> table(Class<E> type, String appKey) {
+        return (EventTable<E>) tables.computeIfAbsent(new TableKey(type, appKey), key -> new EventTable<>(EventSchema.of(type),
+                directory.resolve(appKey).resolve(type.getSimpleName()), properties.getSegmentRows(),
+                ids.computeIfAbsent(type, t -> new AtomicLong())));
+    }
+
+    /**
+     * The application's table of a type, opening it if it is on disk; null if the
+     * application has no events of the type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private EventTable<?> existingTable(Class<? extends BaseEntity> type, String appKey) {
+        eventType(type);
+        EventTable<?> table = tables.get(new TableKey(type, appKey));
+        if (table != null || !Files.isDirectory(directory.resolve(appKey).resolve(type.getSimpleName()))) {
+            return table;
+        }
+        return table((Class) type, appKey);
+    }
+
+    private static void eventType(Class<? extends BaseEntity> type) {
+        if (!TrackedEvent.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(type.getSimpleName() + " is not an event type");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D> DtoProjection<D> projection(Class<? extends BaseEntity> type, Class<D> dtoClass) {
+        eventType(type);
+        return (DtoProjection<D>) projections.computeIfAbsent(dtoClass,
+                key -> new DtoProjection<>(dtoClass, EventSchema.of(type).names()));
+    }
+
+    /**
+     * Open the tables on disk not opened yet, so ids continue after the highest
+     * one of each type, registering the applications so per-application jobs (retention) see
+     * them even if the registry was lost
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void openAll() {
+        try {
+            Files.createDirectories(directory);
+            for (Path appDirectory : list(directory)) {
+                String appKey = appDirectory.getFileName().toString();
+                appRegistry.register(appKey);
+                for (Path tableDirectory : list(appDirectory)) {
+                    Class<?> type = EVENT_TYPES.get(tableDirectory.getFileName().toString());
+                    if (type != null) {
+                        table((Class) type, appKey);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open tables in " + directory, e);
+        }
+    }
+
+    /**
+     * Subdirectories of a directory, sorted; none if it does not exist
+     */
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.filter(Files::isDirectory).sorted().toList();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getFlushIntervalMs());
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to flush event store", e);
+            }
+        }
+    }
+
+    private static final class TableKey {
+        private final Class<?> type;
+        private final String appKey;
+
+        private TableKey(Class<?> type, String appKey) {
+            this.type = type;
+            this.appKey = appKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TableKey)) {
+                return false;
+            }
+            TableKey other = (TableKey) o;
+            return type == other.type && appKey.equals(other.appKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, appKey);
+        }
+    }
+}
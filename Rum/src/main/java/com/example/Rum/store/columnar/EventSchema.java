@@ -0,0 +1,101 @@
+package com.example.Rum.store.columnar;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columns of an event entity: every persistent field of the class and its superclasses,
+ * read reflectively so the column store needs no per-type code
+ */
+final class EventSchema<E> {
+
+    private final Class<E> type;
+    private final Map<String, ColumnDef> columns = new LinkedHashMap<>();
+
+    private EventSchema(Class<E> type) {
+        this.type = type;
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                ColumnKind kind = ColumnKind.forJavaType(field.getType());
+                if (kind == null) {
+                    throw new IllegalStateException("Unsupported column type " + field.getType().getSimpleName()
+                            + " for " + type.getSimpleName() + "." + field.getName());
+                }
+                field.setAccessible(true);
+                columns.put(field.getName(), new ColumnDef(field.getName(), kind, field));
+            }
+        }
+    }
+
+    static <E> EventSchema<E> of(Class<E> type) {
+        return new EventSchema<>(type);
+    }
+
+    Class<E> getType() {
+        return type;
+    }
+
+    List<ColumnDef> columns() {
+        return new ArrayList<>(columns.values());
+    }
+
+    Set<String> names() {
+        return columns.keySet();
+    }
+
+    /**
+     * @return the column, or null if the type has no such attribute
+     */
+    ColumnDef column(String name) {
+        return columns.get(name);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the type has no such attribute or it is not numeric
+     */
+    ColumnDef numericColumn(String name) {
+        ColumnDef def = columns.get(name);
+        if (def == null) {
+            throw new IllegalArgumentException("Unknown attribute '" + name + "' on " + type.getSimpleName());
+        }
+        if (def.kind != ColumnKind.DOUBLE && def.kind != ColumnKind.INT && def.kind != ColumnKind.LONG) {
+            throw new IllegalArgumentException("Attribute '" + name + "' is not numeric");
+        }
+        return def;
+    }
+
+    static final class ColumnDef {
+
+        final String name;
+        final ColumnKind kind;
+        private final Field field;
+
+        ColumnDef(String name, ColumnKind kind, Field field) {
+            this.name = name;
+            this.kind = kind;
+            this.field = field;
+        }
+
+        Object get(Object entity) {
+            try {
+                return field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.Rum.store.columnar;
+
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.TrackedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.FileSystemUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * All events of one type and application: a directory per day (the partitions), each holding immutable
+ * segments plus the rows appended since the last flush.
+ *
+ * Appends go to the in-memory buffer of their day; once segmentRows rows are buffered
+ * (or on flush) each partition's buffer is sorted and sealed into a new segment. Readers
+ * work on a snapshot of the segment lists and buffers, so scans never block appends.
+ */
+@Slf4j
+final class EventTable<E extends BaseEntity & TrackedEvent> {
+
+    private static final Comparator<BaseEntity> EVENT_ORDER =
+            Comparator.comparing((BaseEntity e) -> ((TrackedEvent) e).getEventTimestamp()).thenComparing(BaseEntity::getId);
+
+    private final EventSchema<E> schema;
+    private final Path directory;
+    private final int segmentRows;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<LocalDate, Partition<E>> partitions = new TreeMap<>();
+    // Shared by the tables of all applications, so ids are unique per type as with JPA
+    private final AtomicLong ids;
+    private int bufferedRows;
+
+    EventTable(EventSchema<E> schema, Path directory, int segmentRows, AtomicLong ids) {
+        this.schema = schema;
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        this.ids = ids;
+        load();
+    }
+
+    EventSchema<E> getSchema() {
+        return schema;
+    }
+
+    /**
+     * Assign ids and buffer events; seals segments once segmentRows rows are buffered
+     */
+    void append(List<E> events) {
+        lock.writeLock().lock();
+        try {
+            for (E event : events) {
+                event.setId(ids.incrementAndGet());
+                LocalDate day = event.getEventTimestamp().toLocalDate();
+                partitions.computeIfAbsent(day, d -> new Partition<>(directory.resolve(d.toString()))).buffer.add(event);
+            }
+            bufferedRows += events.size();
+            if (bufferedRows >= segmentRows) {
+                flushLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seal every non-empty partition buffer into a segment
+     */
+    void flush() {
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop whole partitions for days before firstKeptDay, buffered rows included
+     * @return number of rows removed
+     */
+    long dropBefore(LocalDate firstKeptDay) {
+        List<Partition<E>> dropped = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            NavigableMap<LocalDate, Partition<E>> expired = partitions.headMap(firstKeptDay, false);
+            dropped.addAll(expired.values());
+            expired.clear();
+            for (Partition<E> partition : dropped) {
+                bufferedRows -= partition.buffer.size();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Scans still holding a snapshot keep reading their mappings after the files are unlinked
+        long rows = 0;
+        for (Partition<E> partition : dropped) {
+            rows += partition.buffer.size();
+            for (Segment segment : partition.segments) {
+                rows += segment.getRowCount();
+            }
+            FileSystemUtils.deleteRecursively(partition.directory.toFile());
+            log.info("Dropped partition {}", partition.directory);
+        }
+        return rows;
+    }
+
+    /**
+     * Visit matching rows as [id, eventTimestamp, columns...] in (eventTimestamp, id) order.
+     * A row matches if it comes after (afterMicros, afterId), is at or before endMicros and
+     * holds the given value in each filtered string column.
+     * Partitions are sorted one at a time, so memory is bounded by the largest partition's matches.
+     * @param maxRows upper bound on rows the visitor will accept; segments are sorted, so at
+     *                most this many matches are taken from each
+     * @param visitor returns false to stop the scan
+     * @throws IllegalArgumentException if a filtered column does not exist or is not a string column
+     */
+    void scan(long afterMicros, long afterId, long endMicros, Map<String, String> filters,
+              List<String> columns, int maxRows, Predicate<Object[]> visitor) {
+        for (String name : filters.keySet()) {
+            EventSchema.ColumnDef def = schema.column(name);
+            if (def == null) {
+                throw new IllegalArgumentException("Unknown attribute '" + name + "' on " + schema.getType().getSimpleName());
+            }
+            if (def.kind != ColumnKind.STRING) {
+                throw new IllegalArgumentException("Attribute '" + name + "' is not a string");
+            }
+        }
+        for (PartitionSnapshot<E> partition : snapshot(afterMicros, endMicros)) {
+            List<Hit> hits = new ArrayList<>();
+            for (Segment segment : partition.segments) {
+                if (segment.overlaps(afterMicros, endMicros)) {
+                    collect(segment, afterMicros, afterId, endMicros, filters, columns, maxRows, hits);
+                }
+            }
+            collect(partition.buffer, afterMicros, afterId, endMicros, filters, columns, hits);
+            hits.sort(null);
+            for (Hit hit : hits) {
+                if (!visitor.test(hit.toRow(columns.size()))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Count, sum, min and max of a numeric column over [startMicros, endMicros].
+     * Segments entirely inside the range are aggregated without decoding their timestamps.
+     */
+    DoubleSummaryStatistics summarize(String attribute, long startMicros, long endMicros) {
+        EventSchema.ColumnDef def = schema.numericColumn(attribute);
+        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        for (PartitionSnapshot<E> partition : snapshot(startMicros, endMicros)) {
+            for (Segment segment : partition.segments) {
+                if (segment.overlaps(startMicros, endMicros)) {
+                    summarize(segment, attribute, startMicros, endMicros, stats);
+                }
+            }
+            for (E event : partition.buffer) {
+                long micros = ColumnCodec.toMicros(event.getEventTimestamp());
+                Object value = def.get(event);
+                if (value != null && micros >= startMicros && micros <= endMicros) {
+                    stats.accept(((Number) value).doubleValue());
+                }
+            }
+        }
+        return stats;
+    }
+
+    private void summarize(Segment segment, String attribute, long startMicros, long endMicros,
+                           DoubleSummaryStatistics stats) {
+        Column column = segment.column(attribute);
+        int rows = segment.getRowCount();
+        boolean contained = segment.getMinTimestamp() >= startMicros && segment.getMaxTimestamp() <= endMicros;
+        long[] timestamps = contained ? null : ((Column.Longs) segment.column("eventTimestamp")).values;
+        if (column instanceof Column.Doubles) {
+            double[] values = ((Column.Doubles) column).values;
+            for (int row = 0; row < rows; row++) {
+                if ((contained || (timestamps[row] >= startMicros && timestamps[row] <= endMicros)) && !column.isNull(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        } else if (column instanceof Column.Ints) {
+            int[] values = ((Column.Ints) column).values;
+            for (int row = 0; row < rows; row++) {
+                if ((contained || (timestamps[row] >= startMicros && timestamps[row] <= endMicros)) && !column.isNull(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        } else if (column instanceof Column.Longs) {
+            long[] values = ((Column.Longs) column).values;
+            for (int row = 0; row < rows; row++) {
+                if ((contained || (timestamps[row] >= startMicros && timestamps[row] <= endMicros)) && !column.isNull(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+        // Otherwise the column postdates this segment and every row is null
+    }
+
+    private void collect(Segment segment, long afterMicros, long afterId, long endMicros,
+                         Map<String, String> filters, List<String> columns, int maxRows, List<Hit> hits) {
+        int[][] filterCodes = new int[filters.size()][];
+        int[] filterCode = new int[filters.size()];
+        int f = 0;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            Column.Strings column = (Column.Strings) segment.column(filter.getKey());
+            filterCode[f] = column.codeOf(filter.getValue());
+            if (filterCode[f] < 0) {
+                // No row of the segment holds the value
+                return;
+            }
+            filterCodes[f++] = column.codes;
+        }
+        long[] timestamps = ((Column.Longs) segment.column("eventTimestamp")).values;
+        long[] ids = ((Column.Longs) segment.column("id")).values;
+        Column[] decoded = null;
+        int taken = 0;
+        for (int row = 0; row < segment.getRowCount() && taken < maxRows; row++) {
+            long micros = timestamps[row];
+            if (micros > endMicros) {
+                break;
+            }
+            if (!after(micros, ids[row], afterMicros, afterId) || !matches(filterCodes, filterCode, row)) {
+                continue;
+            }
+            taken++;
+            if (decoded == null) {
+                // Only decode the projected columns once some row of the segment matches
+                decoded = new Column[columns.size()];
+                for (int i = 0; i < decoded.length; i++) {
+                    decoded[i] = segment.column(columns.get(i));
+                }
+            }
+            hits.add(new Hit(micros, ids[row], decoded, null, row));
+        }
+    }
+
+    private void collect(List<E> buffer, long afterMicros, long afterId, long endMicros,
+                         Map<String, String> filters, List<String> columns, List<Hit> hits) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        EventSchema.ColumnDef[] filterDefs = new EventSchema.ColumnDef[filters.size()];
+        String[] filterValues = new String[filters.size()];
+        int f = 0;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            filterDefs[f] = schema.column(filter.getKey());
+            filterValues[f++] = filter.getValue();
+        }
+        EventSchema.ColumnDef[] defs = new EventSchema.ColumnDef[columns.size()];
+        for (int i = 0; i < defs.length; i++) {
+            defs[i] = schema.column(columns.get(i));
+        }
+        for (E event : buffer) {
+            long micros = ColumnCodec.toMicros(event.getEventTimestamp());
+            if (micros > endMicros || !after(micros, event.getId(), afterMicros, afterId)
+                    || !matches(filterDefs, filterValues, event)) {
+                continue;
+            }
+            Object[] values = new Object[defs.length];
+            for (int i = 0; i < defs.length; i++) {
+                values[i] = defs[i].get(event);
+            }
+            hits.add(new Hit(micros, event.getId(), null, values, 0));
+        }
+    }
+
+    private static boolean matches(int[][] filterCodes, int[] filterCode, int row) {
+        for (int f = 0; f < filterCodes.length; f++) {
+            if (filterCodes[f][row] != filterCode[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(EventSchema.ColumnDef[] filterDefs, String[] filterValues, Object event) {
+        for (int f = 0; f < filterDefs.length; f++) {
+            if (!filterValues[f].equals(filterDefs[f].get(event))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean after(long micros, long id, long afterMicros, long afterId) {
+        return micros > afterMicros || (micros == afterMicros && id > afterId);
+    }
+
+    /**
+     * Partitions whose day may hold rows in [startMicros, endMicros], in day order
+     */
+    private List<PartitionSnapshot<E>> snapshot(long startMicros, long endMicros) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<LocalDate, Partition<E>> range = partitions;
+            if (startMicros != Long.MIN_VALUE && endMicros != Long.MAX_VALUE) {
+                LocalDate from = ColumnCodec.fromMicros(startMicros).toLocalDate();
+                LocalDate to = ColumnCodec.fromMicros(endMicros).toLocalDate();
+                if (from.isAfter(to)) {
+                    return List.of();
+                }
+                range = partitions.subMap(from, true, to, true);
+            }
+            List<PartitionSnapshot<E>> snapshot = new ArrayList<>(range.size());
+            for (Partition<E> partition : range.values()) {
+                snapshot.add(new PartitionSnapshot<>(List.copyOf(partition.segments), List.copyOf(partition.buffer)));
+            }
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void flushLocked() {
+        for (Partition<E> partition : partitions.values()) {
+            if (partition.buffer.isEmpty()) {
+                continue;
+            }
+            List<E> rows = new ArrayList<>(partition.buffer);
+            rows.sort(EVENT_ORDER);
+            long maxId = rows.stream().mapToLong(BaseEntity::getId).max().orElse(0);
+            try {
+                Files.createDirectories(partition.directory);
+                Segment segment = Segment.write(partition.directory.resolve(String.format("%019d%s", maxId, Segment.SUFFIX)), schema, rows);
+                partition.segments.add(segment);
+                partition.buffer.clear();
+            } catch (IOException | UncheckedIOException e) {
+                // Keep the rows buffered; the next flush retries
+                log.error("Failed to write {} segment for {}", schema.getType().getSimpleName(), partition.directory, e);
+                return;
+            }
+        }
+        bufferedRows = 0;
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> days = Files.list(directory)) {
+                for (Path dayDirectory : (Iterable<Path>) days.filter(Files::isDirectory).sorted()::iterator) {
+                    LocalDate day = LocalDate.parse(dayDirectory.getFileName().toString());
+                    Partition<E> partition = new Partition<>(dayDirectory);
+                    try (Stream<Path> files = Files.list(dayDirectory)) {
+                        for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                            String name = file.getFileName().toString();
+                            if (name.endsWith(".tmp")) {
+                                // Left over from a crash mid-write; the rows were never acknowledged as sealed
+                                Files.delete(file);
+                            } else if (name.endsWith(Segment.SUFFIX)) {
+                                Segment segment = Segment.open(file);
+                                partition.segments.add(segment);
+                                ids.accumulateAndGet(segment.getMaxId(), Math::max);
+                            }
+                        }
+                    }
+                    partitions.put(day, partition);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event table " + directory, e);
+        }
+        if (!partitions.isEmpty()) {
+            log.info("Opened {} with {} partition(s), last id {}", directory, partitions.size(), ids.get());
+        }
+    }
+
+    private static final class Partition<E> {
+
+        private final Path directory;
+        private final List<Segment> segments = new ArrayList<>();
+        private final List<E> buffer = new ArrayList<>();
+
+        Partition(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    private static final class PartitionSnapshot<E> {
+
+        private final List<Segment> segments;
+        private final List<E> buffer;
+
+        PartitionSnapshot(List<Segment> segments, List<E> buffer) {
+            this.segments = segments;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * A matching row, from a segment (decoded columns + row index) or the buffer (values)
+     */
+    private static final class Hit implements Comparable<Hit> {
+
+        private final long micros;
+        private final long id;
+        private final Column[] columns;
+        private final Object[] values;
+        private final int row;
+
+        Hit(long micros, long id, Column[] columns, Object[] values, int row) {
+            this.micros = micros;
+            this.id = id;
+            this.columns = columns;
+            this.values = values;
+            this.row = row;
+        }
+
+        Object[] toRow(int columnCount) {
+            Object[] result = new Object[columnCount + 2];
+            result[0] = id;
+            result[1] = ColumnCodec.fromMicros(micros);
+            for (int i = 0; i < columnCount; i++) {
+                result[i + 2] = values != null ? values[i] : columns[i].get(row);
+            }
+            return result;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int byTime = Long.compare(micros, other.micros);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.Rum.store.columnar;
+
+import com.example.Rum.model.ContentBlob;
+import com.example.Rum.store.BlobStorage;
+import com.example.Rum.store.StoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Blobs as files beside the column store (rum.store.columnar.blob-directory), so they
+ * persist exactly as long as the segments referencing them whatever the datasource.
+ *
+ * A blob is directory/xx/hash, named by the hex of its hash (hashes are case-sensitive
+ * base64url, file systems may not be) and fanned out on the first byte. Each file holds a
+ * flag byte (1 if deflated), the uncompressed size and the content; its modification time
+ * is the creation time, as files are only ever written once. Like segments, files are
+ * written under a temporary name, forced to disk and renamed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rum.store", name = "engine", havingValue = "columnar")
+@Slf4j
+public class FileBlobStorage implements BlobStorage {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    public FileBlobStorage(StoreProperties properties) {
+        this.directory = Path.of(properties.getColumnar().getBlobDirectory()).toAbsolutePath();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create blob directory " + directory, e);
+        }
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> hashes) {
+        Set<String> existing = new HashSet<>();
+        for (String hash : hashes) {
+            if (Files.exists(path(hash))) {
+                existing.add(hash);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void insert(List<ContentBlob> blobs) {
+        for (ContentBlob blob : blobs) {
+            Path path = path(blob.getHash());
+            Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+            ByteBuffer file = ByteBuffer.allocate(1 + 4 + blob.getContent().length)
+                    .put((byte) (blob.isCompressed() ? 1 : 0)).putInt(blob.getSize()).put(blob.getContent())
+                    .flip();
+            try {
+                Files.createDirectories(path.getParent());
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    while (file.hasRemaining()) {
+                        channel.write(file);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write blob " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public List<ContentBlob> findAll(Collection<String> hashes) {
+        List<ContentBlob> blobs = new ArrayList<>();
+        for (String hash : hashes) {
+            Path path = path(hash);
+            ByteBuffer file;
+            LocalDateTime createdAt;
+            try {
+                file = ByteBuffer.wrap(Files.readAllBytes(path));
+                createdAt = LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault());
+            } catch (NoSuchFileException e) {
+                continue;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read blob " + path, e);
+            }
+            ContentBlob blob = new ContentBlob();
+            blob.setHash(hash);
+            blob.setCompressed(file.get() != 0);
+            blob.setSize(file.getInt());
+            byte[] content = new byte[file.remaining()];
+            file.get(content);
+            blob.setContent(content);
+            blob.setCreatedAt(createdAt);
+            blobs.add(blob);
+        }
+        return blobs;
+    }
+
+    @Override
+    public List<String> findCreatedBefore(LocalDateTime time) {
+        long before = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<String> hashes = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Left over from a crash mid-write; the blob was never reported stored
+                    Files.deleteIfExists(file);
+                } else if (Files.getLastModifiedTime(file).toMillis() < before) {
+                    hashes.add(Base64.getUrlEncoder().withoutPadding().encodeToString(HexFormat.of().parseHex(name)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list blobs in " + directory, e);
+        }
+        return hashes;
+    }
+
+    @Override
+    public void delete(Collection<String> hashes) {
+        for (String hash : hashes) {
+            try {
+                Files.deleteIfExists(path(hash));
+            } catch (IOException e) {
+                log.warn("Failed to delete blob {}", hash, e);
+            }
+        }
+    }
+
+    private Path path(String hash) {
+        String name = HexFormat.of().formatHex(Base64.getUrlDecoder().decode(hash));
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.Rum.store.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, memory-mapped file holding a block of events of one type, column by column.
+ *
+ * Layout: header (magic, version, row count, min/max eventTimestamp, max id), a column
+ * directory (name, kind, null flag, offset, length), then each column's encoded block.
+ * A column block starts with a null bitmap when the column has nulls. Rows are sorted by
+ * (eventTimestamp, id), so the min/max in the header lets range scans skip whole segments
+ * and only the columns a query needs are ever decoded.
+ */
+final class Segment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x52554D53; // "RUMS"
+    private static final byte VERSION = 1;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int rowCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final long maxId;
+    private final Map<String, ColumnRef> directory = new HashMap<>();
+
+    private Segment(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC || header.get() != VERSION) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        this.rowCount = header.getInt();
+        this.minTimestamp = header.getLong();
+        this.maxTimestamp = header.getLong();
+        this.maxId = header.getLong();
+        int columnCount = header.getShort();
+        for (int i = 0; i < columnCount; i++) {
+            byte[] name = new byte[header.getShort()];
+            header.get(name);
+            ColumnKind kind = ColumnKind.of(header.get());
+            boolean hasNulls = header.get() != 0;
+            directory.put(new String(name, StandardCharsets.UTF_8),
+                    new ColumnRef(kind, hasNulls, header.getInt(), header.getInt()));
+        }
+    }
+
+    static Segment open(Path path) throws IOException {
+        return new Segment(path);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    long getMaxId() {
+        return maxId;
+    }
+
+    boolean overlaps(long startMicros, long endMicros) {
+        return rowCount > 0 && maxTimestamp >= startMicros && minTimestamp <= endMicros;
+    }
+
+    /**
+     * Decode one column; attributes added to the type after this segment was written read as null
+     */
+    Column column(String name) {
+        ColumnRef ref = directory.get(name);
+        if (ref == null) {
+            return Column.missing(rowCount);
+        }
+        ByteBuffer in = buffer.slice(ref.offset, ref.length);
+        BitSet nulls = null;
+        if (ref.hasNulls) {
+            byte[] bitmap = new byte[(rowCount + 7) / 8];
+            in.get(bitmap);
+            nulls = BitSet.valueOf(bitmap);
+        }
+        switch (ref.kind) {
+            case LONG:
+                return new Column.Longs(ColumnCodec.readDeltas(in, rowCount), nulls, false);
+            case TIMESTAMP:
+                return new Column.Longs(ColumnCodec.readDeltas(in, rowCount), nulls, true);
+            case INT:
+                int[] ints = new int[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    ints[i] = (int) ColumnCodec.unzigzag(ColumnCodec.readVarLong(in));
+                }
+                return new Column.Ints(ints, nulls);
+            case DOUBLE:
+                return new Column.Doubles(ColumnCodec.readDoubles(in, rowCount), nulls);
+            case STRING:
+                String[] dictionary = new String[(int) ColumnCodec.readVarLong(in)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] bytes = new byte[(int) ColumnCodec.readVarLong(in)];
+                    in.get(bytes);
+                    dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                int[] codes = new int[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    codes[i] = (int) ColumnCodec.readVarLong(in);
+                }
+                return new Column.Strings(codes, dictionary);
+            case BOOLEAN:
+                byte[] bits = new byte[(rowCount + 7) / 8];
+                in.get(bits);
+                return new Column.Booleans(BitSet.valueOf(bits), nulls);
+            default:
+                throw new IllegalStateException("Unhandled column kind " + ref.kind);
+        }
+    }
+
+    /**
+     * Encode rows (already sorted by eventTimestamp, id) into a new segment file.
+     * The file is written under a temporary name, forced to disk and then renamed,
+     * so a crash never leaves a partial segment behind.
+     */
+    static <E> Segment write(Path path, EventSchema<E> schema, List<E> rows) {
+        int rowCount = rows.size();
+        Map<EventSchema.ColumnDef, byte[]> blocks = new LinkedHashMap<>();
+        Map<EventSchema.ColumnDef, Boolean> hasNulls = new HashMap<>();
+        for (EventSchema.ColumnDef column : schema.columns()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            hasNulls.put(column, encode(column, rows, out));
+            blocks.put(column, out.toByteArray());
+        }
+
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        long maxId = 0;
+        EventSchema.ColumnDef timestampColumn = schema.column("eventTimestamp");
+        EventSchema.ColumnDef idColumn = schema.column("id");
+        for (E row : rows) {
+            long micros = ColumnCodec.toMicros((LocalDateTime) timestampColumn.get(row));
+            minTimestamp = Math.min(minTimestamp, micros);
+            maxTimestamp = Math.max(maxTimestamp, micros);
+            maxId = Math.max(maxId, (Long) idColumn.get(row));
+        }
+
+        int headerSize = 4 + 1 + 4 + 8 + 8 + 8 + 2;
+        for (EventSchema.ColumnDef column : blocks.keySet()) {
+            headerSize += 2 + column.name.getBytes(StandardCharsets.UTF_8).length + 1 + 1 + 4 + 4;
+        }
+        int size = headerSize;
+        for (byte[] block : blocks.values()) {
+            size += block.length;
+        }
+
+        ByteBuffer file = ByteBuffer.allocate(size);
+        file.putInt(MAGIC).put(VERSION).putInt(rowCount)
+                .putLong(minTimestamp).putLong(maxTimestamp).putLong(maxId)
+                .putShort((short) blocks.size());
+        int offset = headerSize;
+        for (Map.Entry<EventSchema.ColumnDef, byte[]> block : blocks.entrySet()) {
+            byte[] name = block.getKey().name.getBytes(StandardCharsets.UTF_8);
+            file.putShort((short) name.length).put(name)
+                    .put((byte) block.getKey().kind.code)
+                    .put((byte) (hasNulls.get(block.getKey()) ? 1 : 0))
+                    .putInt(offset).putInt(block.getValue().length);
+            offset += block.getValue().length;
+        }
+        for (byte[] block : blocks.values()) {
+            file.put(block);
+        }
+        file.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (file.hasRemaining()) {
+                    channel.write(file);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write segment " + path, e);
+        }
+    }
+
+    /**
+     * @return whether a null bitmap was written
+     */
+    private static <E> boolean encode(EventSchema.ColumnDef column, List<E> rows, ByteArrayOutputStream out) {
+        int rowCount = rows.size();
+        if (column.kind == ColumnKind.STRING) {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int[] codes = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                String value = (String) column.get(rows.get(i));
+                codes[i] = value == null ? 0 : dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+            }
+            ColumnCodec.writeVarLong(out, dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                ColumnCodec.writeVarLong(out, bytes.length);
+                out.writeBytes(bytes);
+            }
+            for (int code : codes) {
+                ColumnCodec.writeVarLong(out, code);
+            }
+            return false;
+        }
+
+        BitSet nulls = new BitSet(rowCount);
+        Object[] values = new Object[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = column.get(rows.get(i));
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+        boolean hasNulls = !nulls.isEmpty();
+        if (hasNulls) {
+            out.writeBytes(Arrays.copyOf(nulls.toByteArray(), (rowCount + 7) / 8));
+        }
+        // Null rows repeat the previous value, which costs a zero delta or a single XOR bit
+        switch (column.kind) {
+            case LONG:
+            case TIMESTAMP:
+                long[] longs = new long[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    if (values[i] == null) {
+                        longs[i] = i > 0 ? longs[i - 1] : 0;
+                    } else {
+                        longs[i] = column.kind == ColumnKind.TIMESTAMP
+                                ? ColumnCodec.toMicros((LocalDateTime) values[i]) : (Long) values[i];
+                    }
+                }
+                ColumnCodec.writeDeltas(out, longs, rowCount);
+                break;
+            case INT:
+                for (Object value : values) {
+                    ColumnCodec.writeVarLong(out, ColumnCodec.zigzag(value == null ? 0 : (Integer) value));
+                }
+                break;
+            case DOUBLE:
+                double[] doubles = new double[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    doubles[i] = values[i] != null ? (Double) values[i] : (i > 0 ? doubles[i - 1] : 0);
+                }
+                ColumnCodec.writeDoubles(out, doubles, rowCount);
+                break;
+            case BOOLEAN:
+                BitSet bits = new BitSet(rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    if (Boolean.TRUE.equals(values[i])) {
+                        bits.set(i);
+                    }
+                }
+                out.writeBytes(Arrays.copyOf(bits.toByteArray(), (rowCount + 7) / 8));
+                break;
+            default:
+                throw new IllegalStateException("Unhandled column kind " + column.kind);
+        }
+        return hasNulls;
+    }
+
+    private static final class ColumnRef {
+
+        final ColumnKind kind;
+        final boolean hasNulls;
+        final int offset;
+        final int length;
+
+        ColumnRef(ColumnKind kind, boolean hasNulls, int offset, int length) {
+            this.kind = kind;
+            this.hasNulls = hasNulls;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
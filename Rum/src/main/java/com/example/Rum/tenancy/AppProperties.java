@@ -0,0 +1,31 @@
+package com.example.Rum.tenancy;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Application key settings (rum.apps.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "rum.apps")
+public class AppProperties {
+
+    /**
+     * App key for requests that carry none, so SDKs from before app keys keep working;
+     * empty to reject ingest requests without a key
+     */
+    private String defaultAppKey = "default";
+
+    /**
+     * The only app keys accepted, on ingest and queries; empty to accept any well-formed key
+     */
+    private Set<String> allowedAppKeys = new LinkedHashSet<>();
+
+    /**
+     * Most applications that may be registered: ingest for a new key is refused past it, as
+     * every application gets rate limiter, write slot and aggregate state and its own directories
+     */
+    private int maxApps = 1000;
+}
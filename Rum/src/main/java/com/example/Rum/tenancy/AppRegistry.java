@@ -0,0 +1,145 @@
+package com.example.Rum.tenancy;
+
+import com.example.Rum.model.Application;
+import com.example.Rum.repository.ApplicationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * The applications (sites, apps) events are ingested for, each identified by an app key.
+ *
+ * Every event belongs to exactly one application: the key comes from the X-Rum-App-Key header
+ * or the appKey of a batch envelope, and falls back to rum.apps.default-app-key. Keys are
+ * registered on first ingest so jobs that work per application (retention) know all of them.
+ * Keys are also used as directory names by the column store, hence the restricted alphabet.
+ *
+ * Each application costs memory and directories, so keys are bounded: rum.apps.allowed-app-keys
+ * restricts them to a fixed list, and ingest may register at most rum.apps.max-apps of them.
+ */
+@Component
+@Slf4j
+public class AppRegistry {
+
+    public static final String HEADER = "X-Rum-App-Key";
+
+    private static final Pattern APP_KEY = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,63}");
+
+    private final ApplicationRepository applicationRepository;
+    private final String defaultAppKey;
+    private final Set<String> allowedAppKeys;
+    private final int maxApps;
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+    // One registrar at a time, so a new key is inserted once and the limit is not overrun
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean loaded;
+
+    public AppRegistry(ApplicationRepository applicationRepository, AppProperties properties) {
+        this.applicationRepository = applicationRepository;
+        this.allowedAppKeys = Set.copyOf(properties.getAllowedAppKeys());
+        this.maxApps = properties.getMaxApps();
+        String configured = properties.getDefaultAppKey();
+        this.defaultAppKey = configured == null || configured.isBlank() ? null : validate(configured);
+    }
+
+    /**
+     * App key of a request
+     * @param header value of the X-Rum-App-Key header, or null
+     * @param envelope appKey of the batch envelope, or null
+     * @throws IllegalArgumentException if the two differ, the key is malformed, or there is
+     *                                  none and no default is configured
+     */
+    public String resolve(String header, String envelope) {
+        if (header != null && envelope != null && !header.equals(envelope)) {
+            throw new IllegalArgumentException("App key of the " + HEADER + " header (" + header
+                    + ") and of the batch envelope (" + envelope + ") differ");
+        }
+        String appKey = header != null ? header : envelope;
+        if (appKey == null) {
+            if (defaultAppKey == null) {
+                throw new IllegalArgumentException("Missing app key: send the " + HEADER
+                        + " header or an appKey in the batch envelope");
+            }
+            return defaultAppKey;
+        }
+        return validate(appKey);
+    }
+
+    /**
+     * Register the key of an ingest request, unless that would exceed rum.apps.max-apps
+     * @throws IllegalArgumentException if the key is new and the limit is reached
+     */
+    public void admit(String appKey) {
+        if (registered.contains(appKey)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!loaded) {
+                // Applications registered by earlier runs or other instances count as well
+                registered.addAll(appKeys());
+                loaded = true;
+            }
+            if (!registered.contains(appKey) && registered.size() >= maxApps) {
+                throw new IllegalArgumentException("Unknown app key '" + appKey + "': the limit of " + maxApps
+                        + " applications is reached");
+            }
+            register(appKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that events arrive for the key; a no-op once the key is known. Not limited, for
+     * keys already holding data (stored segments, logged batches)
+     */
+    public void register(String appKey) {
+        if (registered.contains(appKey)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!registered.contains(appKey) && !applicationRepository.existsById(appKey)) {
+                applicationRepository.save(new Application(appKey));
+                log.info("Registered application {}", appKey);
+            }
+            registered.add(appKey);
+        } catch (DataIntegrityViolationException e) {
+            // Registered by another instance sharing the database
+            registered.add(appKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Keys of all registered applications, sorted
+     */
+    public List<String> appKeys() {
+        List<String> appKeys = new ArrayList<>();
+        for (Application application : applicationRepository.findAll()) {
+            appKeys.add(application.getAppKey());
+        }
+        Collections.sort(appKeys);
+        return appKeys;
+    }
+
+    private String validate(String appKey) {
+        if (!APP_KEY.matcher(appKey).matches()) {
+            throw new IllegalArgumentException("Invalid app key '" + appKey
+                    + "': 1-64 letters, digits, '.', '_' or '-', starting with a letter or digit");
+        }
+        if (!allowedAppKeys.isEmpty() && !allowedAppKeys.contains(appKey)) {
+            throw new IllegalArgumentException("Unknown app key '" + appKey + "'");
+        }
+        return appKey;
+    }
+}
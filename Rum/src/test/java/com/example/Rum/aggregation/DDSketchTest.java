@@ -0,0 +1,111 @@
+package com.example.Rum.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Quantiles within the relative accuracy, exact merges, weights, and the zero bin
+ */
+class DDSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        int n = 10_000;
+        for (int i = 1; i <= n; i++) {
+            sketch.add(i);
+        }
+
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99}) {
+            double exact = Math.floor(q * (n - 1)) + 1;
+            assertThat(sketch.quantile(q)).as("p%s", q * 100).isCloseTo(exact, within(ACCURACY * exact));
+        }
+        assertThat(sketch.quantile(0)).isEqualTo(1);
+        assertThat(sketch.quantile(1)).isEqualTo(n);
+        assertThat(sketch.getCount()).isEqualTo(n);
+        assertThat(sketch.getAverage()).isEqualTo((n + 1) / 2.0);
+    }
+
+    @Test
+    void mergeEqualsOneSketchOfAllValues() {
+        DDSketch low = new DDSketch(ACCURACY);
+        DDSketch high = new DDSketch(ACCURACY);
+        DDSketch all = new DDSketch(ACCURACY);
+        for (int i = 1; i <= 10_000; i++) {
+            // Far apart ranges, so the bins of the merged sketch must grow on both sides
+            double value = i <= 5_000 ? i / 1000.0 : i * 1000.0;
+            (i <= 5_000 ? low : high).add(value);
+            all.add(value);
+        }
+
+        high.merge(low);
+
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            assertThat(high.quantile(q)).isEqualTo(all.quantile(q));
+        }
+        assertThat(high.getCount()).isEqualTo(all.getCount());
+        assertThat(high.getMin()).isEqualTo(all.getMin());
+        assertThat(high.getMax()).isEqualTo(all.getMax());
+        assertThat(high.getSum()).isCloseTo(all.getSum(), within(1e-6 * all.getSum()));
+        assertThatThrownBy(() -> high.merge(new DDSketch(0.02))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void weightsCountAsRepeatedValues() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        sketch.add(100, 3);
+        sketch.add(200, 1);
+        sketch.add(300, 0);
+
+        assertThat(sketch.getCount()).isEqualTo(4);
+        assertThat(sketch.getAverage()).isEqualTo(125);
+        assertThat(sketch.quantile(0.5)).isCloseTo(100, within(ACCURACY * 100));
+        assertThat(sketch.getMax()).isEqualTo(200);
+    }
+
+    @Test
+    void zeroAndNegativeValuesShareTheZeroBin() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        assertThat(sketch.quantile(0.5)).isZero();
+
+        sketch.add(0);
+        sketch.add(-5);
+        sketch.add(Double.NaN);
+        sketch.add(10);
+        sketch.add(10);
+
+        assertThat(sketch.getCount()).isEqualTo(4);
+        assertThat(sketch.getMin()).isZero();
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.quantile(0.99)).isCloseTo(10, within(ACCURACY * 10));
+    }
+
+    @Test
+    void bytesRoundTripToAnEqualSketch() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        assertThat(DDSketch.fromBytes(sketch.toBytes()).getCount()).isZero();
+        sketch.add(0);
+        for (int i = 1; i <= 500; i++) {
+            sketch.add(i * 3.7, i % 3 + 1);
+        }
+
+        DDSketch read = DDSketch.fromBytes(sketch.toBytes());
+
+        assertThat(read.getRelativeAccuracy()).isEqualTo(ACCURACY);
+        assertThat(read.getCount()).isEqualTo(sketch.getCount());
+        assertThat(read.getSum()).isEqualTo(sketch.getSum());
+        assertThat(read.getMin()).isEqualTo(sketch.getMin());
+        assertThat(read.getMax()).isEqualTo(sketch.getMax());
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.99}) {
+            assertThat(read.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+        // Still mergeable with sketches built in memory
+        read.merge(sketch);
+        assertThat(read.getCount()).isEqualTo(2 * sketch.getCount());
+    }
+}
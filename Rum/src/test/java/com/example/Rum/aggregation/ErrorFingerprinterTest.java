@@ -0,0 +1,82 @@
+package com.example.Rum.aggregation;
+
+import com.example.Rum.model.ErrorEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Frames of V8 and Gecko stacks, and what normalization keeps out of the fingerprint
+ */
+class ErrorFingerprinterTest {
+
+    @Test
+    void readsV8FramesAndSkipsTheHeaderLine() {
+        String stack = """
+                TypeError: Cannot read properties of undefined (reading 'id') for admin@shop.example.com
+                    at renderCart (https://shop.example.com/assets/app.3f9a2c1d.js:120:17)
+                    at https://shop.example.com/assets/vendor.js?v=12:4:2
+                    at Array.forEach (<anonymous>)
+                    at main (https://shop.example.com/assets/app.3f9a2c1d.js:8:1)
+                """;
+
+        assertThat(ErrorFingerprinter.topFrames(stack)).containsExactly(
+                "renderCart@https://shop.example.com/assets/app.js",
+                "?@https://shop.example.com/assets/vendor.js",
+                "Array.forEach@<anonymous>");
+    }
+
+    @Test
+    void readsGeckoFramesOnlyWithAPosition() {
+        String stack = """
+                renderCart@https://shop.example.com/assets/app.3f9a2c1d.js:120:17
+                @https://shop.example.com/assets/vendor.js:4:2
+                promise callback*main@https://shop.example.com/assets/app.3f9a2c1d.js:8
+                """;
+
+        assertThat(ErrorFingerprinter.topFrames(stack)).containsExactly(
+                "renderCart@https://shop.example.com/assets/app.js",
+                "?@https://shop.example.com/assets/vendor.js",
+                "promise callback*main@https://shop.example.com/assets/app.js");
+        assertThat(ErrorFingerprinter.topFrames("Error: no such user admin@shop.example.com")).isEmpty();
+    }
+
+    @Test
+    void normalizesValuesThatVaryBetweenOccurrences() {
+        assertThat(ErrorFingerprinter.normalizeMessage(
+                "Order 48213 failed for 'alice' at https://api.example.com/orders/48213?retry=2 (0x1f3a)"))
+                .isEqualTo("Order <n> failed for <s> at <url> (<id>)");
+        assertThat(ErrorFingerprinter.normalizeMessage(
+                "Session 9b2e4c1a-7f3d-4e2a-9c8b-1d2e3f4a5b6c   expired"))
+                .isEqualTo("Session <id> expired");
+        assertThat(ErrorFingerprinter.normalizeSource("https://shop.example.com/assets/app-3f9a2c1d.js?v=7:120:17"))
+                .isEqualTo("https://shop.example.com/assets/app.js");
+    }
+
+    @Test
+    void sameBugAcrossDeploysSharesAFingerprint() {
+        ErrorEvent before = error("TypeError", "Cannot read 'id' of user 17",
+                "TypeError: Cannot read 'id' of user 17\n    at renderCart (https://shop.example.com/app.3f9a2c1d.js:120:17)");
+        ErrorEvent after = error("TypeError", "Cannot read 'name' of user 9042",
+                "TypeError: Cannot read 'name' of user 9042\n    at renderCart (https://shop.example.com/app.88e1b0f4.js:131:5)");
+        ErrorEvent otherType = error("RangeError", "Cannot read 'id' of user 17",
+                "RangeError: Cannot read 'id' of user 17\n    at renderCart (https://shop.example.com/app.3f9a2c1d.js:120:17)");
+        ErrorEvent otherFrame = error("TypeError", "Cannot read 'id' of user 17",
+                "TypeError: Cannot read 'id' of user 17\n    at renderWishlist (https://shop.example.com/app.3f9a2c1d.js:120:17)");
+
+        String fingerprint = ErrorFingerprinter.fingerprint(before);
+
+        assertThat(fingerprint).hasSize(64).isEqualTo(ErrorFingerprinter.fingerprint(after));
+        assertThat(ErrorFingerprinter.fingerprint(otherType)).isNotEqualTo(fingerprint);
+        assertThat(ErrorFingerprinter.fingerprint(otherFrame)).isNotEqualTo(fingerprint);
+    }
+
+    private static ErrorEvent error(String errorType, String message, String stack) {
+        ErrorEvent event = new ErrorEvent();
+        event.setErrorType(errorType);
+        event.setMessage(message);
+        event.setSource("https://shop.example.com/app.js");
+        event.setStack(stack);
+        return event;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Rum.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Estimates within the stated error, duplicates and merges that count each value once, and
+ * the serialized form in both the sparse and the dense mode
+ */
+class HyperLogLogTest {
+
+    @Test
+    void estimatesWithinThreeStandardErrors() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("session-" + i);
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(100_000, within(3 * sketch.standardError() * 100_000));
+    }
+
+    @Test
+    void smallCountsAreNearExactAndStaySparse() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 10; i++) {
+            sketch.add("user-" + i);
+            sketch.add("user-" + i);
+        }
+        sketch.add(null);
+
+        assertThat(sketch.estimate()).isEqualTo(10);
+        assertThat(sketch.sizeInBytes()).isLessThan(1 << 12);
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog all = new HyperLogLog(12);
+        for (int i = 0; i < 60_000; i++) {
+            first.add("session-" + i);
+            all.add("session-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add("session-" + i);
+            all.add("session-" + i);
+        }
+
+        HyperLogLog merged = first.copy();
+        merged.merge(second);
+
+        assertThat(merged.estimate()).isEqualTo(all.estimate());
+        assertThat((double) merged.estimate()).isCloseTo(100_000, within(3 * merged.standardError() * 100_000));
+        assertThatThrownBy(() -> merged.merge(new HyperLogLog(14))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsSparseAndDenseSketches() {
+        HyperLogLog sparse = new HyperLogLog(12);
+        HyperLogLog dense = new HyperLogLog(12);
+        for (int i = 0; i < 20; i++) {
+            sparse.add("user-" + i);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            dense.add("user-" + i);
+        }
+
+        assertThat(HyperLogLog.fromBytes(sparse.toBytes()).estimate()).isEqualTo(sparse.estimate());
+        assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+        assertThat(dense.toBytes()).hasSize(2 + (1 << 12));
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThatThrownBy(() -> new HyperLogLog(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(19)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
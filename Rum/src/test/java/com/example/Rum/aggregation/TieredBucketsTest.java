@@ -0,0 +1,173 @@
+package com.example.Rum.aggregation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranges are covered with buckets that hold every event of their minutes exactly once, whichever
+ * tiers they come from, and widen to the enclosing coarser bucket past a finer tier's horizon;
+ * closed hour and day buckets are saved and loaded back as they were
+ */
+class TieredBucketsTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private final long now = System.currentTimeMillis();
+    private final long today = Math.floorDiv(now, DAY) * DAY;
+    private final List<Long> events = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rangeInsideOneBucketReadsItsMinute() {
+        TieredBuckets<List<Long>> buckets = new TieredBuckets<>(new TierProperties(), ArrayList::new);
+        long minute = today - DAY + 10 * HOUR + 5 * MINUTE;
+        record(buckets, minute + 1_000, minute + 30_000, minute - 1, minute + MINUTE);
+
+        List<List<Long>> covered = buckets.cover(minute + 10_000, minute + 20_000);
+
+        assertThat(covered).hasSize(1);
+        assertThat(flatten(covered)).containsExactlyInAnyOrder(minute + 1_000, minute + 30_000);
+    }
+
+    @Test
+    void rangeAcrossADayBoundaryCountsEachEventOnce() {
+        TieredBuckets<List<Long>> buckets = new TieredBuckets<>(new TierProperties(), ArrayList::new);
+        // Every 7 minutes over the last two days, so minutes, hours and days all hold events
+        for (long time = today - 2 * DAY + 13_000; time < now; time += 7 * MINUTE) {
+            record(buckets, time);
+        }
+        long midnight = today - DAY;
+
+        // Minutes on both sides of midnight
+        assertCovers(buckets, midnight - 25 * MINUTE + 5_000, midnight + 40 * MINUTE + 5_000);
+        // Hours and minutes on both sides, within two days
+        assertCovers(buckets, midnight - 5 * HOUR - 17 * MINUTE, midnight + 3 * HOUR + 45 * MINUTE);
+        // A whole day in the middle
+        assertCovers(buckets, today - 2 * DAY + 30 * MINUTE, today + HOUR / 2);
+    }
+
+    @Test
+    void edgeBeforeAFinerTiersHorizonWidensToTheCoarserBucket() {
+        TierProperties properties = new TierProperties();
+        properties.setMinuteRetention(Duration.ofDays(1));
+        TieredBuckets<List<Long>> buckets = new TieredBuckets<>(properties, ArrayList::new);
+        long hour = today - 2 * DAY + 9 * HOUR;
+        for (long time = hour + 13_000; time < now; time += 7 * MINUTE) {
+            record(buckets, time);
+        }
+        buckets.expire(now);
+        long start = hour + 25 * MINUTE;
+        long end = now - HOUR;
+
+        List<Long> covered = flatten(buckets.cover(start, end));
+
+        // The minutes before start are read from the hour bucket, as the minute buckets are gone
+        assertThat(covered).containsExactlyInAnyOrderElementsOf(between(hour, Math.floorDiv(end, MINUTE) * MINUTE + MINUTE));
+        assertThat(covered).anyMatch(time -> time < start);
+    }
+
+    @Test
+    void seriesReadsTheBucketsOfOneTier() {
+        TieredBuckets<List<Long>> buckets = new TieredBuckets<>(new TierProperties(), ArrayList::new);
+        long hour = today - DAY + 10 * HOUR;
+        record(buckets, hour + 5 * MINUTE, hour + 59 * MINUTE, hour + 2 * HOUR, hour + 3 * HOUR + 1);
+
+        Map<Long, List<Long>> series = buckets.series(TieredBuckets.Tier.HOUR, hour + 30 * MINUTE, hour + 2 * HOUR);
+
+        assertThat(series.keySet()).containsExactly(hour, hour + 2 * HOUR);
+        assertThat(series.get(hour)).containsExactly(hour + 5 * MINUTE, hour + 59 * MINUTE);
+        assertThat(buckets.series(TieredBuckets.Tier.DAY, hour, hour).keySet()).containsExactly(today - DAY);
+        assertThat(TieredBuckets.Tier.of("Minute")).isEqualTo(TieredBuckets.Tier.MINUTE);
+    }
+
+    @Test
+    void closedHoursAndDaysAreSavedAndLoadedBack() {
+        TieredBuckets<List<Long>> buckets = new TieredBuckets<>(new TierProperties(), ArrayList::new, CODEC);
+        for (long time = today - 2 * DAY + 13_000; time < now; time += 7 * MINUTE) {
+            record(buckets, time);
+        }
+        long currentHour = Math.floorDiv(now, HOUR) * HOUR;
+
+        buckets.save(directory, now);
+        TieredBuckets<List<Long>> loaded = new TieredBuckets<>(new TierProperties(), ArrayList::new, CODEC);
+        loaded.load(directory, now);
+
+        // Open buckets and minutes are not saved
+        assertThat(loaded.series(TieredBuckets.Tier.HOUR, today - 2 * DAY, now))
+                .isEqualTo(buckets.series(TieredBuckets.Tier.HOUR, today - 2 * DAY, currentHour - 1));
+        assertThat(loaded.series(TieredBuckets.Tier.DAY, today - 2 * DAY, now))
+                .isEqualTo(buckets.series(TieredBuckets.Tier.DAY, today - 2 * DAY, today - 1));
+        assertThat(loaded.series(TieredBuckets.Tier.MINUTE, today - 2 * DAY, now)).isEmpty();
+
+        // A late event rewrites the file of its closed hour on the next save, replacing what was loaded
+        long late = today - DAY + 30_000;
+        record(buckets, late);
+        buckets.save(directory, now);
+        loaded.load(directory, now);
+        assertThat(loaded.series(TieredBuckets.Tier.HOUR, late, late).get(today - DAY)).contains(late);
+        assertThat(loaded.series(TieredBuckets.Tier.DAY, late, late).get(today - DAY)).contains(late);
+
+        // Once every bucket of a file is past retention, the file goes
+        buckets.save(directory, now + 500 * DAY);
+        assertThat(directory.resolve("HOUR")).isEmptyDirectory();
+        assertThat(directory.resolve("DAY")).isEmptyDirectory();
+    }
+
+    private static final TieredBuckets.Codec<List<Long>> CODEC = new TieredBuckets.Codec<>() {
+        @Override
+        public void write(List<Long> bucket, DataOutput out) throws IOException {
+            out.writeInt(bucket.size());
+            for (long time : bucket) {
+                out.writeLong(time);
+            }
+        }
+
+        @Override
+        public List<Long> read(DataInput in) throws IOException {
+            List<Long> bucket = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                bucket.add(in.readLong());
+            }
+            return bucket;
+        }
+    };
+
+    private void assertCovers(TieredBuckets<List<Long>> buckets, long startMs, long endMs) {
+        long from = Math.floorDiv(startMs, MINUTE) * MINUTE;
+        long to = Math.floorDiv(endMs, MINUTE) * MINUTE + MINUTE;
+        assertThat(flatten(buckets.cover(startMs, endMs))).containsExactlyInAnyOrderElementsOf(between(from, to));
+    }
+
+    private List<Long> between(long from, long to) {
+        return events.stream().filter(time -> time >= from && time < to).toList();
+    }
+
+    private void record(TieredBuckets<List<Long>> buckets, long... times) {
+        for (long time : times) {
+            events.add(time);
+            for (List<Long> bucket : buckets.bucketsFor(time)) {
+                bucket.add(time);
+            }
+        }
+    }
+
+    private static List<Long> flatten(List<List<Long>> buckets) {
+        List<Long> times = new ArrayList<>();
+        buckets.forEach(times::addAll);
+        return times;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.Rum.benchmark;
+
+import com.example.Rum.RumApplication;
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.dto.response.PageSpeedEventResponseDTO;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.repository.KeysetCursor;
+import com.example.Rum.store.EventStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range aggregation and keyset page reads on the JPA (H2) and columnar event stores,
+ * over a week of page speed events.
+ * Run with: mvn -Pbenchmark verify -Dbenchmark=EventStoreScanBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStoreScanBenchmark {
+
+    private static final int EVENTS = 200_000;
+    private static final int DAYS = 7;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 0, 0);
+    private static final String APP = "benchmark";
+
+    @Param({"jpa", "columnar"})
+    private String engine;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private EventStore eventStore;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rum-events");
+        context = new SpringApplicationBuilder(RumApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--rum.store.engine=" + engine,
+                        "--rum.store.columnar.directory=" + directory,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.Rum=WARN");
+        eventStore = context.getBean(EventStore.class);
+
+        long spacingMs = TimeUnit.DAYS.toMillis(DAYS) / EVENTS;
+        List<PageSpeedEvent> chunk = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            PageSpeedEvent event = new PageSpeedEvent();
+            event.setAppKey(APP);
+            event.setSessionId("session-" + (i % 5000));
+            event.setUserId("user-" + (i % 2000));
+            event.setPageUrl("https://example.com/page/" + (i % 50));
+            event.setLoadTime(800.0 + (i % 1700));
+            event.setDomContentLoaded(400.0 + (i % 900));
+            event.setDomInteractive(300.0 + (i % 700));
+            event.setResourceLoadTime(200.0 + (i % 500));
+            event.setFirstPaint(100.0 + (i % 300));
+            event.setEventTimestamp(START.plusNanos(TimeUnit.MILLISECONDS.toNanos(i * spacingMs)));
+            chunk.add(event);
+            if (chunk.size() == 5000) {
+                eventStore.saveAll(PageSpeedEvent.class, chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        eventStore.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics summarizeOneDay() {
+        LocalDateTime start = shiftedStart().plusDays(3);
+        return eventStore.summarizeByTimeRange(PageSpeedEvent.class, APP, "loadTime", start, start.plusDays(1));
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics summarizeWeek() {
+        LocalDateTime start = shiftedStart();
+        return eventStore.summarizeByTimeRange(PageSpeedEvent.class, APP, "loadTime", start, start.plusDays(DAYS));
+    }
+
+    @Benchmark
+    public KeysetPage<PageSpeedEventResponseDTO> pageOf100() {
+        LocalDateTime start = shiftedStart().plusDays(3);
+        return eventStore.findPageByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, APP,
+                start, start.plusDays(1), Map.of(), KeysetCursor.decode(null, start), 100, Set.of("loadTime"));
+    }
+
+    /**
+     * Vary the range by a few milliseconds per call so H2 cannot serve a cached result
+     */
+    private LocalDateTime shiftedStart() {
+        return START.plusNanos(TimeUnit.MILLISECONDS.toNanos(invocation++ % 1000));
+    }
+}
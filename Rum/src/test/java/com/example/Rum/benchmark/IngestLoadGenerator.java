@@ -0,0 +1,115 @@
+package com.example.Rum.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Floods a running instance with SDK flushes from many concurrent connections, the way a burst
+ * of tabs flushing at the same flushIntervalMs boundary does, and reports latency percentiles,
+ * status codes and throughput. Each connection sends its requests back to back.
+ *
+ * Compare platform and virtual threads by starting the app with and without
+ * --spring.threads.virtual.enabled=true, then checking /api/rum/health/runtime for pinning and
+ * connection pool waits. 10k connections need an open-file limit above 20k on a single host.
+ * All connections share one client address, so start the app with --rum.admission.enabled=false
+ * to measure the write path, or leave it on to watch shedding at /api/rum/health/admission.
+ *
+ * Run with: mvn -Ploadtest verify [-Dloadtest.connections=10000 -Dloadtest.requests=10 -Dloadtest.events=50]
+ */
+public final class IngestLoadGenerator {
+
+    private IngestLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI url = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/rum");
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int requestsPerConnection = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int eventsPerRequest = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        byte[] body = new ObjectMapper().writeValueAsBytes(SdkPayloads.mixedBatch(eventsPerRequest));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(120))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        int total = connections * requestsPerConnection;
+        long[] latenciesNs = new long[total];
+        AtomicInteger completed = new AtomicInteger();
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        System.out.printf("%d connections x %d requests of %d events -> %s%n",
+                connections, requestsPerConnection, eventsPerRequest, url);
+        long start = System.nanoTime();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[connections];
+        for (int c = 0; c < connections; c++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int r = 0; r < requestsPerConnection; r++) {
+                chain = chain.thenCompose(ignored -> send(client, request, latenciesNs, completed, outcomes));
+            }
+            workers[c] = chain;
+        }
+        CompletableFuture.allOf(workers).join();
+        long elapsedNs = System.nanoTime() - start;
+
+        int done = completed.get();
+        long[] sorted = Arrays.copyOf(latenciesNs, done);
+        Arrays.sort(sorted);
+        double seconds = elapsedNs / 1e9;
+        System.out.printf("Completed %d requests in %.1f s: %.0f requests/s, %.0f events/s%n",
+                done, seconds, done / seconds, done * (double) eventsPerRequest / seconds);
+        System.out.printf("Latency ms: p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n",
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                percentileMs(sorted, 1.0));
+        new TreeMap<>(outcomes).forEach((outcome, count) -> System.out.printf("  %s: %d%n", outcome, count.sum()));
+    }
+
+    /**
+     * Send one request, recording its latency and status (or failure class); never completes exceptionally
+     * so one failed request does not end its connection's chain
+     */
+    private static CompletableFuture<Void> send(HttpClient client, HttpRequest request, long[] latenciesNs,
+                                                AtomicInteger completed, Map<String, LongAdder> outcomes) {
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latenciesNs[completed.getAndIncrement()] = System.nanoTime() - sent;
+                    String outcome = failure == null
+                            ? "HTTP " + response.statusCode()
+                            : rootCause(failure).getClass().getSimpleName();
+                    outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                    return null;
+                });
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        while (failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    private static double percentileMs(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
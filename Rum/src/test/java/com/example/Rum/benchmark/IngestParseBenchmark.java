@@ -0,0 +1,83 @@
+package com.example.Rum.benchmark;
+
+import com.example.Rum.dto.*;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventStreamReader;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree-based parsing (List<JsonNode> + treeToValue) versus EventStreamReader.
+ * The benchmark profile runs JMH with -prof gc, so gc.alloc.rate.norm gives bytes per batch.
+ * Run with: mvn -Pbenchmark verify -Dbenchmark=IngestParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestParseBenchmark {
+
+    @Param({"50", "5000"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+    private EventStreamReader eventStreamReader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        eventStreamReader = new EventStreamReader(objectMapper);
+        body = objectMapper.writeValueAsBytes(SdkPayloads.mixedBatch(batchSize));
+    }
+
+    @Benchmark
+    public void jsonNodeTree(Blackhole blackhole) throws IOException {
+        List<JsonNode> events = objectMapper.readValue(body, new TypeReference<List<JsonNode>>() { });
+        for (JsonNode event : events) {
+            switch (event.get("type").asText()) {
+                case "webVital":
+                    blackhole.consume(objectMapper.treeToValue(event, WebVitalEventDTO.class));
+                    break;
+                case "error":
+                    blackhole.consume(objectMapper.treeToValue(event, ErrorEventDTO.class));
+                    break;
+                case "pageView":
+                    blackhole.consume(objectMapper.treeToValue(event, PageViewEventDTO.class));
+                    break;
+                case "pageSpeed":
+                    blackhole.consume(objectMapper.treeToValue(event, PageSpeedEventDTO.class));
+                    break;
+                case "engagement":
+                    blackhole.consume(objectMapper.treeToValue(event, EngagementEventDTO.class));
+                    break;
+                case "networkError":
+                    blackhole.consume(objectMapper.treeToValue(event, NetworkErrorEventDTO.class));
+                    break;
+                case "resourcePerformance":
+                    blackhole.consume(objectMapper.treeToValue(event, ResourcePerformanceEventDTO.class));
+                    break;
+                case "userAction":
+                    blackhole.consume(objectMapper.treeToValue(event, UserActionEventDTO.class));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public EventBatch streaming() throws IOException {
+        return eventStreamReader.read(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.Rum.benchmark;
+
+import com.example.Rum.RumApplication;
+import com.example.Rum.dto.WebVitalEventDTO;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.repository.WebVitalEventRepository;
+import com.example.Rum.service.RUMEventService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput through processBatch, the one write path: one event per batch (a
+ * transaction per event) versus all events in one batch (one saveAll), for several
+ * hibernate.jdbc.batch_size settings.
+ * Run with: mvn -Pbenchmark verify -Dbenchmark=InsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    private static final int EVENTS = 500;
+    private static final String APP = "benchmark";
+
+    @Param({"1", "20", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private RUMEventService rumEventService;
+    private WebVitalEventRepository webVitalRepository;
+    private List<EventBatch> singles;
+    private EventBatch batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RumApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line style arguments, so they override application.properties
+                .run("--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.Rum=WARN");
+        rumEventService = context.getBean(RUMEventService.class);
+        webVitalRepository = context.getBean(WebVitalEventRepository.class);
+
+        singles = new ArrayList<>(EVENTS);
+        batch = batch();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < EVENTS; i++) {
+            WebVitalEventDTO.WebVitalData data = new WebVitalEventDTO.WebVitalData("LCP", 1000.0 + i, "good", "navigate");
+            WebVitalEventDTO event = new WebVitalEventDTO("webVital", now + i, "session-" + (i % 50), "user-" + (i % 20),
+                    "https://example.com/page/" + (i % 10), "Mozilla/5.0", data);
+            EventBatch single = batch();
+            add(single, event);
+            singles.add(single);
+            add(batch, event);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTable() {
+        webVitalRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void perEventSave() {
+        for (EventBatch single : singles) {
+            rumEventService.processBatch(single);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void batchSaveAll() {
+        rumEventService.processBatch(batch);
+    }
+
+    private static EventBatch batch() {
+        EventBatch batch = new EventBatch();
+        batch.setAppKey(APP);
+        return batch;
+    }
+
+    private static void add(EventBatch batch, WebVitalEventDTO event) {
+        batch.incrementReceived();
+        batch.add(event);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.Rum.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event batches shaped like the ones RumWrapper.flushEvents sends
+ */
+final class SdkPayloads {
+
+    private static final List<String> CONTEXT_FIELDS = List.of("sessionId", "userId", "pageUrl", "userAgent");
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
+
+    private SdkPayloads() {
+    }
+
+    /**
+     * A mixed batch of the given size with the SDK's relative event-type frequencies
+     */
+    static List<Map<String, Object>> mixedBatch(int size) {
+        List<Map<String, Object>> events = new ArrayList<>(size);
+        long now = 1_760_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            String pageUrl = "https://shop.example.com/products/category-" + (i % 7) + "?ref=home";
+            Map<String, Object> data = new LinkedHashMap<>();
+            String type;
+            switch (i % 10) {
+                case 0:
+                    type = "webVital";
+                    data.put("name", "LCP");
+                    data.put("value", 1800.0 + i);
+                    data.put("rating", "good");
+                    data.put("navigationType", "navigate");
+                    break;
+                case 1:
+                    type = "error";
+                    data.put("message", "TypeError: Cannot read properties of undefined (reading 'price')");
+                    data.put("source", "https://shop.example.com/assets/app.js");
+                    data.put("lineno", 1042);
+                    data.put("colno", 17);
+                    data.put("stack", "TypeError: Cannot read properties of undefined (reading 'price')\n"
+                            + "    at renderCart (https://shop.example.com/assets/app.js:1042:17)\n"
+                            + "    at onClick (https://shop.example.com/assets/app.js:977:5)");
+                    data.put("errorType", "javascript");
+                    data.put("severity", "high");
+                    data.put("breadcrumbs", List.of(
+                            Map.of("timestamp", now, "type", "click", "message", "button#checkout"),
+                            Map.of("timestamp", now + 10, "type", "navigation", "message", "/cart")));
+                    break;
+                case 2:
+                    type = "pageView";
+                    data.put("pagePath", "/products/category-" + (i % 7));
+                    data.put("pageTitle", "Products");
+                    data.put("referrer", "https://www.google.com/");
+                    break;
+                case 3:
+                    type = "pageSpeed";
+                    data.put("loadTime", 2300.5);
+                    data.put("domContentLoaded", 1200.0);
+                    data.put("domInteractive", 900.0);
+                    data.put("resourceLoadTime", 700.0);
+                    data.put("firstPaint", 450.0);
+                    break;
+                case 4:
+                    type = "engagement";
+                    data.put("timeOnPage", 53000);
+                    data.put("scrollDepth", 75);
+                    data.put("interactionCount", 12);
+                    data.put("exitType", "navigation");
+                    break;
+                case 5:
+                    type = "networkError";
+                    data.put("url", "https://api.example.com/cart/items");
+                    data.put("method", "POST");
+                    data.put("statusCode", 503);
+                    data.put("message", "Service Unavailable");
+                    data.put("duration", 812.4);
+                    data.put("errorType", "failed");
+                    break;
+                case 6:
+                case 7:
+                    type = "resourcePerformance";
+                    data.put("url", "https://cdn.example.com/static/js/chunk-" + i + ".js");
+                    data.put("resourceType", "script");
+                    data.put("duration", 120.3);
+                    data.put("transferSize", 20480);
+                    data.put("encodedBodySize", 20000);
+                    data.put("decodedBodySize", 64000);
+                    data.put("cacheHit", false);
+                    break;
+                default:
+                    type = "userAction";
+                    data.put("actionType", "click");
+                    data.put("targetElement", "button");
+                    data.put("targetText", "Add to cart");
+                    data.put("targetId", "add-to-cart");
+                    data.put("targetClass", "btn btn-primary");
+                    data.put("xPath", "/html/body/div[1]/main/section[2]/button[1]");
+                    break;
+            }
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("type", type);
+            event.put("timestamp", now + i);
+            event.put("sessionId", "session-1760000000000-k3j9x2m1p");
+            event.put("userId", "user-1759000000000-a8d7f6s5q");
+            event.put("pageUrl", pageUrl);
+            event.put("userAgent", USER_AGENT);
+            event.put("data", data);
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * The compact envelope RumWrapper.flushEvents sends: the session-level fields of the first
+     * event go to "context" once, and each event keeps only the ones that differ from it
+     */
+    static Map<String, Object> compactBatch(List<Map<String, Object>> events) {
+        Map<String, Object> context = new LinkedHashMap<>();
+        for (String field : CONTEXT_FIELDS) {
+            context.put(field, events.get(0).get(field));
+        }
+        List<Map<String, Object>> compacted = new ArrayList<>(events.size());
+        for (Map<String, Object> event : events) {
+            Map<String, Object> copy = new LinkedHashMap<>(event);
+            for (String field : CONTEXT_FIELDS) {
+                if (context.get(field).equals(copy.get(field))) {
+                    copy.remove(field);
+                }
+            }
+            compacted.add(copy);
+        }
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("context", context);
+        envelope.put("events", compacted);
+        return envelope;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Rum.benchmark;
+
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.wire.ContentDecoder;
+import com.example.Rum.ingest.wire.WireFormat;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.luben.zstd.Zstd;
+import org.openjdk.jmh.annotations.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Size on the wire and server-side decode + parse time of an SDK batch in each format the
+ * ingest endpoint accepts: the plain JSON array, the compact envelope with a shared context,
+ * CBOR, and each compressed with gzip, deflate or zstd. Body sizes are printed at setup.
+ * Run with: mvn -Pbenchmark verify -Dbenchmark=WireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"50", "500"})
+    private int batchSize;
+
+    @Param({"json", "json+gzip", "compact", "compact+gzip", "compact+deflate", "compact+zstd",
+            "cbor", "compact-cbor", "compact-cbor+gzip"})
+    private String format;
+
+    private EventStreamReader eventStreamReader;
+    private ContentDecoder contentDecoder;
+    private WireFormat wireFormat;
+    private String contentEncoding;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        eventStreamReader = new EventStreamReader(objectMapper);
+        contentDecoder = new ContentDecoder();
+
+        List<Map<String, Object>> events = SdkPayloads.mixedBatch(batchSize);
+        String[] parts = format.split("\\+");
+        switch (parts[0]) {
+            case "json":
+                body = objectMapper.writeValueAsBytes(events);
+                wireFormat = WireFormat.JSON;
+                break;
+            case "compact":
+                body = objectMapper.writeValueAsBytes(SdkPayloads.compactBatch(events));
+                wireFormat = WireFormat.JSON;
+                break;
+            case "cbor":
+                body = cborMapper.writeValueAsBytes(events);
+                wireFormat = WireFormat.CBOR;
+                break;
+            case "compact-cbor":
+                body = cborMapper.writeValueAsBytes(SdkPayloads.compactBatch(events));
+                wireFormat = WireFormat.CBOR;
+                break;
+            default:
+                throw new IllegalArgumentException(format);
+        }
+        contentEncoding = parts.length > 1 ? parts[1] : null;
+        if (contentEncoding != null) {
+            body = compress(body, contentEncoding);
+        }
+        System.out.printf("%n%s, %d events: %d bytes on the wire%n", format, batchSize, body.length);
+    }
+
+    @Benchmark
+    public EventBatch decodeAndRead() throws IOException {
+        return eventStreamReader.read(contentDecoder.decode(new ByteArrayInputStream(body), contentEncoding),
+                Long.MAX_VALUE, wireFormat);
+    }
+
+    private static byte[] compress(byte[] body, String coding) throws IOException {
+        if (coding.equals("zstd")) {
+            return Zstd.compress(body, 3);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (var compressed = coding.equals("gzip") ? new GZIPOutputStream(out) : new DeflaterOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.service.RUMEventService;
+import com.example.Rum.tenancy.AppRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writes past an application's own cap wait for that application's slots, so the other
+ * applications still get write slots; writes past the global cap wait whatever their application
+ */
+class EventBatchWriterTest {
+
+    private final RUMEventService rumEventService = mock(RUMEventService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void floodFromOneAppQueuesBehindItself() throws Exception {
+        List<String> writing = blockWrites();
+        EventBatchWriter writer = writer(4, 1);
+
+        List<Future<List<EventFailure>>> busy = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            busy.add(executor.submit(() -> writer.write(batch("busy"))));
+        }
+        await(() -> writer.waitingWrites("busy") == 2);
+        Future<List<EventFailure>> quiet = executor.submit(() -> writer.write(batch("quiet")));
+        await(() -> writing.size() == 2);
+
+        assertThat(writing).containsExactlyInAnyOrder("busy", "quiet");
+        assertThat(writer.waitingWrites("busy")).isEqualTo(2);
+        assertThat(writer.waitingWrites("quiet")).isZero();
+        assertThat(writer.waitingWrites()).isEqualTo(2);
+
+        release.countDown();
+        for (Future<List<EventFailure>> write : busy) {
+            assertThat(write.get(5, TimeUnit.SECONDS)).isEmpty();
+        }
+        assertThat(quiet.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(writer.waitingWrites()).isZero();
+        assertThat(writer.waitingWrites("busy")).isZero();
+    }
+
+    @Test
+    void globalCapHoldsBackEveryApp() throws Exception {
+        List<String> writing = blockWrites();
+        EventBatchWriter writer = writer(2, 2);
+
+        for (String appKey : List.of("shop", "blog", "news")) {
+            executor.submit(() -> writer.write(batch(appKey)));
+        }
+        await(() -> writing.size() == 2 && writer.waitingWrites() == 1);
+
+        assertThat(writing).hasSize(2);
+        // The waiting write holds its app's slot and waits for a global one
+        assertThat(List.of("shop", "blog", "news")).filteredOn(appKey -> writer.waitingWrites(appKey) == 1)
+                .singleElement().isNotIn(writing);
+    }
+
+    /**
+     * Make processBatch record the app key of each write and block until released
+     */
+    private List<String> blockWrites() {
+        List<String> writing = new CopyOnWriteArrayList<>();
+        when(rumEventService.processBatch(any())).thenAnswer(invocation -> {
+            writing.add(invocation.<EventBatch>getArgument(0).getAppKey());
+            release.await();
+            return List.of();
+        });
+        return writing;
+    }
+
+    private EventBatchWriter writer(int maxConcurrentWrites, int maxConcurrentWritesPerApp) {
+        IngestProperties properties = new IngestProperties();
+        properties.setMaxConcurrentWrites(maxConcurrentWrites);
+        properties.setMaxConcurrentWritesPerApp(maxConcurrentWritesPerApp);
+        return new EventBatchWriter(rumEventService, mock(AppRegistry.class), properties);
+    }
+
+    private static EventBatch batch(String appKey) {
+        EventBatch batch = new EventBatch();
+        batch.setAppKey(appKey);
+        return batch;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Rum.ingest;
+
+import com.example.Rum.dto.EngagementEventDTO;
+import com.example.Rum.dto.ErrorEventDTO;
+import com.example.Rum.dto.NetworkErrorEventDTO;
+import com.example.Rum.dto.PageSpeedEventDTO;
+import com.example.Rum.dto.PageViewEventDTO;
+import com.example.Rum.dto.ResourcePerformanceEventDTO;
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.dto.UserActionEventDTO;
+import com.example.Rum.dto.WebVitalEventDTO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Each event of a batch binds to the DTO its "type" names, wherever the property appears in
+ * the event; events of an unknown or missing type, or that fail to bind, are reported as
+ * failures at their request index and the events after them are still read
+ */
+class EventStreamReaderTest {
+
+    private static final String COMMON = "\"timestamp\":1748772000000,\"sessionId\":\"s1\",\"userId\":\"u1\","
+            + "\"pageUrl\":\"https://shop.example/cart\"";
+
+    private final EventStreamReader reader = new EventStreamReader(
+            new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+
+    @Test
+    void everyTypeBindsToItsDto() throws IOException {
+        EventBatch batch = read("["
+                + "{\"type\":\"webVital\"," + COMMON + ",\"data\":{\"name\":\"LCP\",\"value\":2100.5}},"
+                + "{\"type\":\"error\"," + COMMON + ",\"data\":{\"message\":\"x is undefined\"}},"
+                + "{\"type\":\"pageView\"," + COMMON + ",\"data\":{\"pagePath\":\"/cart\"}},"
+                + "{\"type\":\"pageSpeed\"," + COMMON + ",\"data\":{\"loadTime\":1200.0}},"
+                + "{\"type\":\"engagement\"," + COMMON + ",\"data\":{\"timeOnPage\":5000}},"
+                + "{\"type\":\"networkError\"," + COMMON + ",\"data\":{\"url\":\"https://api.example/cart\"}},"
+                + "{\"type\":\"resourcePerformance\"," + COMMON + ",\"data\":{\"url\":\"https://cdn.example/app.js\"}},"
+                // The type after the data: Jackson buffers the event until it finds it
+                + "{" + COMMON + ",\"data\":{\"actionType\":\"click\",\"targetElement\":\"button\"},\"type\":\"userAction\"}"
+                + "]");
+
+        assertThat(batch.getFailures()).isEmpty();
+        assertThat(batch.getReceived()).isEqualTo(8);
+        assertThat(batch.getTypes()).containsExactly(WebVitalEventDTO.class, ErrorEventDTO.class, PageViewEventDTO.class,
+                PageSpeedEventDTO.class, EngagementEventDTO.class, NetworkErrorEventDTO.class,
+                ResourcePerformanceEventDTO.class, UserActionEventDTO.class);
+        assertThat(batch.getAllEvents()).extracting(RumEvent::getType).containsExactly("webVital", "error", "pageView",
+                "pageSpeed", "engagement", "networkError", "resourcePerformance", "userAction");
+        assertThat(batch.getAllEvents()).extracting(RumEvent::getSessionId).containsOnly("s1");
+        assertThat(batch.getEvents(WebVitalEventDTO.class).get(0).getData().getValue()).isEqualTo(2100.5);
+        assertThat(batch.getEvents(ErrorEventDTO.class).get(0).getData().getMessage()).isEqualTo("x is undefined");
+        assertThat(batch.getEvents(UserActionEventDTO.class).get(0).getData().getTargetElement()).isEqualTo("button");
+    }
+
+    @Test
+    void unknownMissingAndInvalidEventsAreReported() throws IOException {
+        EventBatch batch = read("["
+                + "{\"type\":\"heatmap\"," + COMMON + ",\"data\":{\"x\":1}},"
+                + "{" + COMMON + "},"
+                + "{\"type\":\"webVital\"," + COMMON + ",\"data\":{\"name\":\"LCP\",\"value\":\"fast\"}},"
+                + "{\"type\":\"pageView\"," + COMMON + ",\"data\":{\"pagePath\":\"/cart\"}}"
+                + "]");
+
+        assertThat(batch.getReceived()).isEqualTo(4);
+        assertThat(batch.getFailures()).extracting(EventFailure::getIndex, EventFailure::getType)
+                .containsExactly(tuple(0, "heatmap"), tuple(1, null), tuple(2, null));
+        assertThat(batch.getFailures()).extracting(EventFailure::getReason)
+                .startsWith("Unknown event type", "Unknown event type")
+                .last().asString().startsWith("Invalid event:");
+        assertThat(batch.getTypes()).containsExactly(PageViewEventDTO.class);
+        assertThat(batch.requestIndex(PageViewEventDTO.class, 0)).isEqualTo(3);
+    }
+
+    private EventBatch read(String json) throws IOException {
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Rum.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The backlog is counted per application, so one app filling its share of a shared shard
+ * neither raises the backlog of nor refuses the others on that shard
+ */
+class IngestQueueTest {
+
+    @Test
+    void appsSharingAShardHaveBacklogsOfTheirOwn() {
+        IngestProperties properties = new IngestProperties();
+        properties.setShards(1);
+        properties.setQueueCapacity(10);
+        properties.setMaxQueuedBatchesPerApp(4);
+        // Not started: nothing drains the queue
+        IngestQueue queue = new IngestQueue(properties, null, null, null);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(queue.offer(batch("busy"))).isTrue();
+        }
+
+        assertThat(queue.offer(batch("busy"))).isFalse();
+        assertThat(queue.backlog("busy")).isEqualTo(1.0);
+        assertThat(queue.backlog("quiet")).isZero();
+        assertThat(queue.offer(batch("quiet"))).isTrue();
+        assertThat(queue.backlog("quiet")).isEqualTo(0.25);
+        assertThat(queue.size()).isEqualTo(5);
+    }
+
+    private static EventBatch batch(String appKey) {
+        EventBatch batch = new EventBatch();
+        batch.setAppKey(appKey);
+        return batch;
+    }
+}
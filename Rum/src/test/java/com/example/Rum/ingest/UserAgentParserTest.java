@@ -0,0 +1,79 @@
+package com.example.Rum.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Browser, version, OS and device class of common user agents; Chromium-based browsers are
+ * told apart from Chrome, and Chrome from Safari
+ */
+class UserAgentParserTest {
+
+    private final UserAgentParser parser = new UserAgentParser(new IngestProperties());
+
+    @Test
+    void parsesDesktopBrowsers() {
+        assertParsed("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/124.0.0.0 Safari/537.36", "Chrome", "124", "Windows", "desktop");
+        assertParsed("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/124.0.0.0 Safari/537.36 Edg/124.0.2478.51", "Edge", "124", "Windows", "desktop");
+        assertParsed("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/120.0.0.0 Safari/537.36 OPR/106.0.0.0", "Opera", "106", "Windows", "desktop");
+        assertParsed("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+                + "Version/17.4 Safari/605.1.15", "Safari", "17", "macOS", "desktop");
+        assertParsed("Mozilla/5.0 (X11; Linux x86_64; rv:125.0) Gecko/20100101 Firefox/125.0",
+                "Firefox", "125", "Linux", "desktop");
+        assertParsed("Mozilla/5.0 (X11; CrOS x86_64 14541.0.0) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/124.0.0.0 Safari/537.36", "Chrome", "124", "ChromeOS", "desktop");
+    }
+
+    @Test
+    void parsesMobileAndTabletDevices() {
+        assertParsed("Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) AppleWebKit/605.1.15 "
+                + "(KHTML, like Gecko) Version/17.4 Mobile/15E148 Safari/604.1", "Safari", "17", "iOS", "mobile");
+        assertParsed("Mozilla/5.0 (iPad; CPU OS 17_4 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+                + "Version/17.4 Mobile/15E148 Safari/604.1", "Safari", "17", "iOS", "tablet");
+        assertParsed("Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) AppleWebKit/605.1.15 "
+                + "(KHTML, like Gecko) CriOS/124.0.6367.88 Mobile/15E148 Safari/604.1", "Chrome", "124", "iOS", "mobile");
+        assertParsed("Mozilla/5.0 (Linux; Android 14; SM-S918B) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "SamsungBrowser/24.0 Chrome/117.0.0.0 Mobile Safari/537.36", "Samsung Internet", "24", "Android", "mobile");
+        assertParsed("Mozilla/5.0 (Linux; Android 13; SM-X700) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/124.0.0.0 Safari/537.36", "Chrome", "124", "Android", "tablet");
+    }
+
+    @Test
+    void classifiesBotsAndUnknownAgents() {
+        assertParsed("Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+                UserAgentParser.OTHER, null, UserAgentParser.OTHER, "bot");
+        assertParsed("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "HeadlessChrome/124.0.0.0 Safari/537.36", "Chrome", "124", "Linux", "bot");
+        assertParsed("curl/8.5.0", UserAgentParser.OTHER, null, UserAgentParser.OTHER, "desktop");
+        assertThat(parser.parse(null)).isSameAs(UserAgent.NONE);
+        assertThat(parser.parse(" ")).isSameAs(UserAgent.NONE);
+    }
+
+    @Test
+    void cachesParsedAgentsWithinItsBound() {
+        IngestProperties properties = new IngestProperties();
+        properties.setUserAgentCacheSize(2);
+        UserAgentParser small = new UserAgentParser(properties);
+        String firefox = "Mozilla/5.0 (X11; Linux x86_64; rv:125.0) Gecko/20100101 Firefox/125.0";
+
+        UserAgent first = small.parse(firefox);
+
+        assertThat(small.parse(firefox)).isSameAs(first);
+        for (int i = 0; i < 10; i++) {
+            assertThat(small.parse("Agent/" + i).getBrowser()).isEqualTo(UserAgentParser.OTHER);
+        }
+        assertThat(small.parse(firefox).getBrowser()).isEqualTo("Firefox");
+    }
+
+    private void assertParsed(String userAgent, String browser, String version, String os, String deviceType) {
+        UserAgent parsed = parser.parse(userAgent);
+        assertThat(parsed.getBrowser()).as("browser of %s", userAgent).isEqualTo(browser);
+        assertThat(parsed.getBrowserVersion()).as("version of %s", userAgent).isEqualTo(version);
+        assertThat(parsed.getOs()).as("OS of %s", userAgent).isEqualTo(os);
+        assertThat(parsed.getDeviceType()).as("device of %s", userAgent).isEqualTo(deviceType);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.Rum.ingest.admission;
+
+import com.example.Rum.dto.ErrorEventDTO;
+import com.example.Rum.dto.PageViewEventDTO;
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.dto.UserActionEventDTO;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventFailure;
+import com.example.Rum.ingest.IngestProperties;
+import com.example.Rum.ingest.IngestQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 413 for oversized bodies and batches, 429 with Retry-After once a bucket or the backlog is
+ * empty, shedding by priority lane, buckets charged for admitted events only, and the client
+ * address taken from a trusted proxy's header
+ */
+class IngestAdmissionTest {
+
+    private static final String APP = "shop";
+
+    private final AdmissionProperties properties = new AdmissionProperties();
+    private final IngestQueue ingestQueue = mock(IngestQueue.class);
+
+    @Test
+    void refusesOversizedBodiesAndBatchesWith413() throws Exception {
+        properties.setMaxBodyBytes(100);
+        properties.setMaxEventsPerBatch(2);
+        IngestAdmission admission = admission();
+
+        AdmissionRejection declared = admission.admitRequest("1.2.3.4", 101);
+        assertThat(declared.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(declared.getRetryAfterSeconds()).isNull();
+
+        // A body without (or lying about) Content-Length is cut off while read
+        InputStream limited = admission.limit(new ByteArrayInputStream(new byte[101]));
+        assertThatThrownBy(limited::readAllBytes).isInstanceOf(BoundedInputStream.BodyTooLargeException.class);
+        assertThat(admission.bodyTooLarge().getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+        EventBatch batch = batch(pageView("s1"), pageView("s1"), pageView("s1"));
+        AdmissionRejection tooMany = admission.admit(batch, "1.2.3.4");
+        assertThat(tooMany.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(tooMany.getRetryAfterSeconds()).isNull();
+    }
+
+    @Test
+    void emptyAddressBucketAnswers429WithRetryAfter() {
+        properties.setIpLimit(new AdmissionProperties.RateLimit(0.5, 2));
+        IngestAdmission admission = admission();
+
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNull();
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNull();
+        AdmissionRejection refused = admission.admitRequest("1.2.3.4", 10);
+
+        assertThat(refused.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(refused.getRetryAfterSeconds()).isBetween(1L, 2L);
+        // Other clients have buckets of their own
+        assertThat(admission.admitRequest("5.6.7.8", 10)).isNull();
+    }
+
+    @Test
+    void backlogShedsLowThenNormalLanesThenRefuses() {
+        IngestAdmission admission = admission();
+        ErrorEventDTO error = error("s1");
+        PageViewEventDTO pageView = pageView("s1");
+
+        when(ingestQueue.backlog(APP)).thenReturn(0.6);
+        EventBatch low = batch(error, pageView, userAction("s1"));
+        assertThat(admission.admit(low, "1.2.3.4")).isNull();
+        assertThat(low.getAllEvents()).containsExactlyInAnyOrder(error, pageView);
+        assertThat(low.getFailures()).extracting(EventFailure::getReason).containsExactly("Shed: backlog");
+
+        when(ingestQueue.backlog(APP)).thenReturn(0.9);
+        EventBatch normal = batch(error, pageView, userAction("s1"));
+        assertThat(admission.admit(normal, "1.2.3.4")).isNull();
+        assertThat(normal.getAllEvents()).containsExactly(error);
+
+        when(ingestQueue.backlog(APP)).thenReturn(0.9);
+        AdmissionRejection allShed = admission.admit(batch(pageView("s1")), "1.2.3.4");
+        assertThat(allShed.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(allShed.getRetryAfterSeconds()).isEqualTo(2);
+
+        when(ingestQueue.backlog(APP)).thenReturn(1.0);
+        AdmissionRejection full = admission.admit(batch(error("s1")), "1.2.3.4");
+        assertThat(full.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(full.getRetryAfterSeconds()).isEqualTo(2);
+    }
+
+    @Test
+    void eventsShedByTheAppLimitGiveTheirSessionTokensBack() {
+        properties.setSessionLimit(new AdmissionProperties.RateLimit(0.001, 10));
+        properties.setAppLimit(new AdmissionProperties.RateLimit(0.001, 2));
+        IngestAdmission admission = admission();
+
+        // The application pays for the two errors only, so the three user actions are shed
+        EventBatch first = batch(error("s1"), error("s1"), userAction("s1"), userAction("s1"), userAction("s1"));
+        assertThat(admission.admit(first, "1.2.3.4")).isNull();
+        assertThat(first.size()).isEqualTo(2);
+
+        // The session paid for the two admitted events only: eight of its ten tokens are left,
+        // spent here in pairs through applications of their own
+        for (int i = 0; i < 4; i++) {
+            EventBatch pair = batchOf("app" + i, userAction("s1"), userAction("s1"));
+            assertThat(admission.admit(pair, "1.2.3.4")).isNull();
+            assertThat(pair.size()).isEqualTo(2);
+        }
+        AdmissionRejection spent = admission.admit(batchOf("app4", userAction("s1")), "1.2.3.4");
+        assertThat(spent.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void refusedBatchesGiveTheRequestTokenBack() {
+        properties.setIpLimit(new AdmissionProperties.RateLimit(0.001, 1));
+        IngestAdmission admission = admission();
+
+        when(ingestQueue.backlog(APP)).thenReturn(1.0);
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNull();
+        assertThat(admission.admit(batch(error("s1")), "1.2.3.4")).isNotNull();
+
+        when(ingestQueue.backlog(APP)).thenReturn(0.0);
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNull();
+        EventBatch admitted = batch(error("s1"));
+        assertThat(admission.admit(admitted, "1.2.3.4")).isNull();
+        // Refused by a full queue after admission
+        admission.release(admitted, "1.2.3.4");
+
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNull();
+        assertThat(admission.admitRequest("1.2.3.4", 10)).isNotNull();
+    }
+
+    @Test
+    void clientAddressComesFromTrustedProxiesOnly() {
+        properties.setClientAddressHeader("X-Forwarded-For");
+        properties.setTrustedProxies(List.of("10.0.0.1", "10.0.0.2"));
+        IngestAdmission admission = admission();
+
+        assertThat(admission.clientAddress(request("10.0.0.1", "1.2.3.4, 10.0.0.2"))).isEqualTo("1.2.3.4");
+        // The client cannot pick its own bucket by sending the header itself
+        assertThat(admission.clientAddress(request("10.0.0.1", "6.6.6.6, 1.2.3.4"))).isEqualTo("1.2.3.4");
+        assertThat(admission.clientAddress(request("5.5.5.5", "6.6.6.6"))).isEqualTo("5.5.5.5");
+        assertThat(admission.clientAddress(request("10.0.0.1", null))).isEqualTo("10.0.0.1");
+
+        properties.setClientAddressHeader("");
+        assertThat(admission.clientAddress(request("10.0.0.1", "1.2.3.4"))).isEqualTo("10.0.0.1");
+    }
+
+    private IngestAdmission admission() {
+        IngestProperties ingestProperties = new IngestProperties();
+        ingestProperties.setAsync(true);
+        return new IngestAdmission(properties, ingestProperties, ingestQueue, mock(EventBatchWriter.class));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    private static EventBatch batch(RumEvent... events) {
+        return batchOf(APP, events);
+    }
+
+    private static EventBatch batchOf(String appKey, RumEvent... events) {
+        EventBatch batch = new EventBatch();
+        batch.setAppKey(appKey);
+        for (RumEvent event : events) {
+            batch.incrementReceived();
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    private static ErrorEventDTO error(String sessionId) {
+        ErrorEventDTO event = new ErrorEventDTO();
+        event.setType("error");
+        event.setSessionId(sessionId);
+        return event;
+    }
+
+    private static PageViewEventDTO pageView(String sessionId) {
+        PageViewEventDTO event = new PageViewEventDTO();
+        event.setType("pageView");
+        event.setSessionId(sessionId);
+        return event;
+    }
+
+    private static UserActionEventDTO userAction(String sessionId) {
+        UserActionEventDTO event = new UserActionEventDTO();
+        event.setType("userAction");
+        event.setSessionId(sessionId);
+        return event;
+    }
+}
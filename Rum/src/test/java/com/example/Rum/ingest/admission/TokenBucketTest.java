@@ -0,0 +1,41 @@
+package com.example.Rum.ingest.admission;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Refill and Retry-After arithmetic of the token bucket, on a clock the test advances
+ */
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void burstThenSustainedRate() {
+        TokenBucket bucket = new TokenBucket(10, 100, now::get);
+
+        assertThat(bucket.tryAcquire(100)).isTrue();
+        assertThat(bucket.tryAcquire(1)).isFalse();
+        assertThat(bucket.nanosUntil(5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(bucket.tryAcquire(6)).isFalse();
+        assertThat(bucket.tryAcquire(5)).isTrue();
+    }
+
+    @Test
+    void refillStopsAtBurst() {
+        TokenBucket bucket = new TokenBucket(10, 100, now::get);
+        bucket.tryAcquire(50);
+
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryAcquire(101)).isFalse();
+        // A request above the burst waits for a full bucket, not forever
+        bucket.tryAcquire(100);
+        assertThat(bucket.nanosUntil(1000)).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+}
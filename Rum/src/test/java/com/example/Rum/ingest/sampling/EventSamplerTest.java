@@ -0,0 +1,110 @@
+package com.example.Rum.ingest.sampling;
+
+import com.example.Rum.aggregation.DistinctCountStore;
+import com.example.Rum.aggregation.SketchProperties;
+import com.example.Rum.aggregation.TierProperties;
+import com.example.Rum.dto.ErrorEventDTO;
+import com.example.Rum.dto.RumEvent;
+import com.example.Rum.dto.UserActionEventDTO;
+import com.example.Rum.ingest.EventBatch;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Session-consistent sampling, and sample weights that sum to an unbiased estimate of what was sent
+ */
+class EventSamplerTest {
+
+    private static final int SESSIONS = 20_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final DistinctCountStore distinctCounts = new DistinctCountStore(new SketchProperties(), new TierProperties());
+
+    @Test
+    void keepsWholeSessionsAndWeightsThem() {
+        SamplingProperties properties = new SamplingProperties();
+        properties.setEnabled(true);
+        properties.getTypes().put("userAction", 0.1);
+        EventSampler sampler = new EventSampler(properties, distinctCounts);
+
+        EventBatch batch = new EventBatch();
+        batch.setAppKey("test");
+        for (int i = 0; i < SESSIONS; i++) {
+            add(batch, userAction("s" + i));
+            add(batch, userAction("s" + i));
+            add(batch, error("s" + i));
+        }
+        sampler.sample(batch);
+
+        List<UserActionEventDTO> kept = batch.getEvents(UserActionEventDTO.class);
+        Map<String, Integer> perSession = new HashMap<>();
+        double weighted = 0;
+        for (UserActionEventDTO event : kept) {
+            perSession.merge(event.getSessionId(), 1, Integer::sum);
+            weighted += batch.getSampleWeight(event);
+            assertThat(batch.getSampleWeight(event)).isEqualTo(10.0);
+        }
+        assertThat(perSession.values()).allMatch(count -> count == 2);
+        assertThat(weighted).isBetween(2 * SESSIONS * 0.9, 2 * SESSIONS * 1.1);
+        assertThat(batch.getEvents(ErrorEventDTO.class)).hasSize(SESSIONS);
+        assertThat(batch.getFailures()).isEmpty();
+        assertThat(sampler.sampledOut().get("userAction")).isEqualTo(2L * SESSIONS - kept.size());
+
+        // Sessions sampled out are recorded here; kept ones are recorded once written
+        double sampledOutSessions = SESSIONS - perSession.size();
+        assertThat((double) distinctCounts.query("test", NOW, NOW, null).estimateSessions())
+                .isBetween(sampledOutSessions * 0.95, sampledOutSessions * 1.05);
+    }
+
+    @Test
+    void ruleOverridesTypeRateAndDecisionIsStable() {
+        SamplingProperties properties = new SamplingProperties();
+        properties.setEnabled(true);
+        properties.getTypes().put("userAction", 0.0);
+        SamplingProperties.Rule checkout = new SamplingProperties.Rule();
+        checkout.setType("userAction");
+        checkout.setPageUrl("/checkout");
+        properties.getRules().add(checkout);
+        EventSampler sampler = new EventSampler(properties, distinctCounts);
+
+        EventBatch batch = new EventBatch();
+        batch.setAppKey("test");
+        UserActionEventDTO onCheckout = userAction("s1");
+        onCheckout.setPageUrl("https://shop.example/checkout/pay");
+        add(batch, onCheckout);
+        add(batch, userAction("s1"));
+        sampler.sample(batch);
+
+        assertThat(batch.getEvents(UserActionEventDTO.class)).containsExactly(onCheckout);
+        assertThat(batch.getSampleWeight(onCheckout)).isEqualTo(1.0);
+    }
+
+    private static void add(EventBatch batch, RumEvent event) {
+        batch.incrementReceived();
+        batch.add(event);
+    }
+
+    private static UserActionEventDTO userAction(String sessionId) {
+        UserActionEventDTO event = new UserActionEventDTO();
+        event.setType("userAction");
+        event.setTimestamp(NOW);
+        event.setSessionId(sessionId);
+        event.setUserId("u-" + sessionId);
+        event.setPageUrl("https://shop.example/");
+        return event;
+    }
+
+    private static ErrorEventDTO error(String sessionId) {
+        ErrorEventDTO event = new ErrorEventDTO();
+        event.setType("error");
+        event.setTimestamp(NOW);
+        event.setSessionId(sessionId);
+        event.setUserId("u-" + sessionId);
+        event.setPageUrl("https://shop.example/");
+        return event;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.Rum.ingest.wal;
+
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.admission.AdmissionProperties;
+import com.example.Rum.repository.ApplicationRepository;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.tenancy.AppProperties;
+import com.example.Rum.tenancy.AppRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A logged batch the store refuses is moved to the dead-letter file on replay, instead of
+ * failing startup and being replayed again on every start; replay drops events over the
+ * admission size limit as ingest does, and restores logged sample weights as they were
+ */
+class IngestLogReplayTest {
+
+    private static final String GOOD = "shop\n[]\n[{\"type\":\"pageView\",\"timestamp\":1,\"sessionId\":\"s1\"}]";
+    private static final String BAD = "shop\n[]\n[{\"type\":\"pageView\",\"timestamp\":2,\"sessionId\":\"poison\"}]";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final List<String> written = new ArrayList<>();
+    private final Map<String, Double> weights = new LinkedHashMap<>();
+
+    @Test
+    void unwritableRecordIsDeadLetteredAndNotReplayedAgain() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1 << 20)) {
+            wal.append(BAD.getBytes(StandardCharsets.UTF_8));
+            wal.append(GOOD.getBytes(StandardCharsets.UTF_8));
+        }
+
+        IngestLog ingestLog = ingestLog();
+        ingestLog.start();
+        ingestLog.stop();
+
+        assertThat(written).containsExactly("s1");
+        List<String> deadLetters = Files.readAllLines(directory.resolve(IngestLog.DEAD_LETTER_FILE));
+        assertThat(deadLetters).hasSize(1);
+        JsonNode line = objectMapper.readTree(deadLetters.get(0));
+        assertThat(line.get("record").asText()).isEqualTo(BAD);
+        assertThat(line.get("error").asText()).contains("DataIntegrityViolationException");
+
+        written.clear();
+        IngestLog restarted = ingestLog();
+        restarted.start();
+        restarted.stop();
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void replayDropsEventsLargerThanTheAdmissionLimit() throws Exception {
+        String large = "shop\n[]\n[{\"type\":\"pageView\",\"timestamp\":3,\"sessionId\":\"large\",\"data\":{\"pageTitle\":\""
+                + "x".repeat(2048) + "\"}},{\"type\":\"pageView\",\"timestamp\":4,\"sessionId\":\"s2\"}]";
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1 << 20)) {
+            wal.append(large.getBytes(StandardCharsets.UTF_8));
+        }
+
+        IngestLog ingestLog = ingestLog();
+        ingestLog.start();
+        ingestLog.stop();
+
+        assertThat(written).containsExactly("s2");
+    }
+
+    @Test
+    void replayKeepsTheLoggedSampleWeights() throws Exception {
+        IngestLog ingestLog = ingestLog();
+        ingestLog.start();
+        EventBatch batch = new EventStreamReader(objectMapper).read(new ByteArrayInputStream((
+                "[{\"type\":\"userAction\",\"timestamp\":5,\"sessionId\":\"sampled\"},"
+                        + "{\"type\":\"pageView\",\"timestamp\":6,\"sessionId\":\"kept\"},"
+                        + "{\"type\":\"userAction\",\"timestamp\":7,\"sessionId\":\"also-sampled\"}]")
+                .getBytes(StandardCharsets.UTF_8)), 1024);
+        batch.setAppKey("shop");
+        for (var event : batch.getAllEvents()) {
+            if (event.getSessionId().contains("sampled")) {
+                batch.setSampleWeight(event, 4.0);
+            }
+        }
+        ingestLog.append(objectMapper.writeValueAsBytes(batch.getAllEvents()), batch);
+        // Not marked applied: the process dies before the batch is written
+        ingestLog.stop();
+
+        // Replayed as logged, whatever sampling is configured now
+        IngestLog restarted = ingestLog();
+        restarted.start();
+        restarted.stop();
+
+        assertThat(weights).containsExactly(Map.entry("sampled", 4.0), Map.entry("also-sampled", 4.0),
+                Map.entry("kept", 1.0));
+    }
+
+    private IngestLog ingestLog() {
+        WalProperties properties = new WalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+
+        EventBatchWriter writer = mock(EventBatchWriter.class);
+        when(writer.write(any())).thenAnswer(invocation -> {
+            EventBatch batch = invocation.getArgument(0);
+            for (var event : batch.getAllEvents()) {
+                if ("poison".equals(event.getSessionId())) {
+                    throw new DataIntegrityViolationException("value too long");
+                }
+                written.add(event.getSessionId());
+                weights.put(event.getSessionId(), batch.getSampleWeight(event));
+            }
+            return List.of();
+        });
+        AdmissionProperties admission = new AdmissionProperties();
+        admission.setMaxEventBytes(1024);
+        return new IngestLog(properties, new EventStreamReader(objectMapper), writer, mock(EventStore.class),
+                new AppRegistry(mock(ApplicationRepository.class), new AppProperties()), objectMapper, admission);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.Rum.ingest.wal;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Child JVM for WriteAheadLogCrashTest: appends records from several threads until killed,
+ * printing each payload to stdout only after append() has returned
+ */
+public class WalAppenderProcess {
+
+    public static void main(String[] args) throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(Path.of(args[0]), Long.parseLong(args[1]));
+        int threads = Integer.parseInt(args[2]);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; ; i++) {
+                        String payload = "event-" + thread + "-" + i;
+                        wal.append(payload.getBytes(StandardCharsets.UTF_8));
+                        synchronized (System.out) {
+                            System.out.println(payload);
+                            System.out.flush();
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }).start();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Rum.ingest.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kills a JVM that is appending to the log (SIGKILL, no shutdown hooks) and checks that
+ * every record it acknowledged is replayed, and that the log accepts appends afterwards
+ */
+class WriteAheadLogCrashTest {
+
+    private static final int ACKS_BEFORE_KILL = 3000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void acknowledgedRecordsSurviveKill() throws Exception {
+        // Small segments so the kill also exercises rolling
+        Process child = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                WalAppenderProcess.class.getName(),
+                directory.toString(), "16384", "4")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        Set<String> acknowledged = new HashSet<>();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged.size() < ACKS_BEFORE_KILL && (line = out.readLine()) != null) {
+                acknowledged.add(line);
+            }
+            // SIGKILL while the other threads are mid-append
+            child.destroyForcibly();
+        }
+        assertThat(child.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(acknowledged).hasSize(ACKS_BEFORE_KILL);
+
+        List<String> replayed = new ArrayList<>();
+        List<Long> lsns = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 16384)) {
+            wal.replay((lsn, payload) -> {
+                lsns.add(lsn);
+                replayed.add(new String(payload, StandardCharsets.UTF_8));
+            });
+            assertThat(replayed).containsAll(acknowledged);
+            assertThat(lsns).isSorted().doesNotHaveDuplicates();
+
+            long next = wal.append("after-restart".getBytes(StandardCharsets.UTF_8));
+            assertThat(next).isGreaterThan(lsns.get(lsns.size() - 1));
+            wal.markApplied(lsns);
+            wal.markApplied(List.of(next));
+            wal.checkpoint(wal.appliedLsn());
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 16384)) {
+            assertThat(wal.replay((lsn, payload) -> { })).isZero();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Rum.ingest.wire;
+
+import com.example.Rum.dto.EngagementEventDTO;
+import com.example.Rum.dto.PageViewEventDTO;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventStreamReader;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compressed and CBOR bodies decode to the same batch as plain JSON, with the envelope's
+ * context filled into the events that leave it out
+ */
+class ContentDecoderTest {
+
+    private static final String COMPACT = "{\"appKey\":\"shop\",\"events\":["
+            + "{\"type\":\"pageView\",\"timestamp\":1,\"data\":{\"pagePath\":\"/\"}},"
+            + "{\"type\":\"engagement\",\"timestamp\":2,\"pageUrl\":\"https://shop.example.com/cart\"}],"
+            + "\"context\":{\"sessionId\":\"s1\",\"userId\":\"u1\",\"pageUrl\":\"https://shop.example.com/\","
+            + "\"userAgent\":\"Mozilla/5.0\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final EventStreamReader reader = new EventStreamReader(objectMapper);
+    private final ContentDecoder decoder = new ContentDecoder();
+
+    @Test
+    void everyCodingAndFormatReadsTheSameBatch() throws IOException {
+        byte[] json = COMPACT.getBytes(StandardCharsets.UTF_8);
+        byte[] cbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(objectMapper.readValue(json, Map.class));
+
+        assertCompactBatch(read(json, null, WireFormat.JSON));
+        assertCompactBatch(read(gzip(json), "gzip", WireFormat.JSON));
+        assertCompactBatch(read(deflate(json, false), "deflate", WireFormat.JSON));
+        assertCompactBatch(read(deflate(json, true), "deflate", WireFormat.JSON));
+        assertCompactBatch(read(Zstd.compress(json), "zstd", WireFormat.JSON));
+        assertCompactBatch(read(cbor, null, WireFormat.CBOR));
+        // Listed in the order applied: zstd first, then gzip
+        assertCompactBatch(read(gzip(Zstd.compress(cbor)), "zstd, gzip", WireFormat.CBOR));
+    }
+
+    @Test
+    void unknownCodingsAndCorruptBodiesAreRefused() throws IOException {
+        byte[] json = COMPACT.getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> read(json, "br", WireFormat.JSON))
+                .isInstanceOf(ContentDecoder.UnsupportedCodingException.class);
+        assertThatThrownBy(() -> read(json, "gzip", WireFormat.JSON))
+                .isInstanceOf(ContentDecoder.MalformedBodyException.class);
+        byte[] truncated = Arrays.copyOf(gzip(json), 40);
+        assertThatThrownBy(() -> read(truncated, "gzip", WireFormat.JSON))
+                .isInstanceOf(ContentDecoder.MalformedBodyException.class);
+        assertThat(WireFormat.forContentType("application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.forContentType("text/plain;charset=UTF-8")).isEqualTo(WireFormat.JSON);
+    }
+
+    private EventBatch read(byte[] body, String contentEncoding, WireFormat format) throws IOException {
+        return reader.read(decoder.decode(new ByteArrayInputStream(body), contentEncoding), Long.MAX_VALUE, format);
+    }
+
+    private static void assertCompactBatch(EventBatch batch) {
+        assertThat(batch.getAppKey()).isEqualTo("shop");
+        assertThat(batch.size()).isEqualTo(2);
+
+        List<PageViewEventDTO> pageViews = batch.getEvents(PageViewEventDTO.class);
+        PageViewEventDTO pageView = pageViews.get(0);
+        assertThat(pageView.getSessionId()).isEqualTo("s1");
+        assertThat(pageView.getUserId()).isEqualTo("u1");
+        assertThat(pageView.getPageUrl()).isEqualTo("https://shop.example.com/");
+        assertThat(pageView.getUserAgent()).isEqualTo("Mozilla/5.0");
+
+        EngagementEventDTO engagement = batch.getEvents(EngagementEventDTO.class).get(0);
+        assertThat(engagement.getSessionId()).isEqualTo("s1");
+        assertThat(engagement.getPageUrl()).isEqualTo("https://shop.example.com/cart");
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream compressed = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.aggregation.TimeBuckets;
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.dto.response.PageViewEventResponseDTO;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.PageViewEvent;
+import com.example.Rum.service.RUMEventService;
+import com.example.Rum.store.EventStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset pages of a range follow (eventTimestamp, id): rows sharing a timestamp are split
+ * across pages without being skipped or repeated, whatever order they were saved in, and the
+ * stream of the same range yields the rows in the same order
+ */
+@SpringBootTest
+class KeysetPagingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @Autowired
+    private EventStore eventStore;
+    @Autowired
+    private RUMEventService rumEventService;
+
+    @Test
+    void pagesSplitRowsSharingATimestampExactlyOnce() {
+        List<PageViewEvent> events = save("paged", 23);
+        save("paged-other", 6);
+        long startMs = TimeBuckets.epochMillis(START);
+        long endMs = startMs + 60_000;
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<PageViewEventResponseDTO> page = rumEventService.getPageViewsPage("paged", startMs, endMs,
+                    Map.of(), cursor, 4, null);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+            page.getItems().forEach(item -> paged.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = events.stream().map(BaseEntity::getId).toList();
+        assertThat(paged).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(6);
+
+        List<Long> streamed = new ArrayList<>();
+        rumEventService.streamPageViews("paged", startMs, endMs, Map.of(), null, item -> streamed.add(item.getId()));
+        assertThat(streamed).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void cursorOfAnotherFormatIsRefused() {
+        long startMs = TimeBuckets.epochMillis(START);
+        assertThatThrownBy(() -> rumEventService.getPageViewsPage("paged", startMs, startMs + 60_000, Map.of(),
+                "not-a-cursor", 4, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Saves page views five to a timestamp, 250 ms apart, in shuffled order so ids do not follow time
+     * @return the saved events in (eventTimestamp, id) order
+     */
+    private List<PageViewEvent> save(String appKey, int count) {
+        List<PageViewEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PageViewEvent event = new PageViewEvent();
+            event.setAppKey(appKey);
+            event.setSessionId("s" + i);
+            event.setUserId("u" + i);
+            event.setPageUrl("https://shop.example/p" + i);
+            event.setPagePath("/p" + i);
+            event.setEventTimestamp(START.plusNanos(i / 5 * 250_000_000L));
+            events.add(event);
+        }
+        Collections.shuffle(events, new Random(7));
+        List<PageViewEvent> saved = new ArrayList<>(eventStore.saveAll(PageViewEvent.class, events));
+        saved.sort(Comparator.comparing(PageViewEvent::getEventTimestamp).thenComparing(BaseEntity::getId));
+        return saved;
+    }
+}
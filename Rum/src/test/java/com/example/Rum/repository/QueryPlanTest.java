@@ -0,0 +1,198 @@
+package com.example.Rum.repository;
+
+import com.example.Rum.dto.response.ErrorEventResponseDTO;
+import com.example.Rum.dto.response.PageSpeedEventResponseDTO;
+import com.example.Rum.dto.response.PageViewEventResponseDTO;
+import com.example.Rum.dto.response.WebVitalEventResponseDTO;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.EngagementEvent;
+import com.example.Rum.model.ErrorEvent;
+import com.example.Rum.model.NetworkErrorEvent;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.model.PageViewEvent;
+import com.example.Rum.model.ResourcePerformanceEvent;
+import com.example.Rum.model.UserActionEvent;
+import com.example.Rum.model.WebVitalEvent;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.tenancy.AppRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every query the JPA event store and the repositories issue, then asks H2 for the plan
+ * of each captured statement and fails on any that scans a whole table: a query shape that no
+ * longer matches an index shows up here instead of as a slow dashboard.
+ */
+@SpringBootTest(properties = {
+        "rum.store.engine=jpa",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.Rum.repository.QueryPlanTest$Capture"
+})
+class QueryPlanTest {
+
+    private static final Set<String> STATEMENTS = new LinkedHashSet<>();
+
+    // H2 annotates each table of a plan with the index it reads and the condition it reads it by:
+    // "/* PUBLIC.idx_x: col = ?1 */". No condition ("/* PUBLIC.idx_x */", "/* PUBLIC.t.tableScan */")
+    // means every row is read.
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [^*:]+\\.[^*:\\s]+ \\*/");
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+    private static final String APP = "plan-test";
+    private static final List<Class<? extends BaseEntity>> EVENT_TYPES = List.of(WebVitalEvent.class,
+            ErrorEvent.class, PageViewEvent.class, PageSpeedEvent.class, ResourcePerformanceEvent.class,
+            UserActionEvent.class, NetworkErrorEvent.class, EngagementEvent.class);
+
+    @Autowired
+    private EventStore eventStore;
+    @Autowired
+    private ErrorIssueRepository errorIssueRepository;
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+    @Autowired
+    private ApplicationRepository applicationRepository;
+    @Autowired
+    private AppRegistry appRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Collects the SQL of every statement Hibernate prepares
+     */
+    public static class Capture implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @Test
+    void noQueryScansAWholeTable() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            runStoreQueries();
+            runRepositoryQueries();
+            // Retention deletes per registered application
+            appRegistry.register(APP);
+            for (Class<? extends BaseEntity> type : EVENT_TYPES) {
+                eventStore.deleteBefore(type, LocalDate.of(2025, 1, 1));
+            }
+        });
+
+        List<String> statements;
+        synchronized (STATEMENTS) {
+            statements = new ArrayList<>(STATEMENTS);
+        }
+        Map<String, String> fullScans = new LinkedHashMap<>();
+        for (String sql : statements) {
+            if (sql.trim().toLowerCase().startsWith("insert")) {
+                continue;
+            }
+            // Listing every application (one row per site) is meant to read the whole table
+            if (sql.contains("from \"applications\"") && !sql.contains(" where ")) {
+                continue;
+            }
+            String plan = explain(sql);
+            if (FULL_SCAN.matcher(plan).find()) {
+                fullScans.put(sql, plan);
+            }
+        }
+        assertThat(statements).hasSizeGreaterThan(20);
+        assertThat(fullScans).isEmpty();
+    }
+
+    /**
+     * The reads RUMEventServiceImpl and RetentionJob issue through the event store
+     */
+    private void runStoreQueries() {
+        Map<String, String> noFilters = Map.of();
+        Map<String, String> pageFilter = Map.of("pageUrl", "https://example.com/");
+        KeysetCursor first = KeysetCursor.decode(null, START);
+        Map<Class<? extends BaseEntity>, Class<?>> dtos = Map.of(
+                WebVitalEvent.class, WebVitalEventResponseDTO.class,
+                ErrorEvent.class, ErrorEventResponseDTO.class,
+                PageViewEvent.class, PageViewEventResponseDTO.class,
+                PageSpeedEvent.class, PageSpeedEventResponseDTO.class);
+        dtos.forEach((type, dto) -> {
+            for (Map<String, String> filters : List.of(noFilters, pageFilter)) {
+                eventStore.findByTimeRange(type, dto, APP, START, END, filters, null, false);
+                eventStore.findByTimeRange(type, dto, APP, START, END, filters, null, true);
+                eventStore.findPageByTimeRange(type, dto, APP, START, END, filters, first, 10, null);
+                eventStore.streamByTimeRange(type, dto, APP, START, END, filters, null, row -> { });
+            }
+            eventStore.findBySessionId(type, dto, APP, "session", null);
+        });
+        eventStore.findByTimeRange(WebVitalEvent.class, WebVitalEventResponseDTO.class, APP, START, END,
+                Map.of("browser", "Chrome", "deviceType", "mobile"), null, false);
+        eventStore.summarizeByTimeRange(PageSpeedEvent.class, APP, "loadTime", START, END);
+        eventStore.summarizeByTimeRange(WebVitalEvent.class, APP, "value", START, END);
+        // Aggregate rebuild on startup reads every event of each type as entities
+        for (Class<? extends BaseEntity> type : EVENT_TYPES) {
+            eventStore.streamByTimeRange(type, type, APP, START, END, Map.of(), null, row -> { });
+        }
+        // Retention's sweep of unreferenced blobs
+        eventStore.streamByTimeRange(ErrorEvent.class, ErrorEventResponseDTO.class, APP, START, END, Map.of(),
+                Set.of("stackHash", "componentStackHash"), row -> { });
+    }
+
+    /**
+     * The repository queries of the issue store, blob storage and application registry
+     */
+    private void runRepositoryQueries() {
+        errorIssueRepository.findByAppKeyAndFingerprintIn(APP, List.of("fingerprint"));
+        errorIssueRepository.findSeenSince(APP, START, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "occurrences")));
+        errorIssueRepository.findSeenSince(APP, START, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "lastSeen")));
+        contentBlobRepository.findExistingHashes(List.of("hash"));
+        contentBlobRepository.findAllById(List.of("hash"));
+        contentBlobRepository.findHashesCreatedBefore(START);
+        applicationRepository.existsById(APP);
+    }
+
+    /**
+     * H2's plan for the statement; parameters are bound to null, which does not change index choice
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.Rum.service;
+
+import com.example.Rum.controller.RUMEventController;
+import com.example.Rum.dto.common.ApiResponseDTO;
+import com.example.Rum.dto.response.ErrorEventResponseDTO;
+import com.example.Rum.dto.response.WebVitalEventResponseDTO;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventStreamReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Range reads project rows straight into the response DTOs: fields= fills only the properties
+ * asked for besides id and eventTimestamp, error stacks asked for are resolved from the blob
+ * store, the properties left out are absent from the JSON, and an unknown field is a bad request
+ */
+@SpringBootTest
+class FieldProjectionTest {
+
+    private static final long TIMESTAMP = 1_748_772_000_000L;
+    private static final String STACK = "TypeError: x is undefined\n    at app.js:3:7";
+
+    @Autowired
+    private RUMEventService rumEventService;
+    @Autowired
+    private EventBatchWriter eventBatchWriter;
+    @Autowired
+    private EventStreamReader eventStreamReader;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RUMEventController controller;
+
+    private String appKey;
+
+    @BeforeEach
+    void saveEvents() throws Exception {
+        appKey = "projection-" + UUID.randomUUID();
+        String common = "\"timestamp\":" + TIMESTAMP + ",\"sessionId\":\"s1\",\"userId\":\"u1\","
+                + "\"pageUrl\":\"https://shop.example/cart\","
+                + "\"userAgent\":\"Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\"";
+        String json = "["
+                + "{\"type\":\"webVital\"," + common + ",\"data\":{\"name\":\"LCP\",\"value\":2100.5,\"rating\":\"good\"}},"
+                + "{\"type\":\"error\"," + common + ",\"data\":{\"message\":\"x is undefined\",\"source\":\"app.js\","
+                + "\"lineno\":3,\"colno\":7,\"stack\":" + objectMapper.writeValueAsString(STACK) + ",\"errorType\":\"TypeError\"}}"
+                + "]";
+        EventBatch batch = eventStreamReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 65536);
+        batch.setAppKey(appKey);
+        assertThat(eventBatchWriter.write(batch)).isEmpty();
+    }
+
+    @Test
+    void selectedFieldsAreTheOnlyOnesFilled() throws Exception {
+        WebVitalEventResponseDTO vital = single(rumEventService.getWebVitalsByTimeRange(appKey, TIMESTAMP, TIMESTAMP,
+                Map.of(), Set.of("value", "rating")));
+
+        assertThat(vital.getId()).isNotNull();
+        assertThat(vital.getEventTimestamp()).isNotNull();
+        assertThat(vital.getValue()).isEqualTo(2100.5);
+        assertThat(vital.getRating()).isEqualTo("good");
+        assertThat(vital.getMetricName()).isNull();
+        assertThat(vital.getSessionId()).isNull();
+        assertThat(vital.getBrowser()).isNull();
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(vital)).fieldNames())
+                .toIterable().containsExactlyInAnyOrder("id", "value", "rating", "eventTimestamp");
+    }
+
+    @Test
+    void noFieldsSelectsEveryProperty() {
+        WebVitalEventResponseDTO vital = single(rumEventService.getWebVitalsByTimeRange(appKey, TIMESTAMP, TIMESTAMP,
+                Map.of(), null));
+
+        assertThat(vital.getMetricName()).isEqualTo("LCP");
+        assertThat(vital.getSessionId()).isEqualTo("s1");
+        assertThat(vital.getBrowser()).isEqualTo("Firefox");
+        assertThat(vital.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void errorStacksAreReadOnlyWhenAskedFor() {
+        ErrorEventResponseDTO withStack = single(rumEventService.getErrorsByTimeRange(appKey, TIMESTAMP, TIMESTAMP,
+                Map.of(), Set.of("message", "stack")));
+        assertThat(withStack.getMessage()).isEqualTo("x is undefined");
+        assertThat(withStack.getStack()).isEqualTo(STACK);
+        assertThat(withStack.getSource()).isNull();
+        assertThat(withStack.getBreadcrumbs()).isNull();
+
+        ErrorEventResponseDTO withoutStack = single(rumEventService.getErrorsByTimeRange(appKey, TIMESTAMP, TIMESTAMP,
+                Map.of(), Set.of("message")));
+        assertThat(withoutStack.getMessage()).isEqualTo("x is undefined");
+        assertThat(withoutStack.getStack()).isNull();
+        assertThat(withoutStack.getStackHash()).isNull();
+    }
+
+    @Test
+    void unknownFieldIsRefused() {
+        Throwable thrown = catchThrowable(() -> rumEventService.getWebVitalsByTimeRange(appKey, TIMESTAMP, TIMESTAMP,
+                Map.of(), Set.of("value", "stack")));
+
+        assertThat(thrown).hasMessageStartingWith("Unknown field 'stack'")
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+        ResponseEntity<ApiResponseDTO<Void>> response = controller.handleBadRequest((RuntimeException) thrown);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getError()).startsWith("Unknown field 'stack'");
+    }
+
+    private static <D> D single(List<D> rows) {
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.Rum.service;
+
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventFailure;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.ingest.IngestProperties;
+import com.example.Rum.ingest.IngestQueue;
+import com.example.Rum.ingest.admission.AdmissionProperties;
+import com.example.Rum.ingest.wal.IngestLog;
+import com.example.Rum.ingest.wal.WalProperties;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.EngagementEvent;
+import com.example.Rum.model.ErrorEvent;
+import com.example.Rum.model.NetworkErrorEvent;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.model.PageViewEvent;
+import com.example.Rum.model.ResourcePerformanceEvent;
+import com.example.Rum.model.TrackedEvent;
+import com.example.Rum.model.UserActionEvent;
+import com.example.Rum.model.WebVitalEvent;
+import com.example.Rum.store.EventStore;
+import com.example.Rum.tenancy.AppRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A mixed SDK batch is written in one transaction: every event type reaches its handler and
+ * its table, the aggregates see the events only once the transaction commits, and a failure
+ * part-way through rolls back the types already saved, after which the ingest queue moves the
+ * batch to the write-ahead log's dead-letter file
+ */
+@SpringBootTest(properties = {
+        "rum.store.engine=jpa",
+        "rum.aggregation.directory=",
+        "rum.aggregation.rebuild-on-startup=false"
+})
+class ProcessBatchTest {
+
+    private static final List<Class<? extends BaseEntity>> EVENT_TYPES = List.of(WebVitalEvent.class,
+            ErrorEvent.class, PageViewEvent.class, PageSpeedEvent.class, EngagementEvent.class,
+            NetworkErrorEvent.class, ResourcePerformanceEvent.class, UserActionEvent.class);
+    // An hour ago, whole minutes, so the buckets are current and no expiry sweep drops them
+    private static final long TIMESTAMP = (System.currentTimeMillis() - 3_600_000) / 60_000 * 60_000;
+    private static final LocalDateTime FIRST = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime LAST = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+    @Autowired
+    private RUMEventService rumEventService;
+    @Autowired
+    private EventBatchWriter eventBatchWriter;
+    @Autowired
+    private EventStreamReader eventStreamReader;
+    @Autowired
+    private AppRegistry appRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private Environment environment;
+    @MockitoSpyBean
+    private EventStore eventStore;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mixedBatchReachesEveryHandler() throws Exception {
+        List<EventFailure> failures = eventBatchWriter.write(batch("mixed"));
+
+        assertThat(failures).extracting(EventFailure::getReason).isEmpty();
+        for (Class<? extends BaseEntity> type : EVENT_TYPES) {
+            assertThat(stored(type, "mixed")).as(type.getSimpleName()).hasSize(1);
+        }
+        Map<String, Object> stats = dashboardStats("mixed");
+        assertThat(stats).containsEntry("totalPageViews", 1L).containsEntry("totalErrors", 1L)
+                .containsEntry("avgPageLoadTime", 1200.0).containsEntry("uniqueSessions", 1L);
+        assertThat(rumEventService.getWebVitalPercentiles("mixed", TIMESTAMP, TIMESTAMP, "LCP", Map.of(), null))
+                .singleElement().satisfies(row -> assertThat(row).containsEntry("count", 1L));
+        assertThat(rumEventService.getEngagementSummary("mixed", TIMESTAMP, TIMESTAMP, null))
+                .allSatisfy(row -> assertThat(row).containsEntry("count", 1L));
+        assertThat(rumEventService.getNetworkErrorSummary("mixed", TIMESTAMP, TIMESTAMP, Map.of()))
+                .singleElement().satisfies(row -> assertThat(row).containsEntry("count", 1L));
+        assertThat(rumEventService.getTopIssues("mixed", null, 10, "occurrences")).hasSize(1);
+    }
+
+    @Test
+    void aggregatesSeeTheEventsOnlyOnceCommitted() throws Exception {
+        EventBatch committed = batch("committed");
+        appRegistry.register("committed");
+        transactionTemplate.executeWithoutResult(status -> {
+            rumEventService.processBatch(committed);
+            assertThat(dashboardStats("committed")).containsEntry("totalPageViews", 0L);
+        });
+        assertThat(dashboardStats("committed")).containsEntry("totalPageViews", 1L);
+
+        EventBatch rolledBack = batch("rolled-back");
+        appRegistry.register("rolled-back");
+        transactionTemplate.executeWithoutResult(status -> {
+            rumEventService.processBatch(rolledBack);
+            status.setRollbackOnly();
+        });
+        assertThat(dashboardStats("rolled-back")).containsEntry("totalPageViews", 0L).containsEntry("uniqueSessions", 0L);
+        assertThat(stored(WebVitalEvent.class, "rolled-back")).isEmpty();
+    }
+
+    @Test
+    void failurePartWayRollsBackTheBatchAndDeadLettersIt() throws Exception {
+        // Web vitals and errors come first in the batch and are saved before page views fail
+        doAnswer(invocation -> {
+            List<? extends TrackedEvent> events = invocation.getArgument(1);
+            if ("failing".equals(events.get(0).getAppKey())) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return invocation.callRealMethod();
+        }).when(eventStore).saveAll(eq(PageViewEvent.class), any());
+
+        assertThatThrownBy(() -> eventBatchWriter.write(batch("failing"))).isInstanceOf(DataIntegrityViolationException.class);
+        for (Class<? extends BaseEntity> type : EVENT_TYPES) {
+            assertThat(stored(type, "failing")).as(type.getSimpleName()).isEmpty();
+        }
+        assertThat(dashboardStats("failing")).containsEntry("totalErrors", 0L).containsEntry("uniqueSessions", 0L);
+
+        // Through the queue the batch was already acknowledged, so it is dead-lettered, not rethrown
+        IngestLog ingestLog = ingestLog();
+        ingestLog.start();
+        IngestProperties properties = new IngestProperties();
+        properties.setAsync(true);
+        properties.setShards(1);
+        IngestQueue queue = new IngestQueue(properties, eventBatchWriter, ingestLog, environment);
+        EventBatch batch = batch("failing");
+        ingestLog.append(objectMapper.writeValueAsBytes(batch.getAllEvents()), batch);
+        queue.start();
+        assertThat(queue.offer(batch)).isTrue();
+        queue.stop();
+        ingestLog.stop();
+
+        List<String> deadLetters = Files.readAllLines(directory.resolve("dead-letter.ndjson"));
+        assertThat(deadLetters).hasSize(1);
+        JsonNode line = objectMapper.readTree(deadLetters.get(0));
+        assertThat(line.get("error").asText()).contains("value too long");
+        assertThat(line.get("record").asText()).startsWith("failing\n[]\n").contains("\"sessionId\":\"s-failing\"");
+        for (Class<? extends BaseEntity> type : EVENT_TYPES) {
+            assertThat(stored(type, "failing")).as(type.getSimpleName()).isEmpty();
+        }
+    }
+
+    /**
+     * One event of every type, in the order an SDK flush would send them
+     */
+    private EventBatch batch(String appKey) throws Exception {
+        String common = "\"timestamp\":" + TIMESTAMP + ",\"sessionId\":\"s-" + appKey + "\",\"userId\":\"u1\","
+                + "\"pageUrl\":\"https://shop.example/cart\"";
+        String agent = ",\"userAgent\":\"Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\"";
+        String json = "["
+                + "{\"type\":\"webVital\"," + common + agent + ",\"data\":{\"name\":\"LCP\",\"value\":2100.5,\"rating\":\"good\"}},"
+                + "{\"type\":\"error\"," + common + agent + ",\"data\":{\"message\":\"x is undefined\",\"source\":\"app.js\","
+                + "\"lineno\":3,\"colno\":7,\"stack\":\"TypeError: x is undefined\\n    at app.js:3:7\",\"errorType\":\"TypeError\"}},"
+                + "{\"type\":\"pageView\"," + common + agent + ",\"data\":{\"pagePath\":\"/cart\",\"pageTitle\":\"Cart\"}},"
+                + "{\"type\":\"pageSpeed\"," + common + ",\"data\":{\"loadTime\":1200.0,\"domContentLoaded\":800.0,"
+                + "\"domInteractive\":700.0,\"resourceLoadTime\":300.0}},"
+                + "{\"type\":\"engagement\"," + common + ",\"data\":{\"timeOnPage\":5000,\"scrollDepth\":60,\"interactionCount\":4}},"
+                + "{\"type\":\"networkError\"," + common + agent + ",\"data\":{\"url\":\"https://api.example/cart\",\"method\":\"GET\","
+                + "\"statusCode\":503,\"message\":\"Service Unavailable\",\"duration\":250.0,\"errorType\":\"failed\"}},"
+                + "{\"type\":\"resourcePerformance\"," + common + ",\"data\":{\"url\":\"https://cdn.example/app.js\",\"resourceType\":\"script\",\"duration\":90.0,\"transferSize\":2048,\"encodedBodySize\":2000,\"decodedBodySize\":6000,\"cacheHit\":false}},"
+                + "{\"type\":\"userAction\"," + common + ",\"data\":{\"actionType\":\"click\",\"targetElement\":\"button\",\"targetId\":\"checkout\"}}"
+                + "]";
+        EventBatch batch = eventStreamReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 65536);
+        batch.setAppKey(appKey);
+        assertThat(batch.getFailures()).isEmpty();
+        return batch;
+    }
+
+    private Map<String, Object> dashboardStats(String appKey) {
+        return rumEventService.getDashboardStats(appKey, TIMESTAMP, TIMESTAMP);
+    }
+
+    private <E extends BaseEntity> List<E> stored(Class<E> type, String appKey) {
+        return eventStore.findByTimeRange(type, type, appKey, FIRST, LAST, Map.of(), null, false);
+    }
+
+    private IngestLog ingestLog() {
+        WalProperties properties = new WalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        return new IngestLog(properties, eventStreamReader, eventBatchWriter, eventStore, appRegistry, objectMapper,
+                new AdmissionProperties());
+    }
+}
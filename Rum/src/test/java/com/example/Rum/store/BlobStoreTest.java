@@ -0,0 +1,113 @@
+package com.example.Rum.store;
+
+import com.example.Rum.model.ContentBlob;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Texts are stored once and read back; a sweep deletes only the old blobs that no event
+ * references and ingest has not reused within the grace period
+ */
+class BlobStoreTest {
+
+    private final Map<String, ContentBlob> blobs = new HashMap<>();
+
+    @Test
+    void storesEachDistinctTextOnce() {
+        BlobStore store = new BlobStore(new MapStorage(), properties());
+        String stack = "TypeError: x\n    at f (https://shop.example.com/app.js:1:2)\n".repeat(20);
+
+        List<String> hashes = store.putAll(Arrays.asList(stack, null, stack));
+
+        assertThat(hashes.get(0)).hasSize(22).isEqualTo(hashes.get(2));
+        assertThat(hashes.get(1)).isNull();
+        assertThat(blobs).hasSize(1);
+        assertThat(blobs.get(hashes.get(0)).isCompressed()).isTrue();
+        assertThat(new BlobStore(new MapStorage(), properties()).getAll(hashes)).containsEntry(hashes.get(0), stack);
+    }
+
+    @Test
+    void deletesOnlyUnreferencedBlobsPastTheGracePeriod() {
+        String referenced = BlobStore.hash("referenced");
+        String orphan = BlobStore.hash("orphan");
+        String reused = BlobStore.hash("reused");
+        String fresh = BlobStore.hash("fresh");
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+        for (String text : List.of("referenced", "orphan", "reused")) {
+            blob(BlobStore.hash(text), text, old);
+        }
+        blob(fresh, "fresh", LocalDateTime.now());
+
+        BlobStore store = new BlobStore(new MapStorage(), properties());
+        // Reused by an event that is not visible to the sweep yet
+        store.putAll(List.of("reused"));
+
+        int deleted = store.deleteUnreferenced(() -> Set.of(referenced));
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(blobs).containsOnlyKeys(referenced, reused, fresh);
+        assertThat(store.getAll(List.of(orphan))).isEmpty();
+        // Stored again once an event carries it after the sweep
+        store.putAll(List.of("orphan"));
+        assertThat(blobs).containsKey(orphan);
+    }
+
+    private void blob(String hash, String text, LocalDateTime createdAt) {
+        ContentBlob blob = new ContentBlob();
+        blob.setHash(hash);
+        blob.setContent(text.getBytes());
+        blob.setSize(text.length());
+        blob.setCreatedAt(createdAt);
+        blobs.put(hash, blob);
+    }
+
+    private static BlobProperties properties() {
+        BlobProperties properties = new BlobProperties();
+        properties.setUnreferencedGrace(Duration.ofHours(1));
+        return properties;
+    }
+
+    private final class MapStorage implements BlobStorage {
+
+        @Override
+        public Set<String> findExisting(Collection<String> hashes) {
+            Set<String> existing = new HashSet<>(hashes);
+            existing.retainAll(blobs.keySet());
+            return existing;
+        }
+
+        @Override
+        public void insert(List<ContentBlob> inserted) {
+            inserted.forEach(blob -> blobs.put(blob.getHash(), blob));
+        }
+
+        @Override
+        public List<ContentBlob> findAll(Collection<String> hashes) {
+            List<ContentBlob> found = new ArrayList<>();
+            hashes.stream().map(blobs::get).filter(Objects::nonNull).forEach(found::add);
+            return found;
+        }
+
+        @Override
+        public List<String> findCreatedBefore(LocalDateTime time) {
+            return blobs.values().stream().filter(blob -> blob.getCreatedAt().isBefore(time)).map(ContentBlob::getHash).toList();
+        }
+
+        @Override
+        public void delete(Collection<String> hashes) {
+            hashes.forEach(blobs::remove);
+        }
+    }
+}
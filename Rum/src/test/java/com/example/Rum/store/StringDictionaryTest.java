@@ -0,0 +1,103 @@
+package com.example.Rum.store;
+
+import com.example.Rum.dto.response.PageViewEventResponseDTO;
+import com.example.Rum.model.PageViewEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Dictionary-encoded attributes are stored as int ids and read back as the original strings;
+ * equal strings share an id, filters on a string never sent match nothing without adding an
+ * entry, and entries evicted from the cache are read back from the table
+ */
+@SpringBootTest
+class StringDictionaryTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @Autowired
+    private StringDictionary dictionary;
+    @Autowired
+    private EventStore eventStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void encodedAttributesRoundTripThroughTheirIds() {
+        String appKey = "dictionary-" + UUID.randomUUID();
+        String pageUrl = "https://shop.example/" + UUID.randomUUID() + "?utm_source=newsletter";
+        List<PageViewEvent> saved = eventStore.saveAll(PageViewEvent.class,
+                List.of(pageView(appKey, pageUrl, "s1"), pageView(appKey, pageUrl, "s2")));
+
+        List<Integer> stored = jdbcTemplate.queryForList(
+                "SELECT \"page_url\" FROM \"page_view_events\" WHERE \"app_key\" = ? ORDER BY \"id\"", Integer.class, appKey);
+        assertThat(stored).containsExactly(dictionary.lookup(pageUrl), dictionary.lookup(pageUrl));
+        assertThat(dictionary.decode(stored.get(0))).isEqualTo(pageUrl);
+
+        List<PageViewEventResponseDTO> read = eventStore.findByTimeRange(PageViewEvent.class, PageViewEventResponseDTO.class,
+                appKey, TIMESTAMP, TIMESTAMP, Map.of("pageUrl", pageUrl), null, false);
+        assertThat(read).extracting(PageViewEventResponseDTO::getId)
+                .containsExactly(saved.get(0).getId(), saved.get(1).getId());
+        assertThat(read).extracting(PageViewEventResponseDTO::getPageUrl).containsOnly(pageUrl);
+        assertThat(read).extracting(PageViewEventResponseDTO::getReferrer).containsOnlyNulls();
+    }
+
+    @Test
+    void filterOnAStringNeverSentMatchesNothingAndAddsNoEntry() {
+        String appKey = "dictionary-" + UUID.randomUUID();
+        eventStore.saveAll(PageViewEvent.class, List.of(pageView(appKey, "https://shop.example/cart", "s1")));
+        String neverSent = "https://shop.example/" + UUID.randomUUID();
+        int entries = entries();
+
+        assertThat(eventStore.findByTimeRange(PageViewEvent.class, PageViewEventResponseDTO.class, appKey,
+                TIMESTAMP, TIMESTAMP, Map.of("pageUrl", neverSent), null, false)).isEmpty();
+        assertThat(dictionary.lookup(neverSent)).isNull();
+        assertThat(entries()).isEqualTo(entries);
+    }
+
+    @Test
+    void equalStringsShareAnIdAndEvictedEntriesAreReadBack() {
+        StoreProperties properties = new StoreProperties();
+        properties.getDictionary().setCacheSize(2);
+        StringDictionary small = new StringDictionary(jdbcTemplate, transactionManager, properties);
+        List<String> texts = List.of("a-" + UUID.randomUUID(), "b-" + UUID.randomUUID(), "c-" + UUID.randomUUID());
+
+        List<Integer> ids = texts.stream().map(small::encode).toList();
+
+        assertThat(ids).doesNotHaveDuplicates().doesNotContain(StringDictionary.UNKNOWN_ID);
+        assertThat(texts.stream().map(small::encode).toList()).isEqualTo(ids);
+        assertThat(ids.stream().map(small::decode).toList()).isEqualTo(texts);
+        // The shared dictionary sees the entries the other instance added
+        assertThat(dictionary.lookup(texts.get(0))).isEqualTo(ids.get(0));
+        assertThatThrownBy(() -> small.decode(Integer.MAX_VALUE)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> small.encode("x".repeat(StringDictionary.MAX_LENGTH + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private int entries() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"string_dictionary\"", Integer.class);
+    }
+
+    private static PageViewEvent pageView(String appKey, String pageUrl, String sessionId) {
+        PageViewEvent event = new PageViewEvent();
+        event.setAppKey(appKey);
+        event.setSessionId(sessionId);
+        event.setUserId("u1");
+        event.setPageUrl(pageUrl);
+        event.setPagePath("/cart");
+        event.setEventTimestamp(TIMESTAMP);
+        return event;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.Rum.store.columnar;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Delta-varint and Gorilla blocks decode to exactly what was encoded, bit for bit, including
+ * negative deltas, extreme and special values, and empty blocks
+ */
+class ColumnCodecTest {
+
+    @Test
+    void deltasRoundTripNegativeAndExtremeValues() {
+        long[] values = {5, 3, -7, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, -1, 1_700_000_000_000_000L, 1_699_999_999_999_999L};
+
+        assertThat(roundTripDeltas(values)).containsExactly(values);
+    }
+
+    @Test
+    void sortedDeltasTakeOneByteEach() {
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1_000_000 + i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnCodec.writeDeltas(out, ids, ids.length);
+
+        // The first value is a full varint, every later delta of 1 is one byte
+        assertThat(out.size()).isEqualTo(3 + ids.length - 1);
+    }
+
+    @Test
+    void doublesRoundTripBitExactIncludingSpecialValues() {
+        double[] special = {1.5, 1.5, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, 1e-300, 123.456, 123.456, Double.NaN, 42};
+        assertBitExact(special);
+
+        Random random = new Random(7);
+        double[] mixed = new double[5000];
+        for (int i = 0; i < mixed.length; i++) {
+            // Slowly changing timings with repeats, and occasional jumps in magnitude
+            mixed[i] = i % 10 == 0 ? random.nextDouble() * Math.pow(10, random.nextInt(20) - 10)
+                    : i % 3 == 0 ? mixed[i - 1] : Math.round(random.nextGaussian() * 50 + 800) / 10.0;
+        }
+        assertBitExact(mixed);
+    }
+
+    @Test
+    void repeatedDoublesCostOneBitEach() {
+        double[] values = new double[800];
+        Arrays.fill(values, 2500.0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnCodec.writeDoubles(out, values, values.length);
+
+        assertThat(out.size()).isEqualTo(8 + (values.length - 1 + 7) / 8);
+    }
+
+    @Test
+    void emptyBlocksDecodeToEmptyArrays() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnCodec.writeDeltas(out, new long[0], 0);
+        ColumnCodec.writeDoubles(out, new double[0], 0);
+
+        assertThat(out.size()).isZero();
+        assertThat(ColumnCodec.readDeltas(ByteBuffer.allocate(0), 0)).isEmpty();
+        assertThat(ColumnCodec.readDoubles(ByteBuffer.allocate(0), 0)).isEmpty();
+    }
+
+    @Test
+    void timestampsRoundTripAtMicrosecondPrecision() {
+        for (LocalDateTime time : new LocalDateTime[]{
+                LocalDateTime.of(2026, 10, 17, 23, 59, 59, 999_999_000),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1_000),
+                LocalDateTime.of(1970, 1, 1, 0, 0)}) {
+            assertThat(ColumnCodec.fromMicros(ColumnCodec.toMicros(time))).isEqualTo(time);
+        }
+        assertThat(ColumnCodec.toMicros(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000))).isEqualTo(-1);
+    }
+
+    private static long[] roundTripDeltas(long[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnCodec.writeDeltas(out, values, values.length);
+        return ColumnCodec.readDeltas(ByteBuffer.wrap(out.toByteArray()), values.length);
+    }
+
+    private static void assertBitExact(double[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnCodec.writeDoubles(out, values, values.length);
+        double[] decoded = ColumnCodec.readDoubles(ByteBuffer.wrap(out.toByteArray()), values.length);
+        assertThat(decoded).hasSize(values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded[i])).as("value %d (%s)", i, values[i])
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+}
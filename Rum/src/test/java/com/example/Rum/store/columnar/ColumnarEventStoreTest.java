@@ -0,0 +1,208 @@
+package com.example.Rum.store.columnar;
+
+import com.example.Rum.dto.common.KeysetPage;
+import com.example.Rum.dto.response.PageSpeedEventResponseDTO;
+import com.example.Rum.model.BaseEntity;
+import com.example.Rum.model.PageSpeedEvent;
+import com.example.Rum.repository.ApplicationRepository;
+import com.example.Rum.repository.KeysetCursor;
+import com.example.Rum.store.StoreProperties;
+import com.example.Rum.tenancy.AppProperties;
+import com.example.Rum.tenancy.AppRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Range reads come back in (eventTimestamp, id) order whether rows sit in sealed segments or
+ * the buffer; keyset pages visit rows sharing a timestamp exactly once; summaries match the
+ * rows of their range; and retention drops whole day partitions
+ */
+class ColumnarEventStoreTest {
+
+    private static final String APP = "shop";
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 15);
+    private static final LocalDateTime START = DAY.atStartOfDay();
+    private static final LocalDateTime END = DAY.plusDays(5).atStartOfDay();
+
+    @TempDir
+    Path directory;
+
+    private final List<ColumnarEventStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void stop() {
+        stores.forEach(ColumnarEventStore::stop);
+    }
+
+    @Test
+    void rangeReadsAreOrderedAcrossSegmentsAndBuffer() {
+        ColumnarEventStore store = store();
+        List<PageSpeedEvent> events = save(store, events(APP, 40));
+
+        List<Long> expected = new ArrayList<>(ids(events));
+        assertThat(ids(store.findByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, APP,
+                START, END, Map.of(), null, false))).containsExactlyElementsOf(expected);
+        Collections.reverse(expected);
+        assertThat(ids(store.findByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, APP,
+                START, END, Map.of(), null, true))).containsExactlyElementsOf(expected);
+
+        // Projected columns only, and filters on dictionary-encoded strings
+        List<PageSpeedEventResponseDTO> filtered = store.findByTimeRange(PageSpeedEvent.class,
+                PageSpeedEventResponseDTO.class, APP, START, END, Map.of("pageUrl", "https://shop.example/p1"),
+                Set.of("loadTime"), false);
+        assertThat(filtered).isNotEmpty().allSatisfy(dto -> {
+            assertThat(dto.getPageUrl()).isNull();
+            assertThat(dto.getLoadTime()).isNotNull();
+            assertThat(dto.getEventTimestamp()).isNotNull();
+        });
+        assertThat(ids(filtered)).containsExactlyElementsOf(ids(events.stream()
+                .filter(event -> event.getPageUrl().endsWith("/p1")).toList()));
+    }
+
+    @Test
+    void keysetPagesVisitRowsSharingATimestampOnce() {
+        ColumnarEventStore store = store();
+        List<PageSpeedEvent> events = save(store, events(APP, 43));
+
+        // Five rows share each timestamp, so most pages of four end inside a group of equal timestamps
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<PageSpeedEventResponseDTO> page = store.findPageByTimeRange(PageSpeedEvent.class,
+                    PageSpeedEventResponseDTO.class, APP, START, END, Map.of(), KeysetCursor.decode(cursor, START), 4, null);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+            paged.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(ids(events));
+        assertThat(pages).isEqualTo(11);
+    }
+
+    @Test
+    void summaryMatchesTheRowsOfItsRange() {
+        ColumnarEventStore store = store();
+        List<PageSpeedEvent> events = save(store, events(APP, 60));
+        // Cuts a sealed segment in two, and takes the buffered rows up to its end
+        LocalDateTime start = START.plusHours(12).plusSeconds(3);
+        LocalDateTime end = START.plusDays(1).plusHours(12).plusSeconds(7);
+
+        for (String attribute : List.of("loadTime", "firstPaint")) {
+            DoubleSummaryStatistics expected = events.stream()
+                    .filter(event -> !event.getEventTimestamp().isBefore(start) && !event.getEventTimestamp().isAfter(end))
+                    .map(event -> "loadTime".equals(attribute) ? event.getLoadTime() : event.getFirstPaint())
+                    .filter(Objects::nonNull)
+                    .mapToDouble(Double::doubleValue)
+                    .summaryStatistics();
+            DoubleSummaryStatistics actual = store.summarizeByTimeRange(PageSpeedEvent.class, APP, attribute, start, end);
+
+            assertThat(actual.getCount()).as(attribute).isEqualTo(expected.getCount()).isPositive();
+            assertThat(actual.getSum()).as(attribute).isEqualTo(expected.getSum());
+            assertThat(actual.getMin()).as(attribute).isEqualTo(expected.getMin());
+            assertThat(actual.getMax()).as(attribute).isEqualTo(expected.getMax());
+        }
+        assertThat(store.summarizeByTimeRange(PageSpeedEvent.class, "other", "loadTime", START, END).getCount()).isZero();
+    }
+
+    @Test
+    void retentionDropsWholeDayPartitionsOfEveryApplication() {
+        ColumnarEventStore store = store();
+        List<PageSpeedEvent> shop = save(store, events(APP, 30));
+        List<PageSpeedEvent> blog = save(store, events("blog", 12));
+        store.flush();
+        LocalDate firstKept = DAY.plusDays(1);
+        long expired = shop.stream().filter(event -> event.getEventTimestamp().toLocalDate().isBefore(firstKept)).count()
+                + blog.stream().filter(event -> event.getEventTimestamp().toLocalDate().isBefore(firstKept)).count();
+
+        assertThat(store.deleteBefore(PageSpeedEvent.class, firstKept)).isEqualTo(expired).isPositive();
+
+        assertThat(directory.resolve(APP).resolve("PageSpeedEvent").resolve(DAY.toString())).doesNotExist();
+        assertThat(directory.resolve("blog").resolve("PageSpeedEvent").resolve(DAY.toString())).doesNotExist();
+        List<Long> kept = ids(shop.stream().filter(event -> !event.getEventTimestamp().toLocalDate().isBefore(firstKept)).toList());
+        assertThat(ids(store.findByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, APP,
+                START, END, Map.of(), null, false))).containsExactlyElementsOf(kept);
+
+        // Reopened from disk, the dropped days stay gone and ids continue after the highest one
+        store.stop();
+        stores.remove(store);
+        ColumnarEventStore reopened = store();
+        assertThat(ids(reopened.findByTimeRange(PageSpeedEvent.class, PageSpeedEventResponseDTO.class, APP,
+                START, END, Map.of(), null, false))).containsExactlyElementsOf(kept);
+        long highest = Math.max(shop.stream().mapToLong(BaseEntity::getId).max().orElseThrow(),
+                blog.stream().mapToLong(BaseEntity::getId).max().orElseThrow());
+        PageSpeedEvent next = reopened.save(PageSpeedEvent.class, events(APP, 1).get(0));
+        assertThat(next.getId()).isEqualTo(highest + 1);
+    }
+
+    private ColumnarEventStore store() {
+        StoreProperties properties = new StoreProperties();
+        properties.getColumnar().setDirectory(directory.toString());
+        properties.getColumnar().setSegmentRows(7);
+        properties.getColumnar().setFlushIntervalMs(3_600_000);
+        ColumnarEventStore store = new ColumnarEventStore(properties,
+                new AppRegistry(mock(ApplicationRepository.class), new AppProperties()));
+        store.start();
+        stores.add(store);
+        return store;
+    }
+
+    /**
+     * Saves events in shuffled order, a few at a time, so ids do not follow timestamps and
+     * rows end up in several segments and the buffer
+     * @return the events in (eventTimestamp, id) order
+     */
+    private static List<PageSpeedEvent> save(ColumnarEventStore store, List<PageSpeedEvent> events) {
+        List<PageSpeedEvent> shuffled = new ArrayList<>(events);
+        Collections.shuffle(shuffled, new Random(3));
+        for (int i = 0; i < shuffled.size(); i += 3) {
+            store.saveAll(PageSpeedEvent.class, new ArrayList<>(shuffled.subList(i, Math.min(i + 3, shuffled.size()))));
+        }
+        shuffled.sort(Comparator.comparing(PageSpeedEvent::getEventTimestamp).thenComparing(BaseEntity::getId));
+        return shuffled;
+    }
+
+    /**
+     * Five events per timestamp, a second apart, over three days
+     */
+    private static List<PageSpeedEvent> events(String appKey, int count) {
+        List<PageSpeedEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PageSpeedEvent event = new PageSpeedEvent();
+            event.setAppKey(appKey);
+            event.setSessionId("s" + i);
+            event.setUserId("u" + i);
+            event.setPageUrl("https://shop.example/p" + i % 3);
+            event.setLoadTime(1000.0 + i * 7.5);
+            event.setDomContentLoaded(500.0);
+            event.setDomInteractive(400.0);
+            event.setResourceLoadTime(300.0);
+            event.setFirstPaint(i % 2 == 0 ? 100.0 + i : null);
+            event.setEventTimestamp(START.plusDays(i % 3).plusHours(12).plusSeconds(i / 5));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static List<Long> ids(List<?> rows) {
+        return rows.stream().map(row -> row instanceof BaseEntity entity ? entity.getId()
+                : ((PageSpeedEventResponseDTO) row).getId()).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.Rum.store.columnar;
+
+import com.example.Rum.model.BaseEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every column kind reads back from a written segment as it was, nulls included, with the
+ * header's timestamp bounds and max id; an empty segment overlaps no range
+ */
+class SegmentTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    private final EventSchema<Row> schema = EventSchema.of(Row.class);
+
+    @Test
+    void columnsRoundTripWithNulls() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        // The first row is null in every nullable column, so nulls never lean on a previous value
+        rows.add(row(1, T0, null, null, null, null, null));
+        rows.add(row(2, T0.plusNanos(1_000), -5, 12.5, "a", true, -3L));
+        rows.add(row(3, T0.plusSeconds(1), null, Double.NaN, null, false, null));
+        rows.add(row(9, T0.plusSeconds(1), Integer.MAX_VALUE, Double.NEGATIVE_INFINITY, "b", null, Long.MIN_VALUE));
+        rows.add(row(4, T0.plusDays(1), Integer.MIN_VALUE, Double.POSITIVE_INFINITY, "a", true, Long.MAX_VALUE));
+
+        Segment written = Segment.write(directory.resolve("1" + Segment.SUFFIX), schema, rows);
+        Segment segment = Segment.open(written.getPath());
+
+        assertThat(segment.getRowCount()).isEqualTo(rows.size());
+        assertThat(segment.getMaxId()).isEqualTo(9);
+        assertThat(segment.getMinTimestamp()).isEqualTo(ColumnCodec.toMicros(T0));
+        assertThat(segment.getMaxTimestamp()).isEqualTo(ColumnCodec.toMicros(T0.plusDays(1)));
+        for (EventSchema.ColumnDef def : schema.columns()) {
+            Column column = segment.column(def.name);
+            for (int i = 0; i < rows.size(); i++) {
+                assertThat(column.get(i)).as("%s of row %d", def.name, i).isEqualTo(def.get(rows.get(i)));
+            }
+        }
+        assertThat(Files.list(directory)).containsExactly(directory.resolve("1" + Segment.SUFFIX));
+    }
+
+    @Test
+    void attributesAddedAfterTheSegmentReadAsNull() {
+        Segment segment = Segment.write(directory.resolve("1" + Segment.SUFFIX), schema,
+                List.of(row(1, T0, 1, 1.0, "a", true, 1L)));
+
+        assertThat(segment.column("addedLater").get(0)).isNull();
+    }
+
+    @Test
+    void emptySegmentOverlapsNoRange() {
+        Segment segment = Segment.write(directory.resolve("1" + Segment.SUFFIX), schema, List.of());
+
+        assertThat(segment.getRowCount()).isZero();
+        assertThat(segment.overlaps(Long.MIN_VALUE, Long.MAX_VALUE)).isFalse();
+        assertThat(((Column.Doubles) segment.column("value")).values).isEmpty();
+        assertThat(((Column.Longs) segment.column("eventTimestamp")).values).isEmpty();
+    }
+
+    private static Row row(long id, LocalDateTime eventTimestamp, Integer count, Double value, String label,
+                           Boolean flag, Long total) {
+        Row row = new Row();
+        row.setId(id);
+        row.setCreatedAt(T0);
+        row.setUpdatedAt(T0);
+        row.eventTimestamp = eventTimestamp;
+        row.count = count;
+        row.value = value;
+        row.label = label;
+        row.flag = flag;
+        row.total = total;
+        return row;
+    }
+
+    /**
+     * A column of every kind
+     */
+    static class Row extends BaseEntity {
+        private LocalDateTime eventTimestamp;
+        private Integer count;
+        private Double value;
+        private String label;
+        private Boolean flag;
+        private Long total;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Rum.tenancy;
+
+import com.example.Rum.dto.response.ErrorEventResponseDTO;
+import com.example.Rum.dto.response.ErrorIssueResponseDTO;
+import com.example.Rum.dto.response.PageViewEventResponseDTO;
+import com.example.Rum.ingest.EventBatch;
+import com.example.Rum.ingest.EventBatchWriter;
+import com.example.Rum.ingest.EventStreamReader;
+import com.example.Rum.service.RUMEventService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applications sending the same sessions, pages and errors see only their own events, in the
+ * raw reads as well as the aggregates
+ */
+@SpringBootTest
+class AppIsolationTest {
+
+    // An hour ago, whole minutes, so the buckets are current and no expiry sweep drops them
+    private static final long TIMESTAMP = (System.currentTimeMillis() - 3_600_000) / 60_000 * 60_000;
+
+    @Autowired
+    private RUMEventService rumEventService;
+    @Autowired
+    private EventBatchWriter eventBatchWriter;
+    @Autowired
+    private EventStreamReader eventStreamReader;
+    @Autowired
+    private AppRegistry appRegistry;
+
+    @Test
+    void appsSeeOnlyTheirOwnEvents() throws Exception {
+        String north = "north-" + UUID.randomUUID();
+        String south = "south-" + UUID.randomUUID();
+        write(north, 2);
+        write(south, 1);
+
+        assertThat(appRegistry.appKeys()).contains(north, south);
+        assertThat(pageViews(north)).hasSize(2).extracting(PageViewEventResponseDTO::getSessionId).containsOnly("s1");
+        assertThat(pageViews(south)).hasSize(1);
+        List<ErrorEventResponseDTO> northErrors = rumEventService.getErrorsBySession(north, "s1", null);
+        List<ErrorEventResponseDTO> southErrors = rumEventService.getErrorsBySession(south, "s1", null);
+        assertThat(northErrors).hasSize(2);
+        assertThat(southErrors).singleElement().extracting(ErrorEventResponseDTO::getId)
+                .isNotIn(northErrors.stream().map(ErrorEventResponseDTO::getId).toList());
+
+        assertThat(rumEventService.getDashboardStats(north, TIMESTAMP, TIMESTAMP))
+                .containsEntry("totalPageViews", 2L).containsEntry("totalErrors", 2L).containsEntry("uniqueSessions", 1L);
+        assertThat(rumEventService.getDashboardStats(south, TIMESTAMP, TIMESTAMP))
+                .containsEntry("totalPageViews", 1L).containsEntry("totalErrors", 1L).containsEntry("uniqueSessions", 1L);
+        // The same error groups under one issue per application
+        assertThat(rumEventService.getTopIssues(north, null, 10, "occurrences")).singleElement()
+                .extracting(ErrorIssueResponseDTO::getOccurrences).isEqualTo(2L);
+        assertThat(rumEventService.getTopIssues(south, null, 10, "occurrences")).singleElement()
+                .extracting(ErrorIssueResponseDTO::getOccurrences).isEqualTo(1L);
+    }
+
+    /**
+     * The same page view and error of session s1, repeated
+     */
+    private void write(String appKey, int times) throws Exception {
+        String common = "\"timestamp\":" + TIMESTAMP + ",\"sessionId\":\"s1\",\"userId\":\"u1\","
+                + "\"pageUrl\":\"https://shop.example/cart\"";
+        String events = ("{\"type\":\"pageView\"," + common + ",\"data\":{\"pagePath\":\"/cart\"}},"
+                + "{\"type\":\"error\"," + common + ",\"data\":{\"message\":\"x is undefined\",\"errorType\":\"TypeError\","
+                + "\"stack\":\"TypeError: x is undefined\\n    at app.js:3:7\"}},").repeat(times);
+        String json = "[" + events.substring(0, events.length() - 1) + "]";
+        EventBatch batch = eventStreamReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 65536);
+        batch.setAppKey(appKey);
+        assertThat(eventBatchWriter.write(batch)).isEmpty();
+    }
+
+    private List<PageViewEventResponseDTO> pageViews(String appKey) {
+        return rumEventService.getPageViewsByTimeRange(appKey, TIMESTAMP, TIMESTAMP, Map.of(), null);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Rum.tenancy;
+
+import com.example.Rum.model.Application;
+import com.example.Rum.repository.ApplicationRepository;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A request's app key comes from the header or the envelope, which must agree, else from the
+ * default; malformed and unlisted keys are refused, and ingest registers new keys only up to
+ * rum.apps.max-apps, counting the applications earlier runs registered
+ */
+class AppRegistryTest {
+
+    private final ApplicationRepository repository = mock(ApplicationRepository.class);
+
+    @Test
+    void headerAndEnvelopeMustAgreeAndFallBackToTheDefault() {
+        AppRegistry registry = new AppRegistry(repository, new AppProperties());
+
+        assertThat(registry.resolve("shop", null)).isEqualTo("shop");
+        assertThat(registry.resolve(null, "shop")).isEqualTo("shop");
+        assertThat(registry.resolve("shop", "shop")).isEqualTo("shop");
+        assertThat(registry.resolve(null, null)).isEqualTo("default");
+        assertThatThrownBy(() -> registry.resolve("shop", "blog"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("differ");
+    }
+
+    @Test
+    void malformedUnlistedAndMissingKeysAreRefused() {
+        AppProperties properties = new AppProperties();
+        properties.setDefaultAppKey("");
+        properties.setAllowedAppKeys(Set.of("shop", "blog"));
+        AppRegistry registry = new AppRegistry(repository, properties);
+
+        assertThat(registry.resolve("blog", null)).isEqualTo("blog");
+        assertThatThrownBy(() -> registry.resolve("news", null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Unknown app key 'news'");
+        // Keys become directory names of the column store
+        assertThatThrownBy(() -> registry.resolve("../shop", null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Invalid app key");
+        assertThatThrownBy(() -> registry.resolve(null, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Missing app key");
+    }
+
+    @Test
+    void newKeysAreAdmittedUpToTheLimit() {
+        AppProperties properties = new AppProperties();
+        properties.setMaxApps(3);
+        when(repository.findAll()).thenReturn(List.of(new Application("shop"), new Application("blog")));
+        when(repository.existsById("shop")).thenReturn(true);
+        AppRegistry registry = new AppRegistry(repository, properties);
+
+        registry.admit("news");
+        registry.admit("news");
+        registry.admit("shop");
+
+        assertThatThrownBy(() -> registry.admit("forum"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("limit of 3");
+        verify(repository, times(1)).save(any(Application.class));
+        // Keys already holding data are registered past the limit
+        registry.register("forum");
+        verify(repository, times(2)).save(any(Application.class));
+    }
+}
@@ -18,10 +18,19 @@ import {
   ErrorSeverity
 } from './types.js';
 
+// Session-level fields sent once per batch in the envelope's context
+const CONTEXT_FIELDS = ['sessionId', 'userId', 'pageUrl', 'userAgent'] as const;
+
+// Backend limits on one request (rum.admission.max-events-per-batch and max-body-bytes, the
+// latter counted before compression); a larger batch is refused whole with 413
+const MAX_BATCH_EVENTS = 500;
+const MAX_BATCH_BYTES = 1024 * 1024;
+
 export class RUMWrapper {
   private eventsQueue: AllRUMEvents[] = [];
   private config: Required<SDKConfig>;
   private flushTimerId: number | null = null;
+  private flushBlockedUntil = 0;
   private sessionId: string;
   private userId: string;
   private observers: PerformanceObserver[] = [];
@@ -40,7 +49,9 @@ export class RUMWrapper {
     // Set defaults for optional config
     this.config = {
       backendUrl: config.backendUrl,
+      appKey: config.appKey ?? '',
       flushIntervalMs: config.flushIntervalMs || 5000,
+      compression: config.compression ?? true,
       batchSize: config.batchSize || 50,
       debug: config.debug || false,
       autoStart: config.autoStart ?? true,
@@ -1061,35 +1072,99 @@ export class RUMWrapper {
   }
 
   private async flushEvents(): Promise<void> {
-    if (this.eventsQueue.length === 0) {
+    if (this.eventsQueue.length === 0 || Date.now() < this.flushBlockedUntil) {
       return;
     }
 
-    const batch = [...this.eventsQueue];
-    this.eventsQueue = [];
+    // At most one batch per request; the rest stays queued for the next flush
+    const batch = this.eventsQueue.slice(0, Math.min(this.config.batchSize, MAX_BATCH_EVENTS));
+    let json = this.toWireBatch(batch);
+    while (batch.length > 1 && new Blob([json]).size > MAX_BATCH_BYTES) {
+      batch.length = Math.ceil(batch.length / 2);
+      json = this.toWireBatch(batch);
+    }
+    this.eventsQueue = this.eventsQueue.slice(batch.length);
 
     this.log(`Flushing ${batch.length} events to backend`);
 
+    const headers: Record<string, string> = {
+      'Content-Type': 'application/json',
+    };
+    if (this.config.appKey) {
+      headers['X-Rum-App-Key'] = this.config.appKey;
+    }
+
     try {
       const response = await fetch(this.config.backendUrl, {
         method: 'POST',
-        headers: {
-          'Content-Type': 'application/json',
-        },
-        body: JSON.stringify(batch),
+        headers,
+        body: await this.encodeBody(json, headers),
       });
 
+      if (response.status === 413) {
+        // Too large to ever be accepted: resending it would only be refused again
+        this.log(`Backend refused batch of ${batch.length} events as too large, dropping it`);
+        this.checkBatchSize();
+        return;
+      }
+
+      if (response.status === 429) {
+        const retryAfter = Number(response.headers.get('Retry-After'));
+        this.flushBlockedUntil = Date.now() + (retryAfter > 0 ? retryAfter * 1000 : this.config.flushIntervalMs);
+      }
+
       if (!response.ok) {
         throw new Error(`HTTP error! status: ${response.status}`);
       }
 
       this.log('Events sent successfully');
+      this.checkBatchSize();
     } catch (error) {
       this.log('Error sending events:', error);
       this.eventsQueue = batch.concat(this.eventsQueue);
     }
   }
 
+  /**
+   * The compact batch envelope: the session-level fields of the first event are sent once as
+   * "context", and each event keeps only the ones that differ from it
+   */
+  private toWireBatch(batch: AllRUMEvents[]): string {
+    const first = batch[0] as unknown as Record<string, unknown>;
+    const context: Record<string, unknown> = {};
+    for (const field of CONTEXT_FIELDS) {
+      context[field] = first[field];
+    }
+    const events = batch.map((event) => {
+      const compact: Record<string, unknown> = { ...event };
+      for (const field of CONTEXT_FIELDS) {
+        if (compact[field] === context[field]) {
+          delete compact[field];
+        }
+      }
+      return compact;
+    });
+    return JSON.stringify({ context, events });
+  }
+
+  /**
+   * Gzip the body when enabled and the browser supports it, setting Content-Encoding to match
+   */
+  private async encodeBody(json: string, headers: Record<string, string>): Promise<BodyInit> {
+    if (!this.config.compression || typeof CompressionStream === 'undefined') {
+      return json;
+    }
+    try {
+      const compressed = new Blob([json]).stream().pipeThrough(new CompressionStream('gzip'));
+      const body = await new Response(compressed).blob();
+      headers['Content-Encoding'] = 'gzip';
+      return body;
+    } catch (e) {
+      this.log('Compression failed, sending uncompressed:', e);
+      return json;
+    }
+  }
+
   private getRating(
     name: WebVitalName, 
     value: number
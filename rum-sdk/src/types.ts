@@ -197,7 +197,14 @@ export interface CustomEventType extends RUMEvent {
 // ========== CONFIGURATION ==========
 export interface SDKConfig {
   backendUrl: string;
+  // Application the events belong to, sent as the X-Rum-App-Key header; the backend's
+  // default application when omitted
+  appKey?: string;
   flushIntervalMs?: number;
+  // Gzip each batch (Content-Encoding: gzip) where the browser has CompressionStream; on by default
+  compression?: boolean;
+  // Events sent per request, and the queue length that triggers a flush; at most 500 (the
+  // backend's limit) are sent at once
   batchSize?: number;
   debug?: boolean;
   autoStart?: boolean;